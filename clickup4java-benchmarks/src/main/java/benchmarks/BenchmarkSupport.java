@@ -0,0 +1,103 @@
+package benchmarks;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpResponse.ResponseInfo;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+
+/**
+ * Helpers shared by the benchmarks.
+ *
+ * @author Lucas Alexandre Bez Piancoski
+ * @since 1.0.0
+ */
+final class BenchmarkSupport {
+
+	static final String SAMPLE_RESPONSE = "{\"id\":\"9a8b7c6d-1234-5678-9abc-def012345678.jpg\",\"version\":\"0\","
+			+ "\"date\":1718000000000,\"name\":\"image.jpg\",\"title\":\"image.jpg\",\"extension\":\"jpg\",\"source\":2,"
+			+ "\"thumbnail_small\":\"https://attachments.clickup.com/small/image.jpg\","
+			+ "\"thumbnail_medium\":\"https://attachments.clickup.com/medium/image.jpg\","
+			+ "\"thumbnail_large\":\"https://attachments.clickup.com/large/image.jpg\","
+			+ "\"url\":\"https://t900.p.clickup-attachments.com/t900/image.jpg\","
+			+ "\"url_w_query\":\"https://t900.p.clickup-attachments.com/t900/image.jpg?view=open\","
+			+ "\"url_w_host\":\"https://t900.p.clickup-attachments.com/t900/image.jpg\"}";
+
+	private BenchmarkSupport() {}
+
+	/**
+	 * @param file_name a file of {@code clickup4java/src/test/resources/files}
+	 * @return the path of the sample file
+	 */
+	static Path sampleFile(String file_name) {
+		String directory = System.getProperty("clickup4java.files");
+		Path path = directory != null
+				? Paths.get(directory, file_name)
+				: Paths.get("clickup4java", "src", "test", "resources", "files", file_name);
+		if (!Files.exists(path)) path = Paths.get("..").resolve(path);
+		if (!Files.exists(path)) {
+			throw new IllegalStateException("Sample file not found: " + file_name + ", set -Dclickup4java.files=<directory>");
+		}
+		return path.toAbsolutePath().normalize();
+	}
+
+	static ResponseInfo responseInfo(int status_code, int content_length) {
+		HttpHeaders headers = HttpHeaders.of(Map.of("Content-Type", List.of("application/json"),
+				"Content-Length", List.of(String.valueOf(content_length))), (name, value) -> true);
+		return new ResponseInfo() {
+			@Override
+			public int statusCode() {
+				return status_code;
+			}
+
+			@Override
+			public HttpHeaders headers() {
+				return headers;
+			}
+
+			@Override
+			public HttpClient.Version version() {
+				return HttpClient.Version.HTTP_2;
+			}
+		};
+	}
+
+	/**
+	 * Subscribes to the publisher, requests everything and waits until it completes.
+	 *
+	 * @return the number of bytes published
+	 */
+	static long drain(Flow.Publisher<ByteBuffer> publisher) {
+		CompletableFuture<Long> total = new CompletableFuture<>();
+		publisher.subscribe(new Flow.Subscriber<ByteBuffer>() {
+			private long bytes;
+
+			@Override
+			public void onSubscribe(Flow.Subscription subscription) {
+				subscription.request(Long.MAX_VALUE);
+			}
+
+			@Override
+			public void onNext(ByteBuffer item) {
+				bytes += item.remaining();
+			}
+
+			@Override
+			public void onError(Throwable throwable) {
+				total.completeExceptionally(throwable);
+			}
+
+			@Override
+			public void onComplete() {
+				total.complete(bytes);
+			}
+		});
+		return total.join();
+	}
+}
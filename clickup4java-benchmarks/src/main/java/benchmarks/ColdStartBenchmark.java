@@ -0,0 +1,106 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URISyntaxException;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.sun.net.httpserver.HttpServer;
+
+import api.attachments.CreateTaskAttachments;
+import engine.ClickUpClient;
+import engine.RetryPolicy;
+import engine.TokenProviders;
+import responses.CreateTaskAttachmentResponse;
+
+/**
+ * Measures the first upload of a fresh JVM, like the one of a short-lived test fork: client creation, class loading,
+ * JSON binding setup and connection included. Every fork measures one upload, so the score is the cold start latency.
+ * Compare the runs with and without {@code -jvmArgsAppend -XX:SharedArchiveFile=target/benchmarks.jsa}, the AppCDS
+ * archive built by the {@code appcds} profile, and with {@code -p warmUp=true} to see what {@link ClickUpClient#warmUp()}
+ * takes off the critical path.
+ *
+ * @author Lucas Alexandre Bez Piancoski
+ * @since 1.0.0
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(20)
+@State(Scope.Benchmark)
+public class ColdStartBenchmark {
+
+	/** Warms the client up in the setup, out of the measured upload. */
+	@Param({ "false", "true" })
+	public boolean warmUp;
+
+	private HttpServer server;
+	private ClickUpClient client;
+	private String filePath;
+
+	@Setup
+	public void setup() throws IOException, InterruptedException {
+		System.setProperty("sun.net.httpserver.nodelay", "true");
+		byte[] response = BenchmarkSupport.SAMPLE_RESPONSE.getBytes(StandardCharsets.UTF_8);
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 16);
+		server.createContext("/api/v2/", exchange -> {
+			try (InputStream in = exchange.getRequestBody()) {
+				in.transferTo(OutputStream.nullOutputStream());
+			}
+			exchange.getResponseHeaders().add("Content-Type", "application/json");
+			exchange.sendResponseHeaders(200, response.length);
+			try (OutputStream out = exchange.getResponseBody()) {
+				out.write(response);
+			}
+		});
+		server.start();
+
+		filePath = BenchmarkSupport.sampleFile("text.txt").toString();
+		if (warmUp) {
+			client().warmUp();
+		}
+	}
+
+	@TearDown
+	public void tearDown() {
+		server.stop(0);
+	}
+
+	@Benchmark
+	public CreateTaskAttachmentResponse firstUpload() throws IOException, URISyntaxException, InterruptedException {
+		return new CreateTaskAttachments(client())
+				.callSyncCreateTaskAttachmentAPI("86aef6x03", filePath, Optional.empty(), Optional.empty());
+	}
+
+	/** Built on first use, by the warm-up or else by the measured upload. */
+	private ClickUpClient client() {
+		if (client == null) {
+			client = ClickUpClient.builder()
+					.baseUrl("http://127.0.0.1:" + server.getAddress().getPort() + "/api/v2/")
+					.version(HttpClient.Version.HTTP_1_1)
+					.retryPolicy(RetryPolicy.none())
+					.tokenProvider(TokenProviders.of("pk_00000000_BENCHMARKTOKEN"))
+					.build();
+		}
+		return client;
+	}
+}
@@ -0,0 +1,75 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.net.http.HttpResponse.BodySubscriber;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import helpers.JsonBodyHandler;
+import helpers.ResolveJsonMappingToObjects;
+import responses.CreateTaskAttachmentResponse;
+
+/**
+ * Measures the mapping of a {@link CreateTaskAttachmentResponse}, from a {@code String} with
+ * {@link ResolveJsonMappingToObjects} and from the response bytes with {@link JsonBodyHandler}. {@link #reflective()}
+ * is the baseline of the hand-written deserializer: the bean deserializer Jackson builds by introspection.
+ *
+ * @author Lucas Alexandre Bez Piancoski
+ * @since 1.0.0
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonMappingBenchmark {
+
+	private static final Flow.Subscription NO_OP = new Flow.Subscription() {
+		@Override
+		public void request(long n) {}
+
+		@Override
+		public void cancel() {}
+	};
+
+	private final byte[] bytes = BenchmarkSupport.SAMPLE_RESPONSE.getBytes(StandardCharsets.UTF_8);
+	private final JsonBodyHandler<CreateTaskAttachmentResponse> handler = JsonBodyHandler.of(CreateTaskAttachmentResponse.class);
+	private final ObjectReader reflectiveReader = new ObjectMapper().readerFor(CreateTaskAttachmentResponse.class);
+
+	@Benchmark
+	public CreateTaskAttachmentResponse fromString() {
+		String body = new String(bytes, StandardCharsets.UTF_8);
+		return ResolveJsonMappingToObjects.convertJSON(body, CreateTaskAttachmentResponse.class);
+	}
+
+	@Benchmark
+	public CreateTaskAttachmentResponse reflective() throws IOException {
+		return reflectiveReader.readValue(bytes);
+	}
+
+	@Benchmark
+	public CreateTaskAttachmentResponse fromBodyHandler() {
+		BodySubscriber<CreateTaskAttachmentResponse> subscriber = handler.apply(BenchmarkSupport.responseInfo(200, bytes.length));
+		subscriber.onSubscribe(NO_OP);
+		subscriber.onNext(List.of(ByteBuffer.wrap(bytes)));
+		subscriber.onComplete();
+		return subscriber.getBody().toCompletableFuture().join();
+	}
+}
@@ -0,0 +1,57 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.net.http.HttpRequest.BodyPublisher;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import helpers.GenerateBodyPublisherForRequestWithFile;
+import helpers.GenerateUUIDBoundary;
+
+/**
+ * Measures {@link GenerateBodyPublisherForRequestWithFile}: building the multipart body, and building
+ * plus streaming it the way the HTTP client does.
+ *
+ * @author Lucas Alexandre Bez Piancoski
+ * @since 1.0.0
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MultipartBodyBenchmark {
+
+	@Param({ "text.txt", "image.jpg", "audio.mp3", "video.mp4", "excel.xlsx", "word.docx", "powerpoint.pptx", "winrar.zip" })
+	public String fileName;
+
+	private String filePath;
+
+	@Setup
+	public void setup() {
+		filePath = BenchmarkSupport.sampleFile(fileName).toString();
+	}
+
+	@Benchmark
+	public BodyPublisher generateBody() throws IOException {
+		return GenerateBodyPublisherForRequestWithFile.generateRequestWithFileAsBody(GenerateUUIDBoundary.getNewUUIDBoundary(), filePath);
+	}
+
+	@Benchmark
+	public long generateAndStreamBody() throws IOException {
+		BodyPublisher body = GenerateBodyPublisherForRequestWithFile.generateRequestWithFileAsBody(GenerateUUIDBoundary.getNewUUIDBoundary(), filePath);
+		return BenchmarkSupport.drain(body);
+	}
+}
@@ -0,0 +1,59 @@
+package benchmarks;
+
+import java.net.URISyntaxException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublisher;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import engine.API_URL_BASE;
+import engine.HttpRequestProvider;
+import helpers.GenerateUUIDBoundary;
+
+/**
+ * Measures the construction of requests by {@link HttpRequestProvider} and the generation of
+ * multipart boundaries by {@link GenerateUUIDBoundary}.
+ *
+ * @author Lucas Alexandre Bez Piancoski
+ * @since 1.0.0
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RequestBuildBenchmark {
+
+	private static final Optional<String> TOKEN = Optional.of("pk_00000000_BENCHMARKTOKEN");
+	private static final String URL = API_URL_BASE.TASK_API_URL_BASE.getUrl() + "86aef6x03/attachment";
+
+	private final HttpRequestProvider provider = new HttpRequestProvider();
+	private final BodyPublisher body = BodyPublishers.noBody();
+
+	@Benchmark
+	public String boundary() {
+		return GenerateUUIDBoundary.getNewUUIDBoundary();
+	}
+
+	@Benchmark
+	public HttpRequest multipartPost() throws URISyntaxException {
+		return provider.generateHttpRequestForPOSTWithFileAsBody(URL, "----Boundary", body, TOKEN);
+	}
+
+	@Benchmark
+	public HttpRequest get() throws URISyntaxException {
+		return provider.generateHttpRequestForGET(URL, TOKEN);
+	}
+}
@@ -0,0 +1,114 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URISyntaxException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.sun.net.httpserver.HttpServer;
+
+import engine.HttpRequestExecutor;
+import engine.HttpRequestProvider;
+import engine.RateLimiter;
+import engine.RetryPolicy;
+import helpers.GenerateBodyPublisherForRequestWithFile;
+import helpers.GenerateUUIDBoundary;
+import helpers.JsonBodyHandler;
+import responses.CreateTaskAttachmentResponse;
+
+/**
+ * Measures complete uploads, from the body generation to the mapped response, against an in-process
+ * HTTP server answering like the task attachment endpoint. Run it with {@code -t <threads>} to
+ * measure the client under concurrency.
+ *
+ * @author Lucas Alexandre Bez Piancoski
+ * @since 1.0.0
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UploadBenchmark {
+
+	private static final Optional<String> TOKEN = Optional.of("pk_00000000_BENCHMARKTOKEN");
+
+	@Param({ "text.txt", "image.jpg", "video.mp4" })
+	public String fileName;
+
+	private HttpServer server;
+	private ExecutorService serverExecutor;
+	private HttpRequestExecutor executor;
+	private String filePath;
+	private String url;
+
+	@Setup
+	public void setup() throws IOException {
+		RateLimiter.setInitialRequestsPerMinute(Integer.MAX_VALUE);
+		// without it, Nagle's algorithm delays every small response by the peer's delayed ACK (~40 ms)
+		System.setProperty("sun.net.httpserver.nodelay", "true");
+		byte[] response = BenchmarkSupport.SAMPLE_RESPONSE.getBytes(StandardCharsets.UTF_8);
+		serverExecutor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 1024);
+		server.setExecutor(serverExecutor);
+		server.createContext("/api/v2/task/", exchange -> {
+			try (InputStream in = exchange.getRequestBody()) {
+				in.transferTo(OutputStream.nullOutputStream());
+			}
+			exchange.getResponseHeaders().add("Content-Type", "application/json");
+			exchange.sendResponseHeaders(200, response.length);
+			try (OutputStream out = exchange.getResponseBody()) {
+				out.write(response);
+			}
+		});
+		server.start();
+
+		executor = new HttpRequestExecutor(HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build(), RetryPolicy.none());
+		filePath = BenchmarkSupport.sampleFile(fileName).toString();
+		url = "http://127.0.0.1:" + server.getAddress().getPort() + "/api/v2/task/86aef6x03/attachment";
+	}
+
+	@TearDown
+	public void tearDown() {
+		server.stop(0);
+		serverExecutor.shutdownNow();
+	}
+
+	@Benchmark
+	public CreateTaskAttachmentResponse syncUpload() throws IOException, URISyntaxException, InterruptedException {
+		return executor.send(request(), JsonBodyHandler.of(CreateTaskAttachmentResponse.class)).body();
+	}
+
+	@Benchmark
+	public CreateTaskAttachmentResponse asyncUpload() throws IOException, URISyntaxException {
+		return executor.sendAsync(request(), JsonBodyHandler.of(CreateTaskAttachmentResponse.class)).join().body();
+	}
+
+	private HttpRequest request() throws IOException, URISyntaxException {
+		String boundary = GenerateUUIDBoundary.getNewUUIDBoundary();
+		return new HttpRequestProvider().generateHttpRequestForPOSTWithFileAsBody(url, boundary,
+				GenerateBodyPublisherForRequestWithFile.generateRequestWithFileAsBody(boundary, filePath), TOKEN);
+	}
+}
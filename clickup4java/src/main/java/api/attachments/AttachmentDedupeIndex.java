@@ -0,0 +1,221 @@
+package api.attachments;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect.Visibility;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import helpers.ResolveJsonMappingToObjects;
+import responses.CreateTaskAttachmentResponse;
+
+/**
+ * Bounded index of the attachments already uploaded, keyed by task and content hash, used by
+ * {@link DedupingCreateTaskAttachments}.
+ * <p>
+ * Entries are evicted in least recently used order once {@code max_entries} is reached. An index opened on
+ * a file is loaded once, and every change is appended to it as one JSON line, so recording an upload costs a
+ * small write whatever the size of the index. When the file holds twice as many lines as entries it is compacted,
+ * written to a temporary file moved over the previous one. A line cut by an interrupted run is ignored on load.
+ * All methods are thread-safe.
+ * </p>
+ *
+ * @author Lucas Alexandre Bez Piancoski
+ * @since 1.0.0
+ */
+public final class AttachmentDedupeIndex {
+
+	public static final int DEFAULT_MAX_ENTRIES = 10_000;
+
+	/**
+	 * Writes the response fields directly, the getters expose converted values such as {@code Instant}. The fields
+	 * are named like the API properties, so they read back with the deserializer of the responses.
+	 */
+	private static final ObjectMapper MAPPER = new ObjectMapper()
+			.setVisibility(PropertyAccessor.ALL, Visibility.NONE)
+			.setVisibility(PropertyAccessor.FIELD, Visibility.ANY)
+			.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
+			.registerModule(ResolveJsonMappingToObjects.createResponseModule());
+
+	private final Optional<Path> file;
+	private final int maxEntries;
+	private final LinkedHashMap<String, CreateTaskAttachmentResponse> entries;
+	private long lines;
+
+	private AttachmentDedupeIndex(Optional<Path> file, int max_entries) {
+		if (max_entries < 1) throw new IllegalArgumentException("max_entries must be at least 1");
+		this.file = file;
+		this.maxEntries = max_entries;
+		this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, CreateTaskAttachmentResponse> eldest) {
+				return size() > maxEntries;
+			}
+		};
+	}
+
+	/**
+	 * @param max_entries the number of uploads remembered
+	 * @return an index living as long as the JVM
+	 */
+	public static AttachmentDedupeIndex inMemory(int max_entries) {
+		return new AttachmentDedupeIndex(Optional.empty(), max_entries);
+	}
+
+	/**
+	 * Opens the index stored in {@code file}, or an empty one if the file does not exist yet.
+	 *
+	 * @param file        where the index is persisted, e.g. {@code target/clickup-attachments.json}
+	 * @param max_entries the number of uploads remembered
+	 * @return the index
+	 * @throws IOException if the file exists but cannot be read
+	 */
+	public static AttachmentDedupeIndex open(Path file, int max_entries) throws IOException {
+		AttachmentDedupeIndex index = new AttachmentDedupeIndex(Optional.of(Objects.requireNonNull(file, "file")), max_entries);
+		if (Files.exists(file)) {
+			try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+				for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+					index.replay(line);
+				}
+			}
+			index.compact();
+		}
+		return index;
+	}
+
+	/**
+	 * @param task_id the task the file was attached to
+	 * @param team_id the team, when {@code task_id} is a custom task id
+	 * @param content_hash the hash of the file content
+	 * @return the key of the upload
+	 */
+	public static String keyOf(String task_id, Optional<String> team_id, String content_hash) {
+		return team_id.map(team -> team + "/").orElse("") + task_id + "/" + content_hash;
+	}
+
+	/**
+	 * @return the response of the previous upload, which becomes the most recently used entry
+	 */
+	public synchronized Optional<CreateTaskAttachmentResponse> get(String key) {
+		return Optional.ofNullable(entries.get(key));
+	}
+
+	/**
+	 * Remembers an upload. The entry is kept in memory even if persisting it fails.
+	 *
+	 * @throws IOException if the index cannot be written to its file
+	 */
+	public synchronized void put(String key, CreateTaskAttachmentResponse response) throws IOException {
+		entries.put(Objects.requireNonNull(key, "key"), Objects.requireNonNull(response, "response"));
+		append(new Change(key, response));
+	}
+
+	/**
+	 * Forgets an upload, e.g. after the attachment was deleted from the task.
+	 *
+	 * @throws IOException if the index cannot be written to its file
+	 */
+	public synchronized void remove(String key) throws IOException {
+		if (entries.remove(key) != null) append(new Change(key, null));
+	}
+
+	/**
+	 * @throws IOException if the index cannot be written to its file
+	 */
+	public synchronized void clear() throws IOException {
+		entries.clear();
+		compact();
+	}
+
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	public int getMaxEntries() {
+		return maxEntries;
+	}
+
+	private void replay(String line) {
+		Change change;
+		try {
+			change = MAPPER.readValue(line, Change.class);
+		} catch (IOException e) {
+			// cut by an interrupted write
+			return;
+		}
+		if (change.key == null) return;
+		if (change.response == null) entries.remove(change.key);
+		else entries.put(change.key, change.response);
+		lines++;
+	}
+
+	private void append(Change change) throws IOException {
+		if (file.isEmpty()) return;
+		if (lines >= 2L * Math.max(entries.size(), 16)) {
+			compact();
+			return;
+		}
+		byte[] line = (MAPPER.writeValueAsString(change) + "\n").getBytes(StandardCharsets.UTF_8);
+		Path target = file.get().toAbsolutePath();
+		Files.createDirectories(target.getParent());
+		Files.write(target, line, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+		lines++;
+	}
+
+	/**
+	 * Rewrites the file with one line per entry, from the least to the most recently used.
+	 */
+	private void compact() throws IOException {
+		if (file.isEmpty()) return;
+		Path target = file.get().toAbsolutePath();
+		Files.createDirectories(target.getParent());
+		Path temp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+		try {
+			try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+				for (Map.Entry<String, CreateTaskAttachmentResponse> entry : entries.entrySet()) {
+					writer.write(MAPPER.writeValueAsString(new Change(entry.getKey(), entry.getValue())));
+					writer.write('\n');
+				}
+			}
+			try {
+				Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+			}
+		} finally {
+			Files.deleteIfExists(temp);
+		}
+		lines = entries.size();
+	}
+
+	/**
+	 * One line of the index file, a removal when {@code response} is {@code null}.
+	 */
+	private static final class Change {
+		private String key;
+		private CreateTaskAttachmentResponse response;
+
+		@SuppressWarnings("unused")
+		private Change() {}
+
+		private Change(String key, CreateTaskAttachmentResponse response) {
+			this.key = key;
+			this.response = response;
+		}
+	}
+}
@@ -0,0 +1,59 @@
+package api.attachments;
+
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Describes a single file to be attached to a task by {@link BulkCreateTaskAttachments}.
+ *
+ * @author Lucas Alexandre Bez Piancoski
+ * @since 1.0.0
+ */
+public final class AttachmentUploadJob {
+
+	private final String taskId;
+	private final String filePath;
+	private final Optional<String> clickupToken;
+	private final Optional<String> teamId;
+
+	/**
+	 * @param task_id       task identifier (or custom task id when enabled)
+	 * @param file_path     local path to the file to upload
+	 * @param clickup_token optional ClickUp API token
+	 * @param team_id       optional team identifier (required when using custom task ids)
+	 */
+	public AttachmentUploadJob(String task_id, String file_path, Optional<String> clickup_token, Optional<String> team_id) {
+		this.taskId = Objects.requireNonNull(task_id, "task_id");
+		this.filePath = Objects.requireNonNull(file_path, "file_path");
+		this.clickupToken = Objects.requireNonNull(clickup_token, "clickup_token");
+		this.teamId = Objects.requireNonNull(team_id, "team_id");
+	}
+
+	/**
+	 * Creates a job that uses the environment token and no custom task id.
+	 */
+	public AttachmentUploadJob(String task_id, String file_path) {
+		this(task_id, file_path, Optional.empty(), Optional.empty());
+	}
+
+	public String getTaskId() {
+		return taskId;
+	}
+
+	public String getFilePath() {
+		return filePath;
+	}
+
+	public Optional<String> getClickupToken() {
+		return clickupToken;
+	}
+
+	public Optional<String> getTeamId() {
+		return teamId;
+	}
+
+	@Override
+	public String toString() {
+		return "AttachmentUploadJob[task_id=" + taskId + ", file_path=" + filePath + "]";
+	}
+}
@@ -0,0 +1,58 @@
+package api.attachments;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import responses.CreateTaskAttachmentResponse;
+
+/**
+ * Outcome of a single {@link AttachmentUploadJob} of a bulk upload.
+ *
+ * @author Lucas Alexandre Bez Piancoski
+ * @since 1.0.0
+ */
+public final class AttachmentUploadResult {
+
+	private final AttachmentUploadJob job;
+	private final CreateTaskAttachmentResponse response;
+	private final Throwable error;
+	private final Duration elapsed;
+
+	private AttachmentUploadResult(AttachmentUploadJob job, CreateTaskAttachmentResponse response, Throwable error, Duration elapsed) {
+		this.job = job;
+		this.response = response;
+		this.error = error;
+		this.elapsed = elapsed;
+	}
+
+	public static AttachmentUploadResult success(AttachmentUploadJob job, CreateTaskAttachmentResponse response, Duration elapsed) {
+		return new AttachmentUploadResult(job, response, null, elapsed);
+	}
+
+	public static AttachmentUploadResult failure(AttachmentUploadJob job, Throwable error, Duration elapsed) {
+		return new AttachmentUploadResult(job, null, error, elapsed);
+	}
+
+	public AttachmentUploadJob getJob() {
+		return job;
+	}
+
+	public boolean isSuccess() {
+		return error == null;
+	}
+
+	public Optional<CreateTaskAttachmentResponse> getResponse() {
+		return Optional.ofNullable(response);
+	}
+
+	public Optional<Throwable> getError() {
+		return Optional.ofNullable(error);
+	}
+
+	/**
+	 * @return time from the moment the upload started until it finished
+	 */
+	public Duration getElapsed() {
+		return elapsed;
+	}
+}
@@ -0,0 +1,68 @@
+package api.attachments;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Aggregated outcome of a bulk attachment upload.
+ * Results are listed in completion order.
+ *
+ * @author Lucas Alexandre Bez Piancoski
+ * @since 1.0.0
+ */
+public final class BulkAttachmentUploadReport {
+
+	private final List<AttachmentUploadResult> results;
+	private final Duration elapsed;
+
+	public BulkAttachmentUploadReport(List<AttachmentUploadResult> results, Duration elapsed) {
+		this.results = Collections.unmodifiableList(results);
+		this.elapsed = elapsed;
+	}
+
+	public List<AttachmentUploadResult> getResults() {
+		return results;
+	}
+
+	public List<AttachmentUploadResult> getSuccesses() {
+		return results.stream().filter(AttachmentUploadResult::isSuccess).collect(Collectors.toUnmodifiableList());
+	}
+
+	public List<AttachmentUploadResult> getFailures() {
+		return results.stream().filter(r -> !r.isSuccess()).collect(Collectors.toUnmodifiableList());
+	}
+
+	public boolean isAllSuccessful() {
+		return results.stream().allMatch(AttachmentUploadResult::isSuccess);
+	}
+
+	/**
+	 * @return wall-clock time of the whole batch
+	 */
+	public Duration getElapsed() {
+		return elapsed;
+	}
+
+	/**
+	 * @return the longest single upload of the batch, {@link Duration#ZERO} if it was empty
+	 */
+	public Duration getSlowestUpload() {
+		return results.stream().map(AttachmentUploadResult::getElapsed).max(Comparator.naturalOrder()).orElse(Duration.ZERO);
+	}
+
+	/**
+	 * @return the sum of every single upload time, what a serial loop would have taken
+	 */
+	public Duration getCumulativeUploadTime() {
+		return results.stream().map(AttachmentUploadResult::getElapsed).reduce(Duration.ZERO, Duration::plus);
+	}
+
+	@Override
+	public String toString() {
+		return "BulkAttachmentUploadReport[total=" + results.size() + ", successes=" + getSuccesses().size()
+				+ ", failures=" + getFailures().size() + ", elapsed=" + elapsed + "]";
+	}
+}
@@ -0,0 +1,147 @@
+package api.attachments;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+
+import responses.CreateTaskAttachmentResponse;
+
+/**
+ * Client responsible for uploading many task attachments with a bounded number of requests in flight.
+ * <p>
+ * Uploads are multiplexed over the HTTP/2 client of the {@link CreateTaskAttachments} instance by the batch of its
+ * {@link engine.EndpointPipeline}: up to {@code max_in_flight} requests are started, and each completed upload starts
+ * the next pending one.
+ * No thread is blocked while uploads are in flight, so a batch finishes in about the time of its
+ * slowest uploads instead of the sum of all of them.
+ * </p>
+ *
+ * @author Lucas Alexandre Bez Piancoski
+ * @since 1.0.0
+ */
+public class BulkCreateTaskAttachments {
+
+	public static final int DEFAULT_MAX_IN_FLIGHT = 8;
+
+	private final CreateTaskAttachments createTaskAttachments;
+	private final int maxInFlight;
+
+	public BulkCreateTaskAttachments() {
+		this(DEFAULT_MAX_IN_FLIGHT);
+	}
+
+	/**
+	 * @param max_in_flight maximum number of uploads running at the same time
+	 */
+	public BulkCreateTaskAttachments(int max_in_flight) {
+		this(new CreateTaskAttachments(), max_in_flight);
+	}
+
+	/**
+	 * @param create_task_attachments the client used for every single upload
+	 * @param max_in_flight maximum number of uploads running at the same time
+	 */
+	public BulkCreateTaskAttachments(CreateTaskAttachments create_task_attachments, int max_in_flight) {
+		if (max_in_flight < 1) throw new IllegalArgumentException("max_in_flight must be at least 1");
+		this.createTaskAttachments = Objects.requireNonNull(create_task_attachments, "create_task_attachments");
+		this.maxInFlight = max_in_flight;
+	}
+
+	/**
+	 * Uploads every job and waits for the whole batch.
+	 *
+	 * @param jobs      the attachments to create
+	 * @param on_result called with each result as soon as it is available, from the thread that completed it
+	 *
+	 * @return the aggregated {@link BulkAttachmentUploadReport}
+	 * @throws InterruptedException if the calling thread is interrupted while waiting
+	 * @throws RuntimeException     the exception thrown by {@code on_result}, as is
+	 */
+	public BulkAttachmentUploadReport callSyncBulkCreateTaskAttachmentAPI(Collection<AttachmentUploadJob> jobs,
+			Consumer<AttachmentUploadResult> on_result) throws InterruptedException {
+		try {
+			return callAsyncBulkCreateTaskAttachmentAPI(jobs, on_result).get();
+		} catch (ExecutionException e) {
+			// single upload failures are part of the report, only a failing callback ends up here
+			Throwable cause = e.getCause() instanceof CompletionException && e.getCause().getCause() != null
+					? e.getCause().getCause() : e.getCause();
+			if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+			if (cause instanceof Error) throw (Error) cause;
+			throw new CompletionException(cause);
+		}
+	}
+
+	/**
+	 * Uploads every job and waits for the whole batch.
+	 *
+	 * @param jobs the attachments to create
+	 *
+	 * @return the aggregated {@link BulkAttachmentUploadReport}
+	 * @throws InterruptedException if the calling thread is interrupted while waiting
+	 */
+	public BulkAttachmentUploadReport callSyncBulkCreateTaskAttachmentAPI(Collection<AttachmentUploadJob> jobs)
+			throws InterruptedException {
+		return callSyncBulkCreateTaskAttachmentAPI(jobs, result -> {});
+	}
+
+	/**
+	 * Starts the batch and returns immediately.
+	 * <p>
+	 * A failed upload never fails the returned future, it is reported as a failed
+	 * {@link AttachmentUploadResult}. The future only completes exceptionally if {@code on_result} throws.
+	 * </p>
+	 *
+	 * @param jobs      the attachments to create
+	 * @param on_result called with each result as soon as it is available, from the thread that completed it
+	 *
+	 * @return a future completed with the {@link BulkAttachmentUploadReport} once every job finished
+	 */
+	public CompletableFuture<BulkAttachmentUploadReport> callAsyncBulkCreateTaskAttachmentAPI(
+			Collection<AttachmentUploadJob> jobs, Consumer<AttachmentUploadResult> on_result) {
+		Objects.requireNonNull(on_result, "on_result");
+		List<AttachmentUploadJob> pending = List.copyOf(jobs);
+		List<AttachmentUploadResult> results = Collections.synchronizedList(new ArrayList<>(pending.size()));
+		long start = System.nanoTime();
+		// the upload time of a job counts from when its lane starts it, not from the start of the batch
+		AtomicLongArray started = new AtomicLongArray(pending.size());
+		for (int i = 0; i < pending.size(); i++) started.set(i, start);
+
+		List<CompletableFuture<CreateTaskAttachmentResponse>> uploads = createTaskAttachments
+				.callAsyncCreateTaskAttachmentBatch(pending, maxInFlight, index -> started.set(index, System.nanoTime()));
+		CompletableFuture<?>[] recorded = new CompletableFuture<?>[pending.size()];
+		for (int i = 0; i < pending.size(); i++) {
+			int index = i;
+			AttachmentUploadJob job = pending.get(i);
+			recorded[i] = uploads.get(i).handle((response, error) -> {
+				Duration elapsed = Duration.ofNanos(System.nanoTime() - started.get(index));
+				return error == null
+						? AttachmentUploadResult.success(job, response, elapsed)
+						: AttachmentUploadResult.failure(job, error, elapsed);
+			}).thenAccept(result -> {
+				results.add(result);
+				on_result.accept(result);
+			});
+		}
+		return CompletableFuture.allOf(recorded)
+				.thenApply(v -> new BulkAttachmentUploadReport(new ArrayList<>(results), Duration.ofNanos(System.nanoTime() - start)));
+	}
+
+	/**
+	 * Starts the batch and returns immediately.
+	 *
+	 * @param jobs the attachments to create
+	 *
+	 * @return a future completed with the {@link BulkAttachmentUploadReport} once every job finished
+	 */
+	public CompletableFuture<BulkAttachmentUploadReport> callAsyncBulkCreateTaskAttachmentAPI(Collection<AttachmentUploadJob> jobs) {
+		return callAsyncBulkCreateTaskAttachmentAPI(jobs, result -> {});
+	}
+}
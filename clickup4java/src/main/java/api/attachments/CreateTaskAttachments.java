@@ -2,21 +2,27 @@ package api.attachments;
 
 import java.io.IOException;
 import java.net.URISyntaxException;
-import java.net.http.HttpRequest;
 import java.net.http.HttpRequest.BodyPublisher;
-import java.net.http.HttpResponse;
-import java.net.http.HttpResponse.BodyHandlers;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.IntConsumer;
 
-import engine.API_URL_BASE;
-import engine.HttpClientProvider;
-import engine.HttpRequestProvider;
+import engine.BodyCodec;
+import engine.ClickUpClient;
+import engine.Endpoint;
+import engine.EndpointRequest;
+import engine.MultipartBody;
+import engine.metrics.ClickUpMetrics;
+import helpers.ArchiveBodyPublisher;
+import helpers.ArchiveFormat;
 import helpers.GenerateBodyPublisherForRequestWithFile;
-import helpers.GenerateUUIDBoundary;
-import helpers.HttpStatusValidator;
-import helpers.ResolveJsonMappingToObjects;
+import helpers.ProgressBodyPublisher;
+import helpers.UploadProgressListener;
 import responses.CreateTaskAttachmentResponse;
 
 /**
@@ -27,11 +33,68 @@ import responses.CreateTaskAttachmentResponse;
  */
 public class CreateTaskAttachments {
 
-	private String buildUrl(String taskId, Optional<String> teamId) {
-		return teamId
-				.map(id -> API_URL_BASE.TASK_API_URL_BASE.getUrl() + taskId
-						+ "/attachment?custom_task_ids=true&team_id=" + id)
-				.orElse(API_URL_BASE.TASK_API_URL_BASE.getUrl() + taskId + "/attachment");
+	/** Creates one attachment, the label {@code POST /task/{id}/attachment} is reported to {@link ClickUpMetrics}. */
+	private static final Endpoint<MultipartBody, CreateTaskAttachmentResponse> CREATE_ATTACHMENT = Endpoint
+			.builder("POST", "task/{id}/attachment")
+			.body(BodyCodec.multipart())
+			.response(CreateTaskAttachmentResponse.class)
+			.build();
+
+	/** Creates every attachment of a multipart body in one request. */
+	private static final Endpoint<MultipartBody, List<CreateTaskAttachmentResponse>> CREATE_ATTACHMENTS = Endpoint
+			.builder("POST", "task/{id}/attachment")
+			.body(BodyCodec.multipart())
+			.responseList(CreateTaskAttachmentResponse.class)
+			.build();
+
+	private final ClickUpClient client;
+
+	/**
+	 * Creates a client sending through {@link ClickUpClient#getDefault()}.
+	 */
+	public CreateTaskAttachments() {
+		this(ClickUpClient.getDefault());
+	}
+
+	/**
+	 * @param client the configuration the requests are built and sent with
+	 */
+	public CreateTaskAttachments(ClickUpClient client) {
+		this.client = Objects.requireNonNull(client, "client");
+	}
+
+	ClickUpClient getClient() {
+		return client;
+	}
+
+	/**
+	 * The arguments of an upload, with {@code custom_task_ids=true} when a team is given.
+	 */
+	private static EndpointRequest<MultipartBody> request(String task_id, MultipartBody body, Optional<String> clickup_token,
+			Optional<String> team_id) {
+		EndpointRequest.Builder<MultipartBody> request = EndpointRequest.builder(body)
+				.pathParameter("id", task_id)
+				.token(clickup_token);
+		team_id.ifPresent(id -> request.queryParameter("custom_task_ids", "true").queryParameter("team_id", id));
+		return request.build();
+	}
+
+	private MultipartBody filesBody(List<String> file_paths) {
+		return boundary -> throttled(GenerateBodyPublisherForRequestWithFile.generateRequestWithFilesAsBody(boundary, file_paths));
+	}
+
+	private MultipartBody archiveBody(String directory_path, String glob, ArchiveFormat format) {
+		return boundary -> throttled(GenerateBodyPublisherForRequestWithFile.generateRequestWithDirectoryAsArchiveBody(boundary,
+				directory_path, glob, format, client.getIoExecutor()));
+	}
+
+	/**
+	 * Applies the {@link engine.BandwidthGovernor} of the client, innermost so progress reports follow the throttled bytes.
+	 */
+	private BodyPublisher throttled(BodyPublisher body) {
+		return client.getBandwidthGovernor()
+				.map(governor -> governor.throttle(body, client.getBandwidthShare()))
+				.orElse(body);
 	}
 
 	/**
@@ -42,8 +105,8 @@ public class CreateTaskAttachments {
 	 * (workers/threads), so blocking here is usually fine and easier to debug.</p>
 	 *
 	 * <p><b>Token and IDs:</b>
-	 * If {@code clickup_token} is empty, the request may rely on an environment-based token
-	 * (depending on your {@link HttpRequestProvider} implementation).
+	 * If {@code clickup_token} is empty, the token is resolved by the {@link engine.TokenProvider}
+	 * of the {@link ClickUpClient}, by default the {@code CLICKUP_TOKEN} environment variable.
 	 * If you are using custom task IDs, provide {@code team_id}; otherwise keep it empty.</p>
 	 *
 	 * @param task_id       task identifier (or custom task id when enabled)
@@ -61,13 +124,8 @@ public class CreateTaskAttachments {
 	public CreateTaskAttachmentResponse callSyncCreateTaskAttachmentAPI(String task_id, String file_path,
 			Optional<String> clickup_token, Optional<String> team_id)
 			throws URISyntaxException, IOException, InterruptedException {
-		final String boundary = GenerateUUIDBoundary.getNewUUIDBoundary();
-		BodyPublisher body = GenerateBodyPublisherForRequestWithFile.generateRequestWithFileAsBody(boundary, file_path);
-		HttpRequest request = new HttpRequestProvider()
-				.generateHttpRequestForPOSTWithFileAsBody(buildUrl(task_id, team_id), boundary, body, clickup_token);
-		HttpResponse<String> response = HttpClientProvider.getHttpClient().send(request, BodyHandlers.ofString());
-		HttpStatusValidator.checkStatus(response);
-		return ResolveJsonMappingToObjects.convertJSON(response.body(), CreateTaskAttachmentResponse.class);
+		return client.getEndpointPipeline()
+				.call(CREATE_ATTACHMENT, request(task_id, filesBody(List.of(file_path)), clickup_token, team_id));
 	}
 
 	/**
@@ -77,13 +135,15 @@ public class CreateTaskAttachments {
 	 * method {@code callSyncCreateTaskAttachmentAPI(...)} for simplicity and determinism. Use this async
 	 * method mainly when you want to start multiple API calls in parallel and combine them.</p>
 	 *
-	 * <p>This method returns immediately with a {@link CompletableFuture}. Network failures, non-2xx HTTP
-	 * responses, and JSON mapping issues are reported by completing the future exceptionally (typically
+	 * <p>This method returns immediately with a {@link CompletableFuture} and never blocks the calling thread:
+	 * the file is resolved, the multipart body and the request are built on the I/O executor of the
+	 * {@link ClickUpClient}. Missing files, invalid URLs, token resolution errors, network failures, non-2xx HTTP
+	 * responses, and JSON mapping issues are all reported by completing the future exceptionally (typically
 	 * wrapped in a {@link java.util.concurrent.CompletionException}).</p>
 	 *
 	 * <p><b>Token and IDs:</b>
-	 * If {@code clickup_token} is empty, the request may rely on an environment-based token
-	 * (depending on your {@link HttpRequestProvider} implementation).
+	 * If {@code clickup_token} is empty, the token is resolved by the {@link engine.TokenProvider}
+	 * of the {@link ClickUpClient}, by default the {@code CLICKUP_TOKEN} environment variable.
 	 * If you are using custom task IDs, provide {@code team_id}; otherwise keep it empty.</p>
 	 *
 	 * <p><b>Example (blocking at the call site):</b></p>
@@ -99,22 +159,203 @@ public class CreateTaskAttachments {
 	 *
 	 * @return a future that completes with the parsed {@link CreateTaskAttachmentResponse}
 	 *
-	 * @throws URISyntaxException if the generated URL is not a valid URI
-	 * @throws IOException        if building the multipart body fails before the async request is started
+	 * @throws URISyntaxException never thrown, kept for source compatibility: an invalid URI fails the future
+	 * @throws IOException        never thrown, kept for source compatibility: an unreadable file fails the future
 	 */
 	public CompletableFuture<CreateTaskAttachmentResponse> callAsyncCreateTaskAttachmentAPI(String task_id,
 			String file_path, Optional<String> clickup_token, Optional<String> team_id)
 			throws URISyntaxException, IOException {
+		return client.getEndpointPipeline()
+				.callAsync(CREATE_ATTACHMENT, request(task_id, filesBody(List.of(file_path)), clickup_token, team_id));
+	}
+
+	/**
+	 * Creates the attachment of each job with at most {@code max_in_flight} uploads running at the same time, see
+	 * {@link engine.EndpointPipeline#callBatchAsync}.
+	 *
+	 * @param on_start called with the index of a job when its upload starts, before its body is built
+	 * @return one future per job, in the same order, each one failing on its own
+	 */
+	List<CompletableFuture<CreateTaskAttachmentResponse>> callAsyncCreateTaskAttachmentBatch(List<AttachmentUploadJob> jobs,
+			int max_in_flight, IntConsumer on_start) {
+		List<EndpointRequest<MultipartBody>> requests = new ArrayList<>(jobs.size());
+		for (int i = 0; i < jobs.size(); i++) {
+			int index = i;
+			AttachmentUploadJob job = jobs.get(i);
+			MultipartBody files = filesBody(List.of(job.getFilePath()));
+			MultipartBody started = boundary -> {
+				on_start.accept(index);
+				return files.create(boundary);
+			};
+			requests.add(request(job.getTaskId(), started, job.getClickupToken(), job.getTeamId()));
+		}
+		return client.getEndpointPipeline().callBatchAsync(CREATE_ATTACHMENT, requests, max_in_flight);
+	}
+
+	/**
+	 * Creates several task attachments synchronously with a single multipart request.
+	 *
+	 * <p>All files are sent as parts of one {@code multipart/form-data} body, streamed one after the other
+	 * from disk. Compared to one call per file, this costs a single round-trip and a single rate limit permit,
+	 * which is the preferred way to attach every artifact of a failed test (screenshot, video, logs, ...).</p>
+	 *
+	 * <p><b>Token and IDs:</b>
+	 * If {@code clickup_token} is empty, the token is resolved by the {@link engine.TokenProvider}
+	 * of the {@link ClickUpClient}, by default the {@code CLICKUP_TOKEN} environment variable.
+	 * If you are using custom task IDs, provide {@code team_id}; otherwise keep it empty.</p>
+	 *
+	 * @param task_id       task identifier (or custom task id when enabled)
+	 * @param file_paths    local paths to the files to upload
+	 * @param clickup_token optional ClickUp API token
+	 * @param team_id       optional team identifier (required when using custom task ids)
+	 *
+	 * @return one parsed {@link CreateTaskAttachmentResponse} per file, in the order returned by the API
+	 *
+	 * @throws URISyntaxException   if the generated URL is not a valid URI
+	 * @throws IOException          if building the multipart body fails, the request fails, the API responds
+	 *                              with a non-2xx status or with a number of attachments other than the number
+	 *                              of files
+	 * @throws InterruptedException if the calling thread is interrupted while waiting
+	 */
+	public List<CreateTaskAttachmentResponse> callSyncCreateTaskAttachmentsAPI(String task_id, List<String> file_paths,
+			Optional<String> clickup_token, Optional<String> team_id)
+			throws URISyntaxException, IOException, InterruptedException {
+		return checkCount(client.getEndpointPipeline()
+				.call(CREATE_ATTACHMENTS, request(task_id, filesBody(file_paths), clickup_token, team_id)), file_paths);
+	}
+
+	/**
+	 * Creates several task attachments asynchronously with a single multipart request.
+	 *
+	 * <p>See {@link #callSyncCreateTaskAttachmentsAPI(String, List, Optional, Optional)} for the request format.
+	 * Like {@link #callAsyncCreateTaskAttachmentAPI}, the request is built on the I/O executor of the client and
+	 * every failure is reported by completing the future exceptionally.</p>
+	 *
+	 * @param task_id       task identifier (or custom task id when enabled)
+	 * @param file_paths    local paths to the files to upload
+	 * @param clickup_token optional ClickUp API token
+	 * @param team_id       optional team identifier (required when using custom task ids)
+	 *
+	 * @return a future that completes with one {@link CreateTaskAttachmentResponse} per file, or fails with an
+	 *         {@link IOException} when the API returns another number of attachments
+	 *
+	 * @throws URISyntaxException never thrown, kept for source compatibility: an invalid URI fails the future
+	 * @throws IOException        never thrown, kept for source compatibility: an unreadable file fails the future
+	 */
+	public CompletableFuture<List<CreateTaskAttachmentResponse>> callAsyncCreateTaskAttachmentsAPI(String task_id,
+			List<String> file_paths, Optional<String> clickup_token, Optional<String> team_id)
+			throws URISyntaxException, IOException {
+		return client.getEndpointPipeline()
+				.callAsync(CREATE_ATTACHMENTS, request(task_id, filesBody(file_paths), clickup_token, team_id))
+				.thenApply(responses -> {
+					try {
+						return checkCount(responses, file_paths);
+					} catch (IOException e) {
+						throw new CompletionException(e);
+					}
+				});
+	}
 
-		final String boundary = GenerateUUIDBoundary.getNewUUIDBoundary();
-		BodyPublisher body = GenerateBodyPublisherForRequestWithFile.generateRequestWithFileAsBody(boundary, file_path);
+	/**
+	 * The API answers with an object or an array of objects, both read as a list: a list without one attachment per
+	 * file means some of the files were not attached.
+	 */
+	private static List<CreateTaskAttachmentResponse> checkCount(List<CreateTaskAttachmentResponse> responses,
+			List<String> file_paths) throws IOException {
+		if (responses.size() != file_paths.size()) {
+			throw new IOException("The API returned " + responses.size() + " attachment(s) for " + file_paths.size() + " file(s)");
+		}
+		return responses;
+	}
 
-		HttpRequest request = new HttpRequestProvider()
-				.generateHttpRequestForPOSTWithFileAsBody(buildUrl(task_id, team_id), boundary, body, clickup_token);
+	/**
+	 * Attaches a directory to a task synchronously, as a single archive produced while it is uploaded.
+	 *
+	 * <p>The files of {@code directory_path} matching {@code glob} are compressed on the I/O executor of the
+	 * {@link ClickUpClient} in parallel with the upload, through a bounded in-memory pipe: no temporary archive
+	 * is written, see {@link ArchiveBodyPublisher}. The attachment is named after the directory, e.g.
+	 * {@code screenshots.zip}.</p>
+	 *
+	 * @param task_id        task identifier (or custom task id when enabled)
+	 * @param directory_path local path to the directory to archive
+	 * @param glob           selects the files relative to the directory, e.g. {@code **} or {@code **.png}
+	 * @param format         the archive format
+	 * @param clickup_token  optional ClickUp API token
+	 * @param team_id        optional team identifier (required when using custom task ids)
+	 *
+	 * @return parsed {@link CreateTaskAttachmentResponse}
+	 *
+	 * @throws URISyntaxException   if the generated URL is not a valid URI
+	 * @throws IOException          if the directory cannot be read, the request fails,
+	 *                              or the API responds with a non-2xx status
+	 * @throws InterruptedException if the calling thread is interrupted while waiting
+	 */
+	public CreateTaskAttachmentResponse callSyncCreateTaskAttachmentFromDirectoryAPI(String task_id, String directory_path,
+			String glob, ArchiveFormat format, Optional<String> clickup_token, Optional<String> team_id)
+			throws URISyntaxException, IOException, InterruptedException {
+		return client.getEndpointPipeline()
+				.call(CREATE_ATTACHMENT, request(task_id, archiveBody(directory_path, glob, format), clickup_token, team_id));
+	}
+
+	/**
+	 * Attaches a directory to a task asynchronously, as a single archive produced while it is uploaded.
+	 *
+	 * <p>See {@link #callSyncCreateTaskAttachmentFromDirectoryAPI} for the archive. Every failure is reported by
+	 * completing the future exceptionally.</p>
+	 *
+	 * @param task_id        task identifier (or custom task id when enabled)
+	 * @param directory_path local path to the directory to archive
+	 * @param glob           selects the files relative to the directory, e.g. {@code **} or {@code **.png}
+	 * @param format         the archive format
+	 * @param clickup_token  optional ClickUp API token
+	 * @param team_id        optional team identifier (required when using custom task ids)
+	 *
+	 * @return a future that completes with the parsed {@link CreateTaskAttachmentResponse}
+	 */
+	public CompletableFuture<CreateTaskAttachmentResponse> callAsyncCreateTaskAttachmentFromDirectoryAPI(String task_id,
+			String directory_path, String glob, ArchiveFormat format, Optional<String> clickup_token, Optional<String> team_id) {
+		return client.getEndpointPipeline()
+				.callAsync(CREATE_ATTACHMENT, request(task_id, archiveBody(directory_path, glob, format), clickup_token, team_id));
+	}
 
-		return HttpStatusValidator
-				.checkStatus(HttpClientProvider.getHttpClient().sendAsync(request, BodyHandlers.ofString()))
-				.thenApply(resp -> ResolveJsonMappingToObjects.convertJSON(resp.body(), CreateTaskAttachmentResponse.class));
+	/**
+	 * Creates a task attachment asynchronously, reporting its progress and allowing to cancel it.
+	 *
+	 * <p>The multipart body is wrapped in a {@link ProgressBodyPublisher}: {@code listener} is called every
+	 * {@code granularity_bytes} bytes sent with the bytes count and the live throughput, and
+	 * {@link UploadHandle#cancel()} closes the file and aborts the request, e.g. to stop a stalled upload.</p>
+	 *
+	 * <p><b>Example:</b></p>
+	 * <pre>{@code
+	 * UploadHandle<CreateTaskAttachmentResponse> upload = client.callAsyncCreateTaskAttachmentWithProgressAPI(
+	 *     taskId, "recording.mp4", 1024 * 1024, progress -> log(progress.getFraction()), token, teamId);
+	 * ...
+	 * if (upload.getProgress().getCurrentBytesPerSecond() < minimum) upload.cancel();
+	 * }</pre>
+	 *
+	 * @param task_id           task identifier (or custom task id when enabled)
+	 * @param file_path         local path to the file to upload
+	 * @param granularity_bytes the number of bytes between two progress reports
+	 * @param listener          receives the progress reports, on the thread sending the body
+	 * @param clickup_token     optional ClickUp API token
+	 * @param team_id           optional team identifier (required when using custom task ids)
+	 *
+	 * @return the handle of the started upload, its result reports every failure
+	 */
+	public UploadHandle<CreateTaskAttachmentResponse> callAsyncCreateTaskAttachmentWithProgressAPI(String task_id,
+			String file_path, long granularity_bytes, UploadProgressListener listener, Optional<String> clickup_token,
+			Optional<String> team_id) {
+		if (granularity_bytes < 1) throw new IllegalArgumentException("granularity_bytes must be at least 1");
+		Objects.requireNonNull(listener, "listener");
+		UploadHandle<CreateTaskAttachmentResponse> handle = new UploadHandle<>();
+		MultipartBody files = filesBody(List.of(file_path));
+		MultipartBody withProgress = boundary -> {
+			ProgressBodyPublisher body = new ProgressBodyPublisher(files.create(boundary), granularity_bytes, listener);
+			handle.attach(body);
+			return body;
+		};
+		return handle.completeWith(client.getEndpointPipeline()
+				.callAsync(CREATE_ATTACHMENT, request(task_id, withProgress, clickup_token, team_id)));
 	}
 
 }
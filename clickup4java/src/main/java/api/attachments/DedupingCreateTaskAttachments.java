@@ -0,0 +1,213 @@
+package api.attachments;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+
+import helpers.GenerateContentHash;
+import helpers.ResolveProvidedFilePathFromUser;
+import responses.CreateTaskAttachmentResponse;
+
+/**
+ * Optional layer in front of {@link CreateTaskAttachments} that skips the upload of a file already attached
+ * to the same task.
+ * <p>
+ * The file content is hashed (SHA-256, streamed from disk) and looked up in an {@link AttachmentDedupeIndex}
+ * keyed by task and hash. On a hit the response of the previous upload is returned without any request, so
+ * re-runs attaching the same logs and screenshots cost neither bandwidth nor rate limit permits. On a miss the
+ * file is uploaded and the response is recorded.
+ * </p>
+ * <p>
+ * Concurrent calls for the same task and content share a single upload. The index is only consulted locally:
+ * an attachment deleted in ClickUp is not noticed, remove its entry from the index.
+ * </p>
+ *
+ * @author Lucas Alexandre Bez Piancoski
+ * @since 1.0.0
+ */
+public class DedupingCreateTaskAttachments {
+
+	private final CreateTaskAttachments createTaskAttachments;
+	private final AttachmentDedupeIndex index;
+	private final Map<String, CompletableFuture<CreateTaskAttachmentResponse>> inFlight = new ConcurrentHashMap<>();
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+
+	/**
+	 * @param create_task_attachments the client uploading the files not found in the index
+	 * @param index                   the uploads already made
+	 */
+	public DedupingCreateTaskAttachments(CreateTaskAttachments create_task_attachments, AttachmentDedupeIndex index) {
+		this.createTaskAttachments = Objects.requireNonNull(create_task_attachments, "create_task_attachments");
+		this.index = Objects.requireNonNull(index, "index");
+	}
+
+	/**
+	 * Creates a task attachment synchronously, unless the same content was already attached to the task.
+	 *
+	 * @param task_id       task identifier (or custom task id when enabled)
+	 * @param file_path     local path to the file to upload
+	 * @param clickup_token optional ClickUp API token
+	 * @param team_id       optional team identifier (required when using custom task ids)
+	 *
+	 * @return the parsed {@link CreateTaskAttachmentResponse}, from the index when the content was already uploaded
+	 *
+	 * @throws URISyntaxException   if the generated URL is not a valid URI
+	 * @throws IOException          if the file cannot be read, the request fails,
+	 *                              or the API responds with a non-2xx status
+	 * @throws InterruptedException if the calling thread is interrupted while waiting
+	 */
+	public CreateTaskAttachmentResponse callSyncCreateTaskAttachmentAPI(String task_id, String file_path,
+			Optional<String> clickup_token, Optional<String> team_id)
+			throws URISyntaxException, IOException, InterruptedException {
+		String key = keyOf(task_id, file_path, team_id);
+		Optional<CreateTaskAttachmentResponse> cached = index.get(key);
+		if (cached.isPresent()) {
+			hits.increment();
+			return cached.get();
+		}
+
+		CompletableFuture<CreateTaskAttachmentResponse> flight = new CompletableFuture<>();
+		CompletableFuture<CreateTaskAttachmentResponse> leader = inFlight.putIfAbsent(key, flight);
+		if (leader != null) return await(leader);
+		try {
+			CreateTaskAttachmentResponse response = index.get(key).orElse(null);
+			if (response == null) {
+				misses.increment();
+				response = createTaskAttachments.callSyncCreateTaskAttachmentAPI(task_id, file_path, clickup_token, team_id);
+				record(key, response);
+			} else {
+				hits.increment();
+			}
+			flight.complete(response);
+			return response;
+		} catch (URISyntaxException | IOException | InterruptedException | RuntimeException e) {
+			flight.completeExceptionally(e);
+			throw e;
+		} finally {
+			inFlight.remove(key, flight);
+		}
+	}
+
+	/**
+	 * Creates a task attachment asynchronously, unless the same content was already attached to the task.
+	 * The file is hashed on the I/O executor of the {@link engine.ClickUpClient}, and every failure is
+	 * reported by completing the future exceptionally.
+	 *
+	 * @param task_id       task identifier (or custom task id when enabled)
+	 * @param file_path     local path to the file to upload
+	 * @param clickup_token optional ClickUp API token
+	 * @param team_id       optional team identifier (required when using custom task ids)
+	 *
+	 * @return a future that completes with the parsed {@link CreateTaskAttachmentResponse}
+	 */
+	public CompletableFuture<CreateTaskAttachmentResponse> callAsyncCreateTaskAttachmentAPI(String task_id,
+			String file_path, Optional<String> clickup_token, Optional<String> team_id) {
+		CompletableFuture<String> key;
+		try {
+			key = CompletableFuture.supplyAsync(() -> {
+				try {
+					return keyOf(task_id, file_path, team_id);
+				} catch (IOException e) {
+					throw new CompletionException(e);
+				}
+			}, createTaskAttachments.getClient().getIoExecutor());
+		} catch (RuntimeException e) {
+			return CompletableFuture.failedFuture(e);
+		}
+		return key.thenCompose(k -> {
+			Optional<CreateTaskAttachmentResponse> cached = index.get(k);
+			if (cached.isPresent()) {
+				hits.increment();
+				return CompletableFuture.completedFuture(cached.get());
+			}
+			CompletableFuture<CreateTaskAttachmentResponse> flight = new CompletableFuture<>();
+			CompletableFuture<CreateTaskAttachmentResponse> leader = inFlight.putIfAbsent(k, flight);
+			if (leader != null) return leader;
+
+			cached = index.get(k);
+			CompletableFuture<CreateTaskAttachmentResponse> upload;
+			if (cached.isPresent()) {
+				hits.increment();
+				upload = CompletableFuture.completedFuture(cached.get());
+			} else {
+				misses.increment();
+				upload = uploadAsync(task_id, file_path, clickup_token, team_id).thenApply(response -> {
+					record(k, response);
+					return response;
+				});
+			}
+			upload.whenComplete((response, error) -> {
+				inFlight.remove(k, flight);
+				if (error == null) flight.complete(response);
+				else flight.completeExceptionally(error instanceof CompletionException && error.getCause() != null ? error.getCause() : error);
+			});
+			return flight;
+		});
+	}
+
+	public AttachmentDedupeIndex getIndex() {
+		return index;
+	}
+
+	/**
+	 * @return the number of uploads answered from the index
+	 */
+	public long getHitCount() {
+		return hits.sum();
+	}
+
+	/**
+	 * @return the number of uploads sent to ClickUp
+	 */
+	public long getMissCount() {
+		return misses.sum();
+	}
+
+	private static String keyOf(String task_id, String file_path, Optional<String> team_id) throws IOException {
+		Objects.requireNonNull(task_id, "task_id");
+		String hash = GenerateContentHash.sha256(ResolveProvidedFilePathFromUser.getFile(file_path));
+		return AttachmentDedupeIndex.keyOf(task_id, team_id, hash);
+	}
+
+	private CompletableFuture<CreateTaskAttachmentResponse> uploadAsync(String task_id, String file_path,
+			Optional<String> clickup_token, Optional<String> team_id) {
+		try {
+			return createTaskAttachments.callAsyncCreateTaskAttachmentAPI(task_id, file_path, clickup_token, team_id);
+		} catch (URISyntaxException | IOException e) {
+			return CompletableFuture.failedFuture(e);
+		}
+	}
+
+	/**
+	 * The attachment exists in ClickUp once the upload succeeded, failing to persist the index must not hide it.
+	 */
+	private void record(String key, CreateTaskAttachmentResponse response) {
+		try {
+			index.put(key, response);
+		} catch (IOException e) {
+			// kept in memory, only the next runs will upload it again
+		}
+	}
+
+	private static CreateTaskAttachmentResponse await(CompletableFuture<CreateTaskAttachmentResponse> leader)
+			throws URISyntaxException, IOException, InterruptedException {
+		try {
+			return leader.get();
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof IOException) throw (IOException) cause;
+			if (cause instanceof URISyntaxException) throw (URISyntaxException) cause;
+			if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+			if (cause instanceof InterruptedException) throw new IOException("Shared upload was interrupted", cause);
+			throw new IOException(cause);
+		}
+	}
+}
@@ -0,0 +1,237 @@
+package api.attachments;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import helpers.HttpStatusException;
+import helpers.ResolveProvidedFilePathFromUser;
+import responses.CreateTaskAttachmentResponse;
+
+/**
+ * Fire-and-forget mode of {@link CreateTaskAttachments}: uploads are written to a durable journal and sent in
+ * the background, so test threads never wait on ClickUp and an upload interrupted by a crash or a network
+ * outage is sent by the next run.
+ * <p>
+ * {@link #callOutboxCreateTaskAttachmentAPI} returns as soon as the upload is recorded in the journal, see
+ * {@link OutboxJournal}. Up to {@code max_in_flight} uploads are then sent asynchronously, and each one is marked
+ * done in the journal once ClickUp answered. Uploads failing with a network error, a {@code 408}, a {@code 429}
+ * or a {@code 5xx} are sent again later, with the backoff of the {@link engine.RetryPolicy} of the client; other
+ * failures, such as a deleted file or a {@code 404} task, are final. Every final outcome is reported to
+ * {@code on_result}.
+ * </p>
+ * <p>
+ * Uploads still pending when the outbox is opened, left by a previous run, are sent first. The token is never
+ * written to the journal: it is resolved by the {@link engine.TokenProvider} of the client when the upload is
+ * sent. The file is not copied either, it must be kept until its upload is done. Delivery is at least once: an
+ * upload finished after {@link #close()} or right before a crash is sent again by the next run.
+ * </p>
+ *
+ * <p><b>Example:</b></p>
+ * <pre>{@code
+ * OutboxCreateTaskAttachments outbox = OutboxCreateTaskAttachments.open(Paths.get("target/clickup-outbox"),
+ *     new CreateTaskAttachments(), 4, result -> log(result));
+ * ...
+ * outbox.callOutboxCreateTaskAttachmentAPI(taskId, "screenshots/failure.png", Optional.empty());
+ * ...
+ * outbox.awaitDrained(Duration.ofMinutes(2)); // end of the suite
+ * outbox.close();
+ * }</pre>
+ *
+ * @author Lucas Alexandre Bez Piancoski
+ * @since 1.0.0
+ */
+public class OutboxCreateTaskAttachments implements Closeable {
+
+	private final CreateTaskAttachments createTaskAttachments;
+	private final int maxInFlight;
+	private final Consumer<AttachmentUploadResult> onResult;
+	private final OutboxJournal journal;
+	private final ArrayDeque<OutboxJournal.Entry> queue = new ArrayDeque<>();
+	private final Map<Long, Integer> failedAttempts = new HashMap<>();
+	private int inFlight;
+	private int pending;
+	private boolean closed;
+
+	private OutboxCreateTaskAttachments(CreateTaskAttachments create_task_attachments, int max_in_flight,
+			Consumer<AttachmentUploadResult> on_result, OutboxJournal journal) {
+		this.createTaskAttachments = create_task_attachments;
+		this.maxInFlight = max_in_flight;
+		this.onResult = on_result;
+		this.journal = journal;
+	}
+
+	/**
+	 * Opens the outbox stored in {@code directory} and starts sending the uploads left pending by previous runs.
+	 *
+	 * @param directory               where the journal is kept, e.g. {@code target/clickup-outbox}
+	 * @param create_task_attachments the client sending the uploads
+	 * @param max_in_flight           maximum number of uploads sent at the same time
+	 * @param on_result               called with the final outcome of every upload, from the thread that completed it
+	 * @return the outbox
+	 * @throws IOException if the journal cannot be read or created, or another outbox has {@code directory} open
+	 */
+	public static OutboxCreateTaskAttachments open(Path directory, CreateTaskAttachments create_task_attachments,
+			int max_in_flight, Consumer<AttachmentUploadResult> on_result) throws IOException {
+		if (max_in_flight < 1) throw new IllegalArgumentException("max_in_flight must be at least 1");
+		OutboxCreateTaskAttachments outbox = new OutboxCreateTaskAttachments(
+				Objects.requireNonNull(create_task_attachments, "create_task_attachments"), max_in_flight,
+				Objects.requireNonNull(on_result, "on_result"), OutboxJournal.open(Objects.requireNonNull(directory, "directory")));
+		synchronized (outbox) {
+			outbox.queue.addAll(outbox.journal.getRecovered());
+			outbox.pending = outbox.queue.size();
+			outbox.pump();
+		}
+		return outbox;
+	}
+
+	/**
+	 * Records a task attachment to create and returns immediately, the upload is sent in the background.
+	 *
+	 * @param task_id   task identifier (or custom task id when enabled)
+	 * @param file_path local path to the file to upload, kept until the upload is done
+	 * @param team_id   optional team identifier (required when using custom task ids)
+	 *
+	 * @throws IOException if the file does not exist or the journal cannot be written, nothing was recorded
+	 */
+	public void callOutboxCreateTaskAttachmentAPI(String task_id, String file_path, Optional<String> team_id)
+			throws IOException {
+		Objects.requireNonNull(task_id, "task_id");
+		Objects.requireNonNull(team_id, "team_id");
+		String absolutePath = ResolveProvidedFilePathFromUser.getFile(file_path).toAbsolutePath().toString();
+		AttachmentUploadJob job = new AttachmentUploadJob(task_id, absolutePath, Optional.empty(), team_id);
+		synchronized (this) {
+			if (closed) throw new IllegalStateException("The outbox is closed");
+			queue.add(journal.append(job));
+			pending++;
+			pump();
+		}
+	}
+
+	/**
+	 * @return the number of uploads recorded and not done yet, including the ones being sent
+	 */
+	public synchronized int getPendingCount() {
+		return pending;
+	}
+
+	/**
+	 * Waits until every recorded upload is done and reported to {@code on_result}, e.g. at the end of a suite.
+	 *
+	 * @param timeout the maximum time to wait
+	 * @return {@code true} if nothing is pending anymore, {@code false} if the timeout elapsed first
+	 * @throws InterruptedException if the calling thread is interrupted while waiting
+	 */
+	public synchronized boolean awaitDrained(Duration timeout) throws InterruptedException {
+		long deadline = System.nanoTime() + timeout.toNanos();
+		while (pending > 0) {
+			long remaining = deadline - System.nanoTime();
+			if (remaining <= 0) return false;
+			TimeUnit.NANOSECONDS.timedWait(this, remaining);
+		}
+		return true;
+	}
+
+	/**
+	 * Stops sending uploads and closes the journal. The pending uploads stay recorded and are sent by the next
+	 * outbox opened on the same directory.
+	 *
+	 * @throws IOException if the journal cannot be closed
+	 */
+	@Override
+	public synchronized void close() throws IOException {
+		if (closed) return;
+		closed = true;
+		queue.clear();
+		journal.close();
+		notifyAll();
+	}
+
+	/**
+	 * Starts queued uploads while fewer than {@code maxInFlight} are sent. Called with the lock held.
+	 */
+	private void pump() {
+		while (!closed && inFlight < maxInFlight && !queue.isEmpty()) {
+			OutboxJournal.Entry entry = queue.poll();
+			inFlight++;
+			long start = System.nanoTime();
+			upload(entry.job).whenComplete((response, error) -> finished(entry, response,
+					error instanceof CompletionException && error.getCause() != null ? error.getCause() : error,
+					Duration.ofNanos(System.nanoTime() - start)));
+		}
+	}
+
+	private void finished(OutboxJournal.Entry entry, CreateTaskAttachmentResponse response, Throwable error, Duration elapsed) {
+		AttachmentUploadResult result = null;
+		synchronized (this) {
+			inFlight--;
+			if (closed) return;
+			if (error != null && isTransient(error) && Files.exists(Paths.get(entry.job.getFilePath()))) {
+				int attempt = failedAttempts.merge(entry.sequence, 1, Integer::sum);
+				Duration delay = createTaskAttachments.getClient().getRetryPolicy().delayBeforeRetry(attempt, Optional.empty());
+				CompletableFuture.delayedExecutor(delay.toMillis(), TimeUnit.MILLISECONDS).execute(() -> requeue(entry));
+			} else {
+				failedAttempts.remove(entry.sequence);
+				try {
+					journal.markDone(entry.sequence);
+				} catch (IOException e) {
+					// sent again by the next run
+				}
+				result = error == null
+						? AttachmentUploadResult.success(entry.job, response, elapsed)
+						: AttachmentUploadResult.failure(entry.job, error, elapsed);
+			}
+			pump();
+		}
+		if (result == null) return;
+		try {
+			onResult.accept(result);
+		} finally {
+			// counted once reported, so awaitDrained also waits for the callbacks
+			synchronized (this) {
+				pending--;
+				notifyAll();
+			}
+		}
+	}
+
+	private synchronized void requeue(OutboxJournal.Entry entry) {
+		if (closed) return;
+		queue.add(entry);
+		pump();
+	}
+
+	private CompletableFuture<CreateTaskAttachmentResponse> upload(AttachmentUploadJob job) {
+		try {
+			return createTaskAttachments.callAsyncCreateTaskAttachmentAPI(job.getTaskId(), job.getFilePath(),
+					job.getClickupToken(), job.getTeamId());
+		} catch (Exception e) {
+			return CompletableFuture.failedFuture(e);
+		}
+	}
+
+	/**
+	 * The executor already retried the upload, these failures are still worth another try later as long as the
+	 * file exists.
+	 */
+	private static boolean isTransient(Throwable error) {
+		if (error instanceof HttpStatusException) {
+			int status = ((HttpStatusException) error).getStatusCode();
+			return status == 408 || status == 429 || status >= 500;
+		}
+		return error instanceof IOException && !(error instanceof FileSystemException);
+	}
+}
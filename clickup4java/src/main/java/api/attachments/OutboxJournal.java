@@ -0,0 +1,328 @@
+package api.attachments;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only journal of {@link OutboxCreateTaskAttachments}, split in segment files named
+ * {@code outbox-<index>.log}.
+ * <p>
+ * Each record is {@code [length][crc32c][type][sequence][payload]}: an {@link #ENQUEUED} record holds the task,
+ * the file and the team of an upload, a {@link #DONE} record the sequence of a finished one. Records are forced
+ * to the device before {@link #append} and {@link #markDone} return. On open the segments are replayed in order
+ * and a segment stops at the first record with a bad length or checksum, which is what a write cut by a crash
+ * leaves behind; a new segment is started for the records of this run. A write that fails is truncated away, or
+ * the journal moves on to a new segment, so no record is ever appended after a torn one.
+ * </p>
+ * <p>
+ * The directory belongs to one journal at a time: {@link #open} locks {@value #LOCK_FILE}, so two processes, e.g.
+ * test forks sharing {@code target/clickup-outbox}, never replay and send the same uploads.
+ * </p>
+ * <p>
+ * A segment is deleted once every upload it holds is done and every older segment was deleted, so the
+ * {@link #DONE} records it holds can no longer be needed. Not thread-safe, guarded by its owner.
+ * </p>
+ *
+ * @author Lucas Alexandre Bez Piancoski
+ * @since 1.0.0
+ */
+final class OutboxJournal implements Closeable {
+
+	static final long SEGMENT_SIZE = 1024 * 1024;
+	static final String LOCK_FILE = "outbox.lock";
+
+	private static final byte ENQUEUED = 1;
+	private static final byte DONE = 2;
+	private static final int HEADER_SIZE = Integer.BYTES + Integer.BYTES;
+	private static final int MAX_RECORD_SIZE = 64 * 1024;
+
+	/**
+	 * An upload read from or written to the journal.
+	 */
+	static final class Entry {
+		final long sequence;
+		final AttachmentUploadJob job;
+
+		Entry(long sequence, AttachmentUploadJob job) {
+			this.sequence = sequence;
+			this.job = job;
+		}
+	}
+
+	private final Path directory;
+	private final FileChannel lockChannel;
+	/** Pending uploads per segment index, from the oldest segment. */
+	private final TreeMap<Long, Integer> pendingPerSegment = new TreeMap<>();
+	private final Map<Long, Long> segmentOfSequence = new HashMap<>();
+	private final List<Entry> recovered;
+	private long nextSequence;
+	private long segmentIndex;
+	private FileChannel segment;
+
+	private OutboxJournal(Path directory, FileChannel lock_channel) {
+		this.directory = directory;
+		this.lockChannel = lock_channel;
+		this.recovered = new ArrayList<>();
+	}
+
+	/**
+	 * Opens the journal of {@code directory}, creating it if needed, and replays its segments.
+	 *
+	 * @throws IOException if the directory or a segment cannot be read, or another journal has the directory open
+	 */
+	static OutboxJournal open(Path directory) throws IOException {
+		Files.createDirectories(directory);
+		OutboxJournal journal = new OutboxJournal(directory, lock(directory));
+		try {
+			journal.replay();
+			journal.deleteFinishedSegments();
+			journal.startSegment(journal.pendingPerSegment.isEmpty() ? journal.segmentIndex : journal.segmentIndex + 1);
+		} catch (IOException | RuntimeException e) {
+			try {
+				journal.close();
+			} catch (IOException suppressed) {
+				e.addSuppressed(suppressed);
+			}
+			throw e;
+		}
+		return journal;
+	}
+
+	/**
+	 * Takes the lock of the directory, held until the returned channel is closed.
+	 */
+	private static FileChannel lock(Path directory) throws IOException {
+		Path path = directory.resolve(LOCK_FILE);
+		FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+		FileLock lock;
+		try {
+			lock = channel.tryLock();
+		} catch (OverlappingFileLockException e) {
+			// held by another journal of this JVM
+			lock = null;
+		} catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+		if (lock == null) {
+			channel.close();
+			throw new IOException("The outbox journal " + directory + " is already open in another outbox or process, "
+					+ "give each one its own directory");
+		}
+		return channel;
+	}
+
+	/**
+	 * @return the uploads that were not done when the journal was opened, in enqueue order
+	 */
+	List<Entry> getRecovered() {
+		return List.copyOf(recovered);
+	}
+
+	int getSegmentCount() {
+		return pendingPerSegment.size();
+	}
+
+	/**
+	 * Records an upload and forces it to the device.
+	 *
+	 * @return the entry with its sequence number
+	 */
+	Entry append(AttachmentUploadJob job) throws IOException {
+		byte[] payload = encode(job);
+		if (payload.length + HEADER_SIZE + 1 + Long.BYTES > MAX_RECORD_SIZE) {
+			throw new IOException("Outbox entry too large: " + job);
+		}
+		Entry entry = new Entry(nextSequence++, job);
+		write(ENQUEUED, entry.sequence, payload);
+		segmentOfSequence.put(entry.sequence, segmentIndex);
+		pendingPerSegment.merge(segmentIndex, 1, Integer::sum);
+		return entry;
+	}
+
+	/**
+	 * Records that an upload finished, successfully or not, and deletes the segments no longer needed.
+	 */
+	void markDone(long sequence) throws IOException {
+		Long owner = segmentOfSequence.get(sequence);
+		if (owner == null) return;
+		write(DONE, sequence, new byte[0]);
+		segmentOfSequence.remove(sequence);
+		pendingPerSegment.merge(owner, -1, Integer::sum);
+		deleteFinishedSegments();
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			if (segment != null) segment.close();
+		} finally {
+			// closing the channel releases the lock
+			lockChannel.close();
+		}
+	}
+
+	private void write(byte type, long sequence, byte[] payload) throws IOException {
+		int length = 1 + Long.BYTES + payload.length;
+		if (segment.size() > 0 && segment.size() + HEADER_SIZE + length > SEGMENT_SIZE) {
+			segment.close();
+			startSegment(segmentIndex + 1);
+		}
+		ByteBuffer body = ByteBuffer.allocate(length).put(type).putLong(sequence).put(payload).flip();
+		CRC32C crc = new CRC32C();
+		crc.update(body.duplicate());
+		ByteBuffer record = ByteBuffer.allocate(HEADER_SIZE + length).putInt(length).putInt((int) crc.getValue()).put(body).flip();
+		long start = segment.size();
+		try {
+			while (record.hasRemaining()) segment.write(record);
+			segment.force(false);
+		} catch (IOException e) {
+			discardFrom(start, e);
+			throw e;
+		}
+	}
+
+	/**
+	 * Removes the bytes of a record whose write failed: replay stops at a torn record, so the records appended after
+	 * it would be lost. When the segment cannot be truncated, the next records go to a new segment instead.
+	 */
+	private void discardFrom(long start, IOException failure) {
+		try {
+			segment.truncate(start);
+			segment.force(false);
+		} catch (IOException e) {
+			failure.addSuppressed(e);
+			try {
+				segment.close();
+				startSegment(segmentIndex + 1);
+			} catch (IOException again) {
+				failure.addSuppressed(again);
+			}
+		}
+	}
+
+	private void startSegment(long index) throws IOException {
+		segmentIndex = index;
+		segment = FileChannel.open(segmentPath(index), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+		pendingPerSegment.putIfAbsent(index, 0);
+	}
+
+	/**
+	 * Deletes the oldest segments while every upload they hold is done, never the segment being written.
+	 */
+	private void deleteFinishedSegments() throws IOException {
+		while (!pendingPerSegment.isEmpty()) {
+			Map.Entry<Long, Integer> oldest = pendingPerSegment.firstEntry();
+			if (oldest.getValue() > 0 || (segment != null && oldest.getKey() == segmentIndex)) return;
+			Files.deleteIfExists(segmentPath(oldest.getKey()));
+			pendingPerSegment.remove(oldest.getKey());
+		}
+	}
+
+	private void replay() throws IOException {
+		TreeMap<Long, Path> segments = new TreeMap<>();
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "outbox-*.log")) {
+			for (Path file : files) {
+				String name = file.getFileName().toString();
+				try {
+					segments.put(Long.parseLong(name.substring("outbox-".length(), name.length() - ".log".length())), file);
+				} catch (NumberFormatException e) {
+					// not a segment
+				}
+			}
+		}
+		Map<Long, Entry> pending = new LinkedHashMap<>();
+		for (Map.Entry<Long, Path> file : segments.entrySet()) {
+			segmentIndex = file.getKey();
+			pendingPerSegment.putIfAbsent(segmentIndex, 0);
+			replaySegment(ByteBuffer.wrap(Files.readAllBytes(file.getValue())), pending);
+		}
+		recovered.addAll(pending.values());
+	}
+
+	private void replaySegment(ByteBuffer records, Map<Long, Entry> pending) {
+		while (records.remaining() >= HEADER_SIZE) {
+			int length = records.getInt();
+			int checksum = records.getInt();
+			if (length < 1 + Long.BYTES || length > MAX_RECORD_SIZE || length > records.remaining()) return;
+			ByteBuffer body = records.slice();
+			body.limit(length);
+			CRC32C crc = new CRC32C();
+			crc.update(body.duplicate());
+			if ((int) crc.getValue() != checksum) return;
+			records.position(records.position() + length);
+
+			byte type = body.get();
+			long sequence = body.getLong();
+			nextSequence = Math.max(nextSequence, sequence + 1);
+			if (type == ENQUEUED) {
+				Optional<AttachmentUploadJob> job = decode(body);
+				if (job.isEmpty()) continue;
+				pending.put(sequence, new Entry(sequence, job.get()));
+				segmentOfSequence.put(sequence, segmentIndex);
+				pendingPerSegment.merge(segmentIndex, 1, Integer::sum);
+			} else if (type == DONE && pending.remove(sequence) != null) {
+				pendingPerSegment.merge(segmentOfSequence.remove(sequence), -1, Integer::sum);
+			}
+		}
+	}
+
+	private Path segmentPath(long index) {
+		return directory.resolve(String.format("outbox-%010d.log", index));
+	}
+
+	/**
+	 * Task, file and team, each as a length and UTF-8 bytes, an empty team meaning none. The token is never
+	 * written, it is resolved when the upload is sent.
+	 */
+	private static byte[] encode(AttachmentUploadJob job) {
+		byte[][] fields = {
+				job.getTaskId().getBytes(StandardCharsets.UTF_8),
+				job.getFilePath().getBytes(StandardCharsets.UTF_8),
+				job.getTeamId().orElse("").getBytes(StandardCharsets.UTF_8) };
+		int size = 0;
+		for (byte[] field : fields) size += Integer.BYTES + field.length;
+		ByteBuffer payload = ByteBuffer.allocate(size);
+		for (byte[] field : fields) payload.putInt(field.length).put(field);
+		return payload.array();
+	}
+
+	private static Optional<AttachmentUploadJob> decode(ByteBuffer payload) {
+		try {
+			String taskId = readField(payload);
+			String filePath = readField(payload);
+			String teamId = readField(payload);
+			return Optional.of(new AttachmentUploadJob(taskId, filePath, Optional.empty(),
+					teamId.isEmpty() ? Optional.empty() : Optional.of(teamId)));
+		} catch (BufferUnderflowException | IllegalArgumentException e) {
+			// checksum collision on a damaged record
+			return Optional.empty();
+		}
+	}
+
+	private static String readField(ByteBuffer payload) {
+		int length = payload.getInt();
+		if (length < 0 || length > payload.remaining()) throw new IllegalArgumentException("bad field length " + length);
+		byte[] bytes = new byte[length];
+		payload.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,81 @@
+package api.attachments;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import helpers.ProgressBodyPublisher;
+import helpers.UploadCancelledException;
+import responses.UploadProgress;
+
+/**
+ * A started upload: its result, its progress, and the way to cancel it.
+ *
+ * @param <T> the type of the response
+ *
+ * @author Lucas Alexandre Bez Piancoski
+ * @since 1.0.0
+ */
+public final class UploadHandle<T> {
+
+	private static final UploadProgress NOT_STARTED = new UploadProgress(0, -1, Duration.ZERO, 0, false);
+
+	private final CompletableFuture<T> result = new CompletableFuture<>();
+	private volatile ProgressBodyPublisher body;
+	private volatile boolean cancelled;
+
+	UploadHandle() {}
+
+	/**
+	 * Called once the body is built, which happens on the I/O executor after the handle is returned.
+	 */
+	void attach(ProgressBodyPublisher body) {
+		this.body = body;
+		if (cancelled) body.cancel();
+	}
+
+	/**
+	 * Completes the result from the future of the call.
+	 */
+	UploadHandle<T> completeWith(CompletableFuture<T> call) {
+		call.whenComplete((response, error) -> {
+			if (error == null) result.complete(response);
+			else result.completeExceptionally(error instanceof CompletionException && error.getCause() != null ? error.getCause() : error);
+		});
+		return this;
+	}
+
+	/**
+	 * @return a future completed with the response, or exceptionally with an {@link UploadCancelledException}
+	 *         once the upload is cancelled
+	 */
+	public CompletableFuture<T> getResult() {
+		return result;
+	}
+
+	/**
+	 * @return the last progress reported, zero bytes until the body starts being sent
+	 */
+	public UploadProgress getProgress() {
+		ProgressBodyPublisher current = body;
+		return current == null ? NOT_STARTED : current.getProgress();
+	}
+
+	/**
+	 * Cancels the upload: the file is closed, the HTTP request is aborted and the result fails at once with an
+	 * {@link UploadCancelledException}. Has no effect once the result is complete.
+	 *
+	 * @return {@code true} if this call cancelled the upload
+	 */
+	public boolean cancel() {
+		if (result.isDone()) return false;
+		cancelled = true;
+		ProgressBodyPublisher current = body;
+		if (current != null) current.cancel();
+		return result.completeExceptionally(new UploadCancelledException());
+	}
+
+	public boolean isCancelled() {
+		return cancelled;
+	}
+}
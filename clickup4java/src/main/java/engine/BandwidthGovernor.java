@@ -0,0 +1,146 @@
+package engine;
+
+import java.net.http.HttpRequest.BodyPublisher;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits the total upload throughput of the request bodies it throttles, e.g. to keep the uplink of a shared
+ * CI agent usable while a suite uploads its videos.
+ * <p>
+ * The limit is shared between the uploads in progress in proportion to their share: an upload with share 4
+ * gets four times the bandwidth of an upload with share 1 while both are running, and the bandwidth of a
+ * finished upload is redistributed to the others. Each upload may send {@code burst_bytes} at once, so small
+ * files such as logs go out without delay while big videos trickle out at their share of the limit.
+ * </p>
+ * <p>
+ * Throttling never blocks a thread: a chunk over budget is handed to the HTTP client later, from a scheduler,
+ * and the next chunk is only read once the previous one was handed over.
+ * </p>
+ * <p>
+ * A governor is usually shared by several {@link ClickUpClient}, see {@link ClickUpClient.Builder#bandwidthGovernor}.
+ * </p>
+ *
+ * @author Lucas Alexandre Bez Piancoski
+ * @since 1.0.0
+ */
+public final class BandwidthGovernor {
+
+	public static final long DEFAULT_BURST_BYTES = 256 * 1024;
+
+	private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "clickup4java-bandwidth");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private final long burstBytes;
+	private volatile long bytesPerSecond;
+	private long totalShares;
+	private int activeUploads;
+
+	/**
+	 * @param bytes_per_second the total upload throughput allowed
+	 */
+	public BandwidthGovernor(long bytes_per_second) {
+		this(bytes_per_second, DEFAULT_BURST_BYTES);
+	}
+
+	/**
+	 * @param bytes_per_second the total upload throughput allowed
+	 * @param burst_bytes      the bytes an upload may send without waiting
+	 */
+	public BandwidthGovernor(long bytes_per_second, long burst_bytes) {
+		if (burst_bytes < 0) throw new IllegalArgumentException("burst_bytes must not be negative");
+		setBytesPerSecond(bytes_per_second);
+		this.burstBytes = burst_bytes;
+	}
+
+	/**
+	 * Changes the limit, applied from the next chunk of every upload in progress.
+	 *
+	 * @param bytes_per_second the total upload throughput allowed
+	 */
+	public void setBytesPerSecond(long bytes_per_second) {
+		if (bytes_per_second < 1) throw new IllegalArgumentException("bytes_per_second must be at least 1");
+		this.bytesPerSecond = bytes_per_second;
+	}
+
+	public long getBytesPerSecond() {
+		return bytesPerSecond;
+	}
+
+	public long getBurstBytes() {
+		return burstBytes;
+	}
+
+	/**
+	 * @return the number of throttled bodies being sent
+	 */
+	public synchronized int getActiveUploads() {
+		return activeUploads;
+	}
+
+	/**
+	 * @param body  the body to throttle
+	 * @param share the weight of the upload against the others in progress, at least 1
+	 * @return a publisher sending {@code body} within the limit of this governor
+	 */
+	public BodyPublisher throttle(BodyPublisher body, int share) {
+		if (share < 1) throw new IllegalArgumentException("share must be at least 1");
+		return new ThrottledBodyPublisher(this, Objects.requireNonNull(body, "body"), share);
+	}
+
+	/**
+	 * Bandwidth account of one subscription to a throttled body, following the generic cell rate algorithm:
+	 * {@code theoreticalArrival} is when the upload would be done sending at exactly its share of the limit.
+	 */
+	final class Allocation {
+
+		private final int share;
+		private long theoreticalArrival;
+		private boolean closed;
+
+		private Allocation(int share) {
+			this.share = share;
+		}
+
+		/**
+		 * @return how long to wait before handing {@code bytes} to the HTTP client, in nanoseconds
+		 */
+		long reserve(long bytes) {
+			synchronized (BandwidthGovernor.this) {
+				double rate = (double) bytesPerSecond * share / Math.max(totalShares, share);
+				long now = System.nanoTime();
+				long tolerance = (long) (burstBytes * 1_000_000_000d / rate);
+				if (theoreticalArrival < now) theoreticalArrival = now;
+				long wait = Math.max(0, theoreticalArrival - tolerance - now);
+				theoreticalArrival += (long) (bytes * 1_000_000_000d / rate);
+				return wait;
+			}
+		}
+
+		void close() {
+			synchronized (BandwidthGovernor.this) {
+				if (closed) return;
+				closed = true;
+				totalShares -= share;
+				activeUploads--;
+			}
+		}
+	}
+
+	Allocation open(int share) {
+		synchronized (this) {
+			totalShares += share;
+			activeUploads++;
+		}
+		return new Allocation(share);
+	}
+
+	static void schedule(Runnable task, long delay_nanos) {
+		SCHEDULER.schedule(task, delay_nanos, TimeUnit.NANOSECONDS);
+	}
+}
@@ -0,0 +1,81 @@
+package engine;
+
+import java.io.IOException;
+import java.net.http.HttpRequest.BodyPublisher;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.util.Objects;
+import java.util.Optional;
+
+import helpers.GenerateUUIDBoundary;
+import helpers.ResolveJsonMappingToObjects;
+
+/**
+ * Encodes the body of an {@link Endpoint} call into a {@link BodyPublisher} and its {@code Content-Type}.
+ * Implementations must be thread-safe, one codec serves every call of its endpoints.
+ *
+ * @param <B> the type of the body given by the caller
+ *
+ * @author Lucas Alexandre Bez Piancoski
+ * @since 1.0.0
+ */
+@FunctionalInterface
+public interface BodyCodec<B> {
+
+	/**
+	 * @param body the body of the call
+	 * @return the encoded body
+	 * @throws IOException if the body cannot be encoded, e.g. a file to upload cannot be read
+	 */
+	Encoded encode(B body) throws IOException;
+
+	/**
+	 * @return the codec of the endpoints without a body, such as {@code GET} and {@code DELETE}
+	 */
+	static BodyCodec<Void> none() {
+		return body -> new Encoded(BodyPublishers.noBody(), Optional.empty());
+	}
+
+	/**
+	 * @return a codec writing the body as {@code application/json} with the shared Jackson writer
+	 */
+	static <B> BodyCodec<B> json() {
+		return body -> new Encoded(BodyPublishers.ofByteArray(ResolveJsonMappingToObjects.writer().writeValueAsBytes(body)),
+				Optional.of("application/json"));
+	}
+
+	/**
+	 * @return a codec creating a {@code multipart/form-data} body with a new boundary for every call
+	 */
+	static BodyCodec<MultipartBody> multipart() {
+		return body -> {
+			String boundary = GenerateUUIDBoundary.getNewUUIDBoundary();
+			return new Encoded(body.create(boundary), Optional.of("multipart/form-data; boundary=" + boundary));
+		};
+	}
+
+	/**
+	 * An encoded body.
+	 */
+	final class Encoded {
+
+		private final BodyPublisher publisher;
+		private final Optional<String> contentType;
+
+		/**
+		 * @param publisher    the bytes of the body
+		 * @param content_type the value of the {@code Content-Type} header, empty when there is no body
+		 */
+		public Encoded(BodyPublisher publisher, Optional<String> content_type) {
+			this.publisher = Objects.requireNonNull(publisher, "publisher");
+			this.contentType = Objects.requireNonNull(content_type, "content_type");
+		}
+
+		public BodyPublisher getPublisher() {
+			return publisher;
+		}
+
+		public Optional<String> getContentType() {
+			return contentType;
+		}
+	}
+}
@@ -0,0 +1,129 @@
+package engine;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import helpers.CallNotPermittedException;
+import helpers.CallNotPermittedException.Reason;
+
+/**
+ * Caps the number of attempts of one endpoint in flight, created by {@link HttpRequestExecutor} from its
+ * {@link BulkheadPolicy}.
+ * <p>
+ * Waiting calls are queued as futures in arrival order and a released slot is handed to the oldest one, so
+ * synchronous and asynchronous calls share the same fair queue. Futures are completed outside of the lock, the
+ * request they resume is never sent while holding it.
+ * </p>
+ *
+ * @author Lucas Alexandre Bez Piancoski
+ * @since 1.0.0
+ */
+public final class Bulkhead {
+
+	private final String name;
+	private final int maxConcurrentCalls;
+	private final ArrayDeque<CompletableFuture<Void>> waiters = new ArrayDeque<>();
+	private int available;
+
+	Bulkhead(String name, int max_concurrent_calls) {
+		this.name = name;
+		this.maxConcurrentCalls = max_concurrent_calls;
+		this.available = max_concurrent_calls;
+	}
+
+	/**
+	 * @return the endpoint label of the bulkhead
+	 */
+	public String getName() {
+		return name;
+	}
+
+	public int getMaxConcurrentCalls() {
+		return maxConcurrentCalls;
+	}
+
+	/**
+	 * @return the number of free slots
+	 */
+	public synchronized int getAvailable() {
+		return available;
+	}
+
+	/**
+	 * @return the number of calls waiting for a slot
+	 */
+	public synchronized int getWaiting() {
+		return waiters.size();
+	}
+
+	/**
+	 * Blocks the calling thread until a slot is free.
+	 *
+	 * @throws CallNotPermittedException if no slot was freed within {@code max_wait}
+	 * @throws InterruptedException      if the thread is interrupted while waiting
+	 */
+	void acquire(Duration max_wait) throws IOException, InterruptedException {
+		CompletableFuture<Void> slot = acquireAsync(max_wait);
+		try {
+			slot.get();
+		} catch (InterruptedException e) {
+			// the slot may have been handed over meanwhile, give it back
+			if (!slot.cancel(false)) release();
+			throw e;
+		} catch (ExecutionException e) {
+			throw (IOException) e.getCause();
+		}
+	}
+
+	/**
+	 * @return a future completed once a slot is free, or failed with a {@link CallNotPermittedException} when none
+	 *         was freed within {@code max_wait}
+	 */
+	CompletableFuture<Void> acquireAsync(Duration max_wait) {
+		CompletableFuture<Void> waiter;
+		synchronized (this) {
+			if (available > 0) {
+				available--;
+				return CompletableFuture.completedFuture(null);
+			}
+			if (max_wait.isZero()) return CompletableFuture.failedFuture(new CallNotPermittedException(Reason.BULKHEAD_FULL, name));
+			waiter = new CompletableFuture<>();
+			waiters.add(waiter);
+		}
+		CompletableFuture.delayedExecutor(max_wait.toNanos(), TimeUnit.NANOSECONDS).execute(() -> {
+			if (waiter.completeExceptionally(new CallNotPermittedException(Reason.BULKHEAD_FULL, name))) {
+				synchronized (this) {
+					waiters.remove(waiter);
+				}
+			}
+		});
+		return waiter;
+	}
+
+	/**
+	 * Frees a slot, handing it to the oldest waiting call if any.
+	 */
+	void release() {
+		while (true) {
+			CompletableFuture<Void> waiter;
+			synchronized (this) {
+				waiter = waiters.poll();
+				if (waiter == null) {
+					available++;
+					return;
+				}
+			}
+			// a waiter that timed out or was cancelled meanwhile does not take the slot
+			if (waiter.complete(null)) return;
+		}
+	}
+
+	@Override
+	public String toString() {
+		return name + " " + getAvailable() + "/" + maxConcurrentCalls;
+	}
+}
@@ -0,0 +1,103 @@
+package engine;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.OptionalInt;
+
+/**
+ * Configures the {@link Bulkhead}s of {@link HttpRequestExecutor}: how many attempts of each endpoint may be in
+ * flight at the same time, so a slow endpoint, typically the uploads of large attachments, cannot take every
+ * connection and thread of the client from the other calls.
+ * <p>
+ * Endpoints are named by their label, e.g. {@code POST /task/{id}/attachment}, see
+ * {@link engine.metrics.ClickUpMetrics#endpointOf(java.net.http.HttpRequest)}. An endpoint without a limit of its
+ * own gets the default limit, unbounded unless {@link Builder#maxConcurrentCalls(int)} is given.
+ * </p>
+ * <p>
+ * A call finding its bulkhead full waits up to {@link #getMaxWait()} for a slot, asynchronous calls without holding
+ * a thread, and is then rejected with a {@link helpers.CallNotPermittedException}.
+ * </p>
+ *
+ * @author Lucas Alexandre Bez Piancoski
+ * @since 1.0.0
+ */
+public final class BulkheadPolicy {
+
+	private final OptionalInt defaultMaxConcurrentCalls;
+	private final Map<String, Integer> maxConcurrentCalls;
+	private final Duration maxWait;
+
+	private BulkheadPolicy(Builder builder) {
+		this.defaultMaxConcurrentCalls = builder.defaultMaxConcurrentCalls;
+		this.maxConcurrentCalls = Map.copyOf(builder.maxConcurrentCalls);
+		this.maxWait = builder.maxWait;
+	}
+
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	/**
+	 * @param endpoint the endpoint label
+	 * @return the maximum number of attempts of the endpoint in flight, empty when unbounded
+	 */
+	public OptionalInt getMaxConcurrentCalls(String endpoint) {
+		Integer limit = maxConcurrentCalls.get(endpoint);
+		return limit != null ? OptionalInt.of(limit) : defaultMaxConcurrentCalls;
+	}
+
+	public Duration getMaxWait() {
+		return maxWait;
+	}
+
+	/**
+	 * Builder for {@link BulkheadPolicy}.
+	 */
+	public static final class Builder {
+
+		private OptionalInt defaultMaxConcurrentCalls = OptionalInt.empty();
+		private final Map<String, Integer> maxConcurrentCalls = new HashMap<>();
+		private Duration maxWait = Duration.ofSeconds(30);
+
+		private Builder() {}
+
+		/**
+		 * @param max_concurrent_calls the limit of every endpoint without a limit of its own
+		 */
+		public Builder maxConcurrentCalls(int max_concurrent_calls) {
+			this.defaultMaxConcurrentCalls = OptionalInt.of(positive(max_concurrent_calls));
+			return this;
+		}
+
+		/**
+		 * @param endpoint             the endpoint label, e.g. {@code POST /task/{id}/attachment}
+		 * @param max_concurrent_calls the limit of this endpoint
+		 */
+		public Builder maxConcurrentCalls(String endpoint, int max_concurrent_calls) {
+			maxConcurrentCalls.put(Objects.requireNonNull(endpoint, "endpoint"), positive(max_concurrent_calls));
+			return this;
+		}
+
+		/**
+		 * @param max_wait how long a call waits for a slot before being rejected, 30 seconds by default,
+		 *                 {@link Duration#ZERO} to reject at once
+		 */
+		public Builder maxWait(Duration max_wait) {
+			Objects.requireNonNull(max_wait, "max_wait");
+			if (max_wait.isNegative()) throw new IllegalArgumentException("max_wait must not be negative");
+			this.maxWait = max_wait;
+			return this;
+		}
+
+		public BulkheadPolicy build() {
+			return new BulkheadPolicy(this);
+		}
+
+		private static int positive(int max_concurrent_calls) {
+			if (max_concurrent_calls < 1) throw new IllegalArgumentException("max_concurrent_calls must be at least 1");
+			return max_concurrent_calls;
+		}
+	}
+}
@@ -0,0 +1,97 @@
+package engine;
+
+import java.net.http.HttpHeaders;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * A response stored by a {@link ResponseCache}: its status, headers and raw body bytes, replayed into the body
+ * handler of every request it answers. Immutable.
+ *
+ * @author Lucas Alexandre Bez Piancoski
+ * @since 1.0.0
+ */
+public final class CachedResponse {
+
+	private final int statusCode;
+	private final HttpHeaders headers;
+	private final byte[] body;
+	private final long storedAtNanos;
+
+	/**
+	 * @param status_code     the status of the response
+	 * @param headers         the headers of the response
+	 * @param body            the body bytes, not copied
+	 * @param stored_at_nanos when the response was received or last revalidated, from {@link System#nanoTime()}
+	 */
+	CachedResponse(int status_code, HttpHeaders headers, byte[] body, long stored_at_nanos) {
+		this.statusCode = status_code;
+		this.headers = Objects.requireNonNull(headers, "headers");
+		this.body = Objects.requireNonNull(body, "body");
+		this.storedAtNanos = stored_at_nanos;
+	}
+
+	public int getStatusCode() {
+		return statusCode;
+	}
+
+	public HttpHeaders getHeaders() {
+		return headers;
+	}
+
+	/**
+	 * @return a read-only view of the body
+	 */
+	public ByteBuffer getBody() {
+		return ByteBuffer.wrap(body).asReadOnlyBuffer();
+	}
+
+	public Optional<String> getETag() {
+		return headers.firstValue("ETag");
+	}
+
+	public Optional<String> getLastModified() {
+		return headers.firstValue("Last-Modified");
+	}
+
+	/**
+	 * @return whether the response can be revalidated instead of being downloaded again
+	 */
+	public boolean hasValidator() {
+		return getETag().isPresent() || getLastModified().isPresent();
+	}
+
+	/**
+	 * @return the time since the response was received or last revalidated
+	 */
+	public Duration getAge() {
+		return Duration.ofNanos(System.nanoTime() - storedAtNanos);
+	}
+
+	/**
+	 * @return an estimate of the memory held by the response, in bytes
+	 */
+	public long getSize() {
+		long size = 64L + body.length;
+		for (Map.Entry<String, List<String>> header : headers.map().entrySet()) {
+			size += 2L * header.getKey().length();
+			for (String value : header.getValue()) size += 2L * value.length();
+		}
+		return size;
+	}
+
+	/**
+	 * @return this response confirmed by a {@code 304 Not Modified} received now
+	 */
+	CachedResponse revalidated() {
+		return new CachedResponse(statusCode, headers, body, System.nanoTime());
+	}
+
+	byte[] bytes() {
+		return body;
+	}
+}
@@ -0,0 +1,36 @@
+package engine;
+
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * {@link TokenProvider} that resolves its token once, on first use, and then returns it on every call.
+ * A failed resolution is not cached, the next call tries again.
+ *
+ * @author Lucas Alexandre Bez Piancoski
+ * @since 1.0.0
+ */
+final class CachedTokenProvider implements TokenProvider {
+
+	private final Supplier<String> resolver;
+	private volatile String token;
+
+	CachedTokenProvider(Supplier<String> resolver) {
+		this.resolver = Objects.requireNonNull(resolver, "resolver");
+	}
+
+	@Override
+	public String getToken() {
+		String resolved = token;
+		if (resolved == null) {
+			synchronized (this) {
+				resolved = token;
+				if (resolved == null) {
+					resolved = resolver.get();
+					token = resolved;
+				}
+			}
+		}
+		return resolved;
+	}
+}
@@ -0,0 +1,168 @@
+package engine;
+
+import java.io.IOException;
+import java.net.http.HttpRequest;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import helpers.CallNotPermittedException;
+import helpers.CallNotPermittedException.Reason;
+import helpers.UploadCancelledException;
+
+/**
+ * The {@link CircuitBreaker}s and {@link Bulkhead}s of a {@link HttpRequestExecutor}, created on the first attempt
+ * of each host and endpoint. Every attempt asks for a {@link Permit} before waiting for its rate limit permit, so a
+ * rejected call never consumes one.
+ */
+final class CallGuards {
+
+	private final Optional<CircuitBreakerPolicy> circuitBreakerPolicy;
+	private final Optional<BulkheadPolicy> bulkheadPolicy;
+	private final ConcurrentHashMap<String, CircuitBreaker> circuitBreakers = new ConcurrentHashMap<>();
+	private final ConcurrentHashMap<String, Optional<Bulkhead>> bulkheads = new ConcurrentHashMap<>();
+
+	CallGuards(Optional<CircuitBreakerPolicy> circuit_breaker_policy, Optional<BulkheadPolicy> bulkhead_policy) {
+		this.circuitBreakerPolicy = circuit_breaker_policy;
+		this.bulkheadPolicy = bulkhead_policy;
+	}
+
+	Collection<CircuitBreaker> getCircuitBreakers() {
+		return Collections.unmodifiableCollection(circuitBreakers.values());
+	}
+
+	Collection<Bulkhead> getBulkheads() {
+		return bulkheads.values().stream().flatMap(Optional::stream).collect(Collectors.toUnmodifiableList());
+	}
+
+	/**
+	 * Waits for the permission to send an attempt, blocking while the bulkhead is full.
+	 *
+	 * @throws CallNotPermittedException if the circuit is open or the bulkhead stayed full
+	 * @throws InterruptedException      if the thread is interrupted while waiting for a slot
+	 */
+	Permit acquire(HttpRequest request, String endpoint) throws IOException, InterruptedException {
+		if (circuitBreakerPolicy.isEmpty() && bulkheadPolicy.isEmpty()) return Permit.NONE;
+		Optional<CircuitBreaker> breaker = circuitBreakerFor(request, endpoint);
+		long generation = breaker.map(CircuitBreaker::tryAcquire).orElse(CircuitBreaker.REJECTED);
+		if (breaker.isPresent() && generation == CircuitBreaker.REJECTED) throw new CallNotPermittedException(Reason.CIRCUIT_OPEN, endpoint);
+		Optional<Bulkhead> bulkhead = bulkheadFor(endpoint);
+		if (bulkhead.isPresent()) {
+			try {
+				bulkhead.get().acquire(bulkheadPolicy.get().getMaxWait());
+			} catch (IOException | InterruptedException | RuntimeException e) {
+				breaker.ifPresent(b -> b.release(generation));
+				throw e;
+			}
+		}
+		return new Permit(breaker, generation, bulkhead);
+	}
+
+	/**
+	 * Asks for the permission to send an attempt without blocking.
+	 *
+	 * @return a future completed with the permit, or failed with a {@link CallNotPermittedException}
+	 */
+	CompletableFuture<Permit> acquireAsync(HttpRequest request, String endpoint) {
+		if (circuitBreakerPolicy.isEmpty() && bulkheadPolicy.isEmpty()) return CompletableFuture.completedFuture(Permit.NONE);
+		Optional<CircuitBreaker> breaker = circuitBreakerFor(request, endpoint);
+		long generation = breaker.map(CircuitBreaker::tryAcquire).orElse(CircuitBreaker.REJECTED);
+		if (breaker.isPresent() && generation == CircuitBreaker.REJECTED) {
+			return CompletableFuture.failedFuture(new CallNotPermittedException(Reason.CIRCUIT_OPEN, endpoint));
+		}
+		Optional<Bulkhead> bulkhead = bulkheadFor(endpoint);
+		if (bulkhead.isEmpty()) return CompletableFuture.completedFuture(new Permit(breaker, generation, bulkhead));
+		return bulkhead.get().acquireAsync(bulkheadPolicy.get().getMaxWait()).handle((slot, error) -> {
+			if (error == null) return new Permit(breaker, generation, bulkhead);
+			breaker.ifPresent(b -> b.release(generation));
+			throw new CompletionException(error);
+		});
+	}
+
+	private Optional<CircuitBreaker> circuitBreakerFor(HttpRequest request, String endpoint) {
+		if (circuitBreakerPolicy.isEmpty()) return Optional.empty();
+		String name = request.uri().getAuthority() + " " + endpoint;
+		CircuitBreaker breaker = circuitBreakers.get(name);
+		if (breaker == null) breaker = circuitBreakers.computeIfAbsent(name, n -> new CircuitBreaker(n, circuitBreakerPolicy.get()));
+		return Optional.of(breaker);
+	}
+
+	private Optional<Bulkhead> bulkheadFor(String endpoint) {
+		if (bulkheadPolicy.isEmpty()) return Optional.empty();
+		Optional<Bulkhead> bulkhead = bulkheads.get(endpoint);
+		if (bulkhead != null) return bulkhead;
+		return bulkheads.computeIfAbsent(endpoint, e -> {
+			OptionalInt limit = bulkheadPolicy.get().getMaxConcurrentCalls(e);
+			return limit.isPresent() ? Optional.of(new Bulkhead(e, limit.getAsInt())) : Optional.empty();
+		});
+	}
+
+	/**
+	 * The permission of one attempt: records its outcome in the circuit breaker and frees its bulkhead slot, once.
+	 * Attempts never overlap, so it is only used by one thread at a time.
+	 */
+	static final class Permit {
+
+		static final Permit NONE = new Permit(Optional.empty(), CircuitBreaker.REJECTED, Optional.empty());
+
+		private final Optional<CircuitBreaker> breaker;
+		private final long generation;
+		private final Optional<Bulkhead> bulkhead;
+		private boolean sent;
+		private long sentNanos;
+		private boolean finished;
+
+		private Permit(Optional<CircuitBreaker> breaker, long generation, Optional<Bulkhead> bulkhead) {
+			this.breaker = breaker;
+			this.generation = generation;
+			this.bulkhead = bulkhead;
+		}
+
+		/**
+		 * Starts the clock of the slow call detection, after the rate limit wait.
+		 */
+		void sending() {
+			if (this == NONE) return;
+			sent = true;
+			sentNanos = System.nanoTime();
+		}
+
+		/**
+		 * @param status_code the status of the response, {@code -1} when none was received
+		 * @param error       the failure of the attempt, {@code null} if it succeeded
+		 */
+		void finish(int status_code, Throwable error) {
+			if (this == NONE || finished) return;
+			finished = true;
+			try {
+				if (breaker.isPresent()) {
+					// an attempt never sent or cancelled by the caller says nothing about the health of the API
+					if (!sent || isCancellation(error)) breaker.get().release(generation);
+					else breaker.get().record(generation, isFailure(status_code), System.nanoTime() - sentNanos);
+				}
+			} finally {
+				bulkhead.ifPresent(Bulkhead::release);
+			}
+		}
+
+		private static boolean isCancellation(Throwable error) {
+			for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+				if (cause instanceof UploadCancelledException || cause instanceof CancellationException) return true;
+			}
+			return false;
+		}
+
+		/**
+		 * {@code 429} is a healthy API protecting itself, the {@link RateLimiter} handles it.
+		 */
+		private static boolean isFailure(int status_code) {
+			return status_code < 0 || status_code == 408 || status_code >= 500;
+		}
+	}
+}
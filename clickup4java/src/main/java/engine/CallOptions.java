@@ -0,0 +1,209 @@
+package engine;
+
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.OptionalDouble;
+
+import helpers.DeadlineExceededException;
+
+/**
+ * Options of one call sent by {@link HttpRequestExecutor}: its deadline and whether a {@code GET} is hedged.
+ * <p>
+ * The <b>deadline</b> is the time budget of the whole call, rate limit waits and retries included. Each attempt is
+ * sent with a timeout no longer than the time left, a retry is not scheduled when its delay would outlive the
+ * deadline, and an asynchronous call is failed and its request aborted as soon as the deadline expires. The call
+ * then fails with a {@link DeadlineExceededException}.
+ * </p>
+ * <p>
+ * <b>Hedging</b> sends a second identical {@code GET} when the first one did not answer after a delay, and keeps
+ * the response arriving first, cancelling the other one. The delay is either fixed or a percentile, the 95th by
+ * default, of the latencies of the endpoint measured by the executor: only the slowest 5% of the reads are sent
+ * twice, which trims the tail latency for a small extra load. Until the endpoint has 20 measured calls, no hedge is
+ * sent. Other methods are never hedged.
+ * </p>
+ * <pre>{@code
+ * CallOptions options = CallOptions.builder().timeout(Duration.ofSeconds(5)).hedge().build();
+ * executor.send(request, JsonBodyHandler.of(Task.class), options);
+ * }</pre>
+ *
+ * @author Lucas Alexandre Bez Piancoski
+ * @since 1.0.0
+ */
+public final class CallOptions {
+
+	private static final CallOptions NONE = builder().build();
+
+	/** Measured calls of an endpoint needed before its percentile is trusted. */
+	static final int MINIMUM_HEDGE_SAMPLES = 20;
+
+	private final Optional<Long> deadlineNanos;
+	private final Optional<Duration> hedgeDelay;
+	private final OptionalDouble hedgePercentile;
+
+	private CallOptions(Builder builder) {
+		this.deadlineNanos = Optional.ofNullable(builder.deadlineNanos);
+		this.hedgeDelay = Optional.ofNullable(builder.hedgeDelay);
+		this.hedgePercentile = builder.hedgePercentile;
+	}
+
+	/**
+	 * @return no deadline and no hedging, the options of the calls made without any
+	 */
+	public static CallOptions none() {
+		return NONE;
+	}
+
+	/**
+	 * @param timeout the time budget of the call, from now
+	 * @return options with a deadline only
+	 */
+	public static CallOptions withTimeout(Duration timeout) {
+		return builder().timeout(timeout).build();
+	}
+
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	/**
+	 * @return the time left before the deadline, negative once expired, empty without a deadline
+	 */
+	public Optional<Duration> getRemaining() {
+		return deadlineNanos.map(deadline -> Duration.ofNanos(deadline - System.nanoTime()));
+	}
+
+	public boolean hasDeadline() {
+		return deadlineNanos.isPresent();
+	}
+
+	/**
+	 * @return whether the deadline, if any, expired
+	 */
+	public boolean isExpired() {
+		return deadlineNanos.isPresent() && deadlineNanos.get() - System.nanoTime() <= 0;
+	}
+
+	public boolean isHedged() {
+		return hedgeDelay.isPresent() || hedgePercentile.isPresent();
+	}
+
+	/**
+	 * @return the fixed hedging delay, if one was given
+	 */
+	public Optional<Duration> getHedgeDelay() {
+		return hedgeDelay;
+	}
+
+	/**
+	 * @return the percentile of the latencies of the endpoint used as hedging delay, if no fixed delay was given
+	 */
+	public OptionalDouble getHedgePercentile() {
+		return hedgePercentile;
+	}
+
+	/**
+	 * @return whether a retry after {@code delay} would still start before the deadline
+	 */
+	boolean allowsRetryAfter(Duration delay) {
+		return deadlineNanos.isEmpty() || deadlineNanos.get() - System.nanoTime() > delay.toNanos();
+	}
+
+	/**
+	 * @return {@code request} with a timeout no longer than the time left, unchanged without a deadline
+	 * @throws DeadlineExceededException if the deadline already expired
+	 */
+	HttpRequest bound(HttpRequest request) throws DeadlineExceededException {
+		if (deadlineNanos.isEmpty()) return request;
+		Duration remaining = getRemaining().get();
+		if (remaining.isNegative() || remaining.isZero()) throw expired(null);
+		if (request.timeout().isPresent() && request.timeout().get().compareTo(remaining) <= 0) return request;
+		return HttpRequestProvider.copyOf(request).timeout(remaining).build();
+	}
+
+	/**
+	 * @return these options without their deadline, for a request shared by callers that each wait within their own
+	 */
+	CallOptions withoutDeadline() {
+		if (deadlineNanos.isEmpty()) return this;
+		Builder builder = builder();
+		builder.hedgeDelay = hedgeDelay.orElse(null);
+		builder.hedgePercentile = hedgePercentile;
+		return builder.build();
+	}
+
+	/**
+	 * @param cause the failure of the attempt cut by the deadline, if any
+	 */
+	DeadlineExceededException expired(Throwable cause) {
+		return new DeadlineExceededException("Deadline of the call exceeded", cause);
+	}
+
+	/**
+	 * Builder for {@link CallOptions}.
+	 */
+	public static final class Builder {
+
+		private Long deadlineNanos;
+		private Duration hedgeDelay;
+		private OptionalDouble hedgePercentile = OptionalDouble.empty();
+
+		private Builder() {}
+
+		/**
+		 * @param timeout the time budget of the call, starting now, retries included
+		 */
+		public Builder timeout(Duration timeout) {
+			Objects.requireNonNull(timeout, "timeout");
+			if (timeout.isNegative() || timeout.isZero()) throw new IllegalArgumentException("timeout must be positive");
+			this.deadlineNanos = System.nanoTime() + timeout.toNanos();
+			return this;
+		}
+
+		/**
+		 * @param deadline the instant the call must be completed by, e.g. the deadline of the caller's own request
+		 */
+		public Builder deadline(Instant deadline) {
+			Objects.requireNonNull(deadline, "deadline");
+			Duration remaining = Duration.between(Instant.now(), deadline);
+			// an already expired deadline fails the call before anything is sent
+			this.deadlineNanos = System.nanoTime() + Math.max(0, remaining.toNanos());
+			return this;
+		}
+
+		/**
+		 * Hedges a {@code GET} after the 95th percentile of the latencies of its endpoint.
+		 */
+		public Builder hedge() {
+			return hedge(95);
+		}
+
+		/**
+		 * @param percentile the percentile of the latencies of the endpoint after which a {@code GET} is hedged,
+		 *                   between {@code 50} and {@code 100}
+		 */
+		public Builder hedge(double percentile) {
+			if (percentile < 50 || percentile > 100) throw new IllegalArgumentException("percentile must be between 50 and 100");
+			this.hedgePercentile = OptionalDouble.of(percentile);
+			this.hedgeDelay = null;
+			return this;
+		}
+
+		/**
+		 * @param delay the fixed delay after which a {@code GET} is hedged
+		 */
+		public Builder hedgeAfter(Duration delay) {
+			Objects.requireNonNull(delay, "delay");
+			if (delay.isNegative()) throw new IllegalArgumentException("delay must not be negative");
+			this.hedgeDelay = delay;
+			this.hedgePercentile = OptionalDouble.empty();
+			return this;
+		}
+
+		public CallOptions build() {
+			return new CallOptions(this);
+		}
+	}
+}
@@ -0,0 +1,193 @@
+package engine;
+
+import java.net.http.HttpRequest;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import engine.metrics.ApiCallEvent;
+import engine.metrics.ClickUpMetrics;
+import engine.metrics.Stage;
+
+/**
+ * Collects the measurements of a single logical call sent by {@link HttpRequestExecutor} and reports them once to
+ * {@link ClickUpMetrics} and to the {@link ApiCallEvent} JFR event.
+ * <p>
+ * The requests of a hedged call share one recorder, started by {@link #startHedged(HttpRequest)}: their attempts
+ * overlap, so every counter is atomic and the timings of an attempt are kept by its {@link Attempt}. The bytes
+ * uploaded are counted as the HTTP client takes them from the body, so a failed or cancelled attempt only counts
+ * what it sent.
+ * </p>
+ */
+final class CallRecorder {
+
+	private final String endpoint;
+	private final boolean listening;
+	private final boolean hedged;
+	private final ApiCallEvent event;
+	private final long startNanos;
+	private final AtomicBoolean finished = new AtomicBoolean();
+	private final AtomicInteger attempts = new AtomicInteger();
+	private final LongAdder bytesUploaded = new LongAdder();
+	private final LongAdder rateLimitWaitNanos = new LongAdder();
+
+	private CallRecorder(HttpRequest request, boolean hedged) {
+		this.endpoint = ClickUpMetrics.endpointOf(request);
+		this.listening = ClickUpMetrics.hasListeners();
+		this.hedged = hedged;
+		this.event = new ApiCallEvent();
+		this.startNanos = System.nanoTime();
+		event.begin();
+		if (listening) ClickUpMetrics.recordCallStarted(endpoint);
+	}
+
+	static CallRecorder start(HttpRequest request) {
+		return new CallRecorder(request, false);
+	}
+
+	/**
+	 * Starts the recorder of a hedged call: the outcome is reported by {@link #settled(int, Throwable)} once the
+	 * call has its answer, the completions of its requests are ignored.
+	 */
+	static CallRecorder startHedged(HttpRequest request) {
+		return new CallRecorder(request, true);
+	}
+
+	/**
+	 * @return the endpoint label of the call
+	 */
+	String getEndpoint() {
+		return endpoint;
+	}
+
+	void rateLimitWaited(long nanos) {
+		rateLimitWaitNanos.add(nanos);
+		if (listening && nanos > 0) ClickUpMetrics.recordStage(Stage.RATE_LIMIT_WAIT, endpoint, Duration.ofNanos(nanos));
+	}
+
+	/**
+	 * @param request the request of the attempt
+	 * @return the attempt, its {@link Attempt#getRequest()} counts the bytes of the body as they are sent
+	 */
+	Attempt attemptStarted(HttpRequest request) {
+		attempts.incrementAndGet();
+		return new Attempt(counting(request));
+	}
+
+	void retrying(Duration delay) {
+		if (listening) ClickUpMetrics.recordRetry(endpoint, attempts.get(), delay);
+	}
+
+	void completed(int status_code) {
+		if (!hedged) finish(status_code, null);
+	}
+
+	void failed(int status_code, Throwable error) {
+		if (!hedged) finish(status_code, error);
+	}
+
+	/**
+	 * Reports the outcome of a hedged call.
+	 */
+	void settled(int status_code, Throwable error) {
+		finish(status_code, error);
+	}
+
+	private HttpRequest counting(HttpRequest request) {
+		if (!listening && !event.isEnabled()) return request;
+		HttpRequest.BodyPublisher body = request.bodyPublisher().orElse(null);
+		if (body == null || body.contentLength() == 0) return request;
+		return HttpRequestProvider.copyOf(request).method(request.method(), new CountingBodyPublisher(body)).build();
+	}
+
+	private void finish(int status_code, Throwable error) {
+		if (!finished.compareAndSet(false, true)) return;
+		event.end();
+		if (event.shouldCommit()) {
+			event.endpoint = endpoint;
+			event.statusCode = status_code;
+			event.attempts = attempts.get();
+			event.bytesUploaded = bytesUploaded.sum();
+			event.rateLimitWaitNanos = rateLimitWaitNanos.sum();
+			event.error = error == null ? null : error.toString();
+			event.commit();
+		}
+		if (listening) {
+			ClickUpMetrics.recordCallCompleted(endpoint, status_code, Duration.ofNanos(System.nanoTime() - startNanos),
+					bytesUploaded.sum(), attempts.get());
+		}
+	}
+
+	/**
+	 * One request sent for the call.
+	 */
+	final class Attempt {
+
+		private final HttpRequest request;
+		private final long startNanos = System.nanoTime();
+		private volatile long headersReceivedNanos;
+
+		private Attempt(HttpRequest request) {
+			this.request = request;
+		}
+
+		HttpRequest getRequest() {
+			return request;
+		}
+
+		void headersReceived() {
+			headersReceivedNanos = System.nanoTime();
+			ClickUpMetrics.recordStageSince(Stage.NETWORK, endpoint, startNanos);
+		}
+
+		void bodyReceived() {
+			if (headersReceivedNanos != 0) ClickUpMetrics.recordStageSince(Stage.RESPONSE_MAPPING, endpoint, headersReceivedNanos);
+		}
+	}
+
+	/**
+	 * Adds the size of every buffer the HTTP client takes from the body to the bytes uploaded of the call.
+	 */
+	private final class CountingBodyPublisher implements HttpRequest.BodyPublisher {
+
+		private final HttpRequest.BodyPublisher delegate;
+
+		private CountingBodyPublisher(HttpRequest.BodyPublisher delegate) {
+			this.delegate = delegate;
+		}
+
+		@Override
+		public long contentLength() {
+			return delegate.contentLength();
+		}
+
+		@Override
+		public void subscribe(Flow.Subscriber<? super ByteBuffer> subscriber) {
+			delegate.subscribe(new Flow.Subscriber<ByteBuffer>() {
+				@Override
+				public void onSubscribe(Flow.Subscription subscription) {
+					subscriber.onSubscribe(subscription);
+				}
+
+				@Override
+				public void onNext(ByteBuffer item) {
+					bytesUploaded.add(item.remaining());
+					subscriber.onNext(item);
+				}
+
+				@Override
+				public void onError(Throwable throwable) {
+					subscriber.onError(throwable);
+				}
+
+				@Override
+				public void onComplete() {
+					subscriber.onComplete();
+				}
+			});
+		}
+	}
+}
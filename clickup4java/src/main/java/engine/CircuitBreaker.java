@@ -0,0 +1,177 @@
+package engine;
+
+/**
+ * Circuit breaker of one host and endpoint, created by {@link HttpRequestExecutor} from its
+ * {@link CircuitBreakerPolicy}.
+ * <p>
+ * Checking an open breaker reads two volatile fields and takes no lock, so the calls rejected during an outage
+ * fail in microseconds instead of waiting for a connect timeout. Outcomes are recorded in a ring buffer of the last
+ * attempts, under the lock of the breaker.
+ * </p>
+ * <p>
+ * Each permission carries the generation of the breaker, incremented on every transition, so an attempt started
+ * before a transition does not count towards the new state, e.g. a slow call permitted while closed that completes
+ * after the breaker opened is not taken for a probe.
+ * </p>
+ *
+ * @author Lucas Alexandre Bez Piancoski
+ * @since 1.0.0
+ */
+public final class CircuitBreaker {
+
+	/**
+	 * The state of a breaker.
+	 */
+	public enum State {
+		/** Calls are sent and their outcome recorded. */
+		CLOSED,
+		/** Calls are rejected until the open duration elapsed. */
+		OPEN,
+		/** A few probe calls are sent to decide whether to close or open again. */
+		HALF_OPEN
+	}
+
+	private static final byte FAILED = 1;
+	private static final byte SLOW = 2;
+
+	/** Returned by {@link #tryAcquire()} when the call is rejected. */
+	static final long REJECTED = -1;
+
+	private final String name;
+	private final CircuitBreakerPolicy policy;
+	private final long slowCallNanos;
+	private final long openNanos;
+
+	private volatile State state = State.CLOSED;
+	private volatile long openUntilNanos;
+	private long generation;
+
+	/** Outcome flags of the last attempts while closed. */
+	private final byte[] window;
+	private int next;
+	private int recorded;
+	private int failures;
+	private int slowCalls;
+
+	private int probesInFlight;
+	private int probesSucceeded;
+
+	CircuitBreaker(String name, CircuitBreakerPolicy policy) {
+		this.name = name;
+		this.policy = policy;
+		this.slowCallNanos = policy.getSlowCallDuration().toNanos();
+		this.openNanos = policy.getOpenDuration().toNanos();
+		this.window = new byte[policy.getWindowSize()];
+	}
+
+	/**
+	 * @return the host and endpoint of the breaker, e.g. {@code api.clickup.com POST /task/{id}/attachment}
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * @return the current state, {@link State#OPEN} until a call arrives after the open duration
+	 */
+	public State getState() {
+		return state;
+	}
+
+	/**
+	 * @return the share of failed attempts in the window, {@code 0} when empty
+	 */
+	public synchronized double getFailureRate() {
+		return recorded == 0 ? 0 : (double) failures / recorded;
+	}
+
+	/**
+	 * @return the share of slow attempts in the window, {@code 0} when empty
+	 */
+	public synchronized double getSlowCallRate() {
+		return recorded == 0 ? 0 : (double) slowCalls / recorded;
+	}
+
+	/**
+	 * Asks for the permission to send an attempt.
+	 *
+	 * @return the generation to give back to {@link #record} or {@link #release}, {@link #REJECTED} if rejected
+	 */
+	long tryAcquire() {
+		State current = state;
+		if (current == State.OPEN && System.nanoTime() - openUntilNanos < 0) return REJECTED;
+		synchronized (this) {
+			if (state == State.OPEN) {
+				if (System.nanoTime() - openUntilNanos < 0) return REJECTED;
+				transition(State.HALF_OPEN);
+			}
+			if (state == State.HALF_OPEN) {
+				if (probesInFlight + probesSucceeded >= policy.getHalfOpenProbes()) return REJECTED;
+				probesInFlight++;
+			}
+			return generation;
+		}
+	}
+
+	/**
+	 * Records the outcome of a permitted attempt. A failed or slow probe opens the breaker again.
+	 *
+	 * @param permit        the generation returned by {@link #tryAcquire()}
+	 * @param failed        whether the attempt failed
+	 * @param elapsed_nanos the duration of the attempt
+	 */
+	synchronized void record(long permit, boolean failed, long elapsed_nanos) {
+		if (permit != generation) return;
+		boolean slow = elapsed_nanos >= slowCallNanos;
+		if (state == State.HALF_OPEN) {
+			probesInFlight--;
+			if (failed || slow) {
+				transition(State.OPEN);
+			} else if (++probesSucceeded >= policy.getHalfOpenProbes()) {
+				transition(State.CLOSED);
+			}
+			return;
+		}
+		byte outcome = (byte) ((failed ? FAILED : 0) | (slow ? SLOW : 0));
+		if (recorded == window.length) {
+			byte evicted = window[next];
+			if ((evicted & FAILED) != 0) failures--;
+			if ((evicted & SLOW) != 0) slowCalls--;
+		} else {
+			recorded++;
+		}
+		window[next] = outcome;
+		next = (next + 1) % window.length;
+		if (failed) failures++;
+		if (slow) slowCalls++;
+		if (recorded >= policy.getMinimumCalls()
+				&& (failures >= policy.getFailureRateThreshold() * recorded
+						|| slowCalls >= policy.getSlowCallRateThreshold() * recorded)) {
+			transition(State.OPEN);
+		}
+	}
+
+	/**
+	 * Gives back a permission whose attempt was not sent, e.g. rejected by a full bulkhead.
+	 */
+	synchronized void release(long permit) {
+		if (permit == generation && state == State.HALF_OPEN) probesInFlight--;
+	}
+
+	private void transition(State target) {
+		generation++;
+		next = 0;
+		recorded = 0;
+		failures = 0;
+		slowCalls = 0;
+		probesInFlight = 0;
+		probesSucceeded = 0;
+		if (target == State.OPEN) openUntilNanos = System.nanoTime() + openNanos;
+		state = target;
+	}
+
+	@Override
+	public String toString() {
+		return name + " " + state;
+	}
+}
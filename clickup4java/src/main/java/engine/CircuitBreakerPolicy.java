@@ -0,0 +1,175 @@
+package engine;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Configures the {@link CircuitBreaker} that {@link HttpRequestExecutor} keeps for every host and endpoint.
+ * <p>
+ * The breaker looks at the outcome of the last {@link #getWindowSize()} attempts of its endpoint. Once at least
+ * {@link #getMinimumCalls()} attempts were recorded, it opens when the share of failed attempts reaches
+ * {@link #getFailureRateThreshold()} or the share of attempts slower than {@link #getSlowCallDuration()} reaches
+ * {@link #getSlowCallRateThreshold()}. An attempt failed when no response was received or the status is
+ * {@code 408} or {@code 5xx}; {@code 429} is left to the {@link RateLimiter}, other statuses are answers of a healthy
+ * API.
+ * </p>
+ * <p>
+ * While open, every call is rejected with a {@link helpers.CallNotPermittedException} without being sent. After
+ * {@link #getOpenDuration()} the breaker is half-open: {@link #getHalfOpenProbes()} calls are let through, it closes
+ * when all of them succeed and opens again as soon as one fails or is slow.
+ * </p>
+ *
+ * @author Lucas Alexandre Bez Piancoski
+ * @since 1.0.0
+ */
+public final class CircuitBreakerPolicy {
+
+	private static final CircuitBreakerPolicy DEFAULT = builder().build();
+
+	private final int windowSize;
+	private final int minimumCalls;
+	private final double failureRateThreshold;
+	private final double slowCallRateThreshold;
+	private final Duration slowCallDuration;
+	private final Duration openDuration;
+	private final int halfOpenProbes;
+
+	private CircuitBreakerPolicy(Builder builder) {
+		this.windowSize = builder.windowSize;
+		this.minimumCalls = builder.minimumCalls;
+		this.failureRateThreshold = builder.failureRateThreshold;
+		this.slowCallRateThreshold = builder.slowCallRateThreshold;
+		this.slowCallDuration = builder.slowCallDuration;
+		this.openDuration = builder.openDuration;
+		this.halfOpenProbes = builder.halfOpenProbes;
+	}
+
+	/**
+	 * @return a window of 20 attempts, at least 10 of them, opening at 50% of failures or when every attempt took
+	 *         more than 60 seconds, open for 30 seconds and probed by 3 calls
+	 */
+	public static CircuitBreakerPolicy defaultPolicy() {
+		return DEFAULT;
+	}
+
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	public int getWindowSize() {
+		return windowSize;
+	}
+
+	public int getMinimumCalls() {
+		return minimumCalls;
+	}
+
+	public double getFailureRateThreshold() {
+		return failureRateThreshold;
+	}
+
+	public double getSlowCallRateThreshold() {
+		return slowCallRateThreshold;
+	}
+
+	public Duration getSlowCallDuration() {
+		return slowCallDuration;
+	}
+
+	public Duration getOpenDuration() {
+		return openDuration;
+	}
+
+	public int getHalfOpenProbes() {
+		return halfOpenProbes;
+	}
+
+	/**
+	 * Builder for {@link CircuitBreakerPolicy}.
+	 */
+	public static final class Builder {
+
+		private int windowSize = 20;
+		private int minimumCalls = 10;
+		private double failureRateThreshold = 0.5;
+		private double slowCallRateThreshold = 1.0;
+		private Duration slowCallDuration = Duration.ofSeconds(60);
+		private Duration openDuration = Duration.ofSeconds(30);
+		private int halfOpenProbes = 3;
+
+		private Builder() {}
+
+		/**
+		 * @param window_size the number of most recent attempts the rates are computed on
+		 */
+		public Builder windowSize(int window_size) {
+			if (window_size < 1) throw new IllegalArgumentException("window_size must be at least 1");
+			this.windowSize = window_size;
+			return this;
+		}
+
+		/**
+		 * @param minimum_calls the number of attempts recorded before the breaker may open
+		 */
+		public Builder minimumCalls(int minimum_calls) {
+			if (minimum_calls < 1) throw new IllegalArgumentException("minimum_calls must be at least 1");
+			this.minimumCalls = minimum_calls;
+			return this;
+		}
+
+		/**
+		 * @param failure_rate_threshold the share of failed attempts opening the breaker, in {@code (0, 1]}
+		 */
+		public Builder failureRateThreshold(double failure_rate_threshold) {
+			this.failureRateThreshold = rate(failure_rate_threshold, "failure_rate_threshold");
+			return this;
+		}
+
+		/**
+		 * @param slow_call_rate_threshold the share of slow attempts opening the breaker, in {@code (0, 1]}
+		 * @param slow_call_duration       the duration from which an attempt is slow, until its response headers, so
+		 *                                 the upload of the body included: keep it above the longest expected upload
+		 */
+		public Builder slowCalls(double slow_call_rate_threshold, Duration slow_call_duration) {
+			this.slowCallRateThreshold = rate(slow_call_rate_threshold, "slow_call_rate_threshold");
+			this.slowCallDuration = positive(slow_call_duration, "slow_call_duration");
+			return this;
+		}
+
+		/**
+		 * @param open_duration how long calls are rejected before the breaker is probed
+		 */
+		public Builder openDuration(Duration open_duration) {
+			this.openDuration = positive(open_duration, "open_duration");
+			return this;
+		}
+
+		/**
+		 * @param half_open_probes the number of calls let through, and that must all succeed, to close the breaker
+		 */
+		public Builder halfOpenProbes(int half_open_probes) {
+			if (half_open_probes < 1) throw new IllegalArgumentException("half_open_probes must be at least 1");
+			this.halfOpenProbes = half_open_probes;
+			return this;
+		}
+
+		/**
+		 * @throws IllegalArgumentException if {@code minimum_calls} is larger than {@code window_size}
+		 */
+		public CircuitBreakerPolicy build() {
+			if (minimumCalls > windowSize) throw new IllegalArgumentException("minimum_calls must not exceed window_size");
+			return new CircuitBreakerPolicy(this);
+		}
+
+		private static double rate(double rate, String name) {
+			if (!(rate > 0 && rate <= 1)) throw new IllegalArgumentException(name + " must be in (0, 1]");
+			return rate;
+		}
+
+		private static Duration positive(Duration duration, String name) {
+			Objects.requireNonNull(duration, name);
+			if (duration.isNegative() || duration.isZero()) throw new IllegalArgumentException(name + " must be positive");
+			return duration;
+		}
+	}
+}
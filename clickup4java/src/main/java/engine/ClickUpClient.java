@@ -0,0 +1,408 @@
+package engine;
+
+import java.io.IOException;
+import java.net.ProxySelector;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Configuration of the HTTP stack used to call the ClickUp API: the {@link HttpClient}, the
+ * {@link HttpRequestExecutor} sending through it and the {@link HttpRequestProvider} building the requests.
+ * <p>
+ * Instances are immutable and isolated from each other, so one JVM can run, for example, a bulk upload
+ * client with a large executor and long timeouts next to a latency sensitive client with short timeouts.
+ * Each instance owns its own connection pool. The rate limit of a token is still shared by all of them through
+ * {@link RateLimiters#shared()}, since ClickUp enforces it per token.
+ * </p>
+ * <pre>{@code
+ * ClickUpClient bulk = ClickUpClient.builder()
+ *         .executor(Executors.newFixedThreadPool(4))
+ *         .requestTimeout(Duration.ofMinutes(5))
+ *         .build();
+ * new CreateTaskAttachments(bulk).callSyncCreateTaskAttachmentAPI(...);
+ * }</pre>
+ * <p>
+ * {@link #getDefault()} is the client used by the API classes built without one, and the one behind
+ * {@link HttpClientProvider}.
+ * </p>
+ *
+ * @author Lucas Alexandre Bez Piancoski
+ * @since 1.0.0
+ */
+public final class ClickUpClient {
+
+	public static final Duration DEFAULT_CONNECT_TIMEOUT = Duration.ofSeconds(30);
+
+	private final HttpClient httpClient;
+	private final Optional<Executor> executor;
+	private final Executor ioExecutor;
+	private final HttpRequestExecutor httpRequestExecutor;
+	private final HttpRequestProvider httpRequestProvider;
+	private final String baseUrl;
+	private final Optional<Duration> requestTimeout;
+	private final RetryPolicy retryPolicy;
+	private final TokenProvider tokenProvider;
+	private final Optional<BandwidthGovernor> bandwidthGovernor;
+	private final int bandwidthShare;
+	private final Optional<ResponseCache> responseCache;
+	private final Optional<CircuitBreakerPolicy> circuitBreakerPolicy;
+	private final Optional<BulkheadPolicy> bulkheadPolicy;
+	private final EndpointPipeline endpointPipeline;
+
+	private ClickUpClient(Builder builder) {
+		Executor executor = builder.executor;
+		if (executor == null && builder.virtualThreads && VirtualThreads.isAvailable()) {
+			executor = VirtualThreads.newThreadPerTaskExecutor("clickup4java-http");
+		}
+		this.executor = Optional.ofNullable(executor);
+		this.ioExecutor = builder.ioExecutor != null ? builder.ioExecutor : IoExecutorHolder.IO_EXECUTOR;
+
+		HttpClient.Builder http = HttpClient.newBuilder()
+				.version(builder.version)
+				.connectTimeout(builder.connectTimeout);
+		if (executor != null) http.executor(executor);
+		if (builder.proxy != null) http.proxy(builder.proxy);
+		if (builder.priority != null) http.priority(builder.priority);
+
+		this.httpClient = http.build();
+		this.baseUrl = builder.baseUrl;
+		this.requestTimeout = Optional.ofNullable(builder.requestTimeout);
+		this.retryPolicy = builder.retryPolicy;
+		this.tokenProvider = builder.tokenProvider;
+		this.bandwidthGovernor = Optional.ofNullable(builder.bandwidthGovernor);
+		this.bandwidthShare = builder.bandwidthShare;
+		this.responseCache = Optional.ofNullable(builder.responseCache);
+		this.circuitBreakerPolicy = Optional.ofNullable(builder.circuitBreakerPolicy);
+		this.bulkheadPolicy = Optional.ofNullable(builder.bulkheadPolicy);
+		this.httpRequestExecutor = new HttpRequestExecutor(httpClient, retryPolicy, tokenProvider, responseCache,
+				circuitBreakerPolicy, bulkheadPolicy, builder.rateLimiters != null ? builder.rateLimiters : RateLimiters.shared());
+		this.httpRequestProvider = new HttpRequestProvider(tokenProvider, requestTimeout);
+		this.endpointPipeline = new EndpointPipeline(baseUrl, httpRequestProvider, httpRequestExecutor, ioExecutor);
+	}
+
+	/**
+	 * @return the shared client: HTTP/2, 30 seconds connect timeout, virtual threads on Java 21+,
+	 *         no request timeout, the default {@link RetryPolicy} and {@link TokenProviders#getDefault()}
+	 */
+	public static ClickUpClient getDefault() {
+		return DefaultHolder.DEFAULT;
+	}
+
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	public HttpClient getHttpClient() {
+		return httpClient;
+	}
+
+	/**
+	 * @return the executor of the {@link HttpClient}, empty when the JDK default is used
+	 */
+	public Optional<Executor> getExecutor() {
+		return executor;
+	}
+
+	/**
+	 * @return the executor the asynchronous API methods build their requests on, so file system access
+	 *         and token resolution never run on the calling thread
+	 */
+	public Executor getIoExecutor() {
+		return ioExecutor;
+	}
+
+	public HttpRequestExecutor getHttpRequestExecutor() {
+		return httpRequestExecutor;
+	}
+
+	public HttpRequestProvider getHttpRequestProvider() {
+		return httpRequestProvider;
+	}
+
+	/**
+	 * @return the root of the API, ending with {@code /}, e.g. {@code https://api.clickup.com/api/v2/}
+	 */
+	public String getBaseUrl() {
+		return baseUrl;
+	}
+
+	public Optional<Duration> getRequestTimeout() {
+		return requestTimeout;
+	}
+
+	public RetryPolicy getRetryPolicy() {
+		return retryPolicy;
+	}
+
+	public TokenProvider getTokenProvider() {
+		return tokenProvider;
+	}
+
+	/**
+	 * @return the governor throttling the uploads of this client, if any
+	 */
+	public Optional<BandwidthGovernor> getBandwidthGovernor() {
+		return bandwidthGovernor;
+	}
+
+	/**
+	 * @return the share of the uploads of this client in the bandwidth of its governor
+	 */
+	public int getBandwidthShare() {
+		return bandwidthShare;
+	}
+
+	/**
+	 * @return the cache of the {@code GET} responses, if any
+	 */
+	public Optional<ResponseCache> getResponseCache() {
+		return responseCache;
+	}
+
+	public Optional<CircuitBreakerPolicy> getCircuitBreakerPolicy() {
+		return circuitBreakerPolicy;
+	}
+
+	public Optional<BulkheadPolicy> getBulkheadPolicy() {
+		return bulkheadPolicy;
+	}
+
+	/**
+	 * @return the pipeline calling the {@link Endpoint}s with this configuration
+	 */
+	public EndpointPipeline getEndpointPipeline() {
+		return endpointPipeline;
+	}
+
+	/**
+	 * Opens the connection to the API, resolves the token and builds the JSON readers of the attachment uploads
+	 * before the first call, see {@link ClientWarmup}.
+	 *
+	 * @return the outcome of the health ping
+	 * @throws IOException if the API cannot be reached
+	 * @throws InterruptedException if the thread is interrupted while waiting for the ping
+	 */
+	public HealthCheck warmUp() throws IOException, InterruptedException {
+		return ClientWarmup.defaultWarmup().warmUp(this);
+	}
+
+	/**
+	 * @return a future completed with the outcome of the health ping once the client is warm, see {@link #warmUp()}
+	 */
+	public CompletableFuture<HealthCheck> warmUpAsync() {
+		return ClientWarmup.defaultWarmup().warmUpAsync(this);
+	}
+
+	/**
+	 * @return the status, latency and protocol of a {@code GET user}, sent within 10 seconds
+	 * @throws IOException if the API cannot be reached
+	 * @throws InterruptedException if the thread is interrupted while waiting for the response
+	 */
+	public HealthCheck ping() throws IOException, InterruptedException {
+		return ClientWarmup.ping(this, ClientWarmup.DEFAULT_PING_TIMEOUT);
+	}
+
+	/** Initialized on first use, so a client is only built when the library actually calls the API. */
+	private static final class DefaultHolder {
+		private static final ClickUpClient DEFAULT = builder().build();
+	}
+
+	/** Shared by the clients built without an I/O executor, created on first use. */
+	private static final class IoExecutorHolder {
+		private static final Executor IO_EXECUTOR = VirtualThreads.newThreadPerTaskExecutor("clickup4java-io");
+	}
+
+	/**
+	 * Builder for {@link ClickUpClient}. Every option is optional.
+	 */
+	public static final class Builder {
+
+		private Executor executor;
+		private boolean virtualThreads = true;
+		private Executor ioExecutor;
+		private BandwidthGovernor bandwidthGovernor;
+		private int bandwidthShare = 1;
+		private Duration connectTimeout = DEFAULT_CONNECT_TIMEOUT;
+		private Duration requestTimeout;
+		private HttpClient.Version version = HttpClient.Version.HTTP_2;
+		private ProxySelector proxy;
+		private Integer priority;
+		private String baseUrl = API_URL_BASE.CLICKUPV2_API_URL_BASE.getUrl();
+		private RetryPolicy retryPolicy = RetryPolicy.defaultPolicy();
+		private TokenProvider tokenProvider = TokenProviders.currentDefault();
+		private ResponseCache responseCache;
+		private CircuitBreakerPolicy circuitBreakerPolicy;
+		private BulkheadPolicy bulkheadPolicy;
+		private RateLimiters rateLimiters;
+
+		private Builder() {}
+
+		/**
+		 * @param executor runs the asynchronous tasks of the {@link HttpClient}, including the response
+		 *                 callbacks. It is not shut down by the client. By default virtual threads are used
+		 *                 on Java 21+, see {@link #virtualThreads(boolean)}, and the unbounded cached thread
+		 *                 pool of the JDK otherwise.
+		 */
+		public Builder executor(Executor executor) {
+			this.executor = Objects.requireNonNull(executor, "executor");
+			return this;
+		}
+
+		/**
+		 * @param enabled whether the {@link HttpClient} runs on virtual threads when no {@link #executor(Executor)}
+		 *                is given and the runtime supports them ({@link VirtualThreads#isAvailable()}).
+		 *                Enabled by default, it has no effect before Java 21.
+		 */
+		public Builder virtualThreads(boolean enabled) {
+			this.virtualThreads = enabled;
+			return this;
+		}
+
+		/**
+		 * @param io_executor runs the blocking preparation of asynchronous calls: file checks, MIME type probing,
+		 *                    token resolution. It is not shut down by the client. By default a shared executor of
+		 *                    daemon threads, virtual threads on Java 21+.
+		 */
+		public Builder ioExecutor(Executor io_executor) {
+			this.ioExecutor = Objects.requireNonNull(io_executor, "io_executor");
+			return this;
+		}
+
+		/**
+		 * @param connect_timeout time limit to establish a connection, 30 seconds by default
+		 */
+		public Builder connectTimeout(Duration connect_timeout) {
+			this.connectTimeout = positive(connect_timeout, "connect_timeout");
+			return this;
+		}
+
+		/**
+		 * @param request_timeout time limit of each attempt, from sending the request to receiving the response
+		 *                        headers. Attempts that time out are retried by the {@link RetryPolicy} like any other
+		 *                        I/O failure. No limit by default.
+		 */
+		public Builder requestTimeout(Duration request_timeout) {
+			this.requestTimeout = positive(request_timeout, "request_timeout");
+			return this;
+		}
+
+		/**
+		 * @param version the preferred protocol, {@link HttpClient.Version#HTTP_2} by default
+		 */
+		public Builder version(HttpClient.Version version) {
+			this.version = Objects.requireNonNull(version, "version");
+			return this;
+		}
+
+		public Builder proxy(ProxySelector proxy) {
+			this.proxy = Objects.requireNonNull(proxy, "proxy");
+			return this;
+		}
+
+		/**
+		 * @param priority the HTTP/2 stream priority of the requests, from 1 to 256
+		 */
+		public Builder priority(int priority) {
+			if (priority < 1 || priority > 256) throw new IllegalArgumentException("priority must be between 1 and 256");
+			this.priority = priority;
+			return this;
+		}
+
+		/**
+		 * @param base_url the root of the API, {@code https://api.clickup.com/api/v2/} by default. Useful to
+		 *                 go through a gateway or to target a local emulator.
+		 */
+		public Builder baseUrl(String base_url) {
+			Objects.requireNonNull(base_url, "base_url");
+			if (base_url.isBlank()) throw new IllegalArgumentException("base_url must not be blank");
+			this.baseUrl = base_url.endsWith("/") ? base_url : base_url + "/";
+			return this;
+		}
+
+		public Builder retryPolicy(RetryPolicy retry_policy) {
+			this.retryPolicy = Objects.requireNonNull(retry_policy, "retry_policy");
+			return this;
+		}
+
+		/**
+		 * @param token_provider resolves the token of the calls made without one, {@link TokenProviders#getDefault()} by default
+		 */
+		public Builder tokenProvider(TokenProvider token_provider) {
+			this.tokenProvider = Objects.requireNonNull(token_provider, "token_provider");
+			return this;
+		}
+
+		/**
+		 * @param rate_limiters the limiters of the tokens, {@link RateLimiters#shared()} by default so every client
+		 *                      of the JVM shares the budget of a token. Give a registry of its own to opt out, e.g.
+		 *                      in tests.
+		 */
+		public Builder rateLimiters(RateLimiters rate_limiters) {
+			this.rateLimiters = Objects.requireNonNull(rate_limiters, "rate_limiters");
+			return this;
+		}
+
+		/**
+		 * Throttles the uploads of the client. Give the same governor to several clients to share one limit
+		 * between them, e.g. share 1 for a bulk video client and share 8 for the client attaching logs.
+		 *
+		 * @param bandwidth_governor the limit of the upload throughput
+		 * @param share              the weight of each upload of this client against the others in progress
+		 */
+		public Builder bandwidthGovernor(BandwidthGovernor bandwidth_governor, int share) {
+			if (share < 1) throw new IllegalArgumentException("share must be at least 1");
+			this.bandwidthGovernor = Objects.requireNonNull(bandwidth_governor, "bandwidth_governor");
+			this.bandwidthShare = share;
+			return this;
+		}
+
+		/**
+		 * Caches the {@code GET} responses of the client, so repeated reads of the same task or list are answered
+		 * without a round-trip nor a rate limit permit. No cache by default.
+		 *
+		 * @param response_cache the cache, e.g. {@link InMemoryResponseCache}, may be shared by several clients
+		 */
+		public Builder responseCache(ResponseCache response_cache) {
+			this.responseCache = Objects.requireNonNull(response_cache, "response_cache");
+			return this;
+		}
+
+		/**
+		 * Stops sending calls to an endpoint failing or answering too slowly, so during an outage every call fails
+		 * fast with a {@link helpers.CallNotPermittedException} instead of waiting for a timeout. No circuit breaker
+		 * by default.
+		 *
+		 * @param circuit_breaker_policy the thresholds of the breaker of every host and endpoint,
+		 *                               e.g. {@link CircuitBreakerPolicy#defaultPolicy()}
+		 */
+		public Builder circuitBreaker(CircuitBreakerPolicy circuit_breaker_policy) {
+			this.circuitBreakerPolicy = Objects.requireNonNull(circuit_breaker_policy, "circuit_breaker_policy");
+			return this;
+		}
+
+		/**
+		 * Caps the calls of each endpoint in flight, so a slow endpoint cannot starve the others. No bulkhead by
+		 * default.
+		 *
+		 * @param bulkhead_policy the limits of the endpoints
+		 */
+		public Builder bulkheads(BulkheadPolicy bulkhead_policy) {
+			this.bulkheadPolicy = Objects.requireNonNull(bulkhead_policy, "bulkhead_policy");
+			return this;
+		}
+
+		public ClickUpClient build() {
+			return new ClickUpClient(this);
+		}
+
+		private static Duration positive(Duration duration, String name) {
+			Objects.requireNonNull(duration, name);
+			if (duration.isNegative() || duration.isZero()) throw new IllegalArgumentException(name + " must be positive");
+			return duration;
+		}
+	}
+}
@@ -0,0 +1,200 @@
+package engine;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+
+import helpers.ResolveJsonMappingToObjects;
+import responses.CreateTaskAttachmentResponse;
+
+/**
+ * Pays the startup costs of a {@link ClickUpClient} ahead of its first call, for JVMs living for a handful of calls
+ * such as a test fork in CI.
+ * <p>
+ * The first call of a fresh JVM otherwise resolves the token, looks up the host, performs the TLS handshake and
+ * the HTTP/2 negotiation, and builds the JSON deserializers, all on its critical path. A warm-up resolves the token
+ * first, then sends the health ping, {@code GET user}, which opens the connection kept in the pool of the client,
+ * and builds the readers of the response types while the ping is in flight. The first upload then costs about the
+ * same as the next ones.
+ * </p>
+ * <pre>{@code
+ * CompletableFuture<HealthCheck> warmUp = client.warmUpAsync();
+ * // ... prepare the files to upload
+ * warmUp.join();
+ * }</pre>
+ * <p>
+ * The ping goes through the {@link HttpRequestExecutor} of the client, so it takes one rate limit permit of the
+ * token. It is never answered from the {@link ResponseCache}.
+ * </p>
+ *
+ * @author Lucas Alexandre Bez Piancoski
+ * @since 1.0.0
+ */
+public final class ClientWarmup {
+
+	/** The cheapest authorized call of the API: the user owning the token. */
+	public static final String PING_PATH = "user";
+	public static final Duration DEFAULT_PING_TIMEOUT = Duration.ofSeconds(10);
+
+	private static final ClientWarmup DEFAULT = builder().build();
+
+	private final List<Class<?>> responseTypes;
+	private final Duration pingTimeout;
+
+	private ClientWarmup(Builder builder) {
+		this.responseTypes = Collections.unmodifiableList(new ArrayList<>(builder.responseTypes));
+		this.pingTimeout = builder.pingTimeout;
+	}
+
+	/**
+	 * @return the warm-up of the attachment uploads, with a ping of at most 10 seconds
+	 */
+	public static ClientWarmup defaultWarmup() {
+		return DEFAULT;
+	}
+
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	public List<Class<?>> getResponseTypes() {
+		return responseTypes;
+	}
+
+	public Duration getPingTimeout() {
+		return pingTimeout;
+	}
+
+	/**
+	 * @param client the client to warm up
+	 * @return the outcome of the ping, a failed ping is not an error
+	 * @throws IllegalArgumentException if no token can be resolved
+	 * @throws helpers.DeadlineExceededException if the ping did not complete within the ping timeout
+	 * @throws IOException if the API cannot be reached or a response type cannot be deserialized
+	 * @throws InterruptedException if the thread is interrupted while waiting for the ping
+	 */
+	public HealthCheck warmUp(ClickUpClient client) throws IOException, InterruptedException {
+		CompletableFuture<HealthCheck> ping = sendPing(client, pingRequest(client, client.getTokenProvider().getToken()), pingTimeout);
+		ResolveJsonMappingToObjects.warmUp(responseTypes.toArray(new Class<?>[0]));
+		return await(ping);
+	}
+
+	/**
+	 * Warms up the client without blocking: the token is resolved on its {@link ClickUpClient#getIoExecutor()}.
+	 *
+	 * @param client the client to warm up
+	 * @return a future completed with the outcome of the ping, or failed like {@link #warmUp(ClickUpClient)}
+	 */
+	public CompletableFuture<HealthCheck> warmUpAsync(ClickUpClient client) {
+		Objects.requireNonNull(client, "client");
+		try {
+			return CompletableFuture.supplyAsync(() -> {
+				try {
+					HttpRequest request = pingRequest(client, client.getTokenProvider().getToken());
+					CompletableFuture<HealthCheck> ping = sendPing(client, request, pingTimeout);
+					ResolveJsonMappingToObjects.warmUp(responseTypes.toArray(new Class<?>[0]));
+					return ping;
+				} catch (IOException e) {
+					throw new CompletionException(e);
+				}
+			}, client.getIoExecutor()).thenCompose(ping -> ping);
+		} catch (RuntimeException e) {
+			// e.g. RejectedExecutionException from a shut down executor
+			return CompletableFuture.failedFuture(e);
+		}
+	}
+
+	/**
+	 * Sends the health ping, with the token of the client.
+	 *
+	 * @param client  the client to check
+	 * @param timeout the time budget of the ping, retries included
+	 * @return the status, latency and protocol of the ping
+	 * @throws helpers.DeadlineExceededException if the ping did not complete in time
+	 * @throws IOException if the API cannot be reached
+	 * @throws InterruptedException if the thread is interrupted while waiting for the response
+	 */
+	public static HealthCheck ping(ClickUpClient client, Duration timeout) throws IOException, InterruptedException {
+		HttpRequest request = pingRequest(client, client.getTokenProvider().getToken());
+		long start = System.nanoTime();
+		HttpResponse<Void> response = client.getHttpRequestExecutor()
+				.send(request, BodyHandlers.discarding(), CallOptions.withTimeout(timeout));
+		return new HealthCheck(response.statusCode(), Duration.ofNanos(System.nanoTime() - start), response.version());
+	}
+
+	private static HttpRequest pingRequest(ClickUpClient client, String token) throws IOException {
+		try {
+			HttpRequest request = client.getHttpRequestProvider().generateHttpRequestForGET(client.getBaseUrl() + PING_PATH, Optional.of(token));
+			return HttpRequestProvider.copyOf(request).header("Cache-Control", "no-cache").build();
+		} catch (URISyntaxException e) {
+			throw new IOException("Invalid base URL " + client.getBaseUrl(), e);
+		}
+	}
+
+	private static CompletableFuture<HealthCheck> sendPing(ClickUpClient client, HttpRequest request, Duration timeout) {
+		long start = System.nanoTime();
+		return client.getHttpRequestExecutor()
+				.sendAsync(request, BodyHandlers.discarding(), CallOptions.withTimeout(timeout))
+				.thenApply(response -> new HealthCheck(response.statusCode(), Duration.ofNanos(System.nanoTime() - start),
+						response.version()));
+	}
+
+	private static HealthCheck await(CompletableFuture<HealthCheck> ping) throws IOException, InterruptedException {
+		try {
+			return ping.get();
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause() instanceof CompletionException && e.getCause().getCause() != null
+					? e.getCause().getCause() : e.getCause();
+			if (cause instanceof IOException) throw (IOException) cause;
+			if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+			if (cause instanceof Error) throw (Error) cause;
+			throw new IOException(cause);
+		}
+	}
+
+	/**
+	 * Builder for {@link ClientWarmup}.
+	 */
+	public static final class Builder {
+
+		private final List<Class<?>> responseTypes = new ArrayList<>(List.of(CreateTaskAttachmentResponse.class));
+		private Duration pingTimeout = DEFAULT_PING_TIMEOUT;
+
+		private Builder() {}
+
+		/**
+		 * @param response_types more response types whose readers are built, besides {@link CreateTaskAttachmentResponse}
+		 */
+		public Builder responseTypes(Class<?>... response_types) {
+			for (Class<?> responseType : response_types) {
+				responseTypes.add(Objects.requireNonNull(responseType, "response_types"));
+			}
+			return this;
+		}
+
+		/**
+		 * @param ping_timeout the time budget of the ping, retries included, 10 seconds by default
+		 */
+		public Builder pingTimeout(Duration ping_timeout) {
+			Objects.requireNonNull(ping_timeout, "ping_timeout");
+			if (ping_timeout.isNegative() || ping_timeout.isZero()) throw new IllegalArgumentException("ping_timeout must be positive");
+			this.pingTimeout = ping_timeout;
+			return this;
+		}
+
+		public ClientWarmup build() {
+			return new ClientWarmup(this);
+		}
+	}
+}
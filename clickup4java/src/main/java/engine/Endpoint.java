@@ -0,0 +1,167 @@
+package engine;
+
+import java.net.http.HttpResponse.BodyHandler;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Function;
+
+import helpers.CallNotPermittedException;
+import helpers.JsonBodyHandler;
+
+/**
+ * Declarative description of a ClickUp API endpoint: its method, its path template relative to
+ * {@link API_URL_BASE}, the codec of its body and the handler of its response.
+ * <p>
+ * Endpoints are immutable and meant to be declared once, as constants, and called through the
+ * {@link EndpointPipeline} of a {@link ClickUpClient}. The template is parsed and the response handler, with its
+ * cached Jackson reader, is created when the endpoint is built, not on each call.
+ * </p>
+ * <pre>{@code
+ * static final Endpoint<Void, Task> GET_TASK = Endpoint.builder("GET", "task/{id}")
+ *         .response(Task.class)
+ *         .build();
+ *
+ * Task task = client.getEndpointPipeline().call(GET_TASK, EndpointRequest.builder().pathParameter("id", taskId).build());
+ * }</pre>
+ *
+ * @param <B> the type of the request body, {@link Void} when there is none
+ * @param <R> the type of the response
+ *
+ * @author Lucas Alexandre Bez Piancoski
+ * @since 1.0.0
+ */
+public final class Endpoint<B, R> {
+
+	private final String method;
+	private final UriTemplate uriTemplate;
+	private final BodyCodec<B> bodyCodec;
+	private final BodyHandler<R> responseHandler;
+	private final Optional<Function<CallNotPermittedException, R>> fallback;
+	private final String name;
+
+	private Endpoint(Builder<B, R> builder) {
+		this.method = builder.method;
+		this.uriTemplate = builder.uriTemplate;
+		this.bodyCodec = builder.bodyCodec;
+		this.responseHandler = builder.responseHandler;
+		this.fallback = Optional.ofNullable(builder.fallback);
+		this.name = method + " /" + uriTemplate;
+	}
+
+	/**
+	 * @param method       the HTTP method, e.g. {@code POST}
+	 * @param uri_template the path relative to the base URL, variables in braces, e.g. {@code task/{id}/attachment}
+	 * @return a builder of an endpoint without body nor response yet
+	 */
+	public static Builder<Void, Void> builder(String method, String uri_template) {
+		return new Builder<>(method.toUpperCase(Locale.ROOT), UriTemplate.parse(uri_template), BodyCodec.none(), null, null);
+	}
+
+	public String getMethod() {
+		return method;
+	}
+
+	public String getUriTemplate() {
+		return uriTemplate.toString();
+	}
+
+	/**
+	 * @return the label of the endpoint reported to {@link engine.metrics.ClickUpMetrics}, e.g. {@code POST /task/{id}/attachment}
+	 */
+	public String getName() {
+		return name;
+	}
+
+	public BodyCodec<B> getBodyCodec() {
+		return bodyCodec;
+	}
+
+	public BodyHandler<R> getResponseHandler() {
+		return responseHandler;
+	}
+
+	/**
+	 * @return answers the calls rejected by a circuit breaker or a bulkhead, if any
+	 */
+	public Optional<Function<CallNotPermittedException, R>> getFallback() {
+		return fallback;
+	}
+
+	UriTemplate template() {
+		return uriTemplate;
+	}
+
+	@Override
+	public String toString() {
+		return name;
+	}
+
+	/**
+	 * Builder for {@link Endpoint}, its type follows the body and response declared so far.
+	 */
+	public static final class Builder<B, R> {
+
+		private final String method;
+		private final UriTemplate uriTemplate;
+		private final BodyCodec<B> bodyCodec;
+		private final BodyHandler<R> responseHandler;
+		private final Function<CallNotPermittedException, R> fallback;
+
+		private Builder(String method, UriTemplate uri_template, BodyCodec<B> body_codec, BodyHandler<R> response_handler,
+				Function<CallNotPermittedException, R> fallback) {
+			this.method = method;
+			this.uriTemplate = uri_template;
+			this.bodyCodec = body_codec;
+			this.responseHandler = response_handler;
+			this.fallback = fallback;
+		}
+
+		/**
+		 * @param body_codec encodes the body of each call, e.g. {@link BodyCodec#json()}
+		 */
+		public <T> Builder<T, R> body(BodyCodec<T> body_codec) {
+			return new Builder<>(method, uriTemplate, Objects.requireNonNull(body_codec, "body_codec"), responseHandler, fallback);
+		}
+
+		/**
+		 * @param response_type the type the JSON response is mapped into, see {@link JsonBodyHandler#of(Class)}
+		 */
+		public <T> Builder<B, T> response(Class<T> response_type) {
+			return response(JsonBodyHandler.of(response_type));
+		}
+
+		/**
+		 * @param element_type the type of the elements of the JSON array response, see {@link JsonBodyHandler#ofList(Class)}
+		 */
+		public <T> Builder<B, List<T>> responseList(Class<T> element_type) {
+			return response(JsonBodyHandler.ofList(element_type));
+		}
+
+		/**
+		 * @param response_handler reads the response of each call, shared by all of them
+		 */
+		public <T> Builder<B, T> response(BodyHandler<T> response_handler) {
+			return new Builder<>(method, uriTemplate, bodyCodec, Objects.requireNonNull(response_handler, "response_handler"), null);
+		}
+
+		/**
+		 * Answers the calls rejected while the circuit of the endpoint is open or its bulkhead is full, instead of
+		 * failing them, e.g. with a cached or empty response. Declared after the response, which resets it.
+		 *
+		 * @param fallback receives the rejection and returns the response of the call
+		 */
+		public Builder<B, R> fallback(Function<CallNotPermittedException, R> fallback) {
+			return new Builder<>(method, uriTemplate, bodyCodec, responseHandler, Objects.requireNonNull(fallback, "fallback"));
+		}
+
+		/**
+		 * @throws IllegalStateException if no response was declared
+		 */
+		public Endpoint<B, R> build() {
+			if (responseHandler == null) throw new IllegalStateException("The response of " + method + " " + uriTemplate + " is not declared");
+			return new Endpoint<>(this);
+		}
+	}
+}
@@ -0,0 +1,182 @@
+package engine;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import engine.metrics.ClickUpMetrics;
+import engine.metrics.Stage;
+import helpers.CallNotPermittedException;
+
+/**
+ * Runs the calls of every {@link Endpoint} of a {@link ClickUpClient}: expands the URI template, encodes the body,
+ * builds the request with the {@link HttpRequestProvider} and sends it with the {@link HttpRequestExecutor}, so
+ * rate limiting, retries, caching, coalescing and metrics apply to every endpoint the same way.
+ * <p>
+ * The base URL is validated once when the client is built and the response handlers are created with their
+ * endpoint, so a call only pays for what depends on its arguments. The asynchronous variants encode the body on the
+ * I/O executor of the client, where reading files does not block the caller.
+ * </p>
+ * <p>
+ * A call rejected by a circuit breaker or a bulkhead of the executor is answered by the fallback of its endpoint,
+ * when it declares one, see {@link Endpoint.Builder#fallback}.
+ * </p>
+ *
+ * @author Lucas Alexandre Bez Piancoski
+ * @since 1.0.0
+ */
+public final class EndpointPipeline {
+
+	private final String baseUrl;
+	private final HttpRequestProvider httpRequestProvider;
+	private final HttpRequestExecutor httpRequestExecutor;
+	private final Executor ioExecutor;
+
+	EndpointPipeline(String base_url, HttpRequestProvider http_request_provider, HttpRequestExecutor http_request_executor,
+			Executor io_executor) {
+		try {
+			if (!new URI(base_url).isAbsolute()) throw new IllegalArgumentException("base_url must be absolute: " + base_url);
+		} catch (URISyntaxException e) {
+			throw new IllegalArgumentException("Invalid base_url: " + base_url, e);
+		}
+		this.baseUrl = base_url;
+		this.httpRequestProvider = http_request_provider;
+		this.httpRequestExecutor = http_request_executor;
+		this.ioExecutor = io_executor;
+	}
+
+	/**
+	 * Calls an endpoint synchronously.
+	 *
+	 * @param endpoint the endpoint to call
+	 * @param request  the arguments of the call
+	 *
+	 * @return the response read by the handler of the endpoint
+	 *
+	 * @throws URISyntaxException   if an argument makes the URI invalid
+	 * @throws IOException          if the body cannot be encoded, the request fails,
+	 *                              or the API responds with a non-2xx status
+	 * @throws InterruptedException if the calling thread is interrupted while waiting
+	 */
+	public <B, R> R call(Endpoint<B, R> endpoint, EndpointRequest<B> request)
+			throws URISyntaxException, IOException, InterruptedException {
+		HttpRequest httpRequest = buildRequest(endpoint, request);
+		try {
+			return httpRequestExecutor.send(httpRequest, endpoint.getResponseHandler(), request.getCallOptions()).body();
+		} catch (CallNotPermittedException e) {
+			if (endpoint.getFallback().isEmpty()) throw e;
+			return endpoint.getFallback().get().apply(e);
+		}
+	}
+
+	/**
+	 * Calls an endpoint asynchronously. Every failure, including the ones of the encoding of the body, is reported
+	 * by completing the future exceptionally.
+	 *
+	 * @param endpoint the endpoint to call
+	 * @param request  the arguments of the call
+	 *
+	 * @return a future completed with the response read by the handler of the endpoint
+	 */
+	public <B, R> CompletableFuture<R> callAsync(Endpoint<B, R> endpoint, EndpointRequest<B> request) {
+		CompletableFuture<HttpRequest> httpRequest;
+		try {
+			httpRequest = CompletableFuture.supplyAsync(() -> {
+				try {
+					return buildRequest(endpoint, request);
+				} catch (URISyntaxException | IOException e) {
+					throw new CompletionException(e);
+				}
+			}, ioExecutor);
+		} catch (RuntimeException e) {
+			// e.g. RejectedExecutionException from a shut down executor
+			return CompletableFuture.failedFuture(e);
+		}
+		CompletableFuture<R> response = httpRequest
+				.thenCompose(built -> httpRequestExecutor.sendAsync(built, endpoint.getResponseHandler(), request.getCallOptions()))
+				.thenApply(HttpResponse::body);
+		if (endpoint.getFallback().isEmpty()) return response;
+		return response.handle((body, error) -> {
+			Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+			if (cause == null) return body;
+			if (cause instanceof CallNotPermittedException) return endpoint.getFallback().get().apply((CallNotPermittedException) cause);
+			throw error instanceof CompletionException ? (CompletionException) error : new CompletionException(error);
+		});
+	}
+
+	/**
+	 * Calls an endpoint once per request, with at most {@code max_in_flight} calls running at the same time: each
+	 * completed call starts the next pending one, and no thread waits in between.
+	 *
+	 * @param endpoint      the endpoint to call
+	 * @param requests      the arguments of each call
+	 * @param max_in_flight the maximum number of calls running at the same time
+	 *
+	 * @return one future per request, in the same order, each one failing on its own
+	 */
+	public <B, R> List<CompletableFuture<R>> callBatchAsync(Endpoint<B, R> endpoint, List<EndpointRequest<B>> requests,
+			int max_in_flight) {
+		if (max_in_flight < 1) throw new IllegalArgumentException("max_in_flight must be at least 1");
+		List<EndpointRequest<B>> pending = List.copyOf(requests);
+		List<CompletableFuture<R>> results = new ArrayList<>(pending.size());
+		for (int i = 0; i < pending.size(); i++) results.add(new CompletableFuture<>());
+		AtomicInteger next = new AtomicInteger();
+		for (int i = 0; i < Math.min(max_in_flight, pending.size()); i++) {
+			runLane(endpoint, pending, results, next);
+		}
+		return results;
+	}
+
+	/**
+	 * Builds the request of a call on the calling thread, encoding the body included.
+	 *
+	 * @throws URISyntaxException if an argument makes the URI invalid
+	 * @throws IOException        if the body cannot be encoded
+	 */
+	public <B> HttpRequest buildRequest(Endpoint<B, ?> endpoint, EndpointRequest<B> request) throws URISyntaxException, IOException {
+		Objects.requireNonNull(endpoint, "endpoint");
+		Objects.requireNonNull(request, "request");
+		long start = System.nanoTime();
+		BodyCodec.Encoded body = endpoint.getBodyCodec().encode(request.getBody());
+		ClickUpMetrics.recordStageSince(Stage.BODY_GENERATION, endpoint.getName(), start);
+		start = System.nanoTime();
+		URI uri = new URI(endpoint.template().expand(baseUrl, request.getPathParameters(), request.getQueryParameters()));
+		HttpRequest httpRequest = httpRequestProvider.generateHttpRequest(endpoint.getMethod(), uri, body.getPublisher(),
+				body.getContentType(), request.getClickupToken());
+		ClickUpMetrics.recordStageSince(Stage.REQUEST_BUILD, endpoint.getName(), start);
+		return httpRequest;
+	}
+
+	private <B, R> void runLane(Endpoint<B, R> endpoint, List<EndpointRequest<B>> pending, List<CompletableFuture<R>> results,
+			AtomicInteger next) {
+		while (true) {
+			int index = next.getAndIncrement();
+			if (index >= pending.size()) return;
+			CompletableFuture<R> call = callAsync(endpoint, pending.get(index));
+			CompletableFuture<R> result = results.get(index);
+			if (!call.isDone()) {
+				call.whenComplete((response, error) -> {
+					relay(response, error, result);
+					runLane(endpoint, pending, results, next);
+				});
+				return;
+			}
+			// completed without going to the network, keep looping instead of recursing
+			call.whenComplete((response, error) -> relay(response, error, result));
+		}
+	}
+
+	private static <R> void relay(R response, Throwable error, CompletableFuture<R> result) {
+		if (error == null) result.complete(response);
+		else result.completeExceptionally(error instanceof CompletionException && error.getCause() != null ? error.getCause() : error);
+	}
+}
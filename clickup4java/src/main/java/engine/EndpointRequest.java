@@ -0,0 +1,124 @@
+package engine;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * The arguments of one call of an {@link Endpoint}: the values of its path variables, its query parameters, its
+ * body, its token and its {@link CallOptions}. Immutable.
+ *
+ * @param <B> the type of the request body, {@link Void} when there is none
+ *
+ * @author Lucas Alexandre Bez Piancoski
+ * @since 1.0.0
+ */
+public final class EndpointRequest<B> {
+
+	private final Map<String, String> pathParameters;
+	private final Map<String, String> queryParameters;
+	private final B body;
+	private final Optional<String> clickupToken;
+	private final CallOptions callOptions;
+
+	private EndpointRequest(Builder<B> builder) {
+		this.pathParameters = Map.copyOf(builder.pathParameters);
+		this.queryParameters = Collections.unmodifiableMap(new LinkedHashMap<>(builder.queryParameters));
+		this.body = builder.body;
+		this.clickupToken = builder.clickupToken;
+		this.callOptions = builder.callOptions;
+	}
+
+	/**
+	 * @return a builder of the arguments of an endpoint without body
+	 */
+	public static Builder<Void> builder() {
+		return new Builder<>(null);
+	}
+
+	/**
+	 * @param body the body of the call
+	 * @return a builder of the arguments of an endpoint with a body
+	 */
+	public static <B> Builder<B> builder(B body) {
+		return new Builder<>(Objects.requireNonNull(body, "body"));
+	}
+
+	public Map<String, String> getPathParameters() {
+		return pathParameters;
+	}
+
+	/**
+	 * @return the query parameters, in insertion order
+	 */
+	public Map<String, String> getQueryParameters() {
+		return queryParameters;
+	}
+
+	public B getBody() {
+		return body;
+	}
+
+	public Optional<String> getClickupToken() {
+		return clickupToken;
+	}
+
+	/**
+	 * @return the deadline and hedging of the call, {@link CallOptions#none()} unless given
+	 */
+	public CallOptions getCallOptions() {
+		return callOptions;
+	}
+
+	/**
+	 * Builder for {@link EndpointRequest}.
+	 */
+	public static final class Builder<B> {
+
+		private final B body;
+		private final Map<String, String> pathParameters = new LinkedHashMap<>();
+		private final Map<String, String> queryParameters = new LinkedHashMap<>();
+		private Optional<String> clickupToken = Optional.empty();
+		private CallOptions callOptions = CallOptions.none();
+
+		private Builder(B body) {
+			this.body = body;
+		}
+
+		/**
+		 * @param name  the name of a variable of the URI template, without braces
+		 * @param value its value, percent-encoded when the URI is built
+		 */
+		public Builder<B> pathParameter(String name, String value) {
+			pathParameters.put(Objects.requireNonNull(name, "name"), Objects.requireNonNull(value, "value"));
+			return this;
+		}
+
+		public Builder<B> queryParameter(String name, String value) {
+			queryParameters.put(Objects.requireNonNull(name, "name"), Objects.requireNonNull(value, "value"));
+			return this;
+		}
+
+		/**
+		 * @param clickup_token optional ClickUp API token, resolved by the {@link TokenProvider} of the client when empty
+		 */
+		public Builder<B> token(Optional<String> clickup_token) {
+			this.clickupToken = Objects.requireNonNull(clickup_token, "clickup_token");
+			return this;
+		}
+
+		/**
+		 * @param call_options the deadline and hedging of the call, the time spent encoding the body counts against the deadline
+		 */
+		public Builder<B> options(CallOptions call_options) {
+			this.callOptions = Objects.requireNonNull(call_options, "call_options");
+			return this;
+		}
+
+		public EndpointRequest<B> build() {
+			return new EndpointRequest<>(this);
+		}
+	}
+}
@@ -0,0 +1,61 @@
+package engine;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+
+/**
+ * Outcome of the health ping of a {@link ClickUpClient}, see {@link ClientWarmup#ping(ClickUpClient, Duration)}.
+ *
+ * @author Lucas Alexandre Bez Piancoski
+ * @since 1.0.0
+ */
+public final class HealthCheck {
+
+	private final int statusCode;
+	private final Duration latency;
+	private final HttpClient.Version version;
+
+	HealthCheck(int status_code, Duration latency, HttpClient.Version version) {
+		this.statusCode = status_code;
+		this.latency = latency;
+		this.version = version;
+	}
+
+	public int getStatusCode() {
+		return statusCode;
+	}
+
+	/**
+	 * @return the duration of the ping, including the DNS lookup and the handshakes when it opened the connection
+	 */
+	public Duration getLatency() {
+		return latency;
+	}
+
+	/**
+	 * @return the protocol negotiated with the API, {@link HttpClient.Version#HTTP_1_1} when HTTP/2 was refused,
+	 *         e.g. by a proxy
+	 */
+	public HttpClient.Version getVersion() {
+		return version;
+	}
+
+	/**
+	 * @return whether the API answered the ping successfully
+	 */
+	public boolean isHealthy() {
+		return statusCode >= 200 && statusCode < 300;
+	}
+
+	/**
+	 * @return whether the token was accepted, {@code false} when the API answered {@code 401}
+	 */
+	public boolean isAuthorized() {
+		return statusCode != 401;
+	}
+
+	@Override
+	public String toString() {
+		return statusCode + " in " + latency.toMillis() + " ms over " + version;
+	}
+}
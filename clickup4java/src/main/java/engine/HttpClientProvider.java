@@ -1,7 +1,6 @@
 package engine;
 
 import java.net.http.HttpClient;
-import java.time.Duration;
 
 /**
  * Provides a single shared {@link HttpClient} instance to be used for all API requests.
@@ -10,20 +9,30 @@ import java.time.Duration;
  * across the entire library. Reusing a single instance also enables <b>efficient connection
  * pooling</b> and <b>concurrent asynchronous requests</b> without additional configuration.
  * </p>
+ * <p>
+ * The shared instances are those of {@link ClickUpClient#getDefault()}. Build a {@link ClickUpClient}
+ * to use different timeouts, executor or protocol.
+ * </p>
  *
  * @author Lucas Alexandre Bez Piancoski
  * @since 1.0.0
  */
 public final class HttpClientProvider {
 
-    private static final HttpClient HTTP_CLIENT = HttpClient.newBuilder()
-            .version(HttpClient.Version.HTTP_2)
-            .connectTimeout(Duration.ofSeconds(30))
-            .build();
-
     private HttpClientProvider() {}
 
     public static HttpClient getHttpClient() {
-        return HTTP_CLIENT;
+        return ClickUpClient.getDefault().getHttpClient();
+    }
+
+    /**
+     * Returns the {@link HttpRequestExecutor} bound to the shared {@link HttpClient}.
+     * Prefer it over calling {@link HttpClient#send} directly, so requests respect the
+     * rate limit of their token.
+     *
+     * @return the shared {@link HttpRequestExecutor}
+     */
+    public static HttpRequestExecutor getHttpRequestExecutor() {
+        return ClickUpClient.getDefault().getHttpRequestExecutor();
     }
 }
@@ -0,0 +1,808 @@
+package engine;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.net.http.HttpResponse.BodyHandler;
+import java.net.http.HttpResponse.BodySubscriber;
+import java.net.http.HttpResponse.ResponseInfo;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import engine.metrics.ClickUpMetrics;
+import engine.metrics.LatencyHistogram;
+import helpers.CallNotPermittedException;
+import helpers.DeadlineExceededException;
+import helpers.HttpStatusException;
+
+/**
+ * Sends the {@link HttpRequest} instances built by {@link HttpRequestProvider} through a shared {@link HttpClient}.
+ * <p>
+ * Every request waits for a permit of the {@link RateLimiter} of its token, from the {@link RateLimiters} of the
+ * executor, before it is sent,
+ * and every response recalibrates that limiter from its rate limit headers. The headers are read
+ * as soon as the status line arrives, before the body is consumed, so the limiter is updated even
+ * when the body handler fails.
+ * </p>
+ * <p>
+ * Failed attempts are retried according to the {@link RetryPolicy}. The same {@link HttpRequest}
+ * is sent again, so its body publisher must be replayable: the multipart bodies built by
+ * {@link helpers.GenerateBodyPublisherForRequestWithFile} re-open the file on every attempt instead
+ * of buffering it. Asynchronous retries are scheduled on a delayed executor and never sleep on a thread.
+ * </p>
+ * <p>
+ * The status of every response is also reported to the {@link TokenProvider} of the executor,
+ * {@link TokenProviders#getDefault()} unless one is given, so a {@link TokenPool} can track the health of its tokens.
+ * </p>
+ * <p>
+ * {@link CallOptions} give a call a deadline covering its retries, which bounds the timeout of each attempt and
+ * aborts the asynchronous attempt in flight when it expires, and may hedge a {@code GET}: a second request is sent
+ * when the first did not answer after a percentile of the latencies of its endpoint, and the first answer wins.
+ * </p>
+ * <p>
+ * With a {@link CircuitBreakerPolicy}, every attempt first asks the {@link CircuitBreaker} of its host and endpoint,
+ * and is rejected at once with a {@link CallNotPermittedException} while it is open; with a {@link BulkheadPolicy},
+ * it then waits for a slot of the {@link Bulkhead} of its endpoint. Both come before the rate limit wait, so a
+ * rejected call never consumes a permit, and rejections are never retried.
+ * </p>
+ * <p>
+ * Each call is measured and reported to {@link engine.metrics.ClickUpMetrics} and to the
+ * {@link engine.metrics.ApiCallEvent} Flight Recorder event.
+ * </p>
+ * <p>
+ * With a {@link ResponseCache}, a fresh stored {@code GET} response is replayed into the body handler without a
+ * rate limit permit nor a round-trip, a stale one is revalidated with a conditional request, and any other request
+ * invalidates the resource it targets once it completed. The responses of the {@code GET} requests in flight
+ * meanwhile are not stored.
+ * </p>
+ * <p>
+ * Identical {@code GET} requests, same URI and same token, are coalesced while one of them is in flight: the
+ * others wait for its response instead of being sent, so a suite starting hundreds of workers reading the same
+ * task costs one request and one permit. The response streams into the body handler of the caller that sent it;
+ * only when others joined before it arrived are its raw bytes kept, once, and replayed into the body handler of
+ * each of them, so every caller parses its own copy and no mutable object is shared between threads. The shared
+ * request has no deadline: each caller waits for it within its own, and it is aborted once every caller gave up.
+ * </p>
+ *
+ * @author Lucas Alexandre Bez Piancoski
+ * @since 1.0.0
+ */
+public final class HttpRequestExecutor {
+
+	private final HttpClient httpClient;
+	private final RetryPolicy retryPolicy;
+	private final TokenProvider tokenProvider;
+	private final Optional<ResponseCaching> responseCaching;
+	private final CallGuards callGuards;
+	private final RateLimiters rateLimiters;
+	/** The latencies of the {@code GET}s of each endpoint, for the hedging delays. */
+	private final ConcurrentHashMap<String, LatencyHistogram> latencies = new ConcurrentHashMap<>();
+	/** The {@code GET} requests being sent, by token scope and URI. */
+	private final ConcurrentHashMap<String, CoalescedGet> inFlightGets = new ConcurrentHashMap<>();
+
+	public HttpRequestExecutor(HttpClient http_client) {
+		this(http_client, RetryPolicy.defaultPolicy());
+	}
+
+	public HttpRequestExecutor(HttpClient http_client, RetryPolicy retry_policy) {
+		this(http_client, retry_policy, TokenProviders.currentDefault());
+	}
+
+	/**
+	 * @param http_client the client sending the requests
+	 * @param retry_policy how failed attempts are retried
+	 * @param token_provider notified of the status of every response
+	 */
+	public HttpRequestExecutor(HttpClient http_client, RetryPolicy retry_policy, TokenProvider token_provider) {
+		this(http_client, retry_policy, token_provider, Optional.empty());
+	}
+
+	/**
+	 * @param http_client the client sending the requests
+	 * @param retry_policy how failed attempts are retried
+	 * @param token_provider notified of the status of every response
+	 * @param response_cache optional cache of the {@code GET} responses
+	 */
+	public HttpRequestExecutor(HttpClient http_client, RetryPolicy retry_policy, TokenProvider token_provider,
+			Optional<ResponseCache> response_cache) {
+		this(http_client, retry_policy, token_provider, response_cache, Optional.empty(), Optional.empty());
+	}
+
+	/**
+	 * @param http_client the client sending the requests
+	 * @param retry_policy how failed attempts are retried
+	 * @param token_provider notified of the status of every response
+	 * @param response_cache optional cache of the {@code GET} responses
+	 * @param circuit_breaker_policy optional policy of the circuit breaker of every host and endpoint
+	 * @param bulkhead_policy optional limits of the attempts of each endpoint in flight
+	 */
+	public HttpRequestExecutor(HttpClient http_client, RetryPolicy retry_policy, TokenProvider token_provider,
+			Optional<ResponseCache> response_cache, Optional<CircuitBreakerPolicy> circuit_breaker_policy,
+			Optional<BulkheadPolicy> bulkhead_policy) {
+		this(http_client, retry_policy, token_provider, response_cache, circuit_breaker_policy, bulkhead_policy,
+				RateLimiters.shared());
+	}
+
+	/**
+	 * @param http_client the client sending the requests
+	 * @param retry_policy how failed attempts are retried
+	 * @param token_provider notified of the status of every response
+	 * @param response_cache optional cache of the {@code GET} responses
+	 * @param circuit_breaker_policy optional policy of the circuit breaker of every host and endpoint
+	 * @param bulkhead_policy optional limits of the attempts of each endpoint in flight
+	 * @param rate_limiters the limiters of the tokens, shared with the executors sending with the same tokens
+	 */
+	public HttpRequestExecutor(HttpClient http_client, RetryPolicy retry_policy, TokenProvider token_provider,
+			Optional<ResponseCache> response_cache, Optional<CircuitBreakerPolicy> circuit_breaker_policy,
+			Optional<BulkheadPolicy> bulkhead_policy, RateLimiters rate_limiters) {
+		this.httpClient = Objects.requireNonNull(http_client, "http_client");
+		this.retryPolicy = Objects.requireNonNull(retry_policy, "retry_policy");
+		this.tokenProvider = Objects.requireNonNull(token_provider, "token_provider");
+		this.responseCaching = Objects.requireNonNull(response_cache, "response_cache").map(ResponseCaching::new);
+		this.callGuards = new CallGuards(Objects.requireNonNull(circuit_breaker_policy, "circuit_breaker_policy"),
+				Objects.requireNonNull(bulkhead_policy, "bulkhead_policy"));
+		this.rateLimiters = Objects.requireNonNull(rate_limiters, "rate_limiters");
+	}
+
+	public HttpClient getHttpClient() {
+		return httpClient;
+	}
+
+	public RateLimiters getRateLimiters() {
+		return rateLimiters;
+	}
+
+	public RetryPolicy getRetryPolicy() {
+		return retryPolicy;
+	}
+
+	/**
+	 * @return the circuit breakers created so far, one per host and endpoint called, empty without a
+	 *         {@link CircuitBreakerPolicy}
+	 */
+	public Collection<CircuitBreaker> getCircuitBreakers() {
+		return callGuards.getCircuitBreakers();
+	}
+
+	/**
+	 * @return the bulkheads created so far, one per bounded endpoint called, empty without a {@link BulkheadPolicy}
+	 */
+	public Collection<Bulkhead> getBulkheads() {
+		return callGuards.getBulkheads();
+	}
+
+	/**
+	 * @return the number of {@code GET} requests in flight that identical requests would join
+	 */
+	int getInFlightGetCount() {
+		return inFlightGets.size();
+	}
+
+	/**
+	 * Sends the request synchronously, waiting for a rate limit permit first and retrying
+	 * transient failures.
+	 *
+	 * @param request the request to send
+	 * @param handler the body handler for the response
+	 *
+	 * @return the {@link HttpResponse} of the last attempt
+	 * @throws IOException if an I/O error occurs when sending or receiving on the last attempt
+	 * @throws InterruptedException if the thread is interrupted while waiting for a permit, a retry or the response
+	 */
+	public <T> HttpResponse<T> send(HttpRequest request, BodyHandler<T> handler) throws IOException, InterruptedException {
+		return send(request, handler, CallOptions.none());
+	}
+
+	/**
+	 * Sends the request synchronously within the deadline of {@code options}, hedging it if requested.
+	 *
+	 * @param request the request to send
+	 * @param handler the body handler for the response
+	 * @param options the deadline and hedging of the call
+	 *
+	 * @return the {@link HttpResponse} of the last attempt
+	 * @throws helpers.DeadlineExceededException if the deadline expired before the call completed
+	 * @throws IOException if an I/O error occurs when sending or receiving on the last attempt
+	 * @throws InterruptedException if the thread is interrupted while waiting for a permit, a retry or the response
+	 */
+	public <T> HttpResponse<T> send(HttpRequest request, BodyHandler<T> handler, CallOptions options)
+			throws IOException, InterruptedException {
+		Objects.requireNonNull(options, "options");
+		Optional<String> scope = ResponseCaching.scopeOf(request);
+		if (scope.isEmpty()) {
+			try {
+				return sendWithRetries(request, handler, options);
+			} finally {
+				if (ResponseCaching.isWrite(request)) responseCaching.ifPresent(caching -> caching.invalidate(request));
+			}
+		}
+		Optional<CachedResponse> stored = responseCaching.flatMap(caching -> caching.lookup(scope.get(), request));
+		if (stored.isPresent() && responseCaching.get().isFresh(stored.get())) {
+			unsent(request);
+			return await(ResponseCaching.serve(request, stored.get(), handler), options);
+		}
+
+		if (options.isExpired()) {
+			// the shared request is sent without a deadline, do not start one for a caller that cannot wait for it
+			unsent(request);
+			throw options.expired(null);
+		}
+		CompletableFuture<HttpResponse<T>> response = coalesced(request, scope.get(), stored, handler, options);
+		try {
+			return await(response, options);
+		} finally {
+			// stops the wait of this caller only when it gave up, the shared request goes on for the others
+			response.cancel(true);
+		}
+	}
+
+	private <T> HttpResponse<T> sendWithRetries(HttpRequest request, BodyHandler<T> handler, CallOptions options)
+			throws IOException, InterruptedException {
+		Optional<RateLimiter> limiter = limiterFor(request);
+		CallRecorder recorder = CallRecorder.start(request);
+		try {
+			for (int attempt = 1;; attempt++) {
+				CallGuards.Permit permit = callGuards.acquire(request, recorder.getEndpoint());
+				AtomicReference<ResponseInfo> received = new AtomicReference<>();
+				Optional<Duration> retryDelay;
+				Throwable attemptError = null;
+				try {
+					if (limiter.isPresent()) {
+						long waitStart = System.nanoTime();
+						limiter.get().acquire();
+						recorder.rateLimitWaited(System.nanoTime() - waitStart);
+					}
+					CallRecorder.Attempt started = recorder.attemptStarted(options.bound(request));
+					permit.sending();
+					HttpResponse<T> response = httpClient.send(started.getRequest(), track(request, limiter, started, received, handler));
+					started.bodyReceived();
+					retryDelay = retryDelay(request, attempt, response.statusCode(), response.headers(), options);
+					if (retryDelay.isEmpty()) {
+						recorder.completed(response.statusCode());
+						return response;
+					}
+				} catch (IOException e) {
+					attemptError = e;
+					retryDelay = retryDelay(request, attempt, received.get(), e, options);
+					if (retryDelay.isEmpty()) {
+						IOException failure = expiredOr(unwrapStatus(e), options);
+						recorder.failed(statusOf(received.get()), failure);
+						throw failure;
+					}
+				} catch (InterruptedException | RuntimeException e) {
+					attemptError = e;
+					throw e;
+				} finally {
+					permit.finish(statusOf(received.get()), attemptError);
+				}
+				recorder.retrying(retryDelay.get());
+				TimeUnit.MILLISECONDS.sleep(retryDelay.get().toMillis());
+			}
+		} catch (CallNotPermittedException | InterruptedException | RuntimeException e) {
+			recorder.failed(-1, e);
+			throw e;
+		}
+	}
+
+	/**
+	 * Sends the request asynchronously. The request is queued on a delayed executor until a rate
+	 * limit permit is available, and transient failures are retried on a delayed executor as well,
+	 * so waiting requests do not hold any thread.
+	 *
+	 * @param request the request to send
+	 * @param handler the body handler for the response
+	 *
+	 * @return a future completed with the {@link HttpResponse} of the last attempt
+	 */
+	public <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request, BodyHandler<T> handler) {
+		return sendAsync(request, handler, CallOptions.none());
+	}
+
+	/**
+	 * Sends the request asynchronously within the deadline of {@code options}, hedging it if requested. When the
+	 * deadline expires, the future fails with a {@link helpers.DeadlineExceededException} and the attempt in flight
+	 * is aborted; cancelling the future aborts it as well.
+	 *
+	 * @param request the request to send
+	 * @param handler the body handler for the response
+	 * @param options the deadline and hedging of the call
+	 *
+	 * @return a future completed with the {@link HttpResponse} of the last attempt
+	 */
+	public <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request, BodyHandler<T> handler, CallOptions options) {
+		Objects.requireNonNull(options, "options");
+		Optional<String> scope = ResponseCaching.scopeOf(request);
+		if (scope.isEmpty()) {
+			CompletableFuture<HttpResponse<T>> response = sendAsyncWithRetries(request, handler, options, new Cancellation());
+			if (ResponseCaching.isWrite(request) && responseCaching.isPresent()) {
+				response.whenComplete((r, e) -> responseCaching.get().invalidate(request));
+			}
+			return response;
+		}
+		Optional<CachedResponse> stored = responseCaching.flatMap(caching -> caching.lookup(scope.get(), request));
+		if (stored.isPresent() && responseCaching.get().isFresh(stored.get())) {
+			unsent(request);
+			return ResponseCaching.serve(request, stored.get(), handler);
+		}
+
+		if (options.isExpired()) {
+			unsent(request);
+			return CompletableFuture.failedFuture(options.expired(null));
+		}
+		CompletableFuture<HttpResponse<T>> response = coalesced(request, scope.get(), stored, handler, options);
+		Cancellation waiting = new Cancellation();
+		waiting.track(response);
+		// a coalesced caller keeps its own deadline, it does not inherit the one of the leader
+		return within(response, options, Optional.of(waiting));
+	}
+
+	/**
+	 * Joins the {@code GET} in flight for the same URI and token, or sends it without a deadline for the callers
+	 * joining it.
+	 *
+	 * @return the response of this caller, cancelling it only stops the wait of this caller
+	 */
+	private <T> CompletableFuture<HttpResponse<T>> coalesced(HttpRequest request, String scope, Optional<CachedResponse> stored,
+			BodyHandler<T> handler, CallOptions options) {
+		String key = scope + '\n' + request.uri();
+		CoalescedGet flight = new CoalescedGet();
+		CoalescedGet current = inFlightGets.putIfAbsent(key, flight);
+		while (current != null) {
+			if (current.join()) {
+				unsent(request);
+				CoalescedGet joined = current;
+				CompletableFuture<HttpResponse<T>> following = joined.getResponse().thenCompose(shared -> shared.isPresent()
+						? ResponseCaching.serve(request, shared.get(), handler)
+						// no copy of the final response of the leader was kept
+						: sendAsync(request, handler, options));
+				following.whenComplete((response, error) -> joined.left());
+				return following;
+			}
+			// the leader of that request already reads its response, lead a new one
+			current = inFlightGets.replace(key, current, flight) ? null : inFlightGets.putIfAbsent(key, flight);
+		}
+		CompletableFuture<HttpResponse<T>> leading = new CompletableFuture<>();
+		fetchAsync(request, scope, stored, flight.leading(handler), options.withoutDeadline(), flight.cancellation)
+				.whenComplete((response, error) -> {
+					inFlightGets.remove(key, flight);
+					flight.settled(response, error);
+					if (error == null) leading.complete(response);
+					else leading.completeExceptionally(unwrap(error));
+				});
+		leading.whenComplete((response, error) -> flight.left());
+		return leading;
+	}
+
+	/**
+	 * Sends a {@code GET} to the network, hedged when {@code options} ask for it and a delay is known.
+	 */
+	private <T> CompletableFuture<HttpResponse<T>> fetchAsync(HttpRequest request, String scope, Optional<CachedResponse> stored,
+			BodyHandler<T> handler, CallOptions options, Cancellation cancellation) {
+		Optional<Duration> hedgeDelay = hedgeDelay(request, options);
+		if (hedgeDelay.isEmpty()) {
+			return fetchOnceAsync(request, scope, stored, handler, options, cancellation, CallRecorder.start(request));
+		}
+		// both requests are one call for the metrics, reported once the result is settled
+		CallRecorder recorder = CallRecorder.startHedged(request);
+		CompletableFuture<HttpResponse<T>> result = new CompletableFuture<>();
+		Cancellation primary = new Cancellation();
+		Cancellation hedge = new Cancellation();
+		AtomicInteger running = new AtomicInteger(1);
+		AtomicReference<CompletableFuture<HttpResponse<T>>> answered = new AtomicReference<>();
+		CompletableFuture<HttpResponse<T>> first = fetchOnceAsync(request, scope, stored, handler, options, primary, recorder);
+		first.whenComplete((response, error) -> settleHedged(result, response, error, running, answered, hedge));
+		CompletableFuture.delayedExecutor(hedgeDelay.get().toNanos(), TimeUnit.NANOSECONDS).execute(() -> {
+			if (result.isDone() || first.isDone()) return;
+			running.incrementAndGet();
+			// the first attempt may have failed meanwhile, settling the result alone
+			if (result.isDone()) return;
+			fetchOnceAsync(request, scope, stored, handler, options, hedge, recorder)
+					.whenComplete((response, error) -> settleHedged(result, response, error, running, answered, primary));
+		});
+		result.whenComplete((response, error) -> {
+			if (error != null) {
+				primary.cancel();
+				hedge.cancel();
+			}
+			recorder.settled(error == null ? response.statusCode() : statusOf(error), error == null ? null : unwrap(error));
+		});
+		// cancelling the call aborts both requests
+		return cancellation.track(result);
+	}
+
+	/**
+	 * Keeps the first answer of a hedged {@code GET} that is not a server error and aborts the other request. Once
+	 * both requests are done without such an answer, keeps the last server error answered, as a response or an
+	 * {@link HttpStatusException}, over a later failure without any answer, e.g. a connect error.
+	 */
+	private static <T> void settleHedged(CompletableFuture<HttpResponse<T>> result, HttpResponse<T> response, Throwable error,
+			AtomicInteger running, AtomicReference<CompletableFuture<HttpResponse<T>>> answered, Cancellation other) {
+		boolean last = running.decrementAndGet() == 0;
+		int status = error == null ? response.statusCode() : statusOf(error);
+		CompletableFuture<HttpResponse<T>> outcome = error == null
+				? CompletableFuture.completedFuture(response)
+				: CompletableFuture.failedFuture(unwrap(error));
+		if (status > 0) answered.set(outcome);
+		if (status > 0 && status < 500) {
+			settle(result, outcome, other);
+		} else if (last) {
+			CompletableFuture<HttpResponse<T>> kept = answered.get();
+			settle(result, kept != null ? kept : outcome, other);
+		}
+	}
+
+	private static <T> void settle(CompletableFuture<HttpResponse<T>> result, CompletableFuture<HttpResponse<T>> outcome,
+			Cancellation other) {
+		outcome.whenComplete((response, error) -> {
+			if (error == null ? result.complete(response) : result.completeExceptionally(error)) other.cancel();
+		});
+	}
+
+	private <T> CompletableFuture<HttpResponse<T>> fetchOnceAsync(HttpRequest request, String scope, Optional<CachedResponse> stored,
+			BodyHandler<T> handler, CallOptions options, Cancellation cancellation, CallRecorder recorder) {
+		long start = System.nanoTime();
+		CompletableFuture<HttpResponse<T>> response;
+		if (responseCaching.isEmpty()) {
+			response = sendAsyncWithRetries(request, handler, options, cancellation, recorder);
+		} else {
+			Optional<CachedResponse> validator = stored.filter(CachedResponse::hasValidator);
+			HttpRequest network = validator.map(r -> ResponseCaching.conditional(request, r)).orElse(request);
+			response = sendAsyncWithRetries(network, responseCaching.get().storing(scope, request.uri(), validator, handler), options,
+					cancellation, recorder).thenApply(r -> ResponseCaching.served(r, validator));
+		}
+		return response.whenComplete((r, e) -> {
+			if (e == null) recordLatency(request, r.statusCode(), start);
+		});
+	}
+
+	private <T> CompletableFuture<HttpResponse<T>> sendAsyncWithRetries(HttpRequest request, BodyHandler<T> handler,
+			CallOptions options, Cancellation cancellation) {
+		return sendAsyncWithRetries(request, handler, options, cancellation, CallRecorder.start(request));
+	}
+
+	private <T> CompletableFuture<HttpResponse<T>> sendAsyncWithRetries(HttpRequest request, BodyHandler<T> handler,
+			CallOptions options, Cancellation cancellation, CallRecorder recorder) {
+		return within(sendAsync(request, handler, limiterFor(request), recorder, 1, options, cancellation),
+				options, Optional.of(cancellation));
+	}
+
+	private <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request, BodyHandler<T> handler,
+			Optional<RateLimiter> limiter, CallRecorder recorder, int attempt, CallOptions options, Cancellation cancellation) {
+		AtomicReference<ResponseInfo> received = new AtomicReference<>();
+		AtomicReference<CallGuards.Permit> guard = new AtomicReference<>();
+		AtomicReference<CallRecorder.Attempt> sent = new AtomicReference<>();
+		return callGuards.acquireAsync(request, recorder.getEndpoint())
+				.thenCompose(permit -> {
+					guard.set(permit);
+					long waitStart = System.nanoTime();
+					return limiter.map(RateLimiter::acquireAsync).orElseGet(() -> CompletableFuture.completedFuture(null))
+							.thenCompose(p -> {
+								if (limiter.isPresent()) recorder.rateLimitWaited(System.nanoTime() - waitStart);
+								if (cancellation.isCancelled()) return CompletableFuture.<HttpResponse<T>>failedFuture(new CancellationException());
+								CallRecorder.Attempt started;
+								try {
+									started = recorder.attemptStarted(options.bound(request));
+								} catch (IOException e) {
+									return CompletableFuture.<HttpResponse<T>>failedFuture(e);
+								}
+								sent.set(started);
+								permit.sending();
+								return cancellation.track(httpClient.sendAsync(started.getRequest(), track(request, limiter, started, received, handler)));
+							});
+				})
+				.handle((response, error) -> {
+					CallGuards.Permit permit = guard.get();
+					if (permit != null) permit.finish(statusOf(received.get()), error);
+					if (error == null) sent.get().bodyReceived();
+					Optional<Duration> retryDelay = cancellation.isCancelled() ? Optional.<Duration>empty()
+							: error == null
+							? retryDelay(request, attempt, response.statusCode(), response.headers(), options)
+							: retryDelay(request, attempt, received.get(), error, options);
+					if (retryDelay.isEmpty()) {
+						if (error == null) {
+							recorder.completed(response.statusCode());
+							return CompletableFuture.completedFuture(response);
+						}
+						Throwable failure = expiredOr(unwrap(error), options);
+						recorder.failed(statusOf(received.get()), failure);
+						return CompletableFuture.<HttpResponse<T>>failedFuture(failure);
+					}
+					recorder.retrying(retryDelay.get());
+					return CompletableFuture
+							.runAsync(() -> {}, CompletableFuture.delayedExecutor(retryDelay.get().toMillis(), TimeUnit.MILLISECONDS))
+							.thenCompose(v -> sendAsync(request, handler, limiter, recorder, attempt + 1, options, cancellation));
+				})
+				.thenCompose(future -> future);
+	}
+
+	/**
+	 * Bounds a future by the deadline of {@code options}: it fails with a {@link helpers.DeadlineExceededException}
+	 * once the deadline expires, and a failure or a cancellation aborts the attempt in flight of the call, if any.
+	 */
+	private static <T> CompletableFuture<T> within(CompletableFuture<T> future, CallOptions options, Optional<Cancellation> cancellation) {
+		if (!options.hasDeadline() && cancellation.isEmpty()) return future;
+		CompletableFuture<T> bounded = new CompletableFuture<>();
+		future.whenComplete((result, error) -> {
+			if (error == null) bounded.complete(result);
+			else bounded.completeExceptionally(error);
+		});
+		if (options.hasDeadline()) {
+			long remaining = Math.max(0, options.getRemaining().get().toNanos());
+			// the timeout task of orTimeout is cancelled once the timer completes, so a call done before its
+			// deadline leaves no pending task holding on to its future
+			CompletableFuture<Void> timer = new CompletableFuture<Void>().orTimeout(remaining, TimeUnit.NANOSECONDS);
+			timer.whenComplete((done, expired) -> {
+				if (expired != null) bounded.completeExceptionally(options.expired(null));
+			});
+			bounded.whenComplete((result, error) -> timer.complete(null));
+		}
+		cancellation.ifPresent(c -> bounded.whenComplete((result, error) -> {
+			if (error != null) c.cancel();
+		}));
+		return bounded;
+	}
+
+	/**
+	 * @return the delay after which a {@code GET} is hedged, empty when it is not: not asked, not enough latencies
+	 *         measured yet, or a delay past the deadline
+	 */
+	private Optional<Duration> hedgeDelay(HttpRequest request, CallOptions options) {
+		if (!options.isHedged()) return Optional.empty();
+		Optional<Duration> delay = options.getHedgeDelay();
+		if (delay.isEmpty()) {
+			LatencyHistogram latency = latencies.get(ClickUpMetrics.endpointOf(request));
+			if (latency == null || latency.getCount() < CallOptions.MINIMUM_HEDGE_SAMPLES) return Optional.empty();
+			delay = Optional.of(latency.getPercentile(options.getHedgePercentile().getAsDouble()));
+		}
+		return delay.filter(options::allowsRetryAfter);
+	}
+
+	/**
+	 * Measures the {@code GET}s answered without a server error, their percentiles are the hedging delays.
+	 */
+	private void recordLatency(HttpRequest request, int status_code, long start_nanos) {
+		if (status_code >= 500) return;
+		latencies.computeIfAbsent(ClickUpMetrics.endpointOf(request), endpoint -> new LatencyHistogram())
+				.record(Duration.ofNanos(System.nanoTime() - start_nanos));
+	}
+
+	/**
+	 * Reports an attempt cut by the deadline as a {@link helpers.DeadlineExceededException}.
+	 */
+	private static Throwable expiredOr(Throwable failure, CallOptions options) {
+		if (failure instanceof HttpTimeoutException && !(failure instanceof DeadlineExceededException) && options.isExpired()) {
+			return options.expired(failure);
+		}
+		return failure;
+	}
+
+	private static IOException expiredOr(IOException failure, CallOptions options) {
+		return (IOException) expiredOr((Throwable) failure, options);
+	}
+
+	private Optional<Duration> retryDelay(HttpRequest request, int attempt, int status_code, HttpHeaders headers, CallOptions options) {
+		return retryDelay(request, attempt, status_code, headers).filter(options::allowsRetryAfter);
+	}
+
+	private Optional<Duration> retryDelay(HttpRequest request, int attempt, ResponseInfo received, Throwable error, CallOptions options) {
+		return retryDelay(request, attempt, received, error).filter(options::allowsRetryAfter);
+	}
+
+	private Optional<Duration> retryDelay(HttpRequest request, int attempt, int status_code, HttpHeaders headers) {
+		if (attempt >= retryPolicy.getMaxAttempts() || !retryPolicy.isRetryable(request.method(), status_code)) return Optional.empty();
+		return Optional.of(retryPolicy.delayBeforeRetry(attempt, Optional.of(headers)));
+	}
+
+	private Optional<Duration> retryDelay(HttpRequest request, int attempt, ResponseInfo received, Throwable error) {
+		if (received != null) {
+			// the status line arrived but the body handler failed, classify by status
+			return retryDelay(request, attempt, received.statusCode(), received.headers());
+		}
+		if (attempt >= retryPolicy.getMaxAttempts() || !retryPolicy.isRetryable(request.method(), error)) return Optional.empty();
+		return Optional.of(retryPolicy.delayBeforeRetry(attempt, Optional.empty()));
+	}
+
+	private Optional<RateLimiter> limiterFor(HttpRequest request) {
+		return request.headers().firstValue("Authorization").map(rateLimiters::forToken);
+	}
+
+	/**
+	 * Gives back the permit a {@link TokenPool} took for a request answered without being sent.
+	 */
+	private void unsent(HttpRequest request) {
+		limiterFor(request).ifPresent(RateLimiter::giveBack);
+	}
+
+	private <T> BodyHandler<T> track(HttpRequest request, Optional<RateLimiter> limiter, CallRecorder.Attempt attempt,
+			AtomicReference<ResponseInfo> received, BodyHandler<T> handler) {
+		return info -> {
+			attempt.headersReceived();
+			received.set(info);
+			if (limiter.isPresent()) limiter.get().update(info.statusCode(), info.headers());
+			notifyTokenProvider(request, info);
+			return handler.apply(info);
+		};
+	}
+
+	private static int statusOf(ResponseInfo received) {
+		return received == null ? -1 : received.statusCode();
+	}
+
+	private static int statusOf(Throwable error) {
+		Throwable cause = unwrap(error);
+		return cause instanceof HttpStatusException ? ((HttpStatusException) cause).getStatusCode() : -1;
+	}
+
+	private void notifyTokenProvider(HttpRequest request, ResponseInfo info) {
+		Optional<String> token = request.headers().firstValue("Authorization");
+		if (token.isPresent()) tokenProvider.onResponse(token.get(), info.statusCode(), info.headers());
+	}
+
+	/**
+	 * {@link HttpClient#send} re-wraps the failure of the body handler in a new {@link IOException},
+	 * surface the {@link HttpStatusException} itself so callers can read its status.
+	 */
+	private static IOException unwrapStatus(IOException error) {
+		for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+			if (cause instanceof HttpStatusException) return (HttpStatusException) cause;
+		}
+		return error;
+	}
+
+	/**
+	 * Waits for an asynchronous response, served from the cache, coalesced or hedged, at most until the deadline.
+	 */
+	private static <T> HttpResponse<T> await(CompletableFuture<HttpResponse<T>> response, CallOptions options)
+			throws IOException, InterruptedException {
+		try {
+			if (!options.hasDeadline()) return response.get();
+			return response.get(Math.max(0, options.getRemaining().get().toNanos()), TimeUnit.NANOSECONDS);
+		} catch (TimeoutException e) {
+			throw options.expired(null);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof IOException) throw (IOException) cause;
+			if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+			throw new IOException(cause);
+		}
+	}
+
+	private static Throwable unwrap(Throwable error) {
+		return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+	}
+
+	/**
+	 * The attempt in flight of an asynchronous call, aborted when its deadline expires, its future is cancelled or
+	 * it loses a hedged race. Cancelling the future of {@link HttpClient#sendAsync} aborts the exchange on Java 16+.
+	 */
+	private static final class Cancellation {
+
+		private volatile boolean cancelled;
+		private volatile CompletableFuture<?> inFlight;
+
+		<F extends CompletableFuture<?>> F track(F attempt) {
+			inFlight = attempt;
+			if (cancelled) attempt.cancel(true);
+			return attempt;
+		}
+
+		void cancel() {
+			cancelled = true;
+			CompletableFuture<?> attempt = inFlight;
+			if (attempt != null) attempt.cancel(true);
+		}
+
+		boolean isCancelled() {
+			return cancelled;
+		}
+	}
+
+	/**
+	 * A {@code GET} sent once for every caller asking for the same URI with the same token while it is in flight.
+	 * <p>
+	 * Callers join until the first response headers arrive, later ones send their own request. The response of the
+	 * leader is only copied when a caller joined by then, and the copy of its final response is replayed into the
+	 * handler of each follower. The callers wait for it each within their own deadline, and the last one to give
+	 * up aborts it.
+	 * </p>
+	 */
+	private static final class CoalescedGet {
+
+		private final Cancellation cancellation = new Cancellation();
+		private final CompletableFuture<Optional<CachedResponse>> response = new CompletableFuture<>();
+		/** The copies of the responses received, the final one last. */
+		private final List<CachedResponse> copies = new ArrayList<>(1);
+		private int waiting = 1;
+		private int followers;
+		private boolean closed;
+
+		/**
+		 * @return whether the caller joined, {@code false} once the leader reads its response or every caller left
+		 */
+		synchronized boolean join() {
+			if (closed) return false;
+			followers++;
+			waiting++;
+			return true;
+		}
+
+		/**
+		 * @return the copy of the final response for the followers, empty when none was kept
+		 */
+		CompletableFuture<Optional<CachedResponse>> getResponse() {
+			return response;
+		}
+
+		/**
+		 * Wraps the handler of the leader: the first response closes the request to new followers, and a response
+		 * some follower waits for is copied while it streams into {@code handler}.
+		 */
+		<T> BodyHandler<T> leading(BodyHandler<T> handler) {
+			return info -> {
+				BodySubscriber<T> subscriber = handler.apply(info);
+				return close() ? ResponseCaching.capturing(subscriber, info, this::copied) : subscriber;
+			};
+		}
+
+		/**
+		 * @return whether a follower waits for the response
+		 */
+		private synchronized boolean close() {
+			closed = true;
+			return followers > 0;
+		}
+
+		private synchronized void copied(CachedResponse copy) {
+			copies.add(copy);
+		}
+
+		/**
+		 * Hands the outcome of the leader to the followers. A retried or hedged request copies several responses,
+		 * the one returned is the last with its status and headers.
+		 */
+		void settled(HttpResponse<?> final_response, Throwable error) {
+			if (error != null) {
+				response.completeExceptionally(unwrap(error));
+				return;
+			}
+			Optional<CachedResponse> copy = Optional.empty();
+			synchronized (this) {
+				for (int i = copies.size() - 1; i >= 0 && copy.isEmpty(); i--) {
+					CachedResponse candidate = copies.get(i);
+					if (candidate.getStatusCode() == final_response.statusCode() && candidate.getHeaders().equals(final_response.headers())) {
+						copy = Optional.of(candidate);
+					}
+				}
+			}
+			response.complete(copy);
+		}
+
+		/**
+		 * Called once by every caller that stopped waiting, answered or not.
+		 */
+		void left() {
+			synchronized (this) {
+				if (--waiting > 0) return;
+				closed = true;
+			}
+			// nobody waits anymore, a request still in flight is aborted
+			if (!response.isDone()) cancellation.cancel();
+		}
+	}
+}
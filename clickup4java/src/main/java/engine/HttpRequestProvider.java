@@ -4,10 +4,10 @@ import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.http.HttpRequest;
 import java.net.http.HttpRequest.BodyPublisher;
+import java.time.Duration;
+import java.util.Objects;
 import java.util.Optional;
 
-import helpers.ResolveClickUpTokenFromSystemVariable;
-
 /**
  * Utility class responsible for building {@link HttpRequest} instances
  * with a consistent configuration for the ClickUp API calls.
@@ -17,8 +17,35 @@ import helpers.ResolveClickUpTokenFromSystemVariable;
  */
 public class HttpRequestProvider {
 
+    private final TokenProvider tokenProvider;
+    private final Optional<Duration> requestTimeout;
+
+    /**
+     * Creates a provider resolving missing tokens with {@link TokenProviders#getDefault()}.
+     */
+    public HttpRequestProvider() {
+        this(TokenProviders.getDefault());
+    }
+
+    /**
+     * @param token_provider resolves the token of the requests built without an explicit one
+     */
+    public HttpRequestProvider(TokenProvider token_provider) {
+        this(token_provider, Optional.empty());
+    }
+
+    /**
+     * @param token_provider resolves the token of the requests built without an explicit one
+     * @param request_timeout optional time limit of each attempt, from sending the request to receiving the response headers
+     */
+    public HttpRequestProvider(TokenProvider token_provider, Optional<Duration> request_timeout) {
+        this.tokenProvider = Objects.requireNonNull(token_provider, "token_provider");
+        this.requestTimeout = Objects.requireNonNull(request_timeout, "request_timeout");
+    }
+
     /**
      * Creates a base {@link HttpRequest.Builder} with the given URL and token to be used for other functions on this class.
+     * The request timeout of this provider, if any, is applied.
      *
      * @param url   the target URL as a string
      * @param token the authorization token to be used in the {@code Authorization} header
@@ -27,18 +54,61 @@ public class HttpRequestProvider {
      * @throws URISyntaxException if the URL string is not a valid URI
      */
     private HttpRequest.Builder generateHttpRequestBase(String url, String token) throws URISyntaxException {
-        return HttpRequest.newBuilder()
-                .uri(new URI(url))
+        return generateHttpRequestBase(new URI(url), token);
+    }
+
+    private HttpRequest.Builder generateHttpRequestBase(URI uri, String token) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri)
                 .header("Authorization", token)
                 .header("Accept", "application/json");
+        requestTimeout.ifPresent(builder::timeout);
+        return builder;
+    }
+
+    /**
+     * @param request the request to copy
+     * @return a builder of a copy of {@code request}: same URI, method, body, headers, timeout and version
+     */
+    static HttpRequest.Builder copyOf(HttpRequest request) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(request.uri())
+                .method(request.method(), request.bodyPublisher().orElseGet(HttpRequest.BodyPublishers::noBody))
+                .expectContinue(request.expectContinue());
+        request.headers().map().forEach((name, values) -> {
+            for (String value : values) builder.header(name, value);
+        });
+        request.timeout().ifPresent(builder::timeout);
+        request.version().ifPresent(builder::version);
+        return builder;
+    }
+
+    // ========================== ANY ==========================
+    /**
+     * Builds a request of any method, used by {@link EndpointPipeline} for the calls of every {@link Endpoint}.
+     * <br>
+     * <b>If the token is present, it will be used. Otherwise, the token is resolved by the
+     * {@link TokenProvider} of this provider, by default the cached {@code CLICKUP_TOKEN} environment variable.
+     * </b>
+     *
+     * @param method the HTTP method
+     * @param uri the target URI, already parsed
+     * @param body the request body publisher, {@link HttpRequest.BodyPublishers#noBody()} when there is none
+     * @param content_type optional value of the {@code Content-Type} header
+     * @param clickup_token optional clickup authorization token
+     *
+     * @return a configured {@link HttpRequest}
+     */
+    public HttpRequest generateHttpRequest(String method, URI uri, BodyPublisher body, Optional<String> content_type, Optional<String> clickup_token) {
+        HttpRequest.Builder builder = generateHttpRequestBase(uri, clickup_token.orElseGet(tokenProvider::getToken));
+        content_type.ifPresent(type -> builder.header("Content-Type", type));
+        return builder.method(method, body).build();
     }
 
     // ========================== GET ==========================
     /**
      * Builds a {@code GET} request using the provided URL and an authorization token.
      * <br>
-     * <b>If the token is present, it will be used. Otherwise, the token is resolved from
-     * the {@link ResolveClickUpTokenFromSystemVariable#getClickUpToken()} environment variable.
+     * <b>If the token is present, it will be used. Otherwise, the token is resolved by the
+     * {@link TokenProvider} of this provider, by default the cached {@code CLICKUP_TOKEN} environment variable.
      * </b>
      *
      * @param url the target URL as a string
@@ -48,7 +118,7 @@ public class HttpRequestProvider {
      * @throws URISyntaxException if the URL string is not a valid URI
      */
     public HttpRequest generateHttpRequestForGET(String url, Optional<String> clickup_token) throws URISyntaxException {
-    	return generateHttpRequestBase(url, clickup_token.orElseGet(ResolveClickUpTokenFromSystemVariable::getClickUpToken))
+    	return generateHttpRequestBase(url, clickup_token.orElseGet(tokenProvider::getToken))
     	                    .GET()
     	                    .build();	
     }
@@ -57,8 +127,8 @@ public class HttpRequestProvider {
     /**
      * Builds a {@code DELETE} request using the provided URL and an authorization token.
      * <br>
-     * <b>If the token is present, it will be used. Otherwise, the token is resolved from
-     * the {@link ResolveClickUpTokenFromSystemVariable#getClickUpToken()} environment variable.
+     * <b>If the token is present, it will be used. Otherwise, the token is resolved by the
+     * {@link TokenProvider} of this provider, by default the cached {@code CLICKUP_TOKEN} environment variable.
      * </b>
      *
      * @param url the target URL as a string
@@ -69,7 +139,7 @@ public class HttpRequestProvider {
 
      */
     public HttpRequest generateHttpRequestForDELETE(String url, Optional<String> clickup_token) throws URISyntaxException {
-        return generateHttpRequestBase(url, clickup_token.orElseGet(ResolveClickUpTokenFromSystemVariable::getClickUpToken))
+        return generateHttpRequestBase(url, clickup_token.orElseGet(tokenProvider::getToken))
                 .DELETE()
                 .build();
     }
@@ -77,10 +147,11 @@ public class HttpRequestProvider {
     // ========================== POST ==========================
     /**
      * Builds a {@code POST} request for uploading attachments using
-     * {@code multipart/form-data} as the content type.
+     * {@code multipart/form-data} as the content type. The body may hold one or several file parts,
+     * see {@link helpers.GenerateBodyPublisherForRequestWithFile#generateRequestWithFilesAsBody}.
      * <br>
-     * <b>If the token is present, it will be used. Otherwise, the token is resolved from
-     * the {@link ResolveClickUpTokenFromSystemVariable#getClickUpToken()} environment variable.
+     * <b>If the token is present, it will be used. Otherwise, the token is resolved by the
+     * {@link TokenProvider} of this provider, by default the cached {@code CLICKUP_TOKEN} environment variable.
      * </b>
      *
      * @param url  the target URL as a string
@@ -92,7 +163,7 @@ public class HttpRequestProvider {
      * @throws URISyntaxException if the URL string is not a valid URI
      */
     public HttpRequest generateHttpRequestForPOSTWithFileAsBody(String url, String boundary, BodyPublisher body, Optional<String> clickup_token) throws URISyntaxException {    
-    	return generateHttpRequestBase(url, clickup_token.orElseGet(ResolveClickUpTokenFromSystemVariable::getClickUpToken))
+    	return generateHttpRequestBase(url, clickup_token.orElseGet(tokenProvider::getToken))
             .header("Content-Type", "multipart/form-data; boundary=" + boundary)
             .POST(body)
             .build();
@@ -102,8 +173,8 @@ public class HttpRequestProvider {
      * Builds a {@code POST} request for JSON payloads using
      * {@code application/json} as the content type.
      * <br>
-     * <b>If the token is present, it will be used. Otherwise, the token is resolved from
-     * the {@link ResolveClickUpTokenFromSystemVariable#getClickUpToken()} environment variable.
+     * <b>If the token is present, it will be used. Otherwise, the token is resolved by the
+     * {@link TokenProvider} of this provider, by default the cached {@code CLICKUP_TOKEN} environment variable.
      * </b>
      *
      * @param url  the target URL as a string
@@ -114,7 +185,7 @@ public class HttpRequestProvider {
      * @throws URISyntaxException if the URL string is not a valid URI
      */
     public HttpRequest generateHttpRequestForPOST(String url, BodyPublisher body, Optional<String> clickup_token) throws URISyntaxException {
-        return generateHttpRequestBase(url, clickup_token.orElseGet(ResolveClickUpTokenFromSystemVariable::getClickUpToken))
+        return generateHttpRequestBase(url, clickup_token.orElseGet(tokenProvider::getToken))
                 .header("Content-Type", "application/json")
                 .POST(body)
                 .build();
@@ -126,8 +197,8 @@ public class HttpRequestProvider {
      * Builds a {@code PUT} request for updating attachments using
      * {@code multipart/form-data} as the content type.
      * <br>
-     * <b>If the token is present, it will be used. Otherwise, the token is resolved from
-     * the {@link ResolveClickUpTokenFromSystemVariable#getClickUpToken()} environment variable.
+     * <b>If the token is present, it will be used. Otherwise, the token is resolved by the
+     * {@link TokenProvider} of this provider, by default the cached {@code CLICKUP_TOKEN} environment variable.
      * </b>
      * @param url  the target URL as a string
      * @param boundary the server use to know where to cut the content when start to read the request.
@@ -138,7 +209,7 @@ public class HttpRequestProvider {
      * @throws URISyntaxException if the URL string is not a valid URI
      */
     public HttpRequest generateHttpRequestForPUTWithFileAsBody(String url, String boundary, BodyPublisher body, Optional<String> clickup_token) throws URISyntaxException {    
-    	return generateHttpRequestBase(url, clickup_token.orElseGet(ResolveClickUpTokenFromSystemVariable::getClickUpToken))
+    	return generateHttpRequestBase(url, clickup_token.orElseGet(tokenProvider::getToken))
             .header("Content-Type", "multipart/form-data; boundary=" + boundary)
             .PUT(body)
             .build();
@@ -148,8 +219,8 @@ public class HttpRequestProvider {
      * Builds a {@code PUT} request for JSON payloads using
      * {@code application/json} as the content type.
      * <br>
-     * <b>If the token is present, it will be used. Otherwise, the token is resolved from
-     * the {@link ResolveClickUpTokenFromSystemVariable#getClickUpToken()} environment variable.
+     * <b>If the token is present, it will be used. Otherwise, the token is resolved by the
+     * {@link TokenProvider} of this provider, by default the cached {@code CLICKUP_TOKEN} environment variable.
      * </b>
      *
      * @param url  the target URL as a string
@@ -160,7 +231,7 @@ public class HttpRequestProvider {
      * @throws URISyntaxException if the URL string is not a valid URI
      */
     public HttpRequest generateHttpRequestForPUT(String url, BodyPublisher body, Optional<String> clickup_token) throws URISyntaxException {
-        return generateHttpRequestBase(url, clickup_token.orElseGet(ResolveClickUpTokenFromSystemVariable::getClickUpToken))
+        return generateHttpRequestBase(url, clickup_token.orElseGet(tokenProvider::getToken))
                 .header("Content-Type", "application/json")
                 .PUT(body)
                 .build();
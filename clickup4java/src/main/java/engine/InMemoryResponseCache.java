@@ -0,0 +1,197 @@
+package engine;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link ResponseCache} keeping the responses in memory, bounded by their total size and evicted in least recently
+ * used order.
+ * <p>
+ * A response over the time to live stays stored while it has an {@code ETag} or a {@code Last-Modified} header,
+ * so it can be revalidated, and is dropped on its next lookup otherwise. All methods are thread-safe.
+ * </p>
+ * <pre>{@code
+ * ClickUpClient client = ClickUpClient.builder()
+ *         .responseCache(InMemoryResponseCache.builder().timeToLive(Duration.ofSeconds(30)).build())
+ *         .build();
+ * }</pre>
+ *
+ * @author Lucas Alexandre Bez Piancoski
+ * @since 1.0.0
+ */
+public final class InMemoryResponseCache implements ResponseCache {
+
+	public static final Duration DEFAULT_TIME_TO_LIVE = Duration.ofSeconds(10);
+	public static final long DEFAULT_MAX_BYTES = 16L * 1024 * 1024;
+
+	private final Duration timeToLive;
+	private final long maxBytes;
+	private final LinkedHashMap<String, Stored> entries = new LinkedHashMap<>(16, 0.75f, true);
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private long bytes;
+
+	private InMemoryResponseCache(Builder builder) {
+		this.timeToLive = builder.timeToLive;
+		this.maxBytes = builder.maxBytes;
+	}
+
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	@Override
+	public synchronized Optional<CachedResponse> get(String scope, URI uri) {
+		String key = keyOf(scope, uri);
+		Stored stored = entries.get(key);
+		if (stored != null && !stored.response.hasValidator() && stored.response.getAge().compareTo(timeToLive) >= 0) {
+			remove(key);
+			stored = null;
+		}
+		if (stored == null) {
+			misses.increment();
+			return Optional.empty();
+		}
+		hits.increment();
+		return Optional.of(stored.response);
+	}
+
+	@Override
+	public synchronized void put(String scope, URI uri, CachedResponse response) {
+		Objects.requireNonNull(response, "response");
+		String key = keyOf(scope, uri);
+		remove(key);
+		long size = response.getSize() + 2L * key.length();
+		if (size > maxBytes) return;
+		entries.put(key, new Stored(uri, response, size));
+		bytes += size;
+		Iterator<Stored> eldest = entries.values().iterator();
+		while (bytes > maxBytes && eldest.hasNext()) {
+			bytes -= eldest.next().size;
+			eldest.remove();
+		}
+	}
+
+	@Override
+	public synchronized void invalidate(URI resource) {
+		String path = pathOf(resource);
+		Iterator<Stored> stored = entries.values().iterator();
+		while (stored.hasNext()) {
+			Stored entry = stored.next();
+			String cached = pathOf(entry.uri);
+			if (isWithin(path, cached) || isWithin(cached, path)) {
+				bytes -= entry.size;
+				stored.remove();
+			}
+		}
+	}
+
+	@Override
+	public Duration getTimeToLive() {
+		return timeToLive;
+	}
+
+	public synchronized void clear() {
+		entries.clear();
+		bytes = 0;
+	}
+
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	/**
+	 * @return the estimated memory held by the stored responses, in bytes
+	 */
+	public synchronized long getBytes() {
+		return bytes;
+	}
+
+	public long getMaxBytes() {
+		return maxBytes;
+	}
+
+	/**
+	 * @return the number of lookups that found a response, fresh or to revalidate
+	 */
+	public long getHitCount() {
+		return hits.sum();
+	}
+
+	public long getMissCount() {
+		return misses.sum();
+	}
+
+	private void remove(String key) {
+		Stored previous = entries.remove(key);
+		if (previous != null) bytes -= previous.size;
+	}
+
+	private static String keyOf(String scope, URI uri) {
+		return Objects.requireNonNull(scope, "scope") + '\n' + Objects.requireNonNull(uri, "uri");
+	}
+
+	private static String pathOf(URI uri) {
+		String path = uri.getRawPath() == null ? "" : uri.getRawPath();
+		return uri.getHost() + ':' + uri.getPort() + (path.endsWith("/") ? path.substring(0, path.length() - 1) : path);
+	}
+
+	/**
+	 * @return whether {@code path} is {@code parent} or below it, on a segment boundary
+	 */
+	private static boolean isWithin(String path, String parent) {
+		return path.startsWith(parent) && (path.length() == parent.length() || path.charAt(parent.length()) == '/');
+	}
+
+	private static final class Stored {
+		final URI uri;
+		final CachedResponse response;
+		final long size;
+
+		Stored(URI uri, CachedResponse response, long size) {
+			this.uri = uri;
+			this.response = response;
+			this.size = size;
+		}
+	}
+
+	/**
+	 * Builder for {@link InMemoryResponseCache}.
+	 */
+	public static final class Builder {
+
+		private Duration timeToLive = DEFAULT_TIME_TO_LIVE;
+		private long maxBytes = DEFAULT_MAX_BYTES;
+
+		private Builder() {}
+
+		/**
+		 * @param time_to_live how long a response is served without being revalidated, 10 seconds by default
+		 */
+		public Builder timeToLive(Duration time_to_live) {
+			Objects.requireNonNull(time_to_live, "time_to_live");
+			if (time_to_live.isNegative()) throw new IllegalArgumentException("time_to_live must not be negative");
+			this.timeToLive = time_to_live;
+			return this;
+		}
+
+		/**
+		 * @param max_bytes the memory bound of the stored responses, 16 MiB by default
+		 */
+		public Builder maxBytes(long max_bytes) {
+			if (max_bytes < 1) throw new IllegalArgumentException("max_bytes must be at least 1");
+			this.maxBytes = max_bytes;
+			return this;
+		}
+
+		public InMemoryResponseCache build() {
+			return new InMemoryResponseCache(this);
+		}
+	}
+}
@@ -0,0 +1,25 @@
+package engine;
+
+import java.io.IOException;
+import java.net.http.HttpRequest.BodyPublisher;
+
+/**
+ * Creates a {@code multipart/form-data} body once its boundary is known, the body of the endpoints encoded with
+ * {@link BodyCodec#multipart()}.
+ * <pre>{@code
+ * MultipartBody body = boundary -> GenerateBodyPublisherForRequestWithFile.generateRequestWithFilesAsBody(boundary, files);
+ * }</pre>
+ *
+ * @author Lucas Alexandre Bez Piancoski
+ * @since 1.0.0
+ */
+@FunctionalInterface
+public interface MultipartBody {
+
+	/**
+	 * @param boundary the multipart boundary value, generated for each request
+	 * @return the body delimited by {@code boundary}
+	 * @throws IOException if the content of the body cannot be read
+	 */
+	BodyPublisher create(String boundary) throws IOException;
+}
@@ -0,0 +1,227 @@
+package engine;
+
+import java.net.http.HttpHeaders;
+import java.time.Duration;
+import java.util.OptionalLong;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Client-side token bucket that keeps the request rate of a single ClickUp token
+ * inside the budget enforced by the API.
+ * <p>
+ * Every token gets its own limiter, kept by the {@link RateLimiters} of the client (see
+ * {@link RateLimiters#forToken(String)}). The bucket starts from
+ * {@link #getInitialRequestsPerMinute()} permits and is recalibrated from the
+ * {@code X-RateLimit-Limit}, {@code X-RateLimit-Remaining} and {@code X-RateLimit-Reset}
+ * headers of every response, so the client converges to the real plan limit of the token
+ * without ever being rejected with a {@code 429}.
+ * </p>
+ * <p>
+ * Permits are handed out as <b>reservations</b>: a caller always gets its permit immediately,
+ * together with the time it has to wait before using it. Synchronous callers sleep for that time,
+ * asynchronous callers are resumed by a delayed executor, so queued async requests never hold a thread.
+ * </p>
+ *
+ * @author Lucas Alexandre Bez Piancoski
+ * @since 1.0.0
+ */
+public final class RateLimiter {
+
+	/** Requests per minute granted by the ClickUp "Free Forever" and "Unlimited" plans. */
+	public static final int DEFAULT_REQUESTS_PER_MINUTE = 100;
+
+	private static final long WINDOW_NANOS = TimeUnit.MINUTES.toNanos(1);
+	private static volatile int initialRequestsPerMinute = DEFAULT_REQUESTS_PER_MINUTE;
+
+	private long limit;
+	private double permits;
+	private double permitsPerNano;
+	private long lastRefillNanos;
+	private long pausedUntilNanos;
+	private int handedOut;
+
+	/**
+	 * Creates a standalone limiter. The requests of a {@link ClickUpClient} go through the limiters of its
+	 * {@link RateLimiters}, one per token.
+	 *
+	 * @param requests_per_minute initial budget, replaced as soon as the API reports the real one
+	 */
+	public RateLimiter(int requests_per_minute) {
+		if (requests_per_minute <= 0) throw new IllegalArgumentException("requests_per_minute must be positive");
+		this.lastRefillNanos = System.nanoTime();
+		this.pausedUntilNanos = lastRefillNanos;
+		setLimit(requests_per_minute);
+		this.permits = requests_per_minute;
+	}
+
+	/**
+	 * Sets the budget new limiters start from until the API reports the real limit.
+	 * Limiters already created keep their current state.
+	 *
+	 * @param requests_per_minute the initial budget of new limiters
+	 */
+	public static void setInitialRequestsPerMinute(int requests_per_minute) {
+		if (requests_per_minute <= 0) throw new IllegalArgumentException("requests_per_minute must be positive");
+		initialRequestsPerMinute = requests_per_minute;
+	}
+
+	public static int getInitialRequestsPerMinute() {
+		return initialRequestsPerMinute;
+	}
+
+	/**
+	 * Blocks the calling thread until a permit is available.
+	 *
+	 * @throws InterruptedException if the thread is interrupted while waiting
+	 */
+	public void acquire() throws InterruptedException {
+		long wait = reserve();
+		if (wait > 0) TimeUnit.NANOSECONDS.sleep(wait);
+	}
+
+	/**
+	 * Reserves a permit without blocking.
+	 *
+	 * @return a future completed, on a delayed executor, once the permit can be used
+	 */
+	public CompletableFuture<Void> acquireAsync() {
+		long wait = reserve();
+		if (wait <= 0) return CompletableFuture.completedFuture(null);
+		Executor delayed = CompletableFuture.delayedExecutor(wait, TimeUnit.NANOSECONDS);
+		return CompletableFuture.runAsync(() -> {}, delayed);
+	}
+
+	/**
+	 * Takes one permit from the bucket.
+	 *
+	 * @return how long, in nanoseconds, the caller must wait before using the permit
+	 */
+	synchronized long reserve() {
+		long now = System.nanoTime();
+		refill(now);
+		// a permit handed out when the token was picked is used by the request sending it
+		if (handedOut > 0) handedOut--;
+		else permits -= 1;
+		long wait = permits >= 0 ? 0 : (long) Math.ceil(-permits / permitsPerNano);
+		return Math.max(wait, pausedUntilNanos - now);
+	}
+
+	/**
+	 * Takes one permit for a request being built with the token, e.g. by a {@link TokenPool} picking it, so the
+	 * next pick sees it taken. The next {@link #reserve()} uses that permit instead of taking another one.
+	 */
+	synchronized void handOut() {
+		refill(System.nanoTime());
+		permits -= 1;
+		handedOut++;
+	}
+
+	/**
+	 * Puts back a permit handed out for a request that was answered without being sent, e.g. from the cache.
+	 */
+	synchronized void giveBack() {
+		if (handedOut == 0) return;
+		handedOut--;
+		refill(System.nanoTime());
+		permits = Math.min(limit, permits + 1);
+	}
+
+	/**
+	 * Recalibrates the bucket from the rate limit headers of a response.
+	 * Missing or malformed headers are ignored.
+	 *
+	 * @param status_code the HTTP status of the response
+	 * @param headers the response headers
+	 */
+	public synchronized void update(int status_code, HttpHeaders headers) {
+		long now = System.nanoTime();
+		refill(now);
+
+		OptionalLong newLimit = headerAsLong(headers, "X-RateLimit-Limit");
+		if (newLimit.isPresent() && newLimit.getAsLong() > 0 && newLimit.getAsLong() != limit) {
+			setLimit(newLimit.getAsLong());
+		}
+
+		OptionalLong remaining = headerAsLong(headers, "X-RateLimit-Remaining");
+		if (remaining.isPresent()) {
+			permits = Math.min(permits, remaining.getAsLong());
+		}
+
+		boolean exhausted = status_code == 429 || (remaining.isPresent() && remaining.getAsLong() <= 0);
+		if (exhausted) {
+			OptionalLong reset = headerAsLong(headers, "X-RateLimit-Reset");
+			long pauseNanos = reset.isPresent()
+					? TimeUnit.MILLISECONDS.toNanos(reset.getAsLong() * 1000 - System.currentTimeMillis())
+					: (long) Math.ceil(1 / permitsPerNano);
+			if (pauseNanos > 0) {
+				pausedUntilNanos = Math.max(pausedUntilNanos, now + pauseNanos);
+				permits = Math.min(permits, 0);
+			}
+		}
+	}
+
+	/**
+	 * @return the number of permits that can be taken right now without waiting
+	 */
+	public synchronized long availablePermits() {
+		long now = System.nanoTime();
+		refill(now);
+		if (pausedUntilNanos - now > 0) return 0;
+		return (long) Math.max(0, Math.floor(permits));
+	}
+
+	/**
+	 * @return {@code true} if the bucket is full and not paused, the state of a new limiter
+	 */
+	synchronized boolean isIdle() {
+		long now = System.nanoTime();
+		refill(now);
+		return pausedUntilNanos - now <= 0 && permits >= limit && handedOut == 0;
+	}
+
+	/**
+	 * @return the requests per minute this limiter currently allows
+	 */
+	public synchronized long getLimit() {
+		return limit;
+	}
+
+	/**
+	 * @return how long a request reserved now would have to wait
+	 */
+	public synchronized Duration estimatedWait() {
+		long now = System.nanoTime();
+		refill(now);
+		long wait = permits >= 1 ? 0 : (long) Math.ceil((1 - permits) / permitsPerNano);
+		return Duration.ofNanos(Math.max(wait, pausedUntilNanos - now));
+	}
+
+	private void setLimit(long requests_per_minute) {
+		this.limit = requests_per_minute;
+		this.permitsPerNano = (double) requests_per_minute / WINDOW_NANOS;
+		this.permits = Math.min(permits, requests_per_minute);
+	}
+
+	private void refill(long now) {
+		long elapsed = now - lastRefillNanos;
+		if (elapsed > 0) {
+			permits = Math.min(limit, permits + elapsed * permitsPerNano);
+			lastRefillNanos = now;
+		}
+	}
+
+	private static OptionalLong headerAsLong(HttpHeaders headers, String name) {
+		return headers.firstValue(name)
+				.map(String::trim)
+				.map(value -> {
+					try {
+						return OptionalLong.of(Long.parseLong(value));
+					} catch (NumberFormatException e) {
+						return OptionalLong.empty();
+					}
+				})
+				.orElse(OptionalLong.empty());
+	}
+}
@@ -0,0 +1,57 @@
+package engine;
+
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The {@link RateLimiter} of every token a {@link ClickUpClient} sends requests with.
+ * <p>
+ * The limiters are kept by their token, like the cache scopes and the coalesced requests of the
+ * {@link HttpRequestExecutor}. A limiter whose bucket is full again is in the state of a new one, so such limiters,
+ * e.g. the ones of rotated tokens, are dropped once the registry holds {@value #PRUNE_THRESHOLD} of them.
+ * </p>
+ * <p>
+ * Every client uses the {@link #shared()} registry unless it is given its own, see
+ * {@link ClickUpClient.Builder#rateLimiters(RateLimiters)}, so all the clients of the JVM share one budget per token.
+ * </p>
+ *
+ * @author Lucas Alexandre Bez Piancoski
+ * @since 1.0.0
+ */
+public final class RateLimiters {
+
+	static final int PRUNE_THRESHOLD = 256;
+
+	private static final RateLimiters SHARED = new RateLimiters();
+
+	private final ConcurrentHashMap<String, RateLimiter> limiters = new ConcurrentHashMap<>();
+
+	/**
+	 * @return the registry of the JVM, used by every client built without its own
+	 */
+	public static RateLimiters shared() {
+		return SHARED;
+	}
+
+	/**
+	 * Returns the limiter shared by every request of the registry made with the given token. A new limiter starts
+	 * from {@link RateLimiter#getInitialRequestsPerMinute()}.
+	 *
+	 * @param token the ClickUp token the requests are authorized with
+	 * @return the limiter for the token
+	 */
+	public RateLimiter forToken(String token) {
+		Objects.requireNonNull(token, "token");
+		RateLimiter limiter = limiters.get(token);
+		if (limiter != null) return limiter;
+		if (limiters.size() >= PRUNE_THRESHOLD) limiters.values().removeIf(RateLimiter::isIdle);
+		return limiters.computeIfAbsent(token, k -> new RateLimiter(RateLimiter.getInitialRequestsPerMinute()));
+	}
+
+	/**
+	 * @return the number of limiters held
+	 */
+	public int size() {
+		return limiters.size();
+	}
+}
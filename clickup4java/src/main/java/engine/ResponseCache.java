@@ -0,0 +1,54 @@
+package engine;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Stores the responses of {@code GET} requests for {@link HttpRequestExecutor}, see
+ * {@link ClickUpClient.Builder#responseCache(ResponseCache)}.
+ * <p>
+ * Responses are stored per token scope, the {@code Authorization} header of the request, so a token never reads
+ * what another one was allowed to see. A response younger than {@link #getTimeToLive()} is served without any
+ * request; an older one is revalidated with {@code If-None-Match} or {@code If-Modified-Since} when it has an
+ * {@code ETag} or a {@code Last-Modified} header. Any other request sent by the executor invalidates the resource
+ * it targets, see {@link #invalidate(URI)}.
+ * </p>
+ * <p>
+ * Implementations must be thread-safe. {@link InMemoryResponseCache} is the default one.
+ * </p>
+ *
+ * @author Lucas Alexandre Bez Piancoski
+ * @since 1.0.0
+ */
+public interface ResponseCache {
+
+	/**
+	 * @param scope the token scope of the request
+	 * @param uri   the URI of the request
+	 * @return the stored response, fresh or not
+	 */
+	Optional<CachedResponse> get(String scope, URI uri);
+
+	/**
+	 * Stores or replaces a response. Implementations may drop it, e.g. when it is over their memory bound.
+	 *
+	 * @param scope    the token scope of the request
+	 * @param uri      the URI of the request
+	 * @param response the response to store
+	 */
+	void put(String scope, URI uri, CachedResponse response);
+
+	/**
+	 * Drops the responses of every scope whose path is {@code resource} itself, one of its parents or one of its
+	 * children, e.g. a {@code POST task/123/attachment} drops {@code GET task/123}.
+	 *
+	 * @param resource the URI written to
+	 */
+	void invalidate(URI resource);
+
+	/**
+	 * @return how long a response is served without being revalidated
+	 */
+	Duration getTimeToLive();
+}
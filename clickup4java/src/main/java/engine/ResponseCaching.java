@@ -0,0 +1,336 @@
+package engine;
+
+import java.io.ByteArrayOutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandler;
+import java.net.http.HttpResponse.BodySubscriber;
+import java.net.http.HttpResponse.ResponseInfo;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+import javax.net.ssl.SSLSession;
+
+/**
+ * Serves, revalidates and stores the {@code GET} responses of {@link HttpRequestExecutor} with its
+ * {@link ResponseCache}, and replays the responses shared by coalesced requests.
+ * <p>
+ * Stored bytes are replayed into the body handler of the caller, so each caller parses its own copy of the
+ * response and the cache never holds mutable response objects.
+ * </p>
+ * <p>
+ * Every invalidation starts a new generation. A response is only stored if no write completed since its request
+ * started, so a {@code GET} in flight during a write never puts back the representation the write replaced.
+ * </p>
+ *
+ * @author Lucas Alexandre Bez Piancoski
+ * @since 1.0.0
+ */
+final class ResponseCaching {
+
+	private final ResponseCache cache;
+	private long generation;
+
+	ResponseCaching(ResponseCache cache) {
+		this.cache = cache;
+	}
+
+	/**
+	 * @return the token scope of a request whose response may be cached, empty for any other request
+	 */
+	static Optional<String> scopeOf(HttpRequest request) {
+		if (!"GET".equals(request.method())) return Optional.empty();
+		// e.g. the health ping, which must reach the API
+		if (request.headers().allValues("Cache-Control").contains("no-cache")) return Optional.empty();
+		return request.headers().firstValue("Authorization");
+	}
+
+	static boolean isWrite(HttpRequest request) {
+		return !"GET".equals(request.method()) && !"HEAD".equals(request.method());
+	}
+
+	Optional<CachedResponse> lookup(String scope, HttpRequest request) {
+		return cache.get(scope, request.uri());
+	}
+
+	boolean isFresh(CachedResponse response) {
+		return response.getAge().compareTo(cache.getTimeToLive()) < 0;
+	}
+
+	void invalidate(HttpRequest write) {
+		synchronized (this) {
+			generation++;
+			cache.invalidate(write.uri());
+		}
+	}
+
+	/**
+	 * Stores {@code response} unless a write invalidated the cache since {@code started}.
+	 */
+	private synchronized void put(long started, String scope, URI uri, CachedResponse response) {
+		if (generation == started) cache.put(scope, uri, response);
+	}
+
+	/**
+	 * @return {@code request} asking to answer {@code 304 Not Modified} if {@code stored} is still current
+	 */
+	static HttpRequest conditional(HttpRequest request, CachedResponse stored) {
+		HttpRequest.Builder builder = HttpRequestProvider.copyOf(request);
+		stored.getETag().ifPresent(etag -> builder.header("If-None-Match", etag));
+		stored.getLastModified().ifPresent(date -> builder.header("If-Modified-Since", date));
+		return builder.build();
+	}
+
+	/**
+	 * Wraps the handler of a network request: a {@code 304} replays {@code stored} into {@code handler}, a
+	 * successful response is passed through and stored. Called when the request starts, which opens the generation
+	 * its response belongs to.
+	 */
+	<T> BodyHandler<T> storing(String scope, URI uri, Optional<CachedResponse> stored, BodyHandler<T> handler) {
+		long started;
+		synchronized (this) {
+			started = generation;
+		}
+		return info -> {
+			if (info.statusCode() == 304 && stored.isPresent()) {
+				CachedResponse revalidated = stored.get().revalidated();
+				put(started, scope, uri, revalidated);
+				return new NotModifiedSubscriber<>(replay(revalidated, handler));
+			}
+			if (info.statusCode() == 200 && isStorable(info.headers())) {
+				return capturing(handler.apply(info), info, response -> put(started, scope, uri, response));
+			}
+			return handler.apply(info);
+		};
+	}
+
+	/**
+	 * @return the response of a network request, with the status and headers of {@code stored} when it was
+	 *         revalidated by a {@code 304}
+	 */
+	static <T> HttpResponse<T> served(HttpResponse<T> response, Optional<CachedResponse> stored) {
+		if (response.statusCode() != 304 || stored.isEmpty()) return response;
+		return new StoredHttpResponse<>(response.request(), stored.get(), response.body());
+	}
+
+	/**
+	 * Answers a request from the cache without any network round-trip.
+	 *
+	 * @return a future completed once {@code handler} read the stored body, synchronously for the usual handlers
+	 */
+	static <T> CompletableFuture<HttpResponse<T>> serve(HttpRequest request, CachedResponse stored, BodyHandler<T> handler) {
+		BodySubscriber<T> subscriber = replay(stored, handler);
+		return subscriber.getBody().toCompletableFuture()
+				.thenApply(body -> new StoredHttpResponse<>(request, stored, body));
+	}
+
+	/**
+	 * Keeps a copy of the body read by {@code subscriber} and hands it to {@code sink} once complete. A subscriber
+	 * that already keeps a copy, for the coalesced callers or the cache, hands the same copy to both.
+	 */
+	static <T> BodySubscriber<T> capturing(BodySubscriber<T> subscriber, ResponseInfo info, Consumer<CachedResponse> sink) {
+		if (subscriber instanceof CapturingSubscriber) {
+			((CapturingSubscriber<?>) subscriber).sinks.add(sink);
+			return subscriber;
+		}
+		return new CapturingSubscriber<>(subscriber, info, sink);
+	}
+
+	/**
+	 * Subscribes the body subscriber of {@code handler} to the stored bytes.
+	 */
+	private static <T> BodySubscriber<T> replay(CachedResponse stored, BodyHandler<T> handler) {
+		BodySubscriber<T> subscriber = handler.apply(new StoredResponseInfo(stored));
+		AtomicBoolean delivered = new AtomicBoolean();
+		subscriber.onSubscribe(new Flow.Subscription() {
+			@Override
+			public void request(long n) {
+				if (n <= 0 || !delivered.compareAndSet(false, true)) return;
+				subscriber.onNext(List.of(stored.getBody()));
+				subscriber.onComplete();
+			}
+
+			@Override
+			public void cancel() {
+				delivered.set(true);
+			}
+		});
+		return subscriber;
+	}
+
+	private static boolean isStorable(HttpHeaders headers) {
+		return headers.allValues("Cache-Control").stream()
+				.map(value -> value.toLowerCase(Locale.ROOT))
+				.noneMatch(value -> value.contains("no-store") || value.contains("private"));
+	}
+
+	/**
+	 * Discards the empty body of a {@code 304}, the caller reads the replayed one.
+	 */
+	private static final class NotModifiedSubscriber<T> implements BodySubscriber<T> {
+
+		private final BodySubscriber<T> replayed;
+
+		NotModifiedSubscriber(BodySubscriber<T> replayed) {
+			this.replayed = replayed;
+		}
+
+		@Override
+		public void onSubscribe(Flow.Subscription subscription) {
+			subscription.request(Long.MAX_VALUE);
+		}
+
+		@Override
+		public void onNext(List<ByteBuffer> item) {}
+
+		@Override
+		public void onError(Throwable throwable) {}
+
+		@Override
+		public void onComplete() {}
+
+		@Override
+		public CompletionStage<T> getBody() {
+			return replayed.getBody();
+		}
+	}
+
+	/**
+	 * Passes the body to the subscriber of the caller and keeps a copy, handed to the sinks once the body is complete.
+	 */
+	private static final class CapturingSubscriber<T> implements BodySubscriber<T> {
+
+		private final BodySubscriber<T> delegate;
+		private final ResponseInfo info;
+		/** Only added to before the body is subscribed. */
+		private final List<Consumer<CachedResponse>> sinks = new ArrayList<>(2);
+		private final ByteArrayOutputStream copy = new ByteArrayOutputStream();
+
+		CapturingSubscriber(BodySubscriber<T> delegate, ResponseInfo info, Consumer<CachedResponse> sink) {
+			this.delegate = delegate;
+			this.info = info;
+			sinks.add(sink);
+		}
+
+		@Override
+		public void onSubscribe(Flow.Subscription subscription) {
+			delegate.onSubscribe(subscription);
+		}
+
+		@Override
+		public void onNext(List<ByteBuffer> items) {
+			for (ByteBuffer item : items) {
+				ByteBuffer view = item.duplicate();
+				byte[] bytes = new byte[view.remaining()];
+				view.get(bytes);
+				copy.write(bytes, 0, bytes.length);
+			}
+			delegate.onNext(items);
+		}
+
+		@Override
+		public void onError(Throwable throwable) {
+			delegate.onError(throwable);
+		}
+
+		@Override
+		public void onComplete() {
+			CachedResponse response = new CachedResponse(info.statusCode(), info.headers(), copy.toByteArray(), System.nanoTime());
+			for (Consumer<CachedResponse> sink : sinks) sink.accept(response);
+			delegate.onComplete();
+		}
+
+		@Override
+		public CompletionStage<T> getBody() {
+			return delegate.getBody();
+		}
+	}
+
+	private static final class StoredResponseInfo implements ResponseInfo {
+
+		private final CachedResponse stored;
+
+		StoredResponseInfo(CachedResponse stored) {
+			this.stored = stored;
+		}
+
+		@Override
+		public int statusCode() {
+			return stored.getStatusCode();
+		}
+
+		@Override
+		public HttpHeaders headers() {
+			return stored.getHeaders();
+		}
+
+		@Override
+		public HttpClient.Version version() {
+			return HttpClient.Version.HTTP_1_1;
+		}
+	}
+
+	private static final class StoredHttpResponse<T> implements HttpResponse<T> {
+
+		private final HttpRequest request;
+		private final CachedResponse stored;
+		private final T body;
+
+		StoredHttpResponse(HttpRequest request, CachedResponse stored, T body) {
+			this.request = request;
+			this.stored = stored;
+			this.body = body;
+		}
+
+		@Override
+		public int statusCode() {
+			return stored.getStatusCode();
+		}
+
+		@Override
+		public HttpRequest request() {
+			return request;
+		}
+
+		@Override
+		public Optional<HttpResponse<T>> previousResponse() {
+			return Optional.empty();
+		}
+
+		@Override
+		public HttpHeaders headers() {
+			return stored.getHeaders();
+		}
+
+		@Override
+		public T body() {
+			return body;
+		}
+
+		@Override
+		public Optional<SSLSession> sslSession() {
+			return Optional.empty();
+		}
+
+		@Override
+		public URI uri() {
+			return request.uri();
+		}
+
+		@Override
+		public HttpClient.Version version() {
+			return HttpClient.Version.HTTP_1_1;
+		}
+	}
+}
@@ -0,0 +1,226 @@
+package engine;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.http.HttpConnectTimeoutException;
+import java.net.http.HttpHeaders;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+import helpers.CallNotPermittedException;
+import helpers.DeadlineExceededException;
+import helpers.UploadCancelledException;
+
+/**
+ * Decides whether a failed API call is retried and how long to wait before the next attempt.
+ * <p>
+ * The classification is idempotency-aware:
+ * <ul>
+ *   <li>{@code 429} is retried for every method, the request was rejected before being processed;</li>
+ *   <li>{@code 408}, {@code 500}, {@code 502}, {@code 503} and {@code 504} are only retried for idempotent methods
+ *   ({@code GET}, {@code PUT}, {@code DELETE}, ...): a gateway may answer them after the upstream processed the
+ *   request, so retrying a {@code POST} upload could create a duplicate attachment;</li>
+ *   <li>connection failures and HTTP/2 streams refused or dropped by a {@code GOAWAY} are retried for every method;</li>
+ *   <li>any other {@link IOException} is only retried for idempotent methods, unless
+ *   {@link Builder#retryNonIdempotentRequests(boolean)} is enabled.</li>
+ * </ul>
+ * The delay grows exponentially from {@link #getBaseDelay()} up to {@link #getMaxDelay()} with random jitter,
+ * and is never shorter than the {@code Retry-After} header sent by the API.
+ * </p>
+ *
+ * @author Lucas Alexandre Bez Piancoski
+ * @since 1.0.0
+ */
+public final class RetryPolicy {
+
+	private static final Set<String> IDEMPOTENT_METHODS = Set.of("GET", "HEAD", "OPTIONS", "PUT", "DELETE");
+	private static final Set<Integer> ALWAYS_RETRYABLE_STATUS = Set.of(429);
+	private static final Set<Integer> IDEMPOTENT_RETRYABLE_STATUS = Set.of(408, 500, 502, 503, 504);
+
+	private static final RetryPolicy DEFAULT = builder().build();
+	private static final RetryPolicy NONE = builder().maxAttempts(1).build();
+
+	private final int maxAttempts;
+	private final Duration baseDelay;
+	private final Duration maxDelay;
+	private final double jitter;
+	private final boolean retryNonIdempotentRequests;
+
+	private RetryPolicy(Builder builder) {
+		this.maxAttempts = builder.maxAttempts;
+		this.baseDelay = builder.baseDelay;
+		this.maxDelay = builder.maxDelay;
+		this.jitter = builder.jitter;
+		this.retryNonIdempotentRequests = builder.retryNonIdempotentRequests;
+	}
+
+	/**
+	 * @return 4 attempts, starting at 500 ms and capped at 30 s, with 50% jitter
+	 */
+	public static RetryPolicy defaultPolicy() {
+		return DEFAULT;
+	}
+
+	/**
+	 * @return a policy that never retries
+	 */
+	public static RetryPolicy none() {
+		return NONE;
+	}
+
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	public int getMaxAttempts() {
+		return maxAttempts;
+	}
+
+	public Duration getBaseDelay() {
+		return baseDelay;
+	}
+
+	public Duration getMaxDelay() {
+		return maxDelay;
+	}
+
+	/**
+	 * Checks if a response with the given status should be retried.
+	 *
+	 * @param method the HTTP method of the request
+	 * @param status_code the HTTP status of the response
+	 * @return {@code true} if the call may be retried
+	 */
+	public boolean isRetryable(String method, int status_code) {
+		if (ALWAYS_RETRYABLE_STATUS.contains(status_code)) return true;
+		return isIdempotent(method) && IDEMPOTENT_RETRYABLE_STATUS.contains(status_code);
+	}
+
+	/**
+	 * Checks if a request that failed with the given exception should be retried.
+	 *
+	 * @param method the HTTP method of the request
+	 * @param error the failure, possibly wrapped in a {@link java.util.concurrent.CompletionException}
+	 * @return {@code true} if the call may be retried, never for an {@link UploadCancelledException}, a
+	 *         {@link CallNotPermittedException} nor a {@link DeadlineExceededException}
+	 */
+	public boolean isRetryable(String method, Throwable error) {
+		for (Throwable c = error; c != null; c = c.getCause()) {
+			if (c instanceof UploadCancelledException || c instanceof CallNotPermittedException
+					|| c instanceof DeadlineExceededException) {
+				return false;
+			}
+		}
+		Throwable cause = error;
+		while (cause != null && !(cause instanceof IOException)) cause = cause.getCause();
+		if (cause == null) return false;
+		if (isNotProcessed(cause)) return true;
+		return isIdempotent(method);
+	}
+
+	/**
+	 * Computes how long to wait before the next attempt.
+	 *
+	 * @param attempt the number of the attempt that just failed, starting at 1
+	 * @param headers the headers of the failed response, if there was one
+	 * @return the delay before the next attempt
+	 */
+	public Duration delayBeforeRetry(int attempt, Optional<HttpHeaders> headers) {
+		long cap = maxDelay.toMillis();
+		long exponential = baseDelay.toMillis() << Math.min(attempt - 1, 30);
+		long backoff = Math.min(cap, exponential < 0 ? cap : exponential);
+		long jittered = backoff - (long) (backoff * jitter * ThreadLocalRandom.current().nextDouble());
+		Duration delay = Duration.ofMillis(jittered);
+		Optional<Duration> retryAfter = headers.flatMap(RetryPolicy::parseRetryAfter);
+		return retryAfter.filter(after -> after.compareTo(delay) > 0).orElse(delay);
+	}
+
+	private boolean isIdempotent(String method) {
+		return retryNonIdempotentRequests || IDEMPOTENT_METHODS.contains(method.toUpperCase(Locale.ROOT));
+	}
+
+	private static boolean isNotProcessed(Throwable error) {
+		if (error instanceof ConnectException || error instanceof HttpConnectTimeoutException) return true;
+		String message = Optional.ofNullable(error.getMessage()).orElse("").toLowerCase(Locale.ROOT);
+		return message.contains("refused stream") || message.contains("goaway");
+	}
+
+	private static Optional<Duration> parseRetryAfter(HttpHeaders headers) {
+		return headers.firstValue("Retry-After").map(String::trim).flatMap(value -> {
+			try {
+				return Optional.of(Duration.ofSeconds(Math.max(0, Long.parseLong(value))));
+			} catch (NumberFormatException notSeconds) {
+				try {
+					ZonedDateTime date = ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME);
+					Duration until = Duration.between(ZonedDateTime.now(date.getZone()), date);
+					return Optional.of(until.isNegative() ? Duration.ZERO : until);
+				} catch (DateTimeParseException notDate) {
+					return Optional.empty();
+				}
+			}
+		});
+	}
+
+	/**
+	 * Builder for {@link RetryPolicy}.
+	 */
+	public static final class Builder {
+
+		private int maxAttempts = 4;
+		private Duration baseDelay = Duration.ofMillis(500);
+		private Duration maxDelay = Duration.ofSeconds(30);
+		private double jitter = 0.5;
+		private boolean retryNonIdempotentRequests = false;
+
+		private Builder() {}
+
+		/**
+		 * @param max_attempts total attempts, including the first one
+		 */
+		public Builder maxAttempts(int max_attempts) {
+			if (max_attempts < 1) throw new IllegalArgumentException("max_attempts must be at least 1");
+			this.maxAttempts = max_attempts;
+			return this;
+		}
+
+		public Builder baseDelay(Duration base_delay) {
+			this.baseDelay = Objects.requireNonNull(base_delay, "base_delay");
+			return this;
+		}
+
+		public Builder maxDelay(Duration max_delay) {
+			this.maxDelay = Objects.requireNonNull(max_delay, "max_delay");
+			return this;
+		}
+
+		/**
+		 * @param jitter fraction of the backoff that is randomized, between {@code 0} and {@code 1}
+		 */
+		public Builder jitter(double jitter) {
+			if (jitter < 0 || jitter > 1) throw new IllegalArgumentException("jitter must be between 0 and 1");
+			this.jitter = jitter;
+			return this;
+		}
+
+		/**
+		 * Also retries {@code POST} requests on failures where the API may have processed them, including
+		 * {@code 502} and {@code 503}. Only enable it when duplicates are acceptable, e.g. a repeated attachment.
+		 */
+		public Builder retryNonIdempotentRequests(boolean retry) {
+			this.retryNonIdempotentRequests = retry;
+			return this;
+		}
+
+		public RetryPolicy build() {
+			if (baseDelay.compareTo(maxDelay) > 0) throw new IllegalArgumentException("base_delay must not exceed max_delay");
+			return new RetryPolicy(this);
+		}
+	}
+}
@@ -0,0 +1,158 @@
+package engine;
+
+import java.net.http.HttpRequest.BodyPublisher;
+import java.nio.ByteBuffer;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link BodyPublisher} handing the chunks of another one to the HTTP client within the budget of a
+ * {@link BandwidthGovernor}. Created by {@link BandwidthGovernor#throttle}.
+ *
+ * @author Lucas Alexandre Bez Piancoski
+ * @since 1.0.0
+ */
+final class ThrottledBodyPublisher implements BodyPublisher {
+
+	private final BandwidthGovernor governor;
+	private final BodyPublisher delegate;
+	private final int share;
+
+	ThrottledBodyPublisher(BandwidthGovernor governor, BodyPublisher delegate, int share) {
+		this.governor = governor;
+		this.delegate = delegate;
+		this.share = share;
+	}
+
+	@Override
+	public long contentLength() {
+		return delegate.contentLength();
+	}
+
+	@Override
+	public void subscribe(Flow.Subscriber<? super ByteBuffer> subscriber) {
+		delegate.subscribe(new ThrottledSubscription(subscriber, governor.open(share)));
+	}
+
+	/**
+	 * Requests one chunk at a time from the wrapped publisher and delays it when over budget. Signals are
+	 * serialized by the {@code wip} counter, like in {@link helpers.MultipartBodyPublisher}.
+	 */
+	private static final class ThrottledSubscription implements Flow.Subscriber<ByteBuffer>, Flow.Subscription {
+
+		private final Flow.Subscriber<? super ByteBuffer> downstream;
+		private final BandwidthGovernor.Allocation allocation;
+		private final AtomicLong demand = new AtomicLong();
+		private final AtomicInteger wip = new AtomicInteger();
+		private Flow.Subscription upstream;
+		private volatile ByteBuffer ready;
+		private volatile boolean upstreamDone;
+		private volatile Throwable upstreamError;
+		private volatile boolean cancelled;
+		private volatile Throwable invalidRequest;
+		private boolean outstanding;
+		private boolean done;
+
+		ThrottledSubscription(Flow.Subscriber<? super ByteBuffer> downstream, BandwidthGovernor.Allocation allocation) {
+			this.downstream = downstream;
+			this.allocation = allocation;
+		}
+
+		@Override
+		public void onSubscribe(Flow.Subscription subscription) {
+			upstream = subscription;
+			downstream.onSubscribe(this);
+		}
+
+		@Override
+		public void onNext(ByteBuffer item) {
+			long wait = allocation.reserve(item.remaining());
+			if (wait == 0) {
+				ready = item;
+				drain();
+			} else {
+				BandwidthGovernor.schedule(() -> {
+					ready = item;
+					drain();
+				}, wait);
+			}
+		}
+
+		@Override
+		public void onError(Throwable throwable) {
+			upstreamError = throwable;
+			drain();
+		}
+
+		@Override
+		public void onComplete() {
+			upstreamDone = true;
+			drain();
+		}
+
+		@Override
+		public void request(long n) {
+			if (n <= 0) invalidRequest = new IllegalArgumentException("non-positive subscription request: " + n);
+			else demand.getAndAccumulate(n, (current, added) -> current + added < 0 ? Long.MAX_VALUE : current + added);
+			drain();
+		}
+
+		@Override
+		public void cancel() {
+			cancelled = true;
+			drain();
+		}
+
+		private void drain() {
+			if (wip.getAndIncrement() != 0) return;
+			int missed = 1;
+			do {
+				while (!done) {
+					if (cancelled) {
+						terminate();
+						upstream.cancel();
+						break;
+					}
+					if (invalidRequest != null) {
+						terminate();
+						upstream.cancel();
+						downstream.onError(invalidRequest);
+						break;
+					}
+					ByteBuffer chunk = ready;
+					if (chunk != null) {
+						if (demand.get() == 0) break;
+						ready = null;
+						outstanding = false;
+						demand.decrementAndGet();
+						downstream.onNext(chunk);
+						continue;
+					}
+					if (upstreamError != null) {
+						terminate();
+						downstream.onError(upstreamError);
+						break;
+					}
+					if (upstreamDone) {
+						terminate();
+						downstream.onComplete();
+						break;
+					}
+					if (outstanding) break;
+					if (demand.get() == 0) break;
+					// may deliver the chunk synchronously, it is picked up by the next turn of the loop
+					outstanding = true;
+					upstream.request(1);
+				}
+				missed = wip.addAndGet(-missed);
+			} while (missed != 0);
+		}
+
+		private void terminate() {
+			done = true;
+			ready = null;
+			allocation.close();
+		}
+	}
+}
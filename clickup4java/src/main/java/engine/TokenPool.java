@@ -0,0 +1,159 @@
+package engine;
+
+import java.net.http.HttpHeaders;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link TokenProvider} that spreads requests across several ClickUp tokens.
+ * <p>
+ * Each call picks the healthy token with the most permits left in its {@link RateLimiter}, so the pool delivers
+ * roughly the sum of the rate limits of its tokens. Ties are broken round-robin. The limiters are the ones of the
+ * {@link RateLimiters} the requests are sent through: the pick takes the permit the request then uses, in one step,
+ * so concurrent picks never drain the same token, and a request answered from the cache or by a request already in
+ * flight gives it back.
+ * </p>
+ * <p>
+ * A token answered with {@code 401} is taken out of the pool until {@link #restore(String)} is called.
+ * A token answered with {@code 429} is excluded until its rate limit resets, at the {@code X-RateLimit-Reset}
+ * time of the response; when every healthy token is excluded, the one resetting first is used.
+ * </p>
+ * <p>
+ * Install the pool with {@link TokenProviders#setDefault(TokenProvider)} so it sees the responses of
+ * every request and can track the health of its tokens.
+ * </p>
+ *
+ * @author Lucas Alexandre Bez Piancoski
+ * @since 1.0.0
+ */
+public final class TokenPool implements TokenProvider {
+
+	private final Map<String, TokenState> tokens = new LinkedHashMap<>();
+	private final TokenState[] states;
+	private final RateLimiters rateLimiters;
+	private int cursor;
+
+	/**
+	 * Creates a pool drawing from {@link RateLimiters#shared()}, the limiters of the clients built without their own.
+	 *
+	 * @param tokens the tokens of the pool
+	 */
+	public TokenPool(List<String> tokens) {
+		this(tokens, RateLimiters.shared());
+	}
+
+	/**
+	 * @param tokens the tokens of the pool
+	 * @param rate_limiters the limiters of the client sending the requests, see
+	 *                      {@link ClickUpClient.Builder#rateLimiters(RateLimiters)}
+	 */
+	public TokenPool(List<String> tokens, RateLimiters rate_limiters) {
+		this.rateLimiters = Objects.requireNonNull(rate_limiters, "rate_limiters");
+		for (String token : tokens) {
+			if (token == null || token.isBlank()) throw new IllegalArgumentException("tokens must not be blank");
+			this.tokens.putIfAbsent(token, new TokenState(token));
+		}
+		if (this.tokens.isEmpty()) throw new IllegalArgumentException("At least one token is required");
+		this.states = this.tokens.values().toArray(new TokenState[0]);
+	}
+
+	@Override
+	public synchronized String getToken() {
+		long now = System.nanoTime();
+		int start = cursor;
+		cursor = (cursor + 1) % states.length;
+		TokenState best = null;
+		TokenState resetFirst = null;
+		long bestPermits = -1;
+		for (int i = 0; i < states.length; i++) {
+			TokenState state = states[(start + i) % states.length];
+			if (state.unauthorized) continue;
+			if (state.throttledUntilNanos - now > 0) {
+				if (resetFirst == null || state.throttledUntilNanos - resetFirst.throttledUntilNanos < 0) resetFirst = state;
+				continue;
+			}
+			long permits = rateLimiters.forToken(state.token).availablePermits();
+			if (permits > bestPermits) {
+				best = state;
+				bestPermits = permits;
+			}
+		}
+		if (best == null) best = resetFirst;
+		if (best == null) {
+			throw new IllegalStateException("Every token of the pool was rejected by ClickUp with 401 Unauthorized");
+		}
+		rateLimiters.forToken(best.token).handOut();
+		return best.token;
+	}
+
+	@Override
+	public void onResponse(String token, int status_code, HttpHeaders headers) {
+		TokenState state = tokens.get(token);
+		if (state == null) return;
+		if (status_code == 401) {
+			state.unauthorized = true;
+		} else if (status_code == 429) {
+			// the executor already recalibrated the limiter, updating it again with the same headers is a no-op
+			RateLimiter limiter = rateLimiters.forToken(token);
+			limiter.update(status_code, headers);
+			state.throttled.incrementAndGet();
+			state.throttledUntilNanos = System.nanoTime() + limiter.estimatedWait().toNanos();
+		}
+	}
+
+	/**
+	 * Puts a token rejected with {@code 401} back into the pool, e.g. after it was regenerated.
+	 *
+	 * @param token the token to restore
+	 */
+	public void restore(String token) {
+		TokenState state = tokens.get(token);
+		if (state != null) state.unauthorized = false;
+	}
+
+	/**
+	 * @param token a token of the pool
+	 * @return {@code true} if the token is in the pool and was not rejected with {@code 401}
+	 */
+	public boolean isHealthy(String token) {
+		TokenState state = tokens.get(token);
+		return state != null && !state.unauthorized;
+	}
+
+	/**
+	 * @param token a token of the pool
+	 * @return {@code true} if the token was answered with {@code 429} and its rate limit did not reset yet
+	 */
+	public boolean isThrottled(String token) {
+		TokenState state = tokens.get(token);
+		return state != null && state.throttledUntilNanos - System.nanoTime() > 0;
+	}
+
+	/**
+	 * @param token a token of the pool
+	 * @return how many {@code 429} responses the token received
+	 */
+	public int getThrottledCount(String token) {
+		TokenState state = tokens.get(token);
+		return state == null ? 0 : state.throttled.get();
+	}
+
+	public int size() {
+		return states.length;
+	}
+
+	private static final class TokenState {
+
+		private final String token;
+		private final AtomicInteger throttled = new AtomicInteger();
+		private volatile boolean unauthorized;
+		private volatile long throttledUntilNanos = System.nanoTime();
+
+		private TokenState(String token) {
+			this.token = token;
+		}
+	}
+}
@@ -0,0 +1,32 @@
+package engine;
+
+import java.net.http.HttpHeaders;
+
+/**
+ * Supplies the ClickUp token used by {@link HttpRequestProvider} when a call does not provide one explicitly.
+ * <p>
+ * Implementations must be thread-safe, {@link #getToken()} is called once per request built.
+ * Ready-made implementations are available from {@link TokenProviders}.
+ * </p>
+ *
+ * @author Lucas Alexandre Bez Piancoski
+ * @since 1.0.0
+ */
+public interface TokenProvider {
+
+	/**
+	 * @return the token to authorize the next request with
+	 * @throws IllegalArgumentException if no token can be resolved
+	 */
+	String getToken();
+
+	/**
+	 * Called by {@link HttpRequestExecutor} with the outcome of every request sent with a token,
+	 * including tokens this provider did not hand out. The default implementation ignores it.
+	 *
+	 * @param token the token the request was authorized with
+	 * @param status_code the HTTP status of the response
+	 * @param headers the response headers
+	 */
+	default void onResponse(String token, int status_code, HttpHeaders headers) {}
+}
@@ -0,0 +1,125 @@
+package engine;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.http.HttpHeaders;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Objects;
+import java.util.Properties;
+
+import helpers.ResolveClickUpTokenFromSystemVariable;
+
+/**
+ * Factory and holder of the default {@link TokenProvider}.
+ * <p>
+ * The providers returned here resolve and validate their token once, on first use, and then
+ * reuse it for every request.
+ * </p>
+ *
+ * @author Lucas Alexandre Bez Piancoski
+ * @since 1.0.0
+ */
+public final class TokenProviders {
+
+	/** Key read by {@link #fromProperties(Path)}. */
+	public static final String DEFAULT_PROPERTY_KEY = "clickup.token";
+
+	private static volatile TokenProvider defaultProvider = fromEnvironment();
+
+	/** Follows {@link #setDefault(TokenProvider)}, for the components built before the default is replaced. */
+	private static final TokenProvider CURRENT_DEFAULT = new TokenProvider() {
+		@Override
+		public String getToken() {
+			return defaultProvider.getToken();
+		}
+
+		@Override
+		public void onResponse(String token, int status_code, HttpHeaders headers) {
+			defaultProvider.onResponse(token, status_code, headers);
+		}
+	};
+
+	private TokenProviders() {}
+
+	/**
+	 * @return the provider used when a call does not provide a token, the {@code CLICKUP_TOKEN}
+	 *         environment variable unless replaced with {@link #setDefault(TokenProvider)}
+	 */
+	public static TokenProvider getDefault() {
+		return defaultProvider;
+	}
+
+	/**
+	 * Replaces the provider used when a call does not provide a token, e.g. with a {@link TokenPool}.
+	 *
+	 * @param provider the new default provider
+	 */
+	public static void setDefault(TokenProvider provider) {
+		defaultProvider = Objects.requireNonNull(provider, "provider");
+	}
+
+	/**
+	 * @return a provider delegating to whatever {@link #getDefault()} returns at the time of each call
+	 */
+	static TokenProvider currentDefault() {
+		return CURRENT_DEFAULT;
+	}
+
+	/**
+	 * @return a provider reading the {@code CLICKUP_TOKEN} environment variable once
+	 */
+	public static TokenProvider fromEnvironment() {
+		return new CachedTokenProvider(ResolveClickUpTokenFromSystemVariable::getClickUpToken);
+	}
+
+	/**
+	 * @param file a properties file holding the token under {@value #DEFAULT_PROPERTY_KEY}
+	 * @return a provider reading the file once
+	 */
+	public static TokenProvider fromProperties(Path file) {
+		return fromProperties(file, DEFAULT_PROPERTY_KEY);
+	}
+
+	/**
+	 * @param file a properties file holding the token
+	 * @param key the property holding the token
+	 * @return a provider reading the file once
+	 */
+	public static TokenProvider fromProperties(Path file, String key) {
+		Objects.requireNonNull(file, "file");
+		Objects.requireNonNull(key, "key");
+		return new CachedTokenProvider(() -> {
+			Properties properties = new Properties();
+			try (InputStream is = Files.newInputStream(file)) {
+				properties.load(is);
+			} catch (IOException e) {
+				throw new UncheckedIOException("Unable to read the ClickUp token from " + file, e);
+			}
+			String token = properties.getProperty(key);
+			if (token == null || token.isBlank()) {
+				throw new IllegalArgumentException("Unable to read '" + key + "' from " + file + ". Please check that the property is defined.");
+			}
+			return token.trim();
+		});
+	}
+
+	/**
+	 * @param token the token to use
+	 * @return a provider always returning {@code token}
+	 */
+	public static TokenProvider of(String token) {
+		if (token == null || token.isBlank()) throw new IllegalArgumentException("token must not be blank");
+		return () -> token;
+	}
+
+	/**
+	 * @param tokens the tokens to spread requests across
+	 * @return a {@link TokenPool} over the given tokens
+	 */
+	public static TokenPool pool(List<String> tokens) {
+		return new TokenPool(tokens);
+	}
+}
@@ -0,0 +1,87 @@
+package engine;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Path template of an {@link Endpoint} relative to the base URL of the client, e.g. {@code task/{id}/attachment}.
+ * <p>
+ * The template is parsed once into its literal parts and variables, so expanding it for a call is a single pass
+ * appending to a {@link StringBuilder}. Variable values and query parameters are percent-encoded.
+ * </p>
+ *
+ * @author Lucas Alexandre Bez Piancoski
+ * @since 1.0.0
+ */
+final class UriTemplate {
+
+	private final String template;
+	/** Literal parts at even indexes, variable names at odd indexes. */
+	private final String[] parts;
+
+	private UriTemplate(String template, String[] parts) {
+		this.template = template;
+		this.parts = parts;
+	}
+
+	/**
+	 * @throws IllegalArgumentException if a variable is not closed or has no name
+	 */
+	static UriTemplate parse(String template) {
+		Objects.requireNonNull(template, "template");
+		List<String> parts = new ArrayList<>();
+		int position = 0;
+		while (true) {
+			int open = template.indexOf('{', position);
+			if (open < 0) {
+				parts.add(template.substring(position));
+				break;
+			}
+			int close = template.indexOf('}', open);
+			if (close < 0 || close == open + 1) throw new IllegalArgumentException("Invalid URI template: " + template);
+			parts.add(template.substring(position, open));
+			parts.add(template.substring(open + 1, close));
+			position = close + 1;
+		}
+		return new UriTemplate(template, parts.toArray(new String[0]));
+	}
+
+	/**
+	 * @param base             the base URL of the client, ending with {@code /}
+	 * @param path_parameters  the value of every variable
+	 * @param query_parameters the query parameters, in order
+	 * @return the absolute URL of the call
+	 * @throws IllegalArgumentException if a variable has no value
+	 */
+	String expand(String base, Map<String, String> path_parameters, Map<String, String> query_parameters) {
+		StringBuilder url = new StringBuilder(base.length() + template.length() + 32).append(base);
+		for (int i = 0; i < parts.length; i++) {
+			if (i % 2 == 0) {
+				url.append(parts[i]);
+				continue;
+			}
+			String value = path_parameters.get(parts[i]);
+			if (value == null) throw new IllegalArgumentException("Missing value of {" + parts[i] + "} in " + template);
+			url.append(encode(value));
+		}
+		char separator = '?';
+		for (Map.Entry<String, String> parameter : query_parameters.entrySet()) {
+			url.append(separator).append(encode(parameter.getKey())).append('=').append(encode(parameter.getValue()));
+			separator = '&';
+		}
+		return url.toString();
+	}
+
+	@Override
+	public String toString() {
+		return template;
+	}
+
+	private static String encode(String value) {
+		return URLEncoder.encode(value, StandardCharsets.UTF_8).replace("+", "%20");
+	}
+}
@@ -0,0 +1,49 @@
+package engine;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Creates the executors the library runs blocking work on.
+ * <p>
+ * The library is a multi-release JAR: on Java 21 and later this class is replaced by a version
+ * starting one virtual thread per task, so tens of thousands of blocking uploads cost a few
+ * kilobytes of heap each instead of an OS thread. On older runtimes this version is used and the
+ * executors fall back to cached pools of daemon platform threads.
+ * </p>
+ * <p>
+ * Synchronous calls made from virtual threads do not pin their carrier thread: rate limit and retry
+ * waits sleep outside of any monitor.
+ * </p>
+ *
+ * @author Lucas Alexandre Bez Piancoski
+ * @since 1.0.0
+ */
+public final class VirtualThreads {
+
+	private VirtualThreads() {}
+
+	/**
+	 * @return {@code true} when the executors of this class run their tasks on virtual threads
+	 */
+	public static boolean isAvailable() {
+		return false;
+	}
+
+	/**
+	 * Creates an executor starting a new thread per task, e.g. to run thousands of synchronous uploads
+	 * or to back {@link ClickUpClient.Builder#executor}. The caller owns it and must shut it down.
+	 *
+	 * @param name the prefix of the thread names
+	 * @return a virtual thread per task executor on Java 21+, a cached pool of daemon platform threads otherwise
+	 */
+	public static ExecutorService newThreadPerTaskExecutor(String name) {
+		AtomicLong count = new AtomicLong();
+		return Executors.newCachedThreadPool(runnable -> {
+			Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+}
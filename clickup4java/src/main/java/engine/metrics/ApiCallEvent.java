@@ -0,0 +1,44 @@
+package engine.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JDK Flight Recorder event committed for every API call, retries included.
+ * Enable it with {@code -XX:StartFlightRecording} and look for {@code clickup4java.ApiCall}.
+ *
+ * @author Lucas Alexandre Bez Piancoski
+ * @since 1.0.0
+ */
+@Name("clickup4java.ApiCall")
+@Label("ClickUp API Call")
+@Category({ "ClickUp4Java" })
+@Description("A call to the ClickUp API, from the first attempt until the last response")
+@StackTrace(false)
+public final class ApiCallEvent extends Event {
+
+	@Label("Endpoint")
+	public String endpoint;
+
+	@Label("Status Code")
+	@Description("HTTP status of the last response, -1 when no response was received")
+	public int statusCode;
+
+	@Label("Attempts")
+	public int attempts;
+
+	@Label("Bytes Uploaded")
+	@DataAmount
+	public long bytesUploaded;
+
+	@Label("Rate Limit Wait (ns)")
+	public long rateLimitWaitNanos;
+
+	@Label("Error")
+	public String error;
+}
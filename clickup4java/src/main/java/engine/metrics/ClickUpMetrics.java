@@ -0,0 +1,128 @@
+package engine.metrics;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Entry point of the instrumentation of the library.
+ * <p>
+ * Holds the registered {@link ClickUpMetricsListener}s and dispatches the measurements to them.
+ * When no listener is registered and the JFR events are disabled, the measurements are skipped.
+ * A listener that throws is ignored, it never fails the API call being measured.
+ * </p>
+ *
+ * @author Lucas Alexandre Bez Piancoski
+ * @since 1.0.0
+ */
+public final class ClickUpMetrics {
+
+	private static final Set<String> COLLECTIONS = Set.of("task", "list", "folder", "space", "team", "comment",
+			"view", "goal", "user", "checklist", "checklist_item", "webhook", "tag", "field", "group", "guest");
+	private static final List<ClickUpMetricsListener> LISTENERS = new CopyOnWriteArrayList<>();
+
+	private ClickUpMetrics() {}
+
+	public static void addListener(ClickUpMetricsListener listener) {
+		LISTENERS.add(Objects.requireNonNull(listener, "listener"));
+	}
+
+	public static void removeListener(ClickUpMetricsListener listener) {
+		LISTENERS.remove(listener);
+	}
+
+	/**
+	 * @return {@code true} if any listener is registered
+	 */
+	public static boolean hasListeners() {
+		return !LISTENERS.isEmpty();
+	}
+
+	/**
+	 * Labels a request with its method and path template, e.g. {@code POST /task/{id}/attachment}.
+	 * The segment following a known collection name is replaced by {@code {id}} and the API version
+	 * prefix is removed, so the label does not depend on the ids of the call.
+	 *
+	 * @param request the request
+	 * @return the endpoint label
+	 */
+	public static String endpointOf(HttpRequest request) {
+		return endpointOf(request.method(), request.uri());
+	}
+
+	/**
+	 * @param method the HTTP method
+	 * @param uri the request URI
+	 * @return the endpoint label
+	 * @see #endpointOf(HttpRequest)
+	 */
+	public static String endpointOf(String method, URI uri) {
+		String path = Objects.requireNonNullElse(uri.getPath(), "");
+		StringBuilder label = new StringBuilder(method).append(' ');
+		String[] segments = path.split("/");
+		boolean nextIsId = false;
+		int start = segments.length > 2 && "api".equals(segments[1]) ? 3 : 1;
+		for (int i = start; i < segments.length; i++) {
+			label.append('/').append(nextIsId ? "{id}" : segments[i]);
+			nextIsId = !nextIsId && COLLECTIONS.contains(segments[i]);
+		}
+		if (label.charAt(label.length() - 1) == ' ') label.append('/');
+		return label.toString();
+	}
+
+	public static void recordCallStarted(String endpoint) {
+		for (ClickUpMetricsListener listener : LISTENERS) {
+			try {
+				listener.onCallStarted(endpoint);
+			} catch (RuntimeException ignored) {
+				// metrics must never fail the call
+			}
+		}
+	}
+
+	public static void recordCallCompleted(String endpoint, int status_code, Duration elapsed, long bytes_uploaded, int attempts) {
+		for (ClickUpMetricsListener listener : LISTENERS) {
+			try {
+				listener.onCallCompleted(endpoint, status_code, elapsed, bytes_uploaded, attempts);
+			} catch (RuntimeException ignored) {
+				// metrics must never fail the call
+			}
+		}
+	}
+
+	public static void recordRetry(String endpoint, int attempt, Duration delay) {
+		for (ClickUpMetricsListener listener : LISTENERS) {
+			try {
+				listener.onRetry(endpoint, attempt, delay);
+			} catch (RuntimeException ignored) {
+				// metrics must never fail the call
+			}
+		}
+	}
+
+	public static void recordStage(Stage stage, String endpoint, Duration elapsed) {
+		for (ClickUpMetricsListener listener : LISTENERS) {
+			try {
+				listener.onStage(stage, endpoint, elapsed);
+			} catch (RuntimeException ignored) {
+				// metrics must never fail the call
+			}
+		}
+	}
+
+	/**
+	 * Records a stage that started at {@code start_nanos}, only when a listener is registered.
+	 *
+	 * @param stage the stage measured
+	 * @param endpoint the endpoint label
+	 * @param start_nanos the {@link System#nanoTime()} at the start of the stage
+	 */
+	public static void recordStageSince(Stage stage, String endpoint, long start_nanos) {
+		if (LISTENERS.isEmpty()) return;
+		recordStage(stage, endpoint, Duration.ofNanos(System.nanoTime() - start_nanos));
+	}
+}
@@ -0,0 +1,52 @@
+package engine.metrics;
+
+import java.time.Duration;
+
+/**
+ * Receives the measurements of every API call made by the library.
+ * <p>
+ * Register implementations with {@link ClickUpMetrics#addListener(ClickUpMetricsListener)} to feed your own
+ * telemetry, or use the built-in {@link ClickUpMetricsRegistry}. Callbacks run on the thread that made the
+ * measurement, often an {@link java.net.http.HttpClient} thread, so they must be thread-safe and fast.
+ * Every method has an empty default implementation.
+ * </p>
+ * <p>
+ * Endpoints are labeled with the method and the path template, e.g. {@code POST /task/{id}/attachment}.
+ * </p>
+ *
+ * @author Lucas Alexandre Bez Piancoski
+ * @since 1.0.0
+ */
+public interface ClickUpMetricsListener {
+
+	/**
+	 * @param endpoint the endpoint label
+	 */
+	default void onCallStarted(String endpoint) {}
+
+	/**
+	 * Called once per call, after the last attempt. The requests of a hedged call are attempts of one call.
+	 *
+	 * @param endpoint the endpoint label
+	 * @param status_code the HTTP status of the last response, or {@code -1} when no response was received
+	 * @param elapsed the duration of the whole call, retries and rate limit waits included
+	 * @param bytes_uploaded request body bytes the HTTP client took over every attempt, a failed or cancelled
+	 *            attempt only counts what it sent
+	 * @param attempts the number of attempts made, hedged requests included
+	 */
+	default void onCallCompleted(String endpoint, int status_code, Duration elapsed, long bytes_uploaded, int attempts) {}
+
+	/**
+	 * @param endpoint the endpoint label
+	 * @param attempt the attempt that failed, starting at 1
+	 * @param delay the delay before the next attempt
+	 */
+	default void onRetry(String endpoint, int attempt, Duration delay) {}
+
+	/**
+	 * @param stage the stage measured
+	 * @param endpoint the endpoint label
+	 * @param elapsed the duration of the stage
+	 */
+	default void onStage(Stage stage, String endpoint, Duration elapsed) {}
+}
@@ -0,0 +1,110 @@
+package engine.metrics;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Built-in {@link ClickUpMetricsListener} keeping the measurements in memory.
+ * <p>
+ * Tracks, per endpoint, a latency {@link LatencyHistogram}, status code counters, the calls in flight and
+ * the retries, plus the bytes uploaded and a histogram per {@link Stage}. Every counter is lock-free.
+ * </p>
+ * <pre>{@code
+ * ClickUpMetricsRegistry registry = new ClickUpMetricsRegistry();
+ * ClickUpMetrics.addListener(registry);
+ * ...
+ * registry.getLatency("POST /task/{id}/attachment").getPercentile(99);
+ * }</pre>
+ *
+ * @author Lucas Alexandre Bez Piancoski
+ * @since 1.0.0
+ */
+public final class ClickUpMetricsRegistry implements ClickUpMetricsListener {
+
+	private final Map<String, EndpointMetrics> endpoints = new ConcurrentHashMap<>();
+	private final Map<Stage, LatencyHistogram> stages = new EnumMap<>(Stage.class);
+	private final LongAdder bytesUploaded = new LongAdder();
+
+	public ClickUpMetricsRegistry() {
+		for (Stage stage : Stage.values()) stages.put(stage, new LatencyHistogram());
+	}
+
+	@Override
+	public void onCallStarted(String endpoint) {
+		metricsOf(endpoint).inFlight.incrementAndGet();
+	}
+
+	@Override
+	public void onCallCompleted(String endpoint, int status_code, Duration elapsed, long bytes_uploaded, int attempts) {
+		EndpointMetrics metrics = metricsOf(endpoint);
+		metrics.inFlight.decrementAndGet();
+		metrics.latency.record(elapsed);
+		metrics.statusCodes.computeIfAbsent(status_code, code -> new LongAdder()).increment();
+		bytesUploaded.add(bytes_uploaded);
+	}
+
+	@Override
+	public void onRetry(String endpoint, int attempt, Duration delay) {
+		metricsOf(endpoint).retries.increment();
+	}
+
+	@Override
+	public void onStage(Stage stage, String endpoint, Duration elapsed) {
+		stages.get(stage).record(elapsed);
+	}
+
+	public Set<String> getEndpoints() {
+		return Set.copyOf(endpoints.keySet());
+	}
+
+	/**
+	 * @param endpoint the endpoint label
+	 * @return the latency of the whole calls, retries included
+	 */
+	public LatencyHistogram getLatency(String endpoint) {
+		return metricsOf(endpoint).latency;
+	}
+
+	/**
+	 * @param endpoint the endpoint label
+	 * @return the number of calls per final status, {@code -1} counting calls without response
+	 */
+	public Map<Integer, Long> getStatusCounts(String endpoint) {
+		Map<Integer, Long> counts = new TreeMap<>();
+		metricsOf(endpoint).statusCodes.forEach((code, count) -> counts.put(code, count.sum()));
+		return counts;
+	}
+
+	public int getInFlight(String endpoint) {
+		return metricsOf(endpoint).inFlight.get();
+	}
+
+	public long getRetries(String endpoint) {
+		return metricsOf(endpoint).retries.sum();
+	}
+
+	public long getBytesUploaded() {
+		return bytesUploaded.sum();
+	}
+
+	public LatencyHistogram getStage(Stage stage) {
+		return stages.get(stage);
+	}
+
+	private EndpointMetrics metricsOf(String endpoint) {
+		return endpoints.computeIfAbsent(endpoint, e -> new EndpointMetrics());
+	}
+
+	private static final class EndpointMetrics {
+		private final LatencyHistogram latency = new LatencyHistogram();
+		private final Map<Integer, LongAdder> statusCodes = new ConcurrentHashMap<>();
+		private final AtomicInteger inFlight = new AtomicInteger();
+		private final LongAdder retries = new LongAdder();
+	}
+}
@@ -0,0 +1,87 @@
+package engine.metrics;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram with logarithmic buckets.
+ * <p>
+ * Values are recorded in microseconds into 8 linear sub-buckets per power of two, which bounds the
+ * error of {@link #getPercentile(double)} to about 12% while using a fixed amount of memory.
+ * </p>
+ *
+ * @author Lucas Alexandre Bez Piancoski
+ * @since 1.0.0
+ */
+public final class LatencyHistogram {
+
+	private static final int SUB_BUCKET_BITS = 3;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	private static final int BUCKETS = (64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+	private final LongAdder count = new LongAdder();
+	private final LongAdder totalMicros = new LongAdder();
+	private final AtomicLong maxMicros = new AtomicLong();
+
+	public void record(Duration elapsed) {
+		long micros = Math.max(0, elapsed.toNanos() / 1000);
+		counts.incrementAndGet(indexOf(micros));
+		count.increment();
+		totalMicros.add(micros);
+		maxMicros.accumulateAndGet(micros, Math::max);
+	}
+
+	public long getCount() {
+		return count.sum();
+	}
+
+	public Duration getMean() {
+		long n = count.sum();
+		return n == 0 ? Duration.ZERO : Duration.ofNanos(totalMicros.sum() / n * 1000);
+	}
+
+	public Duration getMax() {
+		return Duration.ofNanos(maxMicros.get() * 1000);
+	}
+
+	/**
+	 * @param percentile the percentile, between {@code 0} and {@code 100}
+	 * @return the upper bound of the bucket holding the percentile, {@link Duration#ZERO} when empty
+	 */
+	public Duration getPercentile(double percentile) {
+		if (percentile < 0 || percentile > 100) throw new IllegalArgumentException("percentile must be between 0 and 100");
+		long total = count.sum();
+		if (total == 0) return Duration.ZERO;
+		long rank = Math.max(1, (long) Math.ceil(total * percentile / 100));
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += counts.get(i);
+			if (seen >= rank) return Duration.ofNanos(Math.min(upperBoundOf(i), maxMicros.get()) * 1000);
+		}
+		return getMax();
+	}
+
+	private static int indexOf(long micros) {
+		if (micros < SUB_BUCKETS) return (int) micros;
+		int magnitude = 63 - Long.numberOfLeadingZeros(micros);
+		int shift = magnitude - SUB_BUCKET_BITS;
+		int subBucket = (int) (micros >>> shift) - SUB_BUCKETS;
+		return (shift + 1) * SUB_BUCKETS + subBucket;
+	}
+
+	private static long upperBoundOf(int index) {
+		if (index < SUB_BUCKETS) return index;
+		int shift = index / SUB_BUCKETS - 1;
+		long subBucket = index % SUB_BUCKETS + SUB_BUCKETS;
+		return ((subBucket + 1) << shift) - 1;
+	}
+
+	@Override
+	public String toString() {
+		return "LatencyHistogram[count=" + getCount() + ", mean=" + getMean() + ", p50=" + getPercentile(50)
+				+ ", p99=" + getPercentile(99) + ", max=" + getMax() + "]";
+	}
+}
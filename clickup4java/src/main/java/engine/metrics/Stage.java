@@ -0,0 +1,23 @@
+package engine.metrics;
+
+/**
+ * Stages of an API call timed by the library.
+ *
+ * @author Lucas Alexandre Bez Piancoski
+ * @since 1.0.0
+ */
+public enum Stage {
+	/** Building the request body, e.g. resolving the files of a multipart upload. */
+	BODY_GENERATION,
+	/** Building the {@link java.net.http.HttpRequest}, including the token resolution. */
+	REQUEST_BUILD,
+	/** Waiting for a {@link engine.RateLimiter} permit. */
+	RATE_LIMIT_WAIT,
+	/** From sending the request, body upload included, until the response status line and headers arrive. */
+	NETWORK,
+	/**
+	 * From the response headers until the body is mapped. The status is checked when the headers arrive and
+	 * the JSON is mapped while the body is streamed, so both are measured by this stage.
+	 */
+	RESPONSE_MAPPING
+}
@@ -0,0 +1,493 @@
+package helpers;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.http.HttpRequest.BodyPublisher;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * {@link BodyPublisher} for a {@code multipart/form-data} payload holding a single file part: an archive of
+ * the files of a directory, produced while the request is sent.
+ * <p>
+ * No temporary file is written. On every subscription a producer task, run on the given executor, walks the
+ * directory and compresses the matching files into a bounded pipe of {@value #CHUNK_SIZE} bytes chunks, while
+ * the HTTP client takes chunks out of the pipe as it sends them. Compression therefore runs in parallel with the
+ * upload. A producer faster than the network returns its thread once {@value #PIPE_CAPACITY} chunks are waiting
+ * and is submitted again when the HTTP client asks for more, so a slow upload holds no executor thread and
+ * memory stays bounded whatever the size of the directory.
+ * </p>
+ * <p>
+ * The length of the archive is not known in advance, so {@link #contentLength()} is {@code -1}: the body is
+ * sent as HTTP/2 data frames, or with chunked transfer encoding over HTTP/1.1. Every subscription produces the
+ * archive again, which keeps the publisher replayable for retries.
+ * </p>
+ *
+ * @author Lucas Alexandre Bez Piancoski
+ * @since 1.0.0
+ */
+public final class ArchiveBodyPublisher implements BodyPublisher {
+
+	static final int CHUNK_SIZE = 64 * 1024;
+	static final int PIPE_CAPACITY = 16;
+
+	private final String boundary;
+	private final Path directory;
+	private final PathMatcher matcher;
+	private final ArchiveFormat format;
+	private final String fileName;
+	private final Executor executor;
+
+	/**
+	 * @param boundary  the multipart boundary value
+	 * @param directory the directory to archive, its name is used as the attachment name
+	 * @param glob      selects the files to include, matched against their path relative to {@code directory},
+	 *                  e.g. {@code **} for every file or {@code **.png} for the screenshots
+	 * @param format    the archive format
+	 * @param executor  runs the producer task, which blocks on file reads but never waits for the network
+	 */
+	public ArchiveBodyPublisher(String boundary, Path directory, String glob, ArchiveFormat format, Executor executor) {
+		this.boundary = Objects.requireNonNull(boundary, "boundary");
+		this.directory = Objects.requireNonNull(directory, "directory");
+		this.matcher = FileSystems.getDefault().getPathMatcher("glob:" + Objects.requireNonNull(glob, "glob"));
+		this.format = Objects.requireNonNull(format, "format");
+		this.executor = Objects.requireNonNull(executor, "executor");
+		Path name = directory.toAbsolutePath().normalize().getFileName();
+		this.fileName = (name == null ? "archive" : name.toString()) + format.getExtension();
+	}
+
+	/**
+	 * @return the name of the attachment, the directory name followed by the archive extension
+	 */
+	public String getFileName() {
+		return fileName;
+	}
+
+	@Override
+	public long contentLength() {
+		return -1;
+	}
+
+	@Override
+	public void subscribe(Flow.Subscriber<? super ByteBuffer> subscriber) {
+		Objects.requireNonNull(subscriber, "subscriber");
+		// the producer is submitted by the first request
+		subscriber.onSubscribe(new PipeSubscription(subscriber));
+	}
+
+	private List<Path> listFiles() throws IOException {
+		try (Stream<Path> walk = Files.walk(directory)) {
+			return walk
+					.filter(Files::isRegularFile)
+					.filter(file -> matcher.matches(directory.relativize(file)))
+					.sorted()
+					.collect(Collectors.toList());
+		}
+	}
+
+	private String entryName(Path file) {
+		// archive entries always use '/' whatever the platform separator
+		return directory.relativize(file).toString().replace(file.getFileSystem().getSeparator(), "/");
+	}
+
+	/**
+	 * Writes the multipart payload one step at a time: a step writes the part headers, opens an entry, or
+	 * compresses at most {@value #CHUNK_SIZE} bytes of a file, so the producer can stop between any two steps.
+	 * Only used by the task holding {@link PipeSubscription#producing}.
+	 */
+	private final class ArchiveWriter {
+
+		private final PipeSubscription.PipeOutputStream out;
+		private final byte[] buffer = new byte[CHUNK_SIZE];
+		private List<Path> files;
+		private int next;
+		private DeflaterOutputStream archive;
+		private InputStream current;
+		private Path currentFile;
+		private long currentSize;
+		private long copied;
+		private volatile boolean closed;
+
+		ArchiveWriter(PipeSubscription.PipeOutputStream out) {
+			this.out = out;
+		}
+
+		boolean isClosed() {
+			return closed;
+		}
+
+		/**
+		 * @return {@code false} once the whole payload is written and the writer closed
+		 */
+		boolean step() throws IOException {
+			if (files == null) {
+				files = listFiles();
+				out.write(("--" + boundary + "\r\n" +
+						"Content-Disposition: form-data; name=\"attachment\"; filename=\"" + fileName + "\"\r\n" +
+						"Content-Type: " + format.getMimeType() + "\r\n\r\n").getBytes(StandardCharsets.UTF_8));
+				archive = format == ArchiveFormat.ZIP
+						? new ZipOutputStream(out, StandardCharsets.UTF_8)
+						: new GZIPOutputStream(out, CHUNK_SIZE);
+				return true;
+			}
+			if (current == null) {
+				if (next < files.size()) {
+					openEntry(files.get(next++));
+					return true;
+				}
+				if (format == ArchiveFormat.ZIP) {
+					((ZipOutputStream) archive).finish();
+				} else {
+					TarHeaders.writeEnd(archive);
+					archive.finish();
+				}
+				out.write(("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.UTF_8));
+				// the archive is finished, closing it only releases its deflater and flushes the last chunk
+				archive.close();
+				closed = true;
+				return false;
+			}
+			int n = current.read(buffer);
+			if (n < 0) {
+				closeEntry();
+			} else {
+				copied += n;
+				archive.write(buffer, 0, n);
+			}
+			return true;
+		}
+
+		private void openEntry(Path file) throws IOException {
+			if (format == ArchiveFormat.ZIP) {
+				ZipEntry entry = new ZipEntry(entryName(file));
+				entry.setLastModifiedTime(Files.getLastModifiedTime(file));
+				((ZipOutputStream) archive).putNextEntry(entry);
+			} else {
+				BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+				currentSize = attributes.size();
+				TarHeaders.writeFileHeader(archive, entryName(file), currentSize, attributes.lastModifiedTime().toMillis() / 1000);
+			}
+			currentFile = file;
+			copied = 0;
+			current = Files.newInputStream(file);
+		}
+
+		private void closeEntry() throws IOException {
+			current.close();
+			current = null;
+			if (format == ArchiveFormat.ZIP) {
+				((ZipOutputStream) archive).closeEntry();
+			} else {
+				if (copied != currentSize) throw new IOException("File changed while it was archived: " + currentFile);
+				TarHeaders.writePadding(archive, copied);
+			}
+		}
+
+		/**
+		 * Releases the open file and the deflater of an archive that will not be finished.
+		 */
+		void abort() {
+			if (closed) return;
+			closed = true;
+			out.discard();
+			try {
+				if (current != null) current.close();
+			} catch (IOException ignored) {
+				// the archive is dropped anyway
+			}
+			try {
+				if (archive != null) archive.close();
+			} catch (IOException ignored) {
+				// the archive is dropped anyway
+			}
+		}
+	}
+
+	/**
+	 * Bounded pipe between the producer and the HTTP client. Chunks are delivered only while there is outstanding
+	 * demand, signals are serialized by the {@code wip} counter like in {@link MultipartBodyPublisher}.
+	 * <p>
+	 * The producer is a task submitted to the executor whenever the pipe has room, at most one at a time. It runs
+	 * {@link ArchiveWriter#step()} until the pipe holds {@value #PIPE_CAPACITY} chunks and then returns, so no
+	 * thread waits for the network: the next {@link #request(long)} submits it again.
+	 * </p>
+	 */
+	private final class PipeSubscription implements Flow.Subscription {
+
+		private final Flow.Subscriber<? super ByteBuffer> subscriber;
+		private final Queue<ByteBuffer> pipe = new ConcurrentLinkedQueue<>();
+		private final AtomicInteger queued = new AtomicInteger();
+		private final AtomicLong demand = new AtomicLong();
+		private final AtomicInteger wip = new AtomicInteger();
+		private final AtomicBoolean producing = new AtomicBoolean();
+		private final ArchiveWriter writer = new ArchiveWriter(new PipeOutputStream());
+		private volatile boolean cancelled;
+		private volatile boolean produced;
+		private volatile Throwable error;
+		private volatile boolean done;
+
+		PipeSubscription(Flow.Subscriber<? super ByteBuffer> subscriber) {
+			this.subscriber = subscriber;
+		}
+
+		@Override
+		public void request(long n) {
+			if (n <= 0) {
+				fail(new IllegalArgumentException("non-positive subscription request: " + n));
+				schedule();
+				return;
+			}
+			demand.getAndAccumulate(n, (current, added) -> current + added < 0 ? Long.MAX_VALUE : current + added);
+			drain();
+			schedule();
+		}
+
+		@Override
+		public void cancel() {
+			cancelled = true;
+			drain();
+			schedule();
+		}
+
+		/**
+		 * Submits the producer unless it is running, has nothing left to do, or the pipe is full. A stopped
+		 * subscription still submits it once, to release the writer.
+		 */
+		void schedule() {
+			if (!needsProducer() || !producing.compareAndSet(false, true)) return;
+			try {
+				executor.execute(this::produce);
+			} catch (RuntimeException e) {
+				writer.abort();
+				producing.set(false);
+				fail(e);
+			}
+		}
+
+		private boolean needsProducer() {
+			return !writer.isClosed() && (cancelled || done || queued.get() < PIPE_CAPACITY);
+		}
+
+		private void produce() {
+			do {
+				try {
+					while (!writer.isClosed()) {
+						if (cancelled || done) {
+							writer.abort();
+						} else if (queued.get() >= PIPE_CAPACITY || !writer.step()) {
+							break;
+						}
+					}
+					if (writer.isClosed()) produced = true;
+				} catch (IOException | RuntimeException e) {
+					if (error == null) error = e;
+					writer.abort();
+					produced = true;
+				} finally {
+					producing.set(false);
+				}
+				drain();
+				// the pipe may have been drained after the loop stopped on a full pipe
+			} while (needsProducer() && producing.compareAndSet(false, true));
+		}
+
+		void fail(Throwable e) {
+			if (error == null) error = e;
+			produced = true;
+			drain();
+		}
+
+		private void emit(ByteBuffer chunk) {
+			pipe.add(chunk);
+			queued.incrementAndGet();
+			drain();
+		}
+
+		private void drain() {
+			if (wip.getAndIncrement() != 0) return;
+			int missed = 1;
+			do {
+				if (!done && cancelled) {
+					done = true;
+				}
+				while (!done) {
+					Throwable failure = error;
+					if (failure != null) {
+						done = true;
+						subscriber.onError(failure);
+						break;
+					}
+					if (demand.get() == 0) break;
+					// read before polling: once the producer is done, an empty pipe means the end of the body
+					boolean finished = produced;
+					ByteBuffer chunk = pipe.poll();
+					if (chunk == null) {
+						if (finished) {
+							done = true;
+							subscriber.onComplete();
+						}
+						break;
+					}
+					queued.decrementAndGet();
+					demand.decrementAndGet();
+					subscriber.onNext(chunk);
+				}
+				if (done) {
+					pipe.clear();
+					queued.set(0);
+				}
+				missed = wip.addAndGet(-missed);
+			} while (missed != 0);
+		}
+
+		/**
+		 * Cuts the archive in chunks and hands them to the pipe.
+		 */
+		private final class PipeOutputStream extends OutputStream {
+
+			private byte[] buffer = new byte[CHUNK_SIZE];
+			private int count;
+			private boolean discarded;
+
+			/**
+			 * Drops everything written from now on.
+			 */
+			void discard() {
+				discarded = true;
+			}
+
+			@Override
+			public void write(int b) {
+				if (discarded) return;
+				if (count == buffer.length) flushChunk();
+				buffer[count++] = (byte) b;
+			}
+
+			@Override
+			public void write(byte[] b, int off, int len) {
+				Objects.checkFromIndexSize(off, len, b.length);
+				if (discarded) return;
+				while (len > 0) {
+					if (count == buffer.length) flushChunk();
+					int n = Math.min(len, buffer.length - count);
+					System.arraycopy(b, off, buffer, count, n);
+					count += n;
+					off += n;
+					len -= n;
+				}
+			}
+
+			@Override
+			public void close() {
+				if (count > 0 && !discarded) flushChunk();
+			}
+
+			private void flushChunk() {
+				byte[] full = count == buffer.length ? buffer : Arrays.copyOf(buffer, count);
+				buffer = new byte[CHUNK_SIZE];
+				count = 0;
+				emit(ByteBuffer.wrap(full));
+			}
+		}
+	}
+
+	/**
+	 * Minimal writer of POSIX ustar headers, with pax extended headers for long names and large files.
+	 */
+	private static final class TarHeaders {
+
+		private static final int BLOCK = 512;
+		private static final int NAME_LENGTH = 100;
+		private static final long MAX_OCTAL_SIZE = 077777777777L;
+
+		static void writeFileHeader(OutputStream out, String name, long size, long mtime) throws IOException {
+			boolean longName = name.getBytes(StandardCharsets.UTF_8).length > NAME_LENGTH;
+			if (longName || size > MAX_OCTAL_SIZE) {
+				StringBuilder pax = new StringBuilder();
+				if (longName) pax.append(paxRecord("path", name));
+				if (size > MAX_OCTAL_SIZE) pax.append(paxRecord("size", Long.toString(size)));
+				byte[] paxBytes = pax.toString().getBytes(StandardCharsets.UTF_8);
+				out.write(header("PaxHeaders/" + legacyName(name), paxBytes.length, mtime, (byte) 'x'));
+				out.write(paxBytes);
+				writePadding(out, paxBytes.length);
+			}
+			out.write(header(longName ? legacyName(name) : name, Math.min(size, MAX_OCTAL_SIZE), mtime, (byte) '0'));
+		}
+
+		static void writePadding(OutputStream out, long written) throws IOException {
+			int padding = (int) ((BLOCK - written % BLOCK) % BLOCK);
+			if (padding > 0) out.write(new byte[padding]);
+		}
+
+		static void writeEnd(OutputStream out) throws IOException {
+			out.write(new byte[2 * BLOCK]);
+		}
+
+		private static byte[] header(String name, long size, long mtime, byte type) {
+			byte[] header = new byte[BLOCK];
+			put(header, 0, NAME_LENGTH, name.getBytes(StandardCharsets.UTF_8));
+			octal(header, 100, 8, 0644);
+			octal(header, 108, 8, 0);
+			octal(header, 116, 8, 0);
+			octal(header, 124, 12, size);
+			octal(header, 136, 12, mtime);
+			Arrays.fill(header, 148, 156, (byte) ' ');
+			header[156] = type;
+			put(header, 257, 6, "ustar\0".getBytes(StandardCharsets.US_ASCII));
+			put(header, 263, 2, "00".getBytes(StandardCharsets.US_ASCII));
+			long checksum = 0;
+			for (byte b : header) checksum += b & 0xff;
+			octal(header, 148, 7, checksum);
+			return header;
+		}
+
+		/** Name field of an entry whose real name is in a pax header: the end of the name, ASCII only. */
+		private static String legacyName(String name) {
+			String ascii = name.replaceAll("[^\\x20-\\x7e]", "_");
+			return ascii.length() <= 80 ? ascii : ascii.substring(ascii.length() - 80);
+		}
+
+		private static String paxRecord(String key, String value) {
+			// the length prefix counts its own digits
+			int length = key.getBytes(StandardCharsets.UTF_8).length + value.getBytes(StandardCharsets.UTF_8).length + 3;
+			int total = length + Integer.toString(length).length();
+			if (Integer.toString(total).length() != Integer.toString(length).length()) total++;
+			return total + " " + key + "=" + value + "\n";
+		}
+
+		private static void put(byte[] header, int offset, int length, byte[] value) {
+			System.arraycopy(value, 0, header, offset, Math.min(length, value.length));
+		}
+
+		/** Zero padded octal number followed by a NUL. */
+		private static void octal(byte[] header, int offset, int length, long value) {
+			String digits = Long.toOctalString(value);
+			int pad = length - 1 - digits.length();
+			for (int i = 0; i < pad; i++) header[offset + i] = '0';
+			put(header, offset + pad, digits.length(), digits.getBytes(StandardCharsets.US_ASCII));
+			header[offset + length - 1] = 0;
+		}
+	}
+}
@@ -0,0 +1,31 @@
+package helpers;
+
+/**
+ * Archive formats {@link ArchiveBodyPublisher} can stream a directory as.
+ *
+ * @author Lucas Alexandre Bez Piancoski
+ * @since 1.0.0
+ */
+public enum ArchiveFormat {
+	ZIP(".zip", "application/zip"),
+	TAR_GZ(".tar.gz", "application/gzip");
+
+	private final String extension;
+	private final String mimeType;
+
+	ArchiveFormat(String extension, String mimeType) {
+		this.extension = extension;
+		this.mimeType = mimeType;
+	}
+
+	/**
+	 * @return the file name suffix, including the leading dot
+	 */
+	public String getExtension() {
+		return extension;
+	}
+
+	public String getMimeType() {
+		return mimeType;
+	}
+}
@@ -0,0 +1,53 @@
+package helpers;
+
+import java.io.IOException;
+
+/**
+ * Signals that a call was rejected before being sent, because the circuit breaker of its endpoint is open or its
+ * bulkhead is full. Never retried, and thrown without a stack trace so rejecting a call stays cheap.
+ *
+ * @author Lucas Alexandre Bez Piancoski
+ * @since 1.0.0
+ */
+public class CallNotPermittedException extends IOException {
+
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Why a call was rejected.
+	 */
+	public enum Reason {
+		/** The circuit breaker of the endpoint is open, or half-open with all its probes in flight. */
+		CIRCUIT_OPEN,
+		/** The bulkhead of the endpoint has no free slot. */
+		BULKHEAD_FULL
+	}
+
+	private final Reason reason;
+	private final String endpoint;
+
+	public CallNotPermittedException(Reason reason, String endpoint) {
+		super((reason == Reason.CIRCUIT_OPEN ? "Circuit open for " : "Bulkhead full for ") + endpoint);
+		this.reason = reason;
+		this.endpoint = endpoint;
+	}
+
+	/**
+	 * Rejections happen by the thousand during an outage, the stack trace would cost more than the call.
+	 */
+	@Override
+	public synchronized Throwable fillInStackTrace() {
+		return this;
+	}
+
+	public Reason getReason() {
+		return reason;
+	}
+
+	/**
+	 * @return the label of the rejected endpoint, e.g. {@code POST /task/{id}/attachment}
+	 */
+	public String getEndpoint() {
+		return endpoint;
+	}
+}
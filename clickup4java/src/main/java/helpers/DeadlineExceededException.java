@@ -0,0 +1,27 @@
+package helpers;
+
+import java.net.http.HttpTimeoutException;
+
+/**
+ * Signals that the deadline of a call expired before it completed, retries included. Never retried.
+ *
+ * @author Lucas Alexandre Bez Piancoski
+ * @since 1.0.0
+ */
+public class DeadlineExceededException extends HttpTimeoutException {
+
+	private static final long serialVersionUID = 1L;
+
+	public DeadlineExceededException(String message) {
+		super(message);
+	}
+
+	/**
+	 * @param message the detail message
+	 * @param cause   the failure of the attempt cut by the deadline
+	 */
+	public DeadlineExceededException(String message, Throwable cause) {
+		super(message);
+		initCause(cause);
+	}
+}
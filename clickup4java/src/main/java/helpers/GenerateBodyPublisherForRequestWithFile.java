@@ -1,15 +1,11 @@
 package helpers;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.io.SequenceInputStream;
-import java.io.UncheckedIOException;
 import java.net.http.HttpRequest.BodyPublisher;
-import java.net.http.HttpRequest.BodyPublishers;
-import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.Optional;
+import java.util.List;
+import java.util.concurrent.Executor;
 
 /**
  * Utility class responsible for building {@link BodyPublisher} instances for multipart/form-data.
@@ -23,6 +19,10 @@ public class GenerateBodyPublisherForRequestWithFile {
 
     /**
      * Builds a {@code multipart/form-data} request body containing a single file part.
+     * <p>
+     * The file is streamed by a {@link MultipartBodyPublisher}, which reports the exact content length
+     * and re-opens the file on every subscription, so the body can be sent again on retries.
+     * </p>
      *
      * @param boundary the multipart boundary value
      * @param file_path local path to the file to be included in the request body
@@ -30,32 +30,57 @@ public class GenerateBodyPublisherForRequestWithFile {
      * @return a {@link BodyPublisher} representing the multipart payload
      * @throws IOException if the file cannot be resolved
      */
-	@SuppressWarnings("resource")
 	public static BodyPublisher generateRequestWithFileAsBody(String boundary, String file_path) throws IOException {
-		
 	    Path file = ResolveProvidedFilePathFromUser.getFile(file_path);
-	    String mimeType = Optional.ofNullable(Files.probeContentType(file)).orElse("application/octet-stream");
-
-	    String prefix =
-	            "--" + boundary + "\r\n" +
-	            "Content-Disposition: form-data; name=\"attachment\"; filename=\"" + file.getFileName().toString() + "\"\r\n" +
-	            "Content-Type: " + mimeType + "\r\n\r\n";
+	    return MultipartBodyPublisher.builder(boundary)
+	            .addFilePart("attachment", file)
+	            .build();
+	}
 
-	    String suffix = "\r\n--" + boundary + "--\r\n";
+    /**
+     * Builds a {@code multipart/form-data} request body containing one file part per file.
+     * <p>
+     * All parts share the {@code attachment} field name and are streamed one after the other
+     * from disk, nothing is buffered in memory.
+     * </p>
+     *
+     * @param boundary the multipart boundary value
+     * @param file_paths local paths to the files to be included in the request body, in order
+     * 
+     * @return a {@link BodyPublisher} representing the multipart payload
+     * @throws IOException if any of the files cannot be resolved
+     */
+	public static BodyPublisher generateRequestWithFilesAsBody(String boundary, List<String> file_paths) throws IOException {
+	    if (file_paths.isEmpty()) throw new IllegalArgumentException("At least one file is required");
+	    MultipartBodyPublisher.Builder builder = MultipartBodyPublisher.builder(boundary);
+	    for (String file_path : file_paths) {
+	        builder.addFilePart("attachment", ResolveProvidedFilePathFromUser.getFile(file_path));
+	    }
+	    return builder.build();
+	}
 
-	    return BodyPublishers.ofInputStream(() -> {
-	        try {
-	            return new SequenceInputStream(
-	                    new ByteArrayInputStream(prefix.getBytes(StandardCharsets.UTF_8)),
-	                    new SequenceInputStream(
-	                            Files.newInputStream(file),
-	                            new ByteArrayInputStream(suffix.getBytes(StandardCharsets.UTF_8))
-	                    )
-	            );
-	        } catch (IOException e) {
-	            throw new UncheckedIOException(e);
-	        }
-	    });
+    /**
+     * Builds a {@code multipart/form-data} request body containing a single file part: an archive of the
+     * files of {@code directory_path} matching {@code glob}, named after the directory.
+     * <p>
+     * The archive is produced on {@code executor} while the body is sent, through a bounded pipe,
+     * see {@link ArchiveBodyPublisher}. Nothing is written to disk.
+     * </p>
+     *
+     * @param boundary the multipart boundary value
+     * @param directory_path local path to the directory to archive
+     * @param glob selects the files relative to the directory, e.g. {@code **} or {@code **.png}
+     * @param format the archive format
+     * @param executor runs the compression while the request is sent
+     * 
+     * @return an {@link ArchiveBodyPublisher} representing the multipart payload
+     * @throws IOException if the directory does not exist
+     */
+	public static ArchiveBodyPublisher generateRequestWithDirectoryAsArchiveBody(String boundary, String directory_path,
+			String glob, ArchiveFormat format, Executor executor) throws IOException {
+	    Path directory = ResolveProvidedFilePathFromUser.getFile(directory_path);
+	    if (!Files.isDirectory(directory)) throw new IOException("Not a directory: " + directory);
+	    return new ArchiveBodyPublisher(boundary, directory, glob, format, executor);
 	}
 
 }
@@ -1,10 +1,16 @@
 package helpers;
 
 import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * Utility class responsible for generating unique multipart boundary values
  * for {@code multipart/form-data} HTTP requests.
+ * <p>
+ * A boundary only has to be unlikely to appear inside the payload, it does not need to be
+ * unpredictable, so it is built from {@link ThreadLocalRandom} instead of the shared
+ * {@code SecureRandom} behind {@link UUID#randomUUID()}, which contends under parallel uploads.
+ * </p>
  * 
  * @author Lucas Alexandre Bez Piancoski
  * @since 1.0.0
@@ -12,6 +18,7 @@ import java.util.UUID;
 public class GenerateUUIDBoundary {
 
 	public static String getNewUUIDBoundary() {
-		return "----Boundary" + UUID.randomUUID();
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		return "----Boundary" + new UUID(random.nextLong(), random.nextLong());
 	}
 }
@@ -0,0 +1,41 @@
+package helpers;
+
+import java.io.IOException;
+import java.net.http.HttpHeaders;
+
+/**
+ * Signals that the ClickUp API answered with a status outside of the {@code 2xx} range.
+ *
+ * @author Lucas Alexandre Bez Piancoski
+ * @since 1.0.0
+ */
+public class HttpStatusException extends IOException {
+
+	private static final long serialVersionUID = 1L;
+
+	private final int statusCode;
+	private final transient HttpHeaders headers;
+	private final String body;
+
+	public HttpStatusException(String message, int status_code, HttpHeaders headers, String body) {
+		super(message);
+		this.statusCode = status_code;
+		this.headers = headers;
+		this.body = body;
+	}
+
+	public int getStatusCode() {
+		return statusCode;
+	}
+
+	public HttpHeaders getHeaders() {
+		return headers;
+	}
+
+	/**
+	 * @return the response body, truncated when too long
+	 */
+	public String getBody() {
+		return body;
+	}
+}
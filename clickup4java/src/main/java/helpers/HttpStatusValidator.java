@@ -1,6 +1,7 @@
 package helpers;
 
 import java.io.IOException;
+import java.net.http.HttpHeaders;
 import java.net.http.HttpResponse;
 import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
@@ -24,6 +25,27 @@ public class HttpStatusValidator {
                 : body;
     }
 
+    /**
+     * Check if the status is between 2xx.
+     * @param statusCode the HTTP status of the response
+     * @return {@code true} if the status is between 2xx
+     */
+    public static boolean isSuccessful(int statusCode) {
+        return statusCode >= 200 && statusCode < 300;
+    }
+
+    /**
+     * Builds the exception reported for a response with status outside of 2xx.
+     * @param statusCode the HTTP status of the response
+     * @param headers the response headers
+     * @param body the response body as text, may be {@code null}
+     * @return the {@link HttpStatusException} describing the failure
+     */
+    public static HttpStatusException toException(int statusCode, HttpHeaders headers, String body) {
+        String truncated = convertBodyToString(body);
+        return new HttpStatusException("HTTP request failed. Status: " + statusCode + ", Body: " + truncated, statusCode, headers, truncated);
+    }
+
     /**
      * Check if response is with status between 2xx.
      * @param response the {@link HttpResponse} from request
@@ -32,8 +54,8 @@ public class HttpStatusValidator {
      */
     public static HttpResponse<String> checkStatus(HttpResponse<String> response) throws IOException {
         Objects.requireNonNull(response, "response");
-        if (response.statusCode() < 200 || response.statusCode() >= 300) {
-            throw new IOException("HTTP request failed. Status: " + response.statusCode() + ", Body: " + convertBodyToString(response.body()));
+        if (!isSuccessful(response.statusCode())) {
+            throw toException(response.statusCode(), response.headers(), response.body());
         }
         return response;
     }
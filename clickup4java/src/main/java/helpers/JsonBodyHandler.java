@@ -0,0 +1,355 @@
+package helpers;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.http.HttpResponse.BodyHandler;
+import java.net.http.HttpResponse.BodySubscriber;
+import java.net.http.HttpResponse.BodySubscribers;
+import java.net.http.HttpResponse.ResponseInfo;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.OptionalLong;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.Flow;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+/**
+ * {@link BodyHandler} that maps a successful JSON response straight into a response object, with the cached
+ * {@link ObjectReader} of the target type (see {@link ResolveJsonMappingToObjects#readerFor(Class)}).
+ * <p>
+ * The body is never copied into a {@code byte[]} or a {@code String}:
+ * <ul>
+ *   <li>a response announcing a {@code Content-Length} of at most {@link #MAX_BUFFERED_BODY}, the usual case, is
+ *   kept as the buffers received from the client and bound once complete. Only the raw bytes are held;</li>
+ *   <li>a larger response, or one without a length, is bound incrementally as it arrives, by a parser reading an
+ *   {@link InputStream} of the body on the executor of the handler. Only the parser buffer and the object being
+ *   built are held, and the executor thread waits for the network while the body arrives.</li>
+ * </ul>
+ * </p>
+ * <p>
+ * A successful response without a body, e.g. a {@code 204} or an empty or blank body, is mapped to {@code null},
+ * or to an empty list by the handlers of {@link #ofList(Class)}.
+ * </p>
+ * <p>
+ * Only responses with a status outside of {@code 2xx} are read as text. Their body completes exceptionally
+ * with the {@link HttpStatusException} built by {@link HttpStatusValidator#toException}.
+ * </p>
+ *
+ * @param <T> the response type
+ *
+ * @author Lucas Alexandre Bez Piancoski
+ * @since 1.0.0
+ */
+public final class JsonBodyHandler<T> implements BodyHandler<T> {
+
+	/** The largest announced body bound once received, larger ones are bound as they arrive. */
+	public static final long MAX_BUFFERED_BODY = 1024 * 1024;
+
+	private final ObjectReader reader;
+	private final Executor executor;
+	private final T empty;
+
+	private JsonBodyHandler(ObjectReader reader, Executor executor, T empty) {
+		this.reader = reader;
+		this.executor = executor;
+		this.empty = empty;
+	}
+
+	/**
+	 * @param targetType the response type
+	 * @return a handler mapping successful responses into {@code targetType}, streaming large bodies on a shared
+	 *         executor of at most one daemon thread per processor, the other bodies waiting for a thread
+	 */
+	public static <T> JsonBodyHandler<T> of(Class<T> targetType) {
+		return of(targetType, StreamingExecutorHolder.EXECUTOR);
+	}
+
+	/**
+	 * @param targetType the response type
+	 * @param executor   runs the parsing of the bodies larger than {@link #MAX_BUFFERED_BODY}, one blocked task
+	 *                   per body while it arrives
+	 * @return a handler mapping successful responses into {@code targetType}
+	 */
+	public static <T> JsonBodyHandler<T> of(Class<T> targetType, Executor executor) {
+		Objects.requireNonNull(targetType, "targetType");
+		return new JsonBodyHandler<>(ResolveJsonMappingToObjects.readerFor(targetType), Objects.requireNonNull(executor, "executor"), null);
+	}
+
+	/**
+	 * The handler also accepts a single JSON object, mapped as a list with one element.
+	 *
+	 * @param elementType the type of the list elements
+	 * @return a handler mapping successful responses into a {@code List<elementType>}
+	 */
+	public static <T> JsonBodyHandler<List<T>> ofList(Class<T> elementType) {
+		return ofList(elementType, StreamingExecutorHolder.EXECUTOR);
+	}
+
+	/**
+	 * The handler also accepts a single JSON object, mapped as a list with one element.
+	 *
+	 * @param elementType the type of the list elements
+	 * @param executor    runs the parsing of the bodies larger than {@link #MAX_BUFFERED_BODY}
+	 * @return a handler mapping successful responses into a {@code List<elementType>}
+	 */
+	public static <T> JsonBodyHandler<List<T>> ofList(Class<T> elementType, Executor executor) {
+		Objects.requireNonNull(elementType, "elementType");
+		return new JsonBodyHandler<>(ResolveJsonMappingToObjects.listReaderFor(elementType), Objects.requireNonNull(executor, "executor"),
+				List.of());
+	}
+
+	@Override
+	public BodySubscriber<T> apply(ResponseInfo responseInfo) {
+		if (!HttpStatusValidator.isSuccessful(responseInfo.statusCode())) {
+			return new FailedStatusBodySubscriber<>(responseInfo);
+		}
+		OptionalLong length;
+		try {
+			length = responseInfo.headers().firstValueAsLong("Content-Length");
+		} catch (NumberFormatException e) {
+			length = OptionalLong.empty();
+		}
+		if (responseInfo.statusCode() == 204 || (length.isPresent() && length.getAsLong() == 0)) {
+			return BodySubscribers.replacing(empty);
+		}
+		if (length.isPresent() && length.getAsLong() <= MAX_BUFFERED_BODY) return new BufferedJsonBodySubscriber<>(reader, empty);
+		return new StreamingJsonBodySubscriber<>(reader, executor, empty);
+	}
+
+	/**
+	 * @return the value of the body, {@code empty} when it holds no JSON value at all
+	 */
+	private static <T> T bind(ObjectReader reader, JsonParser parser, T empty) throws IOException {
+		if (parser.nextToken() == null) return empty;
+		return reader.readValue(parser);
+	}
+
+	/**
+	 * Keeps the received buffers and binds them once the body is complete.
+	 */
+	private static final class BufferedJsonBodySubscriber<T> implements BodySubscriber<T> {
+
+		private final ObjectReader reader;
+		private final T empty;
+		private final CompletableFuture<T> body = new CompletableFuture<>();
+		private final List<ByteBuffer> received = new ArrayList<>();
+
+		private BufferedJsonBodySubscriber(ObjectReader reader, T empty) {
+			this.reader = reader;
+			this.empty = empty;
+		}
+
+		@Override
+		public void onSubscribe(Flow.Subscription subscription) {
+			subscription.request(Long.MAX_VALUE);
+		}
+
+		@Override
+		public void onNext(List<ByteBuffer> items) {
+			received.addAll(items);
+		}
+
+		@Override
+		public void onError(Throwable throwable) {
+			received.clear();
+			body.completeExceptionally(throwable);
+		}
+
+		@Override
+		public void onComplete() {
+			try (InputStream in = new ByteBuffersInputStream(received); JsonParser parser = reader.createParser(in)) {
+				body.complete(JsonBodyHandler.bind(reader, parser, empty));
+			} catch (IOException | RuntimeException e) {
+				body.completeExceptionally(e);
+			}
+		}
+
+		@Override
+		public CompletionStage<T> getBody() {
+			return body;
+		}
+	}
+
+	/**
+	 * Binds the body on the executor as it arrives, reading it through the demand-driven {@link InputStream} of
+	 * {@link BodySubscribers#ofInputStream()}.
+	 */
+	private static final class StreamingJsonBodySubscriber<T> implements BodySubscriber<T> {
+
+		private final ObjectReader reader;
+		private final Executor executor;
+		private final T empty;
+		private final BodySubscriber<InputStream> stream = BodySubscribers.ofInputStream();
+		private final CompletableFuture<T> body = new CompletableFuture<>();
+
+		private StreamingJsonBodySubscriber(ObjectReader reader, Executor executor, T empty) {
+			this.reader = reader;
+			this.executor = executor;
+			this.empty = empty;
+		}
+
+		@Override
+		public void onSubscribe(Flow.Subscription subscription) {
+			stream.onSubscribe(subscription);
+			// the stream is available as soon as it is subscribed
+			InputStream in = stream.getBody().toCompletableFuture().join();
+			try {
+				executor.execute(() -> bind(in));
+			} catch (RejectedExecutionException e) {
+				close(in);
+				body.completeExceptionally(e);
+			}
+		}
+
+		@Override
+		public void onNext(List<ByteBuffer> items) {
+			stream.onNext(items);
+		}
+
+		@Override
+		public void onError(Throwable throwable) {
+			stream.onError(throwable);
+		}
+
+		@Override
+		public void onComplete() {
+			stream.onComplete();
+		}
+
+		@Override
+		public CompletionStage<T> getBody() {
+			return body;
+		}
+
+		private void bind(InputStream in) {
+			try (in; JsonParser parser = reader.createParser(in)) {
+				T value = JsonBodyHandler.bind(reader, parser, empty);
+				// reads the trailing whitespace up to the end of the body, so the connection can be reused, unless the
+				// parser already reached it and closed the stream
+				if (!parser.isClosed()) in.transferTo(OutputStream.nullOutputStream());
+				body.complete(value);
+			} catch (IOException | RuntimeException e) {
+				// closing the stream before its end cancels the rest of the exchange
+				body.completeExceptionally(e);
+			}
+		}
+
+		private static void close(InputStream in) {
+			try {
+				in.close();
+			} catch (IOException ignored) {
+				// only cancels the subscription
+			}
+		}
+	}
+
+	private static final class FailedStatusBodySubscriber<T> implements BodySubscriber<T> {
+
+		private final ResponseInfo responseInfo;
+		private final BodySubscriber<String> text = BodySubscribers.ofString(StandardCharsets.UTF_8);
+
+		private FailedStatusBodySubscriber(ResponseInfo responseInfo) {
+			this.responseInfo = responseInfo;
+		}
+
+		@Override
+		public void onSubscribe(Flow.Subscription subscription) {
+			text.onSubscribe(subscription);
+		}
+
+		@Override
+		public void onNext(List<ByteBuffer> items) {
+			text.onNext(items);
+		}
+
+		@Override
+		public void onError(Throwable throwable) {
+			text.onError(throwable);
+		}
+
+		@Override
+		public void onComplete() {
+			text.onComplete();
+		}
+
+		@Override
+		public CompletionStage<T> getBody() {
+			return text.getBody().thenCompose(value -> CompletableFuture.failedFuture(
+					HttpStatusValidator.toException(responseInfo.statusCode(), responseInfo.headers(), value)));
+		}
+	}
+
+	/**
+	 * Reads the received buffers in order, without joining them.
+	 */
+	private static final class ByteBuffersInputStream extends InputStream {
+
+		private final Iterator<ByteBuffer> buffers;
+		private ByteBuffer current = ByteBuffer.allocate(0);
+
+		private ByteBuffersInputStream(List<ByteBuffer> buffers) {
+			this.buffers = buffers.iterator();
+		}
+
+		@Override
+		public int read() {
+			if (!advance()) return -1;
+			return current.get() & 0xff;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) {
+			Objects.checkFromIndexSize(off, len, b.length);
+			if (len == 0) return 0;
+			if (!advance()) return -1;
+			int n = Math.min(len, current.remaining());
+			current.get(b, off, n);
+			return n;
+		}
+
+		private boolean advance() {
+			while (!current.hasRemaining()) {
+				if (!buffers.hasNext()) return false;
+				current = buffers.next();
+			}
+			return true;
+		}
+	}
+
+	/**
+	 * Created on first use of a streamed response. A streamed body holds its thread until it is received, so the
+	 * threads are bounded: the bodies beyond them wait in the queue, and since their stream only requests data once
+	 * read, the server is not read from meanwhile and nothing piles up in memory.
+	 */
+	private static final class StreamingExecutorHolder {
+
+		private static final int THREADS = Math.max(2, Runtime.getRuntime().availableProcessors());
+		private static final Executor EXECUTOR;
+
+		static {
+			AtomicLong count = new AtomicLong();
+			ThreadPoolExecutor executor = new ThreadPoolExecutor(THREADS, THREADS, 30, TimeUnit.SECONDS,
+					new LinkedBlockingQueue<>(), runnable -> {
+						Thread thread = new Thread(runnable, "clickup4java-json-" + count.incrementAndGet());
+						thread.setDaemon(true);
+						return thread;
+					});
+			executor.allowCoreThreadTimeOut(true);
+			EXECUTOR = executor;
+		}
+	}
+}
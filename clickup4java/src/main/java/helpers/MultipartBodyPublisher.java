@@ -0,0 +1,268 @@
+package helpers;
+
+import java.io.IOException;
+import java.net.http.HttpRequest.BodyPublisher;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link BodyPublisher} for {@code multipart/form-data} payloads with file parts, implemented directly on
+ * {@link Flow.Publisher} instead of a blocking {@link java.io.InputStream}.
+ * <p>
+ * The part headers are encoded once when the publisher is built, and the files are read with a
+ * {@link FileChannel} in {@value #CHUNK_SIZE} bytes slices, only when the HTTP client requests more data.
+ * Files of {@value #MEMORY_MAP_THRESHOLD} bytes or more are memory-mapped, so big videos and archives are
+ * handed to the client without being copied through the Java heap. A mapped window of up to 64 MiB is only
+ * unmapped when the garbage collector reclaims it, so its address space stays reserved for a while after the
+ * upload. On Windows, where a file cannot be deleted or replaced while it is mapped, every file is read.
+ * </p>
+ * <p>
+ * The exact {@link #contentLength()} is known up front, so the request is sent with a {@code Content-Length}
+ * header instead of chunked transfer. Every subscription re-opens the files, which keeps the publisher
+ * replayable for retries.
+ * </p>
+ *
+ * @author Lucas Alexandre Bez Piancoski
+ * @since 1.0.0
+ */
+public final class MultipartBodyPublisher implements BodyPublisher {
+
+	static final int CHUNK_SIZE = 64 * 1024;
+	static final long MEMORY_MAP_THRESHOLD = 4L * 1024 * 1024;
+	private static final int MAPPED_CHUNK_SIZE = 256 * 1024;
+	private static final long MAPPED_WINDOW_SIZE = 64L * 1024 * 1024;
+	private static final boolean MEMORY_MAP = !System.getProperty("os.name", "").startsWith("Windows");
+
+	private final List<Segment> segments;
+	private final long contentLength;
+
+	private MultipartBodyPublisher(List<Segment> segments) {
+		this.segments = List.copyOf(segments);
+		this.contentLength = segments.stream().mapToLong(segment -> segment.length).sum();
+	}
+
+	/**
+	 * @param boundary the multipart boundary value
+	 * @return a builder for a multipart payload delimited by {@code boundary}
+	 */
+	public static Builder builder(String boundary) {
+		return new Builder(boundary);
+	}
+
+	@Override
+	public long contentLength() {
+		return contentLength;
+	}
+
+	@Override
+	public void subscribe(Flow.Subscriber<? super ByteBuffer> subscriber) {
+		Objects.requireNonNull(subscriber, "subscriber");
+		MultipartSubscription subscription = new MultipartSubscription(subscriber, segments);
+		subscriber.onSubscribe(subscription);
+	}
+
+	/**
+	 * Builder for {@link MultipartBodyPublisher}.
+	 */
+	public static final class Builder {
+
+		private final String boundary;
+		private final List<Segment> segments = new ArrayList<>();
+
+		private Builder(String boundary) {
+			this.boundary = Objects.requireNonNull(boundary, "boundary");
+		}
+
+		/**
+		 * Adds a file part. The file size is read now and checked again when the body is sent.
+		 *
+		 * @param field_name the form field name, {@code attachment} for ClickUp uploads
+		 * @param file the file to stream
+		 * @return this builder
+		 * @throws IOException if the file size cannot be read
+		 */
+		public Builder addFilePart(String field_name, Path file) throws IOException {
+			String header = (segments.isEmpty() ? "" : "\r\n") +
+					"--" + boundary + "\r\n" +
+					"Content-Disposition: form-data; name=\"" + field_name + "\"; filename=\"" + file.getFileName().toString() + "\"\r\n" +
+					"Content-Type: " + ResolveMimeType.fromFileName(file.getFileName().toString()) + "\r\n\r\n";
+			segments.add(Segment.ofBytes(header.getBytes(StandardCharsets.UTF_8)));
+			segments.add(Segment.ofFile(file, Files.size(file)));
+			return this;
+		}
+
+		public MultipartBodyPublisher build() {
+			if (segments.isEmpty()) throw new IllegalStateException("A multipart body needs at least one part");
+			List<Segment> body = new ArrayList<>(segments);
+			body.add(Segment.ofBytes(("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.UTF_8)));
+			return new MultipartBodyPublisher(body);
+		}
+	}
+
+	private static final class Segment {
+
+		private final byte[] bytes;
+		private final Path file;
+		private final long length;
+
+		private Segment(byte[] bytes, Path file, long length) {
+			this.bytes = bytes;
+			this.file = file;
+			this.length = length;
+		}
+
+		static Segment ofBytes(byte[] bytes) {
+			return new Segment(bytes, null, bytes.length);
+		}
+
+		static Segment ofFile(Path file, long length) {
+			return new Segment(null, file, length);
+		}
+	}
+
+	/**
+	 * Emits the segments one slice at a time, only while there is outstanding demand.
+	 * Signals are serialized by the {@code wip} counter, so {@link #request(long)} may be called re-entrantly
+	 * from {@code onNext} and concurrently from any thread.
+	 */
+	private static final class MultipartSubscription implements Flow.Subscription {
+
+		private final Flow.Subscriber<? super ByteBuffer> subscriber;
+		private final List<Segment> segments;
+		private final AtomicLong demand = new AtomicLong();
+		private final AtomicInteger wip = new AtomicInteger();
+		private volatile boolean cancelled;
+		private volatile Throwable invalidRequest;
+		private boolean done;
+
+		private int segmentIndex;
+		private long segmentOffset;
+		private FileChannel channel;
+		private ByteBuffer mappedWindow;
+
+		MultipartSubscription(Flow.Subscriber<? super ByteBuffer> subscriber, List<Segment> segments) {
+			this.subscriber = subscriber;
+			this.segments = segments;
+		}
+
+		@Override
+		public void request(long n) {
+			if (n <= 0) {
+				invalidRequest = new IllegalArgumentException("non-positive subscription request: " + n);
+			} else {
+				demand.getAndAccumulate(n, (current, added) -> current + added < 0 ? Long.MAX_VALUE : current + added);
+			}
+			drain();
+		}
+
+		@Override
+		public void cancel() {
+			cancelled = true;
+			drain();
+		}
+
+		private void drain() {
+			if (wip.getAndIncrement() != 0) return;
+			int missed = 1;
+			do {
+				if (!done && invalidRequest != null) {
+					terminate(invalidRequest);
+				}
+				while (!done && !cancelled && demand.get() > 0) {
+					ByteBuffer next;
+					try {
+						next = nextChunk();
+					} catch (IOException | RuntimeException e) {
+						terminate(e);
+						break;
+					}
+					if (next == null) {
+						terminate(null);
+						break;
+					}
+					demand.decrementAndGet();
+					subscriber.onNext(next);
+				}
+				if (cancelled && !done) {
+					done = true;
+					closeChannel();
+				}
+				missed = wip.addAndGet(-missed);
+			} while (missed != 0);
+		}
+
+		private void terminate(Throwable error) {
+			done = true;
+			closeChannel();
+			if (error == null) subscriber.onComplete();
+			else subscriber.onError(error);
+		}
+
+		private ByteBuffer nextChunk() throws IOException {
+			while (segmentIndex < segments.size()) {
+				Segment segment = segments.get(segmentIndex);
+				if (segmentOffset >= segment.length) {
+					closeChannel();
+					segmentIndex++;
+					segmentOffset = 0;
+					continue;
+				}
+				ByteBuffer chunk = segment.bytes != null
+						? ByteBuffer.wrap(segment.bytes).asReadOnlyBuffer()
+						: readFile(segment);
+				segmentOffset += chunk.remaining();
+				return chunk;
+			}
+			return null;
+		}
+
+		private ByteBuffer readFile(Segment segment) throws IOException {
+			if (channel == null) {
+				channel = FileChannel.open(segment.file, StandardOpenOption.READ);
+				if (channel.size() != segment.length) {
+					throw new IOException("File changed since the request was built: " + segment.file);
+				}
+			}
+			if (MEMORY_MAP && segment.length >= MEMORY_MAP_THRESHOLD) {
+				if (mappedWindow == null || !mappedWindow.hasRemaining()) {
+					long size = Math.min(MAPPED_WINDOW_SIZE, segment.length - segmentOffset);
+					mappedWindow = channel.map(FileChannel.MapMode.READ_ONLY, segmentOffset, size);
+				}
+				ByteBuffer chunk = mappedWindow.slice();
+				chunk.limit(Math.min(MAPPED_CHUNK_SIZE, chunk.remaining()));
+				mappedWindow.position(mappedWindow.position() + chunk.remaining());
+				return chunk;
+			}
+			int size = (int) Math.min(CHUNK_SIZE, segment.length - segmentOffset);
+			ByteBuffer chunk = ByteBuffer.allocate(size);
+			long position = segmentOffset;
+			while (chunk.hasRemaining()) {
+				int read = channel.read(chunk, position);
+				if (read < 0) throw new IOException("File changed since the request was built: " + segment.file);
+				position += read;
+			}
+			return chunk.flip();
+		}
+
+		private void closeChannel() {
+			mappedWindow = null;
+			if (channel == null) return;
+			try {
+				channel.close();
+			} catch (IOException ignored) {
+				// nothing left to read from it
+			}
+			channel = null;
+		}
+	}
+}
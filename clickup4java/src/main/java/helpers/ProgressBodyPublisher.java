@@ -0,0 +1,179 @@
+package helpers;
+
+import java.net.http.HttpRequest.BodyPublisher;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Flow;
+
+import responses.UploadProgress;
+
+/**
+ * {@link BodyPublisher} wrapping another one, typically the multipart body built by
+ * {@link GenerateBodyPublisherForRequestWithFile}, to report the progress of the upload and cancel it.
+ * <p>
+ * The bytes handed to the HTTP client are counted, and the {@link UploadProgressListener} is called every
+ * {@code granularity_bytes} bytes and once more when the body is complete. Since the HTTP client only requests
+ * more data when it can send it, the count follows what was actually sent within a few chunks.
+ * </p>
+ * <p>
+ * {@link #cancel()} cancels the wrapped publisher, which closes the file, and fails the body with an
+ * {@link UploadCancelledException}, which makes the HTTP client abort the request and reset its HTTP/2 stream.
+ * Retried attempts re-subscribe: the count restarts from zero, and once cancelled every new attempt fails at once.
+ * </p>
+ *
+ * @author Lucas Alexandre Bez Piancoski
+ * @since 1.0.0
+ */
+public final class ProgressBodyPublisher implements BodyPublisher {
+
+	private final BodyPublisher delegate;
+	private final long granularityBytes;
+	private final UploadProgressListener listener;
+	private final Set<ProgressSubscriber> active = ConcurrentHashMap.newKeySet();
+	private volatile boolean cancelled;
+	private volatile UploadProgress progress;
+
+	/**
+	 * @param delegate          the body to send
+	 * @param granularity_bytes the number of bytes between two reports
+	 * @param listener          receives the reports
+	 */
+	public ProgressBodyPublisher(BodyPublisher delegate, long granularity_bytes, UploadProgressListener listener) {
+		if (granularity_bytes < 1) throw new IllegalArgumentException("granularity_bytes must be at least 1");
+		this.delegate = Objects.requireNonNull(delegate, "delegate");
+		this.granularityBytes = granularity_bytes;
+		this.listener = Objects.requireNonNull(listener, "listener");
+		this.progress = new UploadProgress(0, delegate.contentLength(), Duration.ZERO, 0, false);
+	}
+
+	@Override
+	public long contentLength() {
+		return delegate.contentLength();
+	}
+
+	@Override
+	public void subscribe(Flow.Subscriber<? super ByteBuffer> subscriber) {
+		ProgressSubscriber progressSubscriber = new ProgressSubscriber(Objects.requireNonNull(subscriber, "subscriber"));
+		active.add(progressSubscriber);
+		delegate.subscribe(progressSubscriber);
+	}
+
+	/**
+	 * Cancels the upload. Has no effect once the body was completely sent.
+	 */
+	public void cancel() {
+		cancelled = true;
+		for (ProgressSubscriber subscriber : active) subscriber.cancelUpload();
+	}
+
+	public boolean isCancelled() {
+		return cancelled;
+	}
+
+	/**
+	 * @return the last progress reported
+	 */
+	public UploadProgress getProgress() {
+		return progress;
+	}
+
+	/**
+	 * Counts the bytes going through. Downstream signals are serialized by the monitor, since
+	 * {@link #cancelUpload()} can be called from any thread.
+	 */
+	private final class ProgressSubscriber implements Flow.Subscriber<ByteBuffer> {
+
+		private final Flow.Subscriber<? super ByteBuffer> downstream;
+		private Flow.Subscription upstream;
+		private boolean terminated;
+		private long start;
+		private long sent;
+		private long nextReport;
+		private long lastReportNanos;
+		private long lastReportBytes;
+
+		ProgressSubscriber(Flow.Subscriber<? super ByteBuffer> downstream) {
+			this.downstream = downstream;
+		}
+
+		@Override
+		public void onSubscribe(Flow.Subscription subscription) {
+			synchronized (this) {
+				upstream = subscription;
+				start = lastReportNanos = System.nanoTime();
+				nextReport = granularityBytes;
+				downstream.onSubscribe(new Flow.Subscription() {
+					@Override
+					public void request(long n) {
+						subscription.request(n);
+					}
+
+					@Override
+					public void cancel() {
+						active.remove(ProgressSubscriber.this);
+						subscription.cancel();
+					}
+				});
+			}
+			if (cancelled) cancelUpload();
+		}
+
+		@Override
+		public void onNext(ByteBuffer item) {
+			synchronized (this) {
+				if (terminated) return;
+				sent += item.remaining();
+				downstream.onNext(item);
+				if (sent >= nextReport) {
+					report(false);
+					nextReport = sent + granularityBytes;
+				}
+			}
+		}
+
+		@Override
+		public void onError(Throwable throwable) {
+			synchronized (this) {
+				if (terminated) return;
+				terminated = true;
+				active.remove(this);
+				downstream.onError(throwable);
+			}
+		}
+
+		@Override
+		public void onComplete() {
+			synchronized (this) {
+				if (terminated) return;
+				terminated = true;
+				active.remove(this);
+				report(true);
+				downstream.onComplete();
+			}
+		}
+
+		void cancelUpload() {
+			synchronized (this) {
+				if (terminated || upstream == null) return;
+				terminated = true;
+				active.remove(this);
+				upstream.cancel();
+				downstream.onError(new UploadCancelledException());
+			}
+		}
+
+		private void report(boolean done) {
+			long now = System.nanoTime();
+			long interval = now - lastReportNanos;
+			double current = interval == 0 ? 0 : (sent - lastReportBytes) * 1_000_000_000d / interval;
+			lastReportNanos = now;
+			lastReportBytes = sent;
+			UploadProgress snapshot = new UploadProgress(sent, delegate.contentLength(), Duration.ofNanos(now - start), current, done);
+			progress = snapshot;
+			listener.onProgress(snapshot);
+		}
+	}
+}
@@ -1,17 +1,106 @@
 package helpers;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.Module;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+
+import responses.CreateTaskAttachmentResponse;
+import responses.CreateTaskAttachmentResponseDeserializer;
 
+/**
+ * Maps JSON payloads returned by the ClickUp API into response objects.
+ * <p>
+ * One {@link ObjectReader} is created per target type and cached, so the type introspection
+ * is only paid on the first call. Readers are immutable and thread-safe.
+ * </p>
+ * <p>
+ * The response types of the library are bound by hand-written streaming deserializers, registered by
+ * {@link #createResponseModule()}, instead of reflective bean introspection.
+ * </p>
+ *
+ * @author Lucas Alexandre Bez Piancoski
+ * @since 1.0.0
+ */
 public class ResolveJsonMappingToObjects {
 
-	private static final ObjectMapper MAPPER = new ObjectMapper();
+	private static final ObjectMapper MAPPER = new ObjectMapper().registerModule(createResponseModule());
+	private static final Map<Class<?>, ObjectReader> READERS = new ConcurrentHashMap<>();
+	private static final Map<Class<?>, ObjectReader> LIST_READERS = new ConcurrentHashMap<>();
+	private static final ObjectWriter WRITER = MAPPER.writer();
+
+	/**
+	 * @return a new module with the deserializers of the response types, for mappers of the library configured
+	 *         differently, e.g. to read a file
+	 */
+	public static Module createResponseModule() {
+		return new SimpleModule("clickup4java-responses")
+				.addDeserializer(CreateTaskAttachmentResponse.class, new CreateTaskAttachmentResponseDeserializer());
+	}
+
+	/**
+	 * @param targetType the response type
+	 * @return the cached {@link ObjectReader} bound to the given type
+	 */
+	public static ObjectReader readerFor(Class<?> targetType) {
+		return READERS.computeIfAbsent(targetType, MAPPER::readerFor);
+	}
+
+	/**
+	 * The returned reader also accepts a single object, mapped as a list with one element.
+	 *
+	 * @param elementType the type of the list elements
+	 * @return the cached {@link ObjectReader} bound to {@code List<elementType>}
+	 */
+	public static ObjectReader listReaderFor(Class<?> elementType) {
+		return LIST_READERS.computeIfAbsent(elementType, type -> MAPPER
+				.readerFor(MAPPER.getTypeFactory().constructCollectionType(List.class, type))
+				.with(DeserializationFeature.ACCEPT_SINGLE_VALUE_AS_ARRAY));
+	}
+
+	/**
+	 * @return the shared {@link ObjectWriter} of request bodies, immutable and thread-safe
+	 */
+	public static ObjectWriter writer() {
+		return WRITER;
+	}
+
+	/**
+	 * Binds an empty object and an empty list of each type from a stream, like {@link JsonBodyHandler} does, so
+	 * the deserializers are built and their classes loaded before the first response arrives instead of on its
+	 * critical path.
+	 *
+	 * @param targetTypes the response types to prepare
+	 * @throws IOException if a type cannot be bound from an empty object
+	 */
+	public static void warmUp(Class<?>... targetTypes) throws IOException {
+		for (Class<?> targetType : targetTypes) {
+			bind(readerFor(targetType), "{}");
+			bind(listReaderFor(targetType), "[]");
+		}
+	}
+
+	private static void bind(ObjectReader reader, String json) throws IOException {
+		try (InputStream in = new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8))) {
+			reader.readValue(in);
+		}
+	}
 
     public static <T> T convertJSON(String json, Class<T> targetType) {
         try {
-            return MAPPER.readValue(json, targetType);
+            return readerFor(targetType).readValue(json);
         } catch (Exception e) {
             throw new RuntimeException("Error while converting JSON", e);
         }
     }
 }
-
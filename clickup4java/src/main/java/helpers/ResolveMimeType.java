@@ -0,0 +1,82 @@
+package helpers;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resolves the {@code Content-Type} of a file from its extension.
+ * <p>
+ * Common extensions are answered from a static table. Other extensions are probed once with
+ * {@link Files#probeContentType(Path)} and the answer is cached, so the platform file type
+ * detectors are not called on every upload.
+ * </p>
+ *
+ * @author Lucas Alexandre Bez Piancoski
+ * @since 1.0.0
+ */
+public class ResolveMimeType {
+
+	public static final String DEFAULT_MIME_TYPE = "application/octet-stream";
+
+	private static final Map<String, String> MIME_TYPES = new ConcurrentHashMap<>(Map.ofEntries(
+			Map.entry("txt", "text/plain"),
+			Map.entry("log", "text/plain"),
+			Map.entry("csv", "text/csv"),
+			Map.entry("html", "text/html"),
+			Map.entry("htm", "text/html"),
+			Map.entry("xml", "application/xml"),
+			Map.entry("json", "application/json"),
+			Map.entry("har", "application/json"),
+			Map.entry("pdf", "application/pdf"),
+			Map.entry("zip", "application/zip"),
+			Map.entry("gz", "application/gzip"),
+			Map.entry("tgz", "application/gzip"),
+			Map.entry("tar", "application/x-tar"),
+			Map.entry("rar", "application/vnd.rar"),
+			Map.entry("7z", "application/x-7z-compressed"),
+			Map.entry("png", "image/png"),
+			Map.entry("jpg", "image/jpeg"),
+			Map.entry("jpeg", "image/jpeg"),
+			Map.entry("gif", "image/gif"),
+			Map.entry("webp", "image/webp"),
+			Map.entry("bmp", "image/bmp"),
+			Map.entry("svg", "image/svg+xml"),
+			Map.entry("mp3", "audio/mpeg"),
+			Map.entry("wav", "audio/wav"),
+			Map.entry("mp4", "video/mp4"),
+			Map.entry("webm", "video/webm"),
+			Map.entry("mov", "video/quicktime"),
+			Map.entry("avi", "video/x-msvideo"),
+			Map.entry("doc", "application/msword"),
+			Map.entry("docx", "application/vnd.openxmlformats-officedocument.wordprocessingml.document"),
+			Map.entry("xls", "application/vnd.ms-excel"),
+			Map.entry("xlsx", "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"),
+			Map.entry("ppt", "application/vnd.ms-powerpoint"),
+			Map.entry("pptx", "application/vnd.openxmlformats-officedocument.presentationml.presentation")));
+
+	private ResolveMimeType() {}
+
+	/**
+	 * @param file_name the file name, only its extension is used
+	 * @return the MIME type of the file, {@value #DEFAULT_MIME_TYPE} when unknown
+	 */
+	public static String fromFileName(String file_name) {
+		int dot = file_name.lastIndexOf('.');
+		if (dot < 0 || dot == file_name.length() - 1) return DEFAULT_MIME_TYPE;
+		String extension = file_name.substring(dot + 1).toLowerCase(Locale.ROOT);
+		return MIME_TYPES.computeIfAbsent(extension, ResolveMimeType::probe);
+	}
+
+	private static String probe(String extension) {
+		try {
+			return Optional.ofNullable(Files.probeContentType(Path.of("file." + extension))).orElse(DEFAULT_MIME_TYPE);
+		} catch (IOException e) {
+			return DEFAULT_MIME_TYPE;
+		}
+	}
+}
@@ -0,0 +1,18 @@
+package helpers;
+
+import java.io.IOException;
+
+/**
+ * Signals that an upload was cancelled with {@link ProgressBodyPublisher#cancel()}. Never retried.
+ *
+ * @author Lucas Alexandre Bez Piancoski
+ * @since 1.0.0
+ */
+public class UploadCancelledException extends IOException {
+
+	private static final long serialVersionUID = 1L;
+
+	public UploadCancelledException() {
+		super("Upload cancelled");
+	}
+}
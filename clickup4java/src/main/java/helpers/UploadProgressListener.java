@@ -0,0 +1,21 @@
+package helpers;
+
+import responses.UploadProgress;
+
+/**
+ * Receives the progress of an upload from {@link ProgressBodyPublisher}.
+ * <p>
+ * Called on the thread of the HTTP client sending the body, implementations must return quickly.
+ * </p>
+ *
+ * @author Lucas Alexandre Bez Piancoski
+ * @since 1.0.0
+ */
+@FunctionalInterface
+public interface UploadProgressListener {
+
+	/**
+	 * @param progress the progress of the current attempt
+	 */
+	void onProgress(UploadProgress progress);
+}
@@ -0,0 +1,104 @@
+package responses;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+
+/**
+ * Binds a {@link CreateTaskAttachmentResponse} straight from the parser tokens, without the reflective bean
+ * introspection of Jackson.
+ * <p>
+ * Every upload response goes through this class, so a fresh JVM neither pays for introspecting the response type
+ * nor keeps the generated property accessors in its metaspace, and the binding works unchanged in a GraalVM native
+ * image. It accepts exactly what the bean deserializer accepted: the same property names, the same coercions of
+ * scalars, and unknown properties are reported to the {@link DeserializationContext}, so
+ * {@code FAIL_ON_UNKNOWN_PROPERTIES} keeps its meaning.
+ * </p>
+ *
+ * @author Lucas Alexandre Bez Piancoski
+ * @since 1.0.0
+ */
+public final class CreateTaskAttachmentResponseDeserializer extends StdDeserializer<CreateTaskAttachmentResponse> {
+
+	private static final long serialVersionUID = 1L;
+
+	public CreateTaskAttachmentResponseDeserializer() {
+		super(CreateTaskAttachmentResponse.class);
+	}
+
+	@Override
+	public CreateTaskAttachmentResponse deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+		String field;
+		if (parser.isExpectedStartObjectToken()) {
+			field = parser.nextFieldName();
+		} else if (parser.hasToken(JsonToken.FIELD_NAME)) {
+			field = parser.currentName();
+		} else if (parser.hasToken(JsonToken.END_OBJECT)) {
+			field = null;
+		} else {
+			return (CreateTaskAttachmentResponse) context.handleUnexpectedToken(CreateTaskAttachmentResponse.class, parser);
+		}
+
+		CreateTaskAttachmentResponse response = new CreateTaskAttachmentResponse();
+		for (; field != null; field = parser.nextFieldName()) {
+			parser.nextToken();
+			switch (field) {
+				case "id":
+					response.setId(text(parser, context));
+					break;
+				case "version":
+					response.setVersion(text(parser, context));
+					break;
+				case "date":
+					response.setDate(_parseLongPrimitive(parser, context));
+					break;
+				case "name":
+					response.setName(text(parser, context));
+					break;
+				case "title":
+					response.setTitle(text(parser, context));
+					break;
+				case "extension":
+					response.setExtension(text(parser, context));
+					break;
+				case "source":
+					response.setSource(_parseLongPrimitive(parser, context));
+					break;
+				case "thumbnail_small":
+					response.setThumbnail_small(text(parser, context));
+					break;
+				case "thumbnail_medium":
+					response.setThumbnail_medium(text(parser, context));
+					break;
+				case "thumbnail_large":
+					response.setThumbnail_large(text(parser, context));
+					break;
+				case "url":
+					response.setUrl(text(parser, context));
+					break;
+				case "url_w_query":
+					response.setUrl_w_query(text(parser, context));
+					break;
+				case "url_w_host":
+					response.setUrl_w_host(text(parser, context));
+					break;
+				default:
+					context.handleUnknownProperty(parser, this, response, field);
+			}
+		}
+		return response;
+	}
+
+	/**
+	 * Like the bean deserializer, any scalar is taken as its text, e.g. a numeric {@code id}.
+	 */
+	private static String text(JsonParser parser, DeserializationContext context) throws IOException {
+		JsonToken token = parser.currentToken();
+		if (token == JsonToken.VALUE_NULL) return null;
+		if (token.isScalarValue()) return parser.getValueAsString();
+		return (String) context.handleUnexpectedToken(String.class, parser);
+	}
+}
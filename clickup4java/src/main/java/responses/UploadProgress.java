@@ -0,0 +1,82 @@
+package responses;
+
+import java.time.Duration;
+
+/**
+ * Snapshot of the progress of an upload, reported by {@link helpers.ProgressBodyPublisher}.
+ *
+ * @author Lucas Alexandre Bez Piancoski
+ * @since 1.0.0
+ */
+public final class UploadProgress {
+
+	private final long bytesSent;
+	private final long totalBytes;
+	private final Duration elapsed;
+	private final double currentBytesPerSecond;
+	private final boolean done;
+
+	public UploadProgress(long bytesSent, long totalBytes, Duration elapsed, double currentBytesPerSecond, boolean done) {
+		this.bytesSent = bytesSent;
+		this.totalBytes = totalBytes;
+		this.elapsed = elapsed;
+		this.currentBytesPerSecond = currentBytesPerSecond;
+		this.done = done;
+	}
+
+	/**
+	 * @return the bytes of the request body handed to the HTTP client so far, multipart framing included
+	 */
+	public long getBytesSent() {
+		return bytesSent;
+	}
+
+	/**
+	 * @return the length of the request body, {@code -1} when unknown (e.g. streamed archives)
+	 */
+	public long getTotalBytes() {
+		return totalBytes;
+	}
+
+	/**
+	 * @return the completed fraction between 0 and 1, {@code -1} when the length is unknown
+	 */
+	public double getFraction() {
+		if (totalBytes < 0) return -1;
+		return totalBytes == 0 ? 1 : (double) bytesSent / totalBytes;
+	}
+
+	/**
+	 * @return the time since the attempt started sending the body
+	 */
+	public Duration getElapsed() {
+		return elapsed;
+	}
+
+	/**
+	 * @return the throughput since the previous report
+	 */
+	public double getCurrentBytesPerSecond() {
+		return currentBytesPerSecond;
+	}
+
+	/**
+	 * @return the throughput since the attempt started sending the body
+	 */
+	public double getAverageBytesPerSecond() {
+		long nanos = elapsed.toNanos();
+		return nanos == 0 ? 0 : bytesSent * 1_000_000_000d / nanos;
+	}
+
+	/**
+	 * @return {@code true} once the whole body was sent
+	 */
+	public boolean isDone() {
+		return done;
+	}
+
+	@Override
+	public String toString() {
+		return "UploadProgress[" + bytesSent + "/" + totalBytes + " bytes, " + (long) currentBytesPerSecond + " B/s]";
+	}
+}
@@ -0,0 +1,24 @@
+package engine;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Java 21+ version of {@code VirtualThreads}, packaged under {@code META-INF/versions/21}:
+ * every executor starts one virtual thread per task.
+ *
+ * @author Lucas Alexandre Bez Piancoski
+ * @since 1.0.0
+ */
+public final class VirtualThreads {
+
+	private VirtualThreads() {}
+
+	public static boolean isAvailable() {
+		return true;
+	}
+
+	public static ExecutorService newThreadPerTaskExecutor(String name) {
+		return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(name + "-", 1).factory());
+	}
+}
@@ -0,0 +1,111 @@
+package attachments;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import api.attachments.AttachmentUploadJob;
+import api.attachments.AttachmentUploadResult;
+import api.attachments.BulkAttachmentUploadReport;
+import api.attachments.BulkCreateTaskAttachments;
+import api.attachments.CreateTaskAttachments;
+import emulator.ClickUpEmulator;
+import engine.ClickUpClient;
+import engine.RetryPolicy;
+import engine.TokenProviders;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BulkCreateTaskAttachmentsTest {
+
+	private static final Path FILES = Paths.get("src/test/resources/files");
+
+	private ClickUpEmulator emulator;
+
+	@AfterEach
+	public void stopEmulator() {
+		if (emulator != null) emulator.close();
+	}
+
+	@Test
+	public void TC01_Batch_neverExceedsMaxInFlight() throws Exception {
+		emulator = ClickUpEmulator.builder().latency(Duration.ofMillis(100)).build().start();
+		BulkAttachmentUploadReport report = bulk("bulk-tc01", 3).callAsyncBulkCreateTaskAttachmentAPI(jobs(12, "text.txt"))
+				.get(30, TimeUnit.SECONDS);
+
+		assertTrue(report.isAllSuccessful(), report.toString());
+		assertEquals(12, emulator.getRequestCount());
+		assertEquals(3, emulator.getMaxConcurrentRequests());
+	}
+
+	@Test
+	public void TC02_EveryResult_isReportedOnceToTheCallback() throws Exception {
+		emulator = ClickUpEmulator.create().start();
+		List<AttachmentUploadResult> notified = Collections.synchronizedList(new ArrayList<>());
+		List<AttachmentUploadJob> jobs = new ArrayList<>(jobs(2, "text.txt"));
+		jobs.addAll(jobs(2, "image.jpg"));
+
+		BulkAttachmentUploadReport report = bulk("bulk-tc02", 2).callSyncBulkCreateTaskAttachmentAPI(jobs, notified::add);
+
+		assertEquals(4, notified.size());
+		assertEquals(4, report.getResults().size());
+		assertTrue(report.getResults().containsAll(notified));
+		assertEquals(List.of("image.jpg", "image.jpg", "text.txt", "text.txt"), report.getSuccesses().stream()
+				.map(result -> result.getResponse().get().getName()).sorted().collect(Collectors.toList()));
+		assertTrue(report.getSlowestUpload().compareTo(report.getCumulativeUploadTime()) <= 0);
+		assertFalse(report.getElapsed().isNegative());
+	}
+
+	@Test
+	public void TC03_FailingJob_doesNotAbortTheOthers() throws Exception {
+		emulator = ClickUpEmulator.create().start();
+		List<AttachmentUploadJob> jobs = new ArrayList<>(jobs(3, "text.txt"));
+		jobs.add(1, new AttachmentUploadJob("86aef6x03", FILES.resolve("missing.txt").toString()));
+
+		BulkAttachmentUploadReport report = bulk("bulk-tc03", 1).callSyncBulkCreateTaskAttachmentAPI(jobs);
+
+		assertFalse(report.isAllSuccessful());
+		assertEquals(3, report.getSuccesses().size());
+		assertEquals(1, report.getFailures().size());
+		AttachmentUploadResult failure = report.getFailures().get(0);
+		assertTrue(failure.getJob().getFilePath().endsWith("missing.txt"));
+		assertTrue(failure.getError().isPresent());
+		assertEquals(3, emulator.getRequestCount());
+	}
+
+	@Test
+	public void TC04_FailingCallback_isThrownUnwrappedBySync() throws Exception {
+		emulator = ClickUpEmulator.create().start();
+		IllegalStateException error = assertThrows(IllegalStateException.class,
+				() -> bulk("bulk-tc04", 2).callSyncBulkCreateTaskAttachmentAPI(jobs(2, "text.txt"), result -> {
+					throw new IllegalStateException("callback failed");
+				}));
+		assertEquals("callback failed", error.getMessage());
+	}
+
+	private BulkCreateTaskAttachments bulk(String token, int max_in_flight) {
+		ClickUpClient client = ClickUpClient.builder()
+				.baseUrl(emulator.getBaseUrl())
+				.tokenProvider(TokenProviders.of(token))
+				.retryPolicy(RetryPolicy.none())
+				.build();
+		return new BulkCreateTaskAttachments(new CreateTaskAttachments(client), max_in_flight);
+	}
+
+	private static List<AttachmentUploadJob> jobs(int count, String file_name) {
+		List<AttachmentUploadJob> jobs = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			jobs.add(new AttachmentUploadJob("86aef6x0" + i, FILES.resolve(file_name).toString(), Optional.empty(), Optional.empty()));
+		}
+		return jobs;
+	}
+}
@@ -0,0 +1,184 @@
+package attachments;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.http.HttpRequest.BodyPublisher;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import api.attachments.CreateTaskAttachments;
+import emulator.ClickUpEmulator;
+import engine.ClickUpClient;
+import engine.TokenProviders;
+import helpers.ArchiveBodyPublisher;
+import helpers.ArchiveFormat;
+import responses.CreateTaskAttachmentResponse;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CreateTaskAttachmentFromDirectoryTest {
+
+	private static final Path FILES = Paths.get("src/test/resources/files");
+	private static final ExecutorService EXECUTOR = Executors.newCachedThreadPool();
+
+	@TempDir
+	Path dir;
+
+	@AfterAll
+	public static void shutdown() {
+		EXECUTOR.shutdownNow();
+	}
+
+	@Test
+	public void TC01_Zip_holdsTheMatchingFiles() throws Exception {
+		Path artifacts = artifacts();
+		byte[] archive = archiveOf(new ArchiveBodyPublisher("b0undary", artifacts, "**.{txt,jpg}", ArchiveFormat.ZIP, EXECUTOR));
+
+		Map<String, byte[]> entries = new TreeMap<>();
+		try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(archive))) {
+			for (ZipEntry entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry()) {
+				entries.put(entry.getName(), zip.readAllBytes());
+			}
+		}
+		assertEquals(Map.of("logs/text.txt", Files.readAllBytes(FILES.resolve("text.txt")).length,
+				"screenshots/deep/image.jpg", Files.readAllBytes(FILES.resolve("image.jpg")).length),
+				sizes(entries));
+		assertArrayEquals(Files.readAllBytes(FILES.resolve("image.jpg")), entries.get("screenshots/deep/image.jpg"));
+	}
+
+	@Test
+	public void TC02_TarGz_holdsEveryFileWithLongNames() throws Exception {
+		Path artifacts = artifacts();
+		String longName = "a".repeat(120) + ".txt";
+		Files.writeString(artifacts.resolve(longName), "long");
+		byte[] archive = archiveOf(new ArchiveBodyPublisher("b0undary", artifacts, "**", ArchiveFormat.TAR_GZ, EXECUTOR));
+
+		Map<String, byte[]> entries = untar(new GZIPInputStream(new ByteArrayInputStream(archive)));
+		assertEquals(4, entries.size());
+		assertArrayEquals("long".getBytes(StandardCharsets.UTF_8), entries.get(longName));
+		assertArrayEquals(Files.readAllBytes(FILES.resolve("video.mp4")), entries.get("video.mp4"));
+	}
+
+	@Test
+	public void TC03_Directory_isUploadedAsOneAttachment() throws Exception {
+		try (ClickUpEmulator emulator = ClickUpEmulator.create().start()) {
+			CreateTaskAttachments client = new CreateTaskAttachments(ClickUpClient.builder()
+					.baseUrl(emulator.getBaseUrl())
+					.tokenProvider(TokenProviders.of("archive-test"))
+					.build());
+
+			CreateTaskAttachmentResponse resp = client.callSyncCreateTaskAttachmentFromDirectoryAPI("86aef6x03",
+					artifacts().toString(), "**", ArchiveFormat.ZIP, Optional.empty(), Optional.empty());
+			CompletableFuture<CreateTaskAttachmentResponse> missing = client.callAsyncCreateTaskAttachmentFromDirectoryAPI(
+					"86aef6x03", dir.resolve("missing").toString(), "**", ArchiveFormat.TAR_GZ, Optional.empty(), Optional.empty());
+
+			assertEquals("artifacts.zip", resp.getName());
+			assertEquals(1, emulator.getFilesReceived());
+			assertTrue(emulator.getBytesReceived() > 0);
+			assertThrows(Exception.class, () -> missing.get(5, TimeUnit.SECONDS));
+		}
+	}
+
+	private Path artifacts() throws IOException {
+		Path artifacts = dir.resolve("artifacts");
+		Files.createDirectories(artifacts.resolve("logs"));
+		Files.createDirectories(artifacts.resolve("screenshots/deep"));
+		Files.copy(FILES.resolve("text.txt"), artifacts.resolve("logs/text.txt"));
+		Files.copy(FILES.resolve("image.jpg"), artifacts.resolve("screenshots/deep/image.jpg"));
+		Files.copy(FILES.resolve("video.mp4"), artifacts.resolve("video.mp4"));
+		return artifacts;
+	}
+
+	private static Map<String, Integer> sizes(Map<String, byte[]> entries) {
+		Map<String, Integer> sizes = new TreeMap<>();
+		entries.forEach((name, bytes) -> sizes.put(name, bytes.length));
+		return sizes;
+	}
+
+	/**
+	 * Subscribes like the HTTP client, requesting one chunk at a time, and returns the archive of the file part.
+	 */
+	private static byte[] archiveOf(BodyPublisher publisher) throws Exception {
+		ByteArrayOutputStream body = new ByteArrayOutputStream();
+		CompletableFuture<Void> done = new CompletableFuture<>();
+		publisher.subscribe(new Flow.Subscriber<ByteBuffer>() {
+			private Flow.Subscription subscription;
+
+			@Override
+			public void onSubscribe(Flow.Subscription subscription) {
+				this.subscription = subscription;
+				subscription.request(1);
+			}
+
+			@Override
+			public void onNext(ByteBuffer item) {
+				byte[] bytes = new byte[item.remaining()];
+				item.get(bytes);
+				body.writeBytes(bytes);
+				subscription.request(1);
+			}
+
+			@Override
+			public void onError(Throwable throwable) {
+				done.completeExceptionally(throwable);
+			}
+
+			@Override
+			public void onComplete() {
+				done.complete(null);
+			}
+		});
+		done.get(30, TimeUnit.SECONDS);
+
+		byte[] bytes = body.toByteArray();
+		String text = new String(bytes, StandardCharsets.ISO_8859_1);
+		int start = text.indexOf("\r\n\r\n") + 4;
+		int end = text.lastIndexOf("\r\n--b0undary--");
+		return Arrays.copyOfRange(bytes, start, end);
+	}
+
+	private static Map<String, byte[]> untar(InputStream in) throws IOException {
+		Map<String, byte[]> entries = new TreeMap<>();
+		DataInputStream tar = new DataInputStream(in);
+		String paxPath = null;
+		byte[] header = new byte[512];
+		while (true) {
+			tar.readFully(header);
+			if (header[0] == 0) return entries;
+			String name = new String(header, 0, 100, StandardCharsets.UTF_8).replace("\0", "");
+			long size = Long.parseLong(new String(header, 124, 11, StandardCharsets.US_ASCII), 8);
+			byte[] content = new byte[(int) size];
+			tar.readFully(content);
+			tar.readFully(new byte[(int) ((512 - size % 512) % 512)]);
+			if (header[156] == 'x') {
+				String record = new String(content, StandardCharsets.UTF_8);
+				paxPath = record.substring(record.indexOf("path=") + 5, record.length() - 1);
+			} else {
+				entries.put(paxPath != null ? paxPath : name, content);
+				paxPath = null;
+			}
+		}
+	}
+}
@@ -0,0 +1,88 @@
+package attachments;
+
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import api.attachments.CreateTaskAttachments;
+import api.attachments.UploadHandle;
+import emulator.ClickUpEmulator;
+import engine.ClickUpClient;
+import engine.TokenProviders;
+import helpers.UploadCancelledException;
+import responses.CreateTaskAttachmentResponse;
+import responses.UploadProgress;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CreateTaskAttachmentWithProgressTest {
+
+	private static final String VIDEO = "src/test/resources/files/video.mp4";
+
+	private ClickUpEmulator emulator;
+
+	@AfterEach
+	public void stopEmulator() {
+		if (emulator != null) emulator.close();
+	}
+
+	private CreateTaskAttachments client() {
+		return new CreateTaskAttachments(ClickUpClient.builder()
+				.baseUrl(emulator.getBaseUrl())
+				.tokenProvider(TokenProviders.of("progress-test"))
+				.build());
+	}
+
+	@Test
+	public void TC01_Progress_isReportedUntilTheBodyIsComplete() throws Exception {
+		emulator = ClickUpEmulator.create().start();
+		List<UploadProgress> reports = new CopyOnWriteArrayList<>();
+
+		UploadHandle<CreateTaskAttachmentResponse> upload = client().callAsyncCreateTaskAttachmentWithProgressAPI("86aef6x03", VIDEO,
+				64 * 1024, reports::add, Optional.empty(), Optional.empty());
+		CreateTaskAttachmentResponse resp = upload.getResult().get(30, TimeUnit.SECONDS);
+
+		assertEquals("video.mp4", resp.getName());
+		assertTrue(reports.size() > 1);
+		UploadProgress last = reports.get(reports.size() - 1);
+		assertTrue(last.isDone());
+		assertEquals(last.getTotalBytes(), last.getBytesSent());
+		assertTrue(last.getBytesSent() > Files.size(Paths.get(VIDEO)));
+		assertEquals(1.0, last.getFraction());
+		for (int i = 1; i < reports.size(); i++) {
+			assertTrue(reports.get(i).getBytesSent() > reports.get(i - 1).getBytesSent());
+		}
+		assertSame(last, upload.getProgress());
+	}
+
+	@Test
+	public void TC02_Cancel_abortsAStalledUpload(@TempDir Path dir) throws Exception {
+		emulator = ClickUpEmulator.builder().slowRead(64 * 1024).build().start();
+		// bigger than the loopback socket buffers, so the body cannot be handed over at once
+		Path recording = dir.resolve("recording.mp4");
+		try (RandomAccessFile file = new RandomAccessFile(recording.toFile(), "rw")) {
+			file.setLength(64L * 1024 * 1024);
+		}
+
+		UploadHandle<CreateTaskAttachmentResponse> upload = client().callAsyncCreateTaskAttachmentWithProgressAPI("86aef6x03", recording.toString(),
+				16 * 1024, progress -> {}, Optional.empty(), Optional.empty());
+		while (upload.getProgress().getBytesSent() == 0) Thread.sleep(10);
+
+		assertTrue(upload.cancel());
+		ExecutionException error = assertThrows(ExecutionException.class, () -> upload.getResult().get(1, TimeUnit.SECONDS));
+		assertInstanceOf(UploadCancelledException.class, error.getCause());
+		assertTrue(upload.isCancelled());
+		assertTrue(upload.getProgress().getBytesSent() < upload.getProgress().getTotalBytes());
+		assertEquals(0, emulator.getFilesReceived());
+	}
+}
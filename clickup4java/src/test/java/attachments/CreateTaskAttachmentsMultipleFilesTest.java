@@ -0,0 +1,91 @@
+package attachments;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import api.attachments.CreateTaskAttachments;
+import emulator.ClickUpEmulator;
+import engine.ClickUpClient;
+import engine.RetryPolicy;
+import engine.TokenProviders;
+import responses.CreateTaskAttachmentResponse;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CreateTaskAttachmentsMultipleFilesTest {
+
+	private static final Path FILES = Paths.get("src/test/resources/files");
+	private static final List<String> FILE_PATHS = List.of(
+			FILES.resolve("text.txt").toString(),
+			FILES.resolve("image.jpg").toString(),
+			FILES.resolve("text.txt").toString());
+
+	private ClickUpEmulator emulator;
+
+	@AfterEach
+	public void stopEmulator() {
+		if (emulator != null) emulator.close();
+	}
+
+	@Test
+	public void TC01_OneRequest_returnsOneAttachmentPerFile() throws Exception {
+		emulator = ClickUpEmulator.create().start();
+		List<CreateTaskAttachmentResponse> responses = attachments("multiple-tc01")
+				.callSyncCreateTaskAttachmentsAPI("86aef6x03", FILE_PATHS, Optional.empty(), Optional.empty());
+
+		assertEquals(List.of("text.txt", "image.jpg", "text.txt"),
+				responses.stream().map(CreateTaskAttachmentResponse::getName).collect(Collectors.toList()));
+		assertEquals(1, emulator.getRequestCount());
+		assertEquals(3, emulator.getFilesReceived());
+	}
+
+	@Test
+	public void TC02_SingleObjectForSeveralFiles_fails() throws Exception {
+		emulator = ClickUpEmulator.create().start();
+		emulator.addHandler("/api/v2/task/86aef6x04/", exchange -> {
+			try (InputStream in = exchange.getRequestBody()) {
+				in.transferTo(OutputStream.nullOutputStream());
+			}
+			byte[] body = "{\"id\":\"1.txt\",\"name\":\"text.txt\"}".getBytes(StandardCharsets.UTF_8);
+			exchange.getResponseHeaders().set("Content-Type", "application/json");
+			exchange.sendResponseHeaders(200, body.length);
+			try (OutputStream out = exchange.getResponseBody()) {
+				out.write(body);
+			}
+		});
+		CreateTaskAttachments attachments = attachments("multiple-tc02");
+
+		IOException sync = assertThrows(IOException.class,
+				() -> attachments.callSyncCreateTaskAttachmentsAPI("86aef6x04", FILE_PATHS, Optional.empty(), Optional.empty()));
+		assertEquals("The API returned 1 attachment(s) for 3 file(s)", sync.getMessage());
+
+		ExecutionException async = assertThrows(ExecutionException.class,
+				() -> attachments.callAsyncCreateTaskAttachmentsAPI("86aef6x04", FILE_PATHS, Optional.empty(), Optional.empty())
+						.get(10, TimeUnit.SECONDS));
+		assertInstanceOf(IOException.class, async.getCause());
+
+		List<CreateTaskAttachmentResponse> single = attachments.callSyncCreateTaskAttachmentsAPI("86aef6x04",
+				FILE_PATHS.subList(0, 1), Optional.empty(), Optional.empty());
+		assertEquals("text.txt", single.get(0).getName(), "one object answers one file");
+	}
+
+	private CreateTaskAttachments attachments(String token) {
+		return new CreateTaskAttachments(ClickUpClient.builder()
+				.baseUrl(emulator.getBaseUrl())
+				.tokenProvider(TokenProviders.of(token))
+				.retryPolicy(RetryPolicy.none())
+				.build());
+	}
+}
@@ -0,0 +1,114 @@
+package attachments;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import api.attachments.AttachmentDedupeIndex;
+import api.attachments.CreateTaskAttachments;
+import api.attachments.DedupingCreateTaskAttachments;
+import emulator.ClickUpEmulator;
+import engine.ClickUpClient;
+import engine.TokenProviders;
+import responses.CreateTaskAttachmentResponse;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DedupingCreateTaskAttachmentsTest {
+
+	private static final String TEXT = "src/test/resources/files/text.txt";
+	private static final String IMAGE = "src/test/resources/files/image.jpg";
+
+	@TempDir
+	Path dir;
+
+	private ClickUpEmulator emulator;
+	private CreateTaskAttachments createTaskAttachments;
+
+	@BeforeEach
+	public void startEmulator() throws Exception {
+		emulator = ClickUpEmulator.builder().latency(Duration.ofMillis(100)).build().start();
+		createTaskAttachments = new CreateTaskAttachments(ClickUpClient.builder()
+				.baseUrl(emulator.getBaseUrl())
+				.tokenProvider(TokenProviders.of("dedupe-test"))
+				.build());
+	}
+
+	@AfterEach
+	public void stopEmulator() {
+		emulator.close();
+	}
+
+	@Test
+	public void TC01_SameContentSameTask_isUploadedOnce() throws Exception {
+		DedupingCreateTaskAttachments deduping = new DedupingCreateTaskAttachments(createTaskAttachments, AttachmentDedupeIndex.inMemory(10));
+
+		CreateTaskAttachmentResponse first = deduping.callSyncCreateTaskAttachmentAPI("task-a", TEXT, Optional.empty(), Optional.empty());
+		CreateTaskAttachmentResponse second = deduping.callSyncCreateTaskAttachmentAPI("task-a", TEXT, Optional.empty(), Optional.empty());
+		deduping.callSyncCreateTaskAttachmentAPI("task-b", TEXT, Optional.empty(), Optional.empty());
+
+		assertEquals(first.getId(), second.getId());
+		assertEquals(2, emulator.getRequestCount());
+		assertEquals(1, deduping.getHitCount());
+		assertEquals(2, deduping.getMissCount());
+	}
+
+	@Test
+	public void TC02_Index_survivesReopening() throws Exception {
+		Path file = dir.resolve("index.jsonl");
+		DedupingCreateTaskAttachments firstRun = new DedupingCreateTaskAttachments(createTaskAttachments, AttachmentDedupeIndex.open(file, 10));
+		CreateTaskAttachmentResponse uploaded = firstRun.callSyncCreateTaskAttachmentAPI("task-a", IMAGE, Optional.empty(), Optional.of("9000"));
+
+		DedupingCreateTaskAttachments secondRun = new DedupingCreateTaskAttachments(createTaskAttachments, AttachmentDedupeIndex.open(file, 10));
+		CreateTaskAttachmentResponse cached = secondRun.callSyncCreateTaskAttachmentAPI("task-a", IMAGE, Optional.empty(), Optional.of("9000"));
+
+		assertEquals(1, emulator.getRequestCount());
+		assertEquals(uploaded.getId(), cached.getId());
+		assertEquals(uploaded.getDate(), cached.getDate());
+		assertEquals(uploaded.getThumbnail_small(), cached.getThumbnail_small());
+	}
+
+	@Test
+	public void TC03_ConcurrentUploads_shareOneRequest() throws Exception {
+		DedupingCreateTaskAttachments deduping = new DedupingCreateTaskAttachments(createTaskAttachments, AttachmentDedupeIndex.inMemory(10));
+
+		List<CompletableFuture<CreateTaskAttachmentResponse>> uploads = IntStream.range(0, 20)
+				.mapToObj(i -> deduping.callAsyncCreateTaskAttachmentAPI("task-a", TEXT, Optional.empty(), Optional.empty()))
+				.collect(Collectors.toList());
+
+		List<String> ids = uploads.stream().map(CompletableFuture::join).map(CreateTaskAttachmentResponse::getId).distinct()
+				.collect(Collectors.toList());
+		assertEquals(1, ids.size());
+		assertEquals(1, emulator.getRequestCount());
+	}
+
+	@Test
+	public void TC04_Index_evictsLeastRecentlyUsedAndCompacts() throws Exception {
+		Path file = dir.resolve("index.jsonl");
+		AttachmentDedupeIndex index = AttachmentDedupeIndex.open(file, 2);
+		CreateTaskAttachmentResponse response = new CreateTaskAttachmentResponse();
+		index.put("a", response);
+		index.put("b", response);
+		index.get("a");
+		index.put("c", response);
+
+		assertTrue(index.get("a").isPresent());
+		assertFalse(index.get("b").isPresent());
+		for (int i = 0; i < 100; i++) index.put("c", response);
+		assertTrue(Files.readAllLines(file).size() <= 2 * 16);
+
+		Files.writeString(file, "{\"key\":\"cut", StandardOpenOption.APPEND);
+		assertEquals(2, AttachmentDedupeIndex.open(file, 2).size());
+	}
+}
@@ -0,0 +1,141 @@
+package attachments;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import api.attachments.AttachmentUploadResult;
+import api.attachments.CreateTaskAttachments;
+import api.attachments.OutboxCreateTaskAttachments;
+import emulator.ClickUpEmulator;
+import engine.ClickUpClient;
+import engine.RetryPolicy;
+import engine.TokenProviders;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OutboxCreateTaskAttachmentsTest {
+
+	private static final String TEXT = "src/test/resources/files/text.txt";
+	private static final String IMAGE = "src/test/resources/files/image.jpg";
+
+	@TempDir
+	Path dir;
+
+	private ClickUpEmulator emulator;
+	private final List<AttachmentUploadResult> results = new CopyOnWriteArrayList<>();
+
+	@BeforeEach
+	public void startEmulator() throws Exception {
+		emulator = ClickUpEmulator.builder().latency(Duration.ofMillis(200)).build().start();
+	}
+
+	@AfterEach
+	public void stopEmulator() {
+		emulator.close();
+	}
+
+	@Test
+	public void TC01_Enqueue_returnsBeforeTheUploadAndDrains() throws Exception {
+		try (OutboxCreateTaskAttachments outbox = OutboxCreateTaskAttachments.open(dir, client(emulator.getBaseUrl()), 2, results::add)) {
+			long start = System.nanoTime();
+			outbox.callOutboxCreateTaskAttachmentAPI("task-a", TEXT, Optional.empty());
+			outbox.callOutboxCreateTaskAttachmentAPI("task-a", IMAGE, Optional.empty());
+			outbox.callOutboxCreateTaskAttachmentAPI("task-b", TEXT, Optional.of("team-1"));
+			assertTrue(Duration.ofNanos(System.nanoTime() - start).toMillis() < 200, "enqueue waited on the network");
+
+			assertTrue(outbox.awaitDrained(Duration.ofSeconds(10)));
+			assertEquals(0, outbox.getPendingCount());
+			assertEquals(3, results.size());
+			assertTrue(results.stream().allMatch(AttachmentUploadResult::isSuccess));
+			assertEquals(3, emulator.getFilesReceived());
+			assertEquals(1, segments().size(), "finished segments are deleted");
+		}
+	}
+
+	@Test
+	public void TC02_PendingUploads_areSentByTheNextRun() throws Exception {
+		// network down: the uploads stay pending
+		try (OutboxCreateTaskAttachments outbox = OutboxCreateTaskAttachments.open(dir, client("http://127.0.0.1:9/api/v2/"), 2, results::add)) {
+			outbox.callOutboxCreateTaskAttachmentAPI("task-a", TEXT, Optional.empty());
+			outbox.callOutboxCreateTaskAttachmentAPI("task-a", IMAGE, Optional.empty());
+			assertFalse(outbox.awaitDrained(Duration.ofMillis(300)));
+			assertEquals(2, outbox.getPendingCount());
+		}
+		assertTrue(results.isEmpty());
+
+		// a record cut by a crash is ignored
+		Path last = segments().get(segments().size() - 1);
+		Files.write(last, new byte[] { 0, 0, 0, 42, 1, 2 }, StandardOpenOption.APPEND);
+
+		try (OutboxCreateTaskAttachments outbox = OutboxCreateTaskAttachments.open(dir, client(emulator.getBaseUrl()), 2, results::add)) {
+			assertTrue(outbox.awaitDrained(Duration.ofSeconds(10)));
+			assertEquals(2, results.size());
+			assertTrue(results.stream().allMatch(AttachmentUploadResult::isSuccess));
+			assertEquals(2, emulator.getFilesReceived());
+		}
+
+		try (OutboxCreateTaskAttachments outbox = OutboxCreateTaskAttachments.open(dir, client(emulator.getBaseUrl()), 2, results::add)) {
+			assertEquals(0, outbox.getPendingCount(), "done uploads are not replayed");
+		}
+	}
+
+	@Test
+	public void TC03_MissingFile_isRejectedAndFinalFailuresAreReported() throws Exception {
+		Path copy = Files.copy(Path.of(TEXT), dir.resolve("copy.txt"));
+		try (OutboxCreateTaskAttachments outbox = OutboxCreateTaskAttachments.open(dir.resolve("outbox"), client(emulator.getBaseUrl()), 1, results::add)) {
+			assertThrows(java.io.IOException.class,
+					() -> outbox.callOutboxCreateTaskAttachmentAPI("task-a", "does/not/exist.txt", Optional.empty()));
+
+			outbox.callOutboxCreateTaskAttachmentAPI("task-a", TEXT, Optional.empty());
+			outbox.callOutboxCreateTaskAttachmentAPI("task-a", copy.toString(), Optional.empty());
+			Files.delete(copy);
+
+			assertTrue(outbox.awaitDrained(Duration.ofSeconds(10)));
+			assertEquals(2, results.size());
+			assertEquals(1, results.stream().filter(AttachmentUploadResult::isSuccess).count());
+		}
+	}
+
+
+	@Test
+	public void TC04_Directory_isOpenedByOneOutboxAtATime() throws Exception {
+		try (OutboxCreateTaskAttachments outbox = OutboxCreateTaskAttachments.open(dir, client(emulator.getBaseUrl()), 1, results::add)) {
+			java.io.IOException error = assertThrows(java.io.IOException.class,
+					() -> OutboxCreateTaskAttachments.open(dir, client(emulator.getBaseUrl()), 1, results::add));
+			assertTrue(error.getMessage().contains("already open"), error.getMessage());
+			outbox.callOutboxCreateTaskAttachmentAPI("task-a", TEXT, Optional.empty());
+			assertTrue(outbox.awaitDrained(Duration.ofSeconds(10)));
+		}
+
+		try (OutboxCreateTaskAttachments outbox = OutboxCreateTaskAttachments.open(dir, client(emulator.getBaseUrl()), 1, results::add)) {
+			assertEquals(0, outbox.getPendingCount(), "the lock is released on close");
+		}
+	}
+
+	private static CreateTaskAttachments client(String base_url) {
+		return new CreateTaskAttachments(ClickUpClient.builder()
+				.baseUrl(base_url)
+				.connectTimeout(Duration.ofSeconds(1))
+				.retryPolicy(RetryPolicy.none())
+				.tokenProvider(TokenProviders.of("outbox-test"))
+				.build());
+	}
+
+	private List<Path> segments() throws Exception {
+		try (Stream<Path> files = Files.list(dir)) {
+			return files.filter(file -> file.getFileName().toString().startsWith("outbox-")).sorted().collect(Collectors.toList());
+		}
+	}
+}
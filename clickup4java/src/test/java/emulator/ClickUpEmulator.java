@@ -0,0 +1,497 @@
+package emulator;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * In-process stand-in for the ClickUp API, for offline load, soak and concurrency tests.
+ * <p>
+ * Implements {@code POST /api/v2/task/{task_id}/attachment}: the multipart body is parsed as a stream
+ * and every file part is answered with a realistic {@code CreateTaskAttachmentResponse} JSON (an array
+ * when several files are sent in one request), and {@code GET /api/v2/user}, the health ping of the client.
+ * Other endpoints can be added with {@link #addHandler}.
+ * </p>
+ * <p>
+ * The behavior of a real, busy API can be reproduced with the {@link Builder}: response latency,
+ * error rate, per-token rate limit answered with {@code 429} and the {@code X-RateLimit-*} headers,
+ * and slow reading of the request body. Responses are delayed on a scheduler, not by sleeping a
+ * server thread, so thousands of requests can be in flight.
+ * </p>
+ * <pre>{@code
+ * try (ClickUpEmulator emulator = ClickUpEmulator.builder().latency(Duration.ofMillis(20)).build().start()) {
+ *     String url = emulator.getBaseUrl() + "task/86aef6x03/attachment";
+ *     ...
+ * }
+ * }</pre>
+ */
+public final class ClickUpEmulator implements AutoCloseable {
+
+	private static final Pattern ATTACHMENT_PATH = Pattern.compile("^/api/v2/task/([^/]+)/attachment/?$");
+	private static final Set<String> PREVIEW_EXTENSIONS = Set.of("png", "jpg", "jpeg", "gif", "webp", "bmp");
+	private static final ObjectMapper MAPPER = new ObjectMapper();
+
+	private final Builder config;
+	private final HttpServer server;
+	private final ExecutorService serverExecutor;
+	private final ScheduledExecutorService scheduler;
+	private final Map<String, RateWindow> rateWindows = new ConcurrentHashMap<>();
+	private final Map<Integer, LongAdder> statusCounts = new ConcurrentHashMap<>();
+	private final LongAdder requests = new LongAdder();
+	private final AtomicInteger inFlight = new AtomicInteger();
+	private final AtomicInteger maxInFlight = new AtomicInteger();
+	private final LongAdder bytesReceived = new LongAdder();
+	private final LongAdder filesReceived = new LongAdder();
+
+	private ClickUpEmulator(Builder config) throws IOException {
+		this.config = config;
+		this.serverExecutor = Executors.newFixedThreadPool(config.threads, daemon("clickup-emulator"));
+		this.scheduler = Executors.newSingleThreadScheduledExecutor(daemon("clickup-emulator-latency"));
+		this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", config.port), config.backlog);
+		server.setExecutor(serverExecutor);
+		server.createContext("/api/v2/task/", this::handleTask);
+		server.createContext("/api/v2/user", this::handleUser);
+	}
+
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	/**
+	 * @return an emulator with no latency, no errors and no rate limit
+	 * @throws IOException if the server socket cannot be bound
+	 */
+	public static ClickUpEmulator create() throws IOException {
+		return builder().build();
+	}
+
+	public ClickUpEmulator start() {
+		server.start();
+		return this;
+	}
+
+	@Override
+	public void close() {
+		server.stop(0);
+		scheduler.shutdownNow();
+		serverExecutor.shutdownNow();
+	}
+
+	/**
+	 * @return the URL to use instead of {@code https://api.clickup.com/api/v2/}
+	 */
+	public String getBaseUrl() {
+		return "http://127.0.0.1:" + server.getAddress().getPort() + "/api/v2/";
+	}
+
+	/**
+	 * Serves another endpoint, e.g. to emulate a task lookup.
+	 *
+	 * @param path the path prefix, e.g. {@code /api/v2/list/}
+	 * @param handler the handler answering the requests
+	 */
+	public void addHandler(String path, HttpHandler handler) {
+		server.createContext(path, handler);
+	}
+
+	public long getRequestCount() {
+		return requests.sum();
+	}
+
+	/**
+	 * @return the highest number of requests of the built-in endpoints received and not answered yet at the same time
+	 */
+	public int getMaxConcurrentRequests() {
+		return maxInFlight.get();
+	}
+
+	/**
+	 * @return bytes of file content received, multipart framing excluded
+	 */
+	public long getBytesReceived() {
+		return bytesReceived.sum();
+	}
+
+	public long getFilesReceived() {
+		return filesReceived.sum();
+	}
+
+	/**
+	 * @return the number of responses sent per status
+	 */
+	public Map<Integer, Long> getStatusCounts() {
+		Map<Integer, Long> counts = new LinkedHashMap<>();
+		statusCounts.forEach((status, count) -> counts.put(status, count.sum()));
+		return counts;
+	}
+
+	private void handleTask(HttpExchange exchange) throws IOException {
+		requests.increment();
+		maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+		Matcher matcher = ATTACHMENT_PATH.matcher(exchange.getRequestURI().getPath());
+		if (!matcher.matches()) {
+			respond(exchange, 404, error("Route not found", "APP_001"), Map.of());
+			return;
+		}
+		if (!"POST".equals(exchange.getRequestMethod())) {
+			respond(exchange, 405, error("Method not allowed", "APP_002"), Map.of());
+			return;
+		}
+
+		String token = exchange.getRequestHeaders().getFirst("Authorization");
+		if (token == null || token.isBlank()) {
+			drain(exchange);
+			respond(exchange, 401, error("Token invalid", "OAUTH_025"), Map.of());
+			return;
+		}
+
+		Map<String, String> rateHeaders = Map.of();
+		if (config.requestsPerMinute > 0) {
+			RateWindow window = rateWindows.computeIfAbsent(token, t -> new RateWindow());
+			rateHeaders = window.take(config.requestsPerMinute);
+			if (rateHeaders == null) {
+				drain(exchange);
+				respond(exchange, 429, error("Rate limit reached", "APP_002"), window.headers(config.requestsPerMinute));
+				return;
+			}
+		}
+
+		if (config.errorRate > 0 && ThreadLocalRandom.current().nextDouble() < config.errorRate) {
+			drain(exchange);
+			respond(exchange, config.errorStatus, error("Service unavailable", "APP_500"), rateHeaders);
+			return;
+		}
+
+		String boundary = MultipartStreamParser.boundaryOf(exchange.getRequestHeaders().getFirst("Content-Type"));
+		if (boundary == null) {
+			drain(exchange);
+			respond(exchange, 400, error("Content-Type must be multipart/form-data", "UPLOAD_001"), rateHeaders);
+			return;
+		}
+
+		List<MultipartStreamParser.Part> files = new ArrayList<>();
+		try (InputStream body = MultipartStreamParser.pushback(throttle(exchange.getRequestBody()))) {
+			for (MultipartStreamParser.Part part : MultipartStreamParser.parse(body, boundary)) {
+				if (part.fileName != null) files.add(part);
+			}
+		} catch (IOException e) {
+			respond(exchange, 400, error("Malformed multipart body: " + e.getMessage(), "UPLOAD_002"), rateHeaders);
+			return;
+		}
+		if (files.isEmpty()) {
+			respond(exchange, 400, error("No attachment in the request", "UPLOAD_003"), rateHeaders);
+			return;
+		}
+
+		String team = Objects.requireNonNullElse(queryParameter(exchange, "team_id"), "9000");
+		List<Map<String, Object>> attachments = new ArrayList<>();
+		for (MultipartStreamParser.Part file : files) {
+			filesReceived.increment();
+			bytesReceived.add(file.size);
+			attachments.add(attachment(file, team));
+		}
+		String json = toJson(attachments.size() == 1 ? attachments.get(0) : attachments);
+		respond(exchange, 200, json, rateHeaders);
+	}
+
+	private void handleUser(HttpExchange exchange) throws IOException {
+		requests.increment();
+		maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+		drain(exchange);
+		if (!"GET".equals(exchange.getRequestMethod())) {
+			respond(exchange, 405, error("Method not allowed", "APP_002"), Map.of());
+			return;
+		}
+		String token = exchange.getRequestHeaders().getFirst("Authorization");
+		if (token == null || token.isBlank()) {
+			respond(exchange, 401, error("Token invalid", "OAUTH_025"), Map.of());
+			return;
+		}
+		Map<String, Object> user = new LinkedHashMap<>();
+		user.put("id", 183);
+		user.put("username", "emulator");
+		user.put("email", "emulator@example.com");
+		respond(exchange, 200, toJson(Map.of("user", user)), Map.of());
+	}
+
+	private Map<String, Object> attachment(MultipartStreamParser.Part file, String team) {
+		String fileName = file.fileName;
+		int dot = fileName.lastIndexOf('.');
+		String extension = dot == -1 ? "" : fileName.substring(dot + 1);
+		String id = UUID.randomUUID() + (extension.isEmpty() ? "" : "." + extension);
+		String url = "https://t" + team + ".p.clickup-attachments.com/t" + team + "/" + id + "/" + fileName;
+		boolean preview = PREVIEW_EXTENSIONS.contains(extension.toLowerCase(Locale.ROOT));
+
+		Map<String, Object> attachment = new LinkedHashMap<>();
+		attachment.put("id", id);
+		attachment.put("version", "0");
+		attachment.put("date", System.currentTimeMillis());
+		attachment.put("name", fileName);
+		attachment.put("title", fileName);
+		attachment.put("extension", extension);
+		attachment.put("source", 2);
+		attachment.put("thumbnail_small", preview ? url + "?size=small" : null);
+		attachment.put("thumbnail_medium", preview ? url + "?size=medium" : null);
+		attachment.put("thumbnail_large", preview ? url + "?size=large" : null);
+		attachment.put("url", url);
+		attachment.put("url_w_query", url + "?view=open");
+		attachment.put("url_w_host", url);
+		return attachment;
+	}
+
+	private void respond(HttpExchange exchange, int status, String body, Map<String, String> headers) {
+		long delay = latencyMillis();
+		Runnable send = () -> {
+			// the request stops counting once answered, the client may send the next one as soon as it reads this
+			inFlight.decrementAndGet();
+			try {
+				byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+				exchange.getResponseHeaders().add("Content-Type", "application/json");
+				headers.forEach((name, value) -> exchange.getResponseHeaders().add(name, value));
+				exchange.sendResponseHeaders(status, bytes.length);
+				try (OutputStream out = exchange.getResponseBody()) {
+					out.write(bytes);
+				}
+				statusCounts.computeIfAbsent(status, s -> new LongAdder()).increment();
+			} catch (IOException ignored) {
+				// the client went away
+			} finally {
+				exchange.close();
+			}
+		};
+		if (delay <= 0) send.run();
+		else scheduler.schedule(() -> serverExecutor.execute(send), delay, TimeUnit.MILLISECONDS);
+	}
+
+	private long latencyMillis() {
+		long min = config.minLatency.toMillis();
+		long max = config.maxLatency.toMillis();
+		return max <= min ? min : ThreadLocalRandom.current().nextLong(min, max + 1);
+	}
+
+	private InputStream throttle(InputStream body) {
+		if (config.readBytesPerSecond <= 0) return body;
+		long bytesPerSecond = config.readBytesPerSecond;
+		return new FilterInputStream(body) {
+			private final long start = System.nanoTime();
+			private long read;
+
+			@Override
+			public int read() throws IOException {
+				byte[] one = new byte[1];
+				return read(one, 0, 1) == -1 ? -1 : one[0] & 0xff;
+			}
+
+			@Override
+			public int read(byte[] b, int off, int len) throws IOException {
+				int n = super.read(b, off, (int) Math.min(len, Math.max(1, bytesPerSecond / 10)));
+				if (n > 0) {
+					read += n;
+					long due = start + read * 1_000_000_000L / bytesPerSecond;
+					long wait = due - System.nanoTime();
+					if (wait > 0) {
+						try {
+							TimeUnit.NANOSECONDS.sleep(wait);
+						} catch (InterruptedException e) {
+							Thread.currentThread().interrupt();
+							throw new IOException("Interrupted while throttling", e);
+						}
+					}
+				}
+				return n;
+			}
+		};
+	}
+
+	private static void drain(HttpExchange exchange) throws IOException {
+		try (InputStream body = exchange.getRequestBody()) {
+			body.transferTo(OutputStream.nullOutputStream());
+		}
+	}
+
+	private static String queryParameter(HttpExchange exchange, String name) {
+		String query = exchange.getRequestURI().getRawQuery();
+		if (query == null) return null;
+		for (String pair : query.split("&")) {
+			int eq = pair.indexOf('=');
+			if (eq > 0 && pair.substring(0, eq).equals(name)) return pair.substring(eq + 1);
+		}
+		return null;
+	}
+
+	private static String error(String message, String code) {
+		return toJson(Map.of("err", message, "ECODE", code));
+	}
+
+	private static String toJson(Object value) {
+		try {
+			return MAPPER.writeValueAsString(value);
+		} catch (JsonProcessingException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static java.util.concurrent.ThreadFactory daemon(String name) {
+		AtomicLong count = new AtomicLong();
+		return runnable -> {
+			Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		};
+	}
+
+	/**
+	 * Fixed one minute window of a token, like the ClickUp rate limit.
+	 */
+	private static final class RateWindow {
+
+		private long windowEndMillis;
+		private int used;
+
+		/**
+		 * @return the rate limit headers, or {@code null} when the window is exhausted
+		 */
+		synchronized Map<String, String> take(int limit) {
+			roll();
+			if (used >= limit) return null;
+			used++;
+			return headers(limit);
+		}
+
+		synchronized Map<String, String> headers(int limit) {
+			roll();
+			return Map.of(
+					"X-RateLimit-Limit", String.valueOf(limit),
+					"X-RateLimit-Remaining", String.valueOf(Math.max(0, limit - used)),
+					"X-RateLimit-Reset", String.valueOf((windowEndMillis + 999) / 1000));
+		}
+
+		private void roll() {
+			long now = System.currentTimeMillis();
+			if (now >= windowEndMillis) {
+				windowEndMillis = now + 60_000;
+				used = 0;
+			}
+		}
+	}
+
+	/**
+	 * Builder for {@link ClickUpEmulator}.
+	 */
+	public static final class Builder {
+
+		private int port;
+		private int backlog = 1024;
+		private int threads = Math.max(4, Runtime.getRuntime().availableProcessors());
+		private Duration minLatency = Duration.ZERO;
+		private Duration maxLatency = Duration.ZERO;
+		private double errorRate;
+		private int errorStatus = 503;
+		private int requestsPerMinute;
+		private long readBytesPerSecond;
+
+		private Builder() {}
+
+		/**
+		 * @param port the port to listen on, {@code 0} (the default) picks a free one
+		 */
+		public Builder port(int port) {
+			this.port = port;
+			return this;
+		}
+
+		public Builder threads(int threads) {
+			if (threads < 1) throw new IllegalArgumentException("threads must be at least 1");
+			this.threads = threads;
+			return this;
+		}
+
+		/**
+		 * @param latency fixed delay before every response
+		 */
+		public Builder latency(Duration latency) {
+			return latency(latency, latency);
+		}
+
+		/**
+		 * @param min minimum delay before every response
+		 * @param max maximum delay before every response, uniformly distributed
+		 */
+		public Builder latency(Duration min, Duration max) {
+			this.minLatency = Objects.requireNonNull(min, "min");
+			this.maxLatency = Objects.requireNonNull(max, "max");
+			return this;
+		}
+
+		/**
+		 * @param error_rate fraction of the requests answered with {@link #errorStatus(int)}, between 0 and 1
+		 */
+		public Builder errorRate(double error_rate) {
+			if (error_rate < 0 || error_rate > 1) throw new IllegalArgumentException("error_rate must be between 0 and 1");
+			this.errorRate = error_rate;
+			return this;
+		}
+
+		/**
+		 * @param status the status of injected errors, {@code 503} by default
+		 */
+		public Builder errorStatus(int status) {
+			this.errorStatus = status;
+			return this;
+		}
+
+		/**
+		 * @param requests_per_minute requests allowed per token per minute, {@code 0} (the default) disables the limit
+		 */
+		public Builder rateLimitPerMinute(int requests_per_minute) {
+			this.requestsPerMinute = requests_per_minute;
+			return this;
+		}
+
+		/**
+		 * @param bytes_per_second speed at which request bodies are read, {@code 0} (the default) reads at full speed
+		 */
+		public Builder slowRead(long bytes_per_second) {
+			this.readBytesPerSecond = bytes_per_second;
+			return this;
+		}
+
+		/**
+		 * @return the emulator, bound but not started
+		 * @throws IOException if the server socket cannot be bound
+		 */
+		public ClickUpEmulator build() throws IOException {
+			System.setProperty("sun.net.httpserver.nodelay", "true");
+			return new ClickUpEmulator(this);
+		}
+	}
+}
@@ -0,0 +1,113 @@
+package emulator;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import engine.HttpRequestExecutor;
+import engine.HttpRequestProvider;
+import engine.RetryPolicy;
+import helpers.GenerateBodyPublisherForRequestWithFile;
+import helpers.GenerateUUIDBoundary;
+import helpers.HttpStatusException;
+import helpers.JsonBodyHandler;
+import responses.CreateTaskAttachmentResponse;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ClickUpEmulatorTest {
+
+	private static final Path FILES = Paths.get("src/test/resources/files");
+
+	private ClickUpEmulator emulator;
+	private final HttpRequestExecutor executor = new HttpRequestExecutor(HttpClient.newHttpClient(), RetryPolicy.none());
+
+	@AfterEach
+	public void stopEmulator() {
+		if (emulator != null) emulator.close();
+	}
+
+	private HttpRequest uploadRequest(String token, String... fileNames) throws IOException, URISyntaxException {
+		String boundary = GenerateUUIDBoundary.getNewUUIDBoundary();
+		List<String> paths = List.of(fileNames).stream().map(name -> FILES.resolve(name).toString()).collect(Collectors.toList());
+		return new HttpRequestProvider().generateHttpRequestForPOSTWithFileAsBody(
+				emulator.getBaseUrl() + "task/86aef6x03/attachment", boundary,
+				GenerateBodyPublisherForRequestWithFile.generateRequestWithFilesAsBody(boundary, paths), Optional.of(token));
+	}
+
+	@Test
+	public void TC01_SingleFile_returnsAttachmentAndReceivesWholeFile() throws Exception {
+		emulator = ClickUpEmulator.create().start();
+		CreateTaskAttachmentResponse resp = executor
+				.send(uploadRequest("emulator-tc01", "image.jpg"), JsonBodyHandler.of(CreateTaskAttachmentResponse.class)).body();
+		assertEquals("image.jpg", resp.getName());
+		assertEquals("jpg", resp.getExtension());
+		assertNotNull(resp.getThumbnail_small());
+		assertEquals(Files.size(FILES.resolve("image.jpg")), emulator.getBytesReceived());
+	}
+
+	@Test
+	public void TC02_SeveralFiles_returnsOneAttachmentPerFile() throws Exception {
+		emulator = ClickUpEmulator.create().start();
+		List<CreateTaskAttachmentResponse> resp = executor
+				.send(uploadRequest("emulator-tc02", "text.txt", "video.mp4", "winrar.zip"), JsonBodyHandler.ofList(CreateTaskAttachmentResponse.class)).body();
+		assertEquals(List.of("text.txt", "video.mp4", "winrar.zip"),
+				resp.stream().map(CreateTaskAttachmentResponse::getName).collect(Collectors.toList()));
+		assertNull(resp.get(0).getThumbnail_small());
+		assertEquals(Files.size(FILES.resolve("text.txt")) + Files.size(FILES.resolve("video.mp4")) + Files.size(FILES.resolve("winrar.zip")),
+				emulator.getBytesReceived());
+	}
+
+	@Test
+	public void TC03_ErrorRate_failsWithStatus() throws Exception {
+		emulator = ClickUpEmulator.builder().errorRate(1).errorStatus(502).build().start();
+		HttpStatusException error = assertThrows(HttpStatusException.class,
+				() -> executor.send(uploadRequest("emulator-tc03", "text.txt"), JsonBodyHandler.of(CreateTaskAttachmentResponse.class)));
+		assertEquals(502, error.getStatusCode());
+	}
+
+	@Test
+	public void TC04_RateLimit_answers429WithHeadersPerToken() throws Exception {
+		emulator = ClickUpEmulator.builder().rateLimitPerMinute(2).build().start();
+		// plain client: the executor's rate limiter would hold the third request until the window resets
+		HttpClient client = HttpClient.newHttpClient();
+		for (int i = 0; i < 2; i++) {
+			assertEquals(200, client.send(uploadRequest("emulator-tc04", "text.txt"), BodyHandlers.discarding()).statusCode());
+		}
+		HttpResponse<Void> limited = client.send(uploadRequest("emulator-tc04", "text.txt"), BodyHandlers.discarding());
+		assertEquals(429, limited.statusCode());
+		assertEquals(Optional.of("0"), limited.headers().firstValue("X-RateLimit-Remaining"));
+		assertEquals(200, client.send(uploadRequest("emulator-tc04-other", "text.txt"), BodyHandlers.discarding()).statusCode());
+	}
+
+	@Test
+	public void TC05_Latency_handlesConcurrentUploadsWithoutBlocking() throws Exception {
+		emulator = ClickUpEmulator.builder().latency(Duration.ofMillis(200)).threads(2).build().start();
+		long start = System.nanoTime();
+		List<CompletableFuture<?>> uploads = IntStream.range(0, 50).mapToObj(i -> {
+			try {
+				return executor.sendAsync(uploadRequest("emulator-tc05", "text.txt"), JsonBodyHandler.of(CreateTaskAttachmentResponse.class));
+			} catch (Exception e) {
+				return CompletableFuture.failedFuture(e);
+			}
+		}).collect(Collectors.toList());
+		CompletableFuture.allOf(uploads.toArray(new CompletableFuture<?>[0])).join();
+		assertTrue(Duration.ofNanos(System.nanoTime() - start).toMillis() < 5_000);
+		assertEquals(50, emulator.getFilesReceived());
+	}
+}
@@ -0,0 +1,161 @@
+package emulator;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Streaming {@code multipart/form-data} parser used by {@link ClickUpEmulator}.
+ * <p>
+ * Part contents are never buffered: the body is scanned once, byte by byte, for the boundary delimiter
+ * (Knuth-Morris-Pratt), and only the size of each part is kept.
+ * </p>
+ */
+final class MultipartStreamParser {
+
+	private static final Pattern BOUNDARY = Pattern.compile("boundary=\"?([^\";]+)\"?");
+	private static final Pattern FILENAME = Pattern.compile("filename=\"([^\"]*)\"");
+	private static final Pattern NAME = Pattern.compile("[; ]name=\"([^\"]*)\"");
+
+	private MultipartStreamParser() {}
+
+	/**
+	 * A part of the body.
+	 */
+	static final class Part {
+		final String name;
+		final String fileName;
+		final String contentType;
+		final long size;
+
+		Part(String name, String fileName, String contentType, long size) {
+			this.name = name;
+			this.fileName = fileName;
+			this.contentType = contentType;
+			this.size = size;
+		}
+	}
+
+	/**
+	 * @param content_type the {@code Content-Type} header of the request
+	 * @return the boundary, or {@code null} when the request is not multipart
+	 */
+	static String boundaryOf(String content_type) {
+		if (content_type == null || !content_type.toLowerCase(Locale.ROOT).startsWith("multipart/form-data")) return null;
+		Matcher matcher = BOUNDARY.matcher(content_type);
+		return matcher.find() ? matcher.group(1) : null;
+	}
+
+	/**
+	 * Parses the whole body.
+	 *
+	 * @throws IOException if the body is not a valid multipart payload
+	 */
+	static List<Part> parse(InputStream body, String boundary) throws IOException {
+		byte[] delimiter = ("\r\n--" + boundary).getBytes(StandardCharsets.ISO_8859_1);
+		int[] failure = failureTable(delimiter);
+		List<Part> parts = new ArrayList<>();
+
+		// the first delimiter is not preceded by CRLF, pretend it is
+		skipTo(body, delimiter, failure, 2);
+		while (true) {
+			int first = body.read();
+			int second = body.read();
+			if (first == '-' && second == '-') return parts;
+			if (first != '\r' || second != '\n') throw new IOException("Malformed multipart delimiter");
+
+			String name = null;
+			String fileName = null;
+			String contentType = null;
+			for (String line = readLine(body); !line.isEmpty(); line = readLine(body)) {
+				String lower = line.toLowerCase(Locale.ROOT);
+				if (lower.startsWith("content-disposition:")) {
+					Matcher fileMatcher = FILENAME.matcher(line);
+					if (fileMatcher.find()) fileName = fileMatcher.group(1);
+					Matcher nameMatcher = NAME.matcher(line);
+					if (nameMatcher.find()) name = nameMatcher.group(1);
+				} else if (lower.startsWith("content-type:")) {
+					contentType = line.substring("content-type:".length()).trim();
+				}
+			}
+			long size = skipTo(body, delimiter, failure, 0);
+			parts.add(new Part(name, fileName, contentType, size));
+		}
+	}
+
+	/**
+	 * Consumes the stream up to and including the next delimiter.
+	 *
+	 * @param matched how many bytes of the delimiter are already matched
+	 * @return the number of bytes before the delimiter
+	 */
+	private static long skipTo(InputStream body, byte[] delimiter, int[] failure, int matched) throws IOException {
+		byte[] buffer = new byte[8192];
+		long consumed = 0;
+		int j = matched;
+		int read;
+		while ((read = body.read(buffer)) != -1) {
+			for (int i = 0; i < read; i++) {
+				byte b = buffer[i];
+				while (j > 0 && delimiter[j] != b) j = failure[j - 1];
+				if (delimiter[j] == b) j++;
+				consumed++;
+				if (j == delimiter.length) {
+					pushBack(body, buffer, i + 1, read);
+					return consumed - delimiter.length + matched;
+				}
+			}
+		}
+		throw new IOException("Unexpected end of multipart body");
+	}
+
+	private static void pushBack(InputStream body, byte[] buffer, int from, int to) throws IOException {
+		if (from == to) return;
+		if (!(body instanceof PushbackStream)) throw new IllegalStateException("body must be wrapped with MultipartStreamParser.pushback");
+		((PushbackStream) body).unread(buffer, from, to - from);
+	}
+
+	/**
+	 * @return the stream the parser reads from, able to give back what was read past a delimiter
+	 */
+	static InputStream pushback(InputStream body) {
+		return new PushbackStream(body);
+	}
+
+	private static String readLine(InputStream body) throws IOException {
+		ByteArrayOutputStream line = new ByteArrayOutputStream();
+		int previous = -1;
+		int b;
+		while ((b = body.read()) != -1) {
+			if (previous == '\r' && b == '\n') {
+				byte[] bytes = line.toByteArray();
+				return new String(bytes, 0, bytes.length - 1, StandardCharsets.UTF_8);
+			}
+			line.write(b);
+			previous = b;
+		}
+		throw new IOException("Unexpected end of multipart headers");
+	}
+
+	private static int[] failureTable(byte[] pattern) {
+		int[] failure = new int[pattern.length];
+		for (int i = 1, k = 0; i < pattern.length; i++) {
+			while (k > 0 && pattern[i] != pattern[k]) k = failure[k - 1];
+			if (pattern[i] == pattern[k]) k++;
+			failure[i] = k;
+		}
+		return failure;
+	}
+
+	private static final class PushbackStream extends java.io.PushbackInputStream {
+		PushbackStream(InputStream in) {
+			super(in, 8192);
+		}
+	}
+}
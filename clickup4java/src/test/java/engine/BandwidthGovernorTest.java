@@ -0,0 +1,114 @@
+package engine;
+
+import java.net.http.HttpRequest.BodyPublisher;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+import api.attachments.CreateTaskAttachments;
+import emulator.ClickUpEmulator;
+import helpers.MultipartBodyPublisher;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BandwidthGovernorTest {
+
+	private static final Path VIDEO = Paths.get("src/test/resources/files/video.mp4");
+	private static final Path TEXT = Paths.get("src/test/resources/files/excel.xlsx");
+
+	@Test
+	public void TC01_Throttle_limitsThroughput() throws Exception {
+		BandwidthGovernor governor = new BandwidthGovernor(1024 * 1024, 64 * 1024);
+
+		long start = System.nanoTime();
+		long bytes = drain(governor.throttle(body(VIDEO), 1)).join();
+		Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+		assertTrue(bytes > Files.size(VIDEO));
+		// 1.5 MB at 1 MB/s, minus the burst
+		assertTrue(elapsed.toMillis() > 1_200, elapsed.toString());
+		assertTrue(elapsed.toMillis() < 3_000, elapsed.toString());
+		assertEquals(0, governor.getActiveUploads());
+	}
+
+	@Test
+	public void TC02_Shares_splitTheLimitAndSmallUploadsAreNotDelayed() throws Exception {
+		BandwidthGovernor governor = new BandwidthGovernor(2 * 1024 * 1024, 64 * 1024);
+
+		long start = System.nanoTime();
+		CompletableFuture<Long> background = drain(governor.throttle(body(VIDEO), 1));
+		CompletableFuture<Long> priority = drain(governor.throttle(body(VIDEO), 3));
+		CompletableFuture<Long> log = drain(governor.throttle(body(TEXT), 1));
+
+		log.join();
+		long logMillis = Duration.ofNanos(System.nanoTime() - start).toMillis();
+		priority.join();
+		long priorityMillis = Duration.ofNanos(System.nanoTime() - start).toMillis();
+		background.join();
+		long backgroundMillis = Duration.ofNanos(System.nanoTime() - start).toMillis();
+
+		assertTrue(logMillis < 200, "log took " + logMillis + " ms");
+		assertTrue(priorityMillis < backgroundMillis * 0.8, priorityMillis + " ms vs " + backgroundMillis + " ms");
+		// 3 MB at 2 MB/s in total
+		assertTrue(backgroundMillis > 1_200, backgroundMillis + " ms");
+	}
+
+	@Test
+	public void TC03_Client_throttlesItsUploads() throws Exception {
+		try (ClickUpEmulator emulator = ClickUpEmulator.create().start()) {
+			ClickUpClient client = ClickUpClient.builder()
+					.baseUrl(emulator.getBaseUrl())
+					.tokenProvider(TokenProviders.of("bandwidth-test"))
+					.bandwidthGovernor(new BandwidthGovernor(2 * 1024 * 1024), 1)
+					.build();
+
+			long start = System.nanoTime();
+			new CreateTaskAttachments(client).callSyncCreateTaskAttachmentAPI("86aef6x03", VIDEO.toString(), Optional.empty(), Optional.empty());
+
+			assertTrue(Duration.ofNanos(System.nanoTime() - start).toMillis() > 500);
+			assertEquals(Files.size(VIDEO), emulator.getBytesReceived());
+		}
+	}
+
+	private static BodyPublisher body(Path file) throws Exception {
+		return MultipartBodyPublisher.builder("b0undary").addFilePart("attachment", file).build();
+	}
+
+	/**
+	 * Subscribes like the HTTP client with an unbounded demand and counts the bytes.
+	 */
+	private static CompletableFuture<Long> drain(BodyPublisher publisher) {
+		CompletableFuture<Long> done = new CompletableFuture<>();
+		AtomicLong bytes = new AtomicLong();
+		publisher.subscribe(new Flow.Subscriber<ByteBuffer>() {
+			@Override
+			public void onSubscribe(Flow.Subscription subscription) {
+				subscription.request(Long.MAX_VALUE);
+			}
+
+			@Override
+			public void onNext(ByteBuffer item) {
+				bytes.addAndGet(item.remaining());
+			}
+
+			@Override
+			public void onError(Throwable throwable) {
+				done.completeExceptionally(throwable);
+			}
+
+			@Override
+			public void onComplete() {
+				done.complete(bytes.get());
+			}
+		});
+		return done;
+	}
+}
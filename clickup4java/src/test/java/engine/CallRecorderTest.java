@@ -0,0 +1,172 @@
+package engine;
+
+import java.io.IOException;
+import java.net.http.HttpRequest;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+
+import emulator.ClickUpEmulator;
+import engine.metrics.ClickUpMetrics;
+import engine.metrics.ClickUpMetricsListener;
+import helpers.HttpStatusException;
+import helpers.JsonBodyHandler;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SuppressWarnings("rawtypes")
+public class CallRecorderTest {
+
+	private static final int BODY_SIZE = 100_000;
+
+	private ClickUpEmulator emulator;
+	private final List<long[]> calls = new CopyOnWriteArrayList<>();
+	private final AtomicInteger requests = new AtomicInteger();
+	/** The number of the next requests answered after 1 second. */
+	private final AtomicInteger slowRequests = new AtomicInteger();
+	/** The number of the next requests answered with {@code 503}. */
+	private final AtomicInteger failures = new AtomicInteger();
+
+	/** Records {@code [status, bytes uploaded, attempts]} of every call. */
+	private final ClickUpMetricsListener listener = new ClickUpMetricsListener() {
+		@Override
+		public void onCallCompleted(String endpoint, int status_code, Duration elapsed, long bytes_uploaded, int attempts) {
+			calls.add(new long[] { status_code, bytes_uploaded, attempts });
+		}
+	};
+
+	@BeforeEach
+	public void start() throws Exception {
+		emulator = ClickUpEmulator.create().start();
+		emulator.addHandler("/api/v2/list/", this::handle);
+		ClickUpMetrics.addListener(listener);
+	}
+
+	@AfterEach
+	public void stop() {
+		ClickUpMetrics.removeListener(listener);
+		emulator.close();
+	}
+
+	@Test
+	public void TC01_HedgedGet_isRecordedAsOneCall() throws Exception {
+		ClickUpClient client = client(RetryPolicy.none());
+		slowRequests.set(1);
+		HttpRequest get = client.getHttpRequestProvider().generateHttpRequestForGET(client.getBaseUrl() + "list/1", Optional.empty());
+
+		client.getHttpRequestExecutor().send(get, JsonBodyHandler.of(Map.class), CallOptions.builder().hedgeAfter(Duration.ofMillis(100)).build());
+
+		assertEquals(2, requests.get());
+		long[] call = awaitCalls(1).get(0);
+		assertEquals(200, call[0]);
+		assertEquals(2, call[2], "both requests are attempts of the call");
+		Thread.sleep(1200);
+		assertEquals(1, calls.size(), "the aborted request is not a second call");
+	}
+
+	@Test
+	public void TC02_RetriedUpload_countsTheBytesOfEveryAttempt() throws Exception {
+		ClickUpClient client = client(RetryPolicy.builder().maxAttempts(3).baseDelay(Duration.ofMillis(10))
+				.retryNonIdempotentRequests(true).build());
+		failures.set(1);
+
+		client.getHttpRequestExecutor().send(post(client, HttpRequest.BodyPublishers.ofByteArray(new byte[BODY_SIZE])),
+				JsonBodyHandler.of(Map.class));
+
+		long[] call = awaitCalls(1).get(0);
+		assertEquals(200, call[0]);
+		assertEquals(2L * BODY_SIZE, call[1]);
+		assertEquals(2, call[2]);
+	}
+
+	@Test
+	public void TC03_FailedUpload_countsOnlyTheBytesSent() throws Exception {
+		ClickUpClient client = client(RetryPolicy.none());
+		Flow.Publisher<ByteBuffer> failing = subscriber -> subscriber.onSubscribe(new Flow.Subscription() {
+			private boolean sent;
+
+			@Override
+			public void request(long n) {
+				if (sent) return;
+				sent = true;
+				subscriber.onNext(ByteBuffer.allocate(10_000));
+				subscriber.onError(new IOException("disk failure"));
+			}
+
+			@Override
+			public void cancel() {}
+		});
+
+		assertThrows(IOException.class, () -> client.getHttpRequestExecutor()
+				.send(post(client, HttpRequest.BodyPublishers.fromPublisher(failing, BODY_SIZE)), JsonBodyHandler.of(Map.class)));
+
+		long[] call = awaitCalls(1).get(0);
+		assertEquals(-1, call[0]);
+		assertEquals(10_000, call[1], "not the announced " + BODY_SIZE + " bytes");
+	}
+
+	@Test
+	public void TC04_FailedHedgedGet_reportsItsStatus() throws Exception {
+		ClickUpClient client = client(RetryPolicy.none());
+		failures.set(10);
+		HttpRequest get = client.getHttpRequestProvider().generateHttpRequestForGET(client.getBaseUrl() + "list/1", Optional.empty());
+
+		assertThrows(HttpStatusException.class, () -> client.getHttpRequestExecutor()
+				.send(get, JsonBodyHandler.of(Map.class), CallOptions.builder().hedgeAfter(Duration.ofMillis(500)).build()));
+		assertEquals(503, awaitCalls(1).get(0)[0]);
+	}
+
+	private ClickUpClient client(RetryPolicy retry_policy) {
+		return ClickUpClient.builder()
+				.baseUrl(emulator.getBaseUrl())
+				.tokenProvider(TokenProviders.of("recorder-test"))
+				.retryPolicy(retry_policy)
+				.build();
+	}
+
+	private static HttpRequest post(ClickUpClient client, HttpRequest.BodyPublisher body) throws Exception {
+		return client.getHttpRequestProvider().generateHttpRequestForPOST(client.getBaseUrl() + "list/1", body, Optional.empty());
+	}
+
+	/**
+	 * A hedged call is reported when its result settles, which may be just after the caller got the response.
+	 */
+	private List<long[]> awaitCalls(int count) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (calls.size() < count && System.nanoTime() < deadline) Thread.sleep(10);
+		assertEquals(count, calls.size());
+		return calls;
+	}
+
+	private void handle(HttpExchange exchange) throws IOException {
+		requests.incrementAndGet();
+		try {
+			exchange.getRequestBody().readAllBytes();
+			if (slowRequests.getAndUpdate(n -> Math.max(0, n - 1)) > 0) TimeUnit.SECONDS.sleep(1);
+			boolean fail = failures.getAndUpdate(n -> Math.max(0, n - 1)) > 0;
+			byte[] bytes = "{\"id\":\"1\"}".getBytes(StandardCharsets.UTF_8);
+			exchange.getResponseHeaders().set("Content-Type", "application/json");
+			exchange.sendResponseHeaders(fail ? 503 : 200, bytes.length);
+			exchange.getResponseBody().write(bytes);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (IOException e) {
+			// the client aborted the request
+		} finally {
+			exchange.close();
+		}
+	}
+}
@@ -0,0 +1,217 @@
+package engine;
+
+import java.io.IOException;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.UnaryOperator;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+
+import emulator.ClickUpEmulator;
+import helpers.CallNotPermittedException;
+import helpers.CallNotPermittedException.Reason;
+import helpers.HttpStatusException;
+import helpers.JsonBodyHandler;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SuppressWarnings("rawtypes")
+public class CircuitBreakerTest {
+
+	private ClickUpEmulator emulator;
+	private final AtomicInteger requests = new AtomicInteger();
+	private final AtomicInteger inFlight = new AtomicInteger();
+	private final AtomicInteger maxInFlight = new AtomicInteger();
+	private volatile int status = 200;
+	private volatile long delayMillis;
+
+	@BeforeEach
+	public void startEmulator() throws Exception {
+		emulator = ClickUpEmulator.create().start();
+		emulator.addHandler("/api/v2/list/", this::handle);
+		emulator.addHandler("/api/v2/folder/", this::handle);
+	}
+
+	@AfterEach
+	public void stopEmulator() {
+		emulator.close();
+	}
+
+	@Test
+	public void TC01_FailingEndpoint_opensThenClosesAfterProbe() throws Exception {
+		ClickUpClient client = client(builder -> builder.circuitBreaker(CircuitBreakerPolicy.builder()
+				.windowSize(4)
+				.minimumCalls(4)
+				.failureRateThreshold(0.5)
+				.openDuration(Duration.ofMillis(300))
+				.halfOpenProbes(1)
+				.build()));
+		status = 503;
+		for (int i = 0; i < 4; i++) {
+			assertEquals(503, assertThrows(HttpStatusException.class, () -> get(client, "list/1")).getStatusCode());
+		}
+		CircuitBreaker breaker = client.getHttpRequestExecutor().getCircuitBreakers().iterator().next();
+		assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+		assertTrue(breaker.getName().endsWith(" GET /list/{id}"), breaker.getName());
+
+		long start = System.nanoTime();
+		CallNotPermittedException rejected = assertThrows(CallNotPermittedException.class, () -> get(client, "list/1"));
+		assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(50), "rejected without a round-trip");
+		assertEquals(Reason.CIRCUIT_OPEN, rejected.getReason());
+		ExecutionException async = assertThrows(ExecutionException.class, () -> client.getHttpRequestExecutor()
+				.sendAsync(request(client, "list/1"), JsonBodyHandler.of(Map.class)).get(5, TimeUnit.SECONDS));
+		assertInstanceOf(CallNotPermittedException.class, async.getCause());
+		assertEquals(4, requests.get());
+
+		// other endpoints of the same host have their own breaker
+		status = 200;
+		get(client, "folder/1");
+
+		TimeUnit.MILLISECONDS.sleep(350);
+		get(client, "list/1");
+		assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+		assertEquals(0, breaker.getFailureRate());
+	}
+
+	@Test
+	public void TC02_FailedProbe_opensAgain() throws Exception {
+		ClickUpClient client = client(builder -> builder.circuitBreaker(CircuitBreakerPolicy.builder()
+				.windowSize(2)
+				.minimumCalls(2)
+				.slowCalls(1.0, Duration.ofMillis(100))
+				.openDuration(Duration.ofMillis(200))
+				.halfOpenProbes(1)
+				.build()));
+		delayMillis = 150;
+		get(client, "list/1");
+		get(client, "list/1");
+		CircuitBreaker breaker = client.getHttpRequestExecutor().getCircuitBreakers().iterator().next();
+		assertEquals(CircuitBreaker.State.OPEN, breaker.getState(), "every call was slow");
+
+		TimeUnit.MILLISECONDS.sleep(250);
+		status = 500;
+		delayMillis = 0;
+		assertThrows(HttpStatusException.class, () -> get(client, "list/1"));
+		assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+		assertThrows(CallNotPermittedException.class, () -> get(client, "list/1"));
+		assertEquals(3, requests.get());
+	}
+
+	@Test
+	public void TC03_Bulkhead_capsOneEndpointOnly() throws Exception {
+		ClickUpClient client = client(builder -> builder.bulkheads(BulkheadPolicy.builder()
+				.maxConcurrentCalls("GET /list/{id}", 2)
+				.maxWait(Duration.ZERO)
+				.build()));
+		delayMillis = 300;
+		List<CompletableFuture<?>> lists = new ArrayList<>();
+		for (int i = 0; i < 4; i++) {
+			lists.add(client.getHttpRequestExecutor().sendAsync(request(client, "list/" + i), JsonBodyHandler.of(Map.class)));
+		}
+		CompletableFuture<?> folder = client.getHttpRequestExecutor().sendAsync(request(client, "folder/1"), JsonBodyHandler.of(Map.class));
+
+		int rejected = 0;
+		for (CompletableFuture<?> list : lists) {
+			try {
+				list.get(5, TimeUnit.SECONDS);
+			} catch (ExecutionException e) {
+				assertEquals(Reason.BULKHEAD_FULL, ((CallNotPermittedException) e.getCause()).getReason());
+				rejected++;
+			}
+		}
+		folder.get(5, TimeUnit.SECONDS);
+		assertEquals(2, rejected);
+		assertEquals(3, requests.get());
+		Bulkhead bulkhead = client.getHttpRequestExecutor().getBulkheads().iterator().next();
+		assertEquals(2, bulkhead.getAvailable());
+	}
+
+	@Test
+	public void TC04_FullBulkhead_queuesUntilMaxWait() throws Exception {
+		ClickUpClient client = client(builder -> builder.bulkheads(BulkheadPolicy.builder()
+				.maxConcurrentCalls(1)
+				.maxWait(Duration.ofSeconds(5))
+				.build()));
+		delayMillis = 100;
+		List<CompletableFuture<?>> calls = new ArrayList<>();
+		for (int i = 0; i < 3; i++) {
+			calls.add(client.getHttpRequestExecutor().sendAsync(request(client, "list/" + i), JsonBodyHandler.of(Map.class)));
+		}
+		calls.add(CompletableFuture.runAsync(() -> {
+			try {
+				get(client, "list/3");
+			} catch (Exception e) {
+				throw new IllegalStateException(e);
+			}
+		}));
+		CompletableFuture.allOf(calls.toArray(new CompletableFuture<?>[0])).get(10, TimeUnit.SECONDS);
+
+		assertEquals(4, requests.get());
+		assertEquals(1, maxInFlight.get());
+	}
+
+	@Test
+	public void TC05_RejectedEndpointCall_isAnsweredByItsFallback() throws Exception {
+		ClickUpClient client = client(builder -> builder.circuitBreaker(CircuitBreakerPolicy.builder()
+				.windowSize(1)
+				.minimumCalls(1)
+				.build()));
+		Endpoint<Void, Map> getList = Endpoint.builder("GET", "list/{id}")
+				.response(Map.class)
+				.fallback(rejection -> Map.of("id", "fallback"))
+				.build();
+		EndpointRequest<Void> request = EndpointRequest.builder().pathParameter("id", "1").build();
+		status = 502;
+		assertThrows(HttpStatusException.class, () -> client.getEndpointPipeline().call(getList, request));
+
+		assertEquals("fallback", client.getEndpointPipeline().call(getList, request).get("id"));
+		assertEquals("fallback", client.getEndpointPipeline().callAsync(getList, request).get(5, TimeUnit.SECONDS).get("id"));
+		assertEquals(1, requests.get());
+	}
+
+	private ClickUpClient client(UnaryOperator<ClickUpClient.Builder> options) {
+		return options.apply(ClickUpClient.builder()
+				.baseUrl(emulator.getBaseUrl())
+				.tokenProvider(TokenProviders.of("breaker-test"))
+				.retryPolicy(RetryPolicy.none()))
+				.build();
+	}
+
+	private static HttpRequest request(ClickUpClient client, String path) throws Exception {
+		return client.getHttpRequestProvider().generateHttpRequestForGET(client.getBaseUrl() + path, Optional.empty());
+	}
+
+	private static Map get(ClickUpClient client, String path) throws Exception {
+		return client.getHttpRequestExecutor().send(request(client, path), JsonBodyHandler.of(Map.class)).body();
+	}
+
+	private void handle(HttpExchange exchange) throws IOException {
+		requests.incrementAndGet();
+		maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+		try {
+			if (delayMillis > 0) TimeUnit.MILLISECONDS.sleep(delayMillis);
+			byte[] bytes = "{\"id\":\"1\"}".getBytes(StandardCharsets.UTF_8);
+			exchange.getResponseHeaders().set("Content-Type", "application/json");
+			exchange.sendResponseHeaders(status, bytes.length);
+			exchange.getResponseBody().write(bytes);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			inFlight.decrementAndGet();
+			exchange.close();
+		}
+	}
+}
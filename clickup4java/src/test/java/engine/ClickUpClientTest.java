@@ -0,0 +1,124 @@
+package engine;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import api.attachments.CreateTaskAttachments;
+import emulator.ClickUpEmulator;
+import responses.CreateTaskAttachmentResponse;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ClickUpClientTest {
+
+	private static final String FILE = "src/test/resources/files/text.txt";
+
+	private ClickUpEmulator emulator;
+
+	@AfterEach
+	public void stopEmulator() {
+		if (emulator != null) emulator.close();
+	}
+
+	@Test
+	public void TC01_Builder_appliesOptionsToIsolatedInstances() {
+		ClickUpClient bulk = ClickUpClient.builder()
+				.version(HttpClient.Version.HTTP_1_1)
+				.connectTimeout(Duration.ofSeconds(5))
+				.requestTimeout(Duration.ofMinutes(5))
+				.baseUrl("http://localhost:8080/api/v2")
+				.retryPolicy(RetryPolicy.none())
+				.build();
+		ClickUpClient interactive = ClickUpClient.builder().requestTimeout(Duration.ofSeconds(2)).build();
+
+		assertNotSame(bulk.getHttpClient(), interactive.getHttpClient());
+		assertEquals(HttpClient.Version.HTTP_1_1, bulk.getHttpClient().version());
+		assertEquals(Optional.of(Duration.ofSeconds(5)), bulk.getHttpClient().connectTimeout());
+		assertEquals("http://localhost:8080/api/v2/", bulk.getBaseUrl());
+		assertEquals(1, bulk.getRetryPolicy().getMaxAttempts());
+		assertEquals(Optional.of(Duration.ofSeconds(2)), interactive.getRequestTimeout());
+		assertEquals(API_URL_BASE.CLICKUPV2_API_URL_BASE.getUrl(), interactive.getBaseUrl());
+		assertSame(ClickUpClient.getDefault().getHttpClient(), HttpClientProvider.getHttpClient());
+		assertThrows(IllegalArgumentException.class, () -> ClickUpClient.builder().priority(0));
+		assertThrows(IllegalArgumentException.class, () -> ClickUpClient.builder().requestTimeout(Duration.ZERO));
+	}
+
+	@Test
+	public void TC02_Client_sendsToBaseUrlWithItsTokenProvider() throws Exception {
+		emulator = ClickUpEmulator.create().start();
+		ClickUpClient client = ClickUpClient.builder()
+				.baseUrl(emulator.getBaseUrl())
+				.tokenProvider(TokenProviders.of("client-tc02"))
+				.build();
+
+		CreateTaskAttachmentResponse resp = new CreateTaskAttachments(client)
+				.callSyncCreateTaskAttachmentAPI("86aef6x03", FILE, Optional.empty(), Optional.empty());
+
+		assertEquals("text.txt", resp.getName());
+		assertEquals(1, emulator.getFilesReceived());
+	}
+
+	@Test
+	public void TC03_RequestTimeout_failsSlowResponses() throws Exception {
+		emulator = ClickUpEmulator.builder().latency(Duration.ofSeconds(2)).build().start();
+		ClickUpClient client = ClickUpClient.builder()
+				.baseUrl(emulator.getBaseUrl())
+				.tokenProvider(TokenProviders.of("client-tc03"))
+				.requestTimeout(Duration.ofMillis(200))
+				.retryPolicy(RetryPolicy.none())
+				.build();
+
+		assertThrows(HttpTimeoutException.class, () -> new CreateTaskAttachments(client)
+				.callSyncCreateTaskAttachmentAPI("86aef6x03", FILE, Optional.empty(), Optional.empty()));
+	}
+
+	@Test
+	public void TC04_AsyncCall_buildsOnIoExecutorAndReportsFailuresThroughTheFuture() throws Exception {
+		AtomicInteger tasks = new AtomicInteger();
+		ExecutorService io = Executors.newSingleThreadExecutor();
+		try {
+			ClickUpClient client = ClickUpClient.builder()
+					.tokenProvider(TokenProviders.of("client-tc04"))
+					.ioExecutor(task -> {
+						tasks.incrementAndGet();
+						io.execute(task);
+					})
+					.build();
+
+			CompletableFuture<CreateTaskAttachmentResponse> future = new CreateTaskAttachments(client)
+					.callAsyncCreateTaskAttachmentAPI("86aef6x03", "does/not/exist.txt", Optional.empty(), Optional.empty());
+
+			ExecutionException error = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+			assertInstanceOf(IOException.class, error.getCause());
+			assertEquals(1, tasks.get());
+		} finally {
+			io.shutdownNow();
+		}
+	}
+
+	@Test
+	public void TC05_Clients_shareTheRateLimiterOfAToken() {
+		ClickUpClient first = ClickUpClient.builder().build();
+		ClickUpClient second = ClickUpClient.builder().requestTimeout(Duration.ofSeconds(2)).build();
+		RateLimiters own = new RateLimiters();
+		ClickUpClient isolated = ClickUpClient.builder().rateLimiters(own).build();
+
+		RateLimiter limiter = first.getHttpRequestExecutor().getRateLimiters().forToken("client-tc05");
+		assertSame(limiter, second.getHttpRequestExecutor().getRateLimiters().forToken("client-tc05"));
+		assertSame(limiter, ClickUpClient.getDefault().getHttpRequestExecutor().getRateLimiters().forToken("client-tc05"));
+		assertSame(own, isolated.getHttpRequestExecutor().getRateLimiters());
+		assertNotSame(limiter, own.forToken("client-tc05"));
+	}
+}
@@ -0,0 +1,81 @@
+package engine;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import emulator.ClickUpEmulator;
+import helpers.ResolveJsonMappingToObjects;
+import responses.CreateTaskAttachmentResponse;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ClientWarmupTest {
+
+	private ClickUpEmulator emulator;
+
+	@BeforeEach
+	public void startEmulator() throws Exception {
+		emulator = ClickUpEmulator.create().start();
+	}
+
+	@AfterEach
+	public void stopEmulator() {
+		emulator.close();
+	}
+
+	@Test
+	public void TC01_WarmUp_pingsTheApiOnce() throws Exception {
+		ClickUpClient client = client(TokenProviders.of("warmup-test"));
+		HealthCheck health = client.warmUp();
+
+		assertTrue(health.isHealthy(), health.toString());
+		assertTrue(health.isAuthorized());
+		assertEquals(HttpClient.Version.HTTP_1_1, health.getVersion(), "the emulator does not speak HTTP/2");
+		assertFalse(health.getLatency().isNegative());
+		assertEquals(1, emulator.getRequestCount());
+		assertNotNull(ResolveJsonMappingToObjects.convertJSON("{\"id\":\"1\"}", CreateTaskAttachmentResponse.class));
+	}
+
+	@Test
+	public void TC02_Ping_isNeverAnsweredFromTheCache() throws Exception {
+		ClickUpClient client = ClickUpClient.builder()
+				.baseUrl(emulator.getBaseUrl())
+				.tokenProvider(TokenProviders.of("warmup-test"))
+				.responseCache(InMemoryResponseCache.builder().build())
+				.build();
+		client.warmUpAsync().get(5, TimeUnit.SECONDS);
+		assertEquals(200, client.ping().getStatusCode());
+
+		assertEquals(2, emulator.getRequestCount());
+	}
+
+	@Test
+	public void TC03_UnresolvableToken_failsTheWarmUpBeforeSending() throws Exception {
+		ClickUpClient client = client(() -> {
+			throw new IllegalArgumentException("No ClickUp token");
+		});
+		ClientWarmup warmup = ClientWarmup.builder()
+				.responseTypes(Map.class)
+				.pingTimeout(Duration.ofSeconds(1))
+				.build();
+
+		assertThrows(IllegalArgumentException.class, () -> warmup.warmUp(client));
+		ExecutionException error = assertThrows(ExecutionException.class, () -> warmup.warmUpAsync(client).get(5, TimeUnit.SECONDS));
+		assertInstanceOf(IllegalArgumentException.class, error.getCause());
+		assertEquals(0, emulator.getRequestCount());
+	}
+
+	private ClickUpClient client(TokenProvider token_provider) {
+		return ClickUpClient.builder()
+				.baseUrl(emulator.getBaseUrl())
+				.tokenProvider(token_provider)
+				.build();
+	}
+}
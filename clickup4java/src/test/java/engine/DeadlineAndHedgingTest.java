@@ -0,0 +1,229 @@
+package engine;
+
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+
+import emulator.ClickUpEmulator;
+import helpers.DeadlineExceededException;
+import helpers.HttpStatusException;
+import helpers.JsonBodyHandler;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SuppressWarnings("rawtypes")
+public class DeadlineAndHedgingTest {
+
+	private ClickUpEmulator emulator;
+	private ClickUpClient client;
+	private final AtomicInteger requests = new AtomicInteger();
+	/** The number of the next requests answered after {@link #slowMillis}. */
+	private final AtomicInteger slowRequests = new AtomicInteger();
+	private volatile long slowMillis = 1000;
+	private volatile int status = 200;
+
+	@BeforeEach
+	public void startEmulator() throws Exception {
+		emulator = ClickUpEmulator.create().start();
+		emulator.addHandler("/api/v2/list/", this::handle);
+		client = ClickUpClient.builder()
+				.baseUrl(emulator.getBaseUrl())
+				.tokenProvider(TokenProviders.of("deadline-test"))
+				.retryPolicy(RetryPolicy.builder().maxAttempts(4).baseDelay(Duration.ofMillis(50)).build())
+				.build();
+	}
+
+	@AfterEach
+	public void stopEmulator() {
+		emulator.close();
+	}
+
+	@Test
+	public void TC01_Deadline_boundsTheAttemptsOfASyncCall() throws Exception {
+		slowRequests.set(10);
+		long start = System.nanoTime();
+		DeadlineExceededException error = assertThrows(DeadlineExceededException.class,
+				() -> send(uncoalesced("list/1"), CallOptions.withTimeout(Duration.ofMillis(300))));
+		long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+		assertTrue(elapsed < 900, "failed after " + elapsed + " ms");
+		assertNotNull(error.getCause(), "the timed out attempt is the cause");
+		assertEquals(1, requests.get(), "no retry past the deadline");
+
+		// a coalesced GET runs without deadline, its only caller stops waiting and aborts it
+		start = System.nanoTime();
+		assertThrows(DeadlineExceededException.class, () -> get("list/1", CallOptions.withTimeout(Duration.ofMillis(300))));
+		elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+		assertTrue(elapsed < 900, "failed after " + elapsed + " ms");
+		Thread.sleep(1200);
+		assertEquals(2, requests.get(), "the aborted GET is not retried");
+	}
+
+	@Test
+	public void TC02_Deadline_failsAnAsyncCallWithoutWaitingForTheResponse() throws Exception {
+		slowRequests.set(10);
+		slowMillis = 3000;
+		HttpRequest post = client.getHttpRequestProvider()
+				.generateHttpRequestForPOST(client.getBaseUrl() + "list/1", HttpRequest.BodyPublishers.ofString("{}"), Optional.empty());
+		long start = System.nanoTime();
+		CompletableFuture<?> call = client.getHttpRequestExecutor()
+				.sendAsync(post, JsonBodyHandler.of(Map.class), CallOptions.withTimeout(Duration.ofMillis(200)));
+
+		ExecutionException error = assertThrows(ExecutionException.class, () -> call.get(5, TimeUnit.SECONDS));
+		assertInstanceOf(DeadlineExceededException.class, error.getCause());
+		assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(1500));
+	}
+
+	@Test
+	public void TC03_RetryOutlivingTheDeadline_isNotScheduled() throws Exception {
+		status = 503;
+		long start = System.nanoTime();
+		HttpStatusException error = assertThrows(HttpStatusException.class, () -> send(uncoalesced("list/1"),
+				CallOptions.builder().deadline(Instant.now().plusMillis(500)).build()));
+
+		assertEquals(503, error.getStatusCode());
+		assertEquals(1, requests.get(), "Retry-After of 5 seconds is past the deadline");
+		assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(500));
+		assertThrows(DeadlineExceededException.class,
+				() -> get("list/1", CallOptions.builder().deadline(Instant.now().minusSeconds(1)).build()));
+		assertEquals(1, requests.get(), "an expired deadline sends nothing");
+	}
+
+	@Test
+	public void TC04_HedgedGet_keepsTheFirstResponse() throws Exception {
+		slowRequests.set(1);
+		long start = System.nanoTime();
+		Map list = get("list/1", CallOptions.builder().hedgeAfter(Duration.ofMillis(100)).build());
+		long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+		assertEquals("1", list.get("id"));
+		assertTrue(elapsed < 800, "answered by the hedge after " + elapsed + " ms");
+		assertEquals(2, requests.get());
+
+		// fast enough, no hedge
+		get("list/1", CallOptions.builder().hedgeAfter(Duration.ofMillis(500)).build());
+		assertEquals(3, requests.get());
+	}
+
+	@Test
+	public void TC05_PercentileHedging_waitsForEnoughLatencies() throws Exception {
+		slowMillis = 600;
+		CallOptions hedged = CallOptions.builder().hedge().build();
+		slowRequests.set(1);
+		get("list/1", hedged);
+		assertEquals(1, requests.get(), "no latency known yet, not hedged");
+
+		for (int i = 0; i < CallOptions.MINIMUM_HEDGE_SAMPLES; i++) get("list/" + i, CallOptions.none());
+		requests.set(0);
+		slowRequests.set(1);
+		long start = System.nanoTime();
+		CompletableFuture<?> call = client.getHttpRequestExecutor()
+				.sendAsync(request("list/1"), JsonBodyHandler.of(Map.class), hedged);
+		call.get(5, TimeUnit.SECONDS);
+
+		assertEquals(2, requests.get());
+		assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(500));
+	}
+
+	@Test
+	public void TC06_CompletedCall_releasesItsDeadlineTimer() throws Exception {
+		CompletableFuture<?> call = client.getHttpRequestExecutor()
+				.sendAsync(request("list/1"), JsonBodyHandler.of(Map.class), CallOptions.withTimeout(Duration.ofHours(1)));
+		call.get(5, TimeUnit.SECONDS);
+		WeakReference<CompletableFuture<?>> released = new WeakReference<>(call);
+		call = null;
+
+		for (int i = 0; i < 50 && released.get() != null; i++) {
+			System.gc();
+			Thread.sleep(20);
+		}
+		assertNull(released.get(), "no timer keeps the call until its deadline");
+	}
+
+	@Test
+	public void TC07_HedgedServerError_isKeptOverALaterFailure() throws Exception {
+		AtomicBoolean answered = new AtomicBoolean();
+		emulator.addHandler("/api/v2/folder/", exchange -> {
+			boolean primary = answered.compareAndSet(false, true);
+			try {
+				exchange.getRequestBody().readAllBytes();
+				TimeUnit.MILLISECONDS.sleep(primary ? 200 : 400);
+				if (primary) exchange.sendResponseHeaders(503, -1);
+				// the hedge, and any retry of it by the HttpClient, is dropped without any response
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} finally {
+				exchange.close();
+			}
+		});
+		ClickUpClient noRetries = ClickUpClient.builder()
+				.baseUrl(emulator.getBaseUrl())
+				.tokenProvider(TokenProviders.of("deadline-test-tc07"))
+				.retryPolicy(RetryPolicy.none())
+				.build();
+		HttpRequest folder = noRetries.getHttpRequestProvider().generateHttpRequestForGET(noRetries.getBaseUrl() + "folder/1",
+				Optional.empty());
+		CallOptions hedged = CallOptions.builder().hedgeAfter(Duration.ofMillis(100)).build();
+
+		HttpStatusException error = assertThrows(HttpStatusException.class,
+				() -> noRetries.getHttpRequestExecutor().send(folder, JsonBodyHandler.of(Map.class), hedged));
+		assertEquals(503, error.getStatusCode());
+		answered.set(false);
+		assertEquals(503, noRetries.getHttpRequestExecutor().send(folder, HttpResponse.BodyHandlers.discarding(), hedged).statusCode());
+	}
+
+	private HttpRequest request(String path) throws Exception {
+		return client.getHttpRequestProvider().generateHttpRequestForGET(client.getBaseUrl() + path, Optional.empty());
+	}
+
+	/**
+	 * @return a {@code GET} that is never coalesced, so it is sent within the deadline of its caller
+	 */
+	private HttpRequest uncoalesced(String path) throws Exception {
+		return HttpRequestProvider.copyOf(request(path)).header("Cache-Control", "no-cache").build();
+	}
+
+	private Map get(String path, CallOptions options) throws Exception {
+		return send(request(path), options);
+	}
+
+	private Map send(HttpRequest request, CallOptions options) throws Exception {
+		return client.getHttpRequestExecutor().send(request, JsonBodyHandler.of(Map.class), options).body();
+	}
+
+	private void handle(HttpExchange exchange) throws IOException {
+		requests.incrementAndGet();
+		try {
+			exchange.getRequestBody().readAllBytes();
+			if (slowRequests.getAndUpdate(n -> Math.max(0, n - 1)) > 0) TimeUnit.MILLISECONDS.sleep(slowMillis);
+			byte[] bytes = "{\"id\":\"1\"}".getBytes(StandardCharsets.UTF_8);
+			exchange.getResponseHeaders().set("Content-Type", "application/json");
+			if (status == 503) exchange.getResponseHeaders().set("Retry-After", "5");
+			exchange.sendResponseHeaders(status, bytes.length);
+			exchange.getResponseBody().write(bytes);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (IOException e) {
+			// the client aborted the request
+		} finally {
+			exchange.close();
+		}
+	}
+}
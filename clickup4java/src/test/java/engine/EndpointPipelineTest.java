@@ -0,0 +1,143 @@
+package engine;
+
+import java.io.IOException;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+
+import emulator.ClickUpEmulator;
+import helpers.HttpStatusException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SuppressWarnings("rawtypes")
+public class EndpointPipelineTest {
+
+	private static final Endpoint<Void, Map> GET_LIST = Endpoint.builder("GET", "list/{id}")
+			.response(Map.class)
+			.build();
+
+	private static final Endpoint<Map<String, String>, Map> RENAME_LIST = Endpoint.builder("put", "list/{id}")
+			.body(BodyCodec.<Map<String, String>>json())
+			.response(Map.class)
+			.build();
+
+	private ClickUpEmulator emulator;
+	private ClickUpClient client;
+	private final AtomicInteger inFlight = new AtomicInteger();
+	private final AtomicInteger maxInFlight = new AtomicInteger();
+
+	@BeforeEach
+	public void startEmulator() throws Exception {
+		emulator = ClickUpEmulator.create().start();
+		emulator.addHandler("/api/v2/list/", this::handleList);
+		client = ClickUpClient.builder()
+				.baseUrl(emulator.getBaseUrl())
+				.tokenProvider(TokenProviders.of("pipeline-test"))
+				.retryPolicy(RetryPolicy.none())
+				.build();
+	}
+
+	@AfterEach
+	public void stopEmulator() {
+		emulator.close();
+	}
+
+	@Test
+	public void TC01_Request_isExpandedAndEncoded() throws Exception {
+		HttpRequest request = client.getEndpointPipeline().buildRequest(GET_LIST, EndpointRequest.builder()
+				.pathParameter("id", "a b/c")
+				.queryParameter("team_id", "1&2")
+				.queryParameter("archived", "false")
+				.token(Optional.of("explicit-token"))
+				.build());
+
+		assertEquals("GET", request.method());
+		assertEquals(emulator.getBaseUrl() + "list/a%20b%2Fc?team_id=1%262&archived=false", request.uri().toString());
+		assertEquals("explicit-token", request.headers().firstValue("Authorization").orElseThrow());
+		assertEquals("GET /list/{id}", GET_LIST.getName());
+		assertThrows(IllegalArgumentException.class,
+				() -> client.getEndpointPipeline().buildRequest(GET_LIST, EndpointRequest.builder().build()));
+		assertThrows(IllegalArgumentException.class, () -> Endpoint.builder("GET", "list/{}"));
+	}
+
+	@Test
+	public void TC02_Call_sendsThroughTheExecutor() throws Exception {
+		Map list = client.getEndpointPipeline().call(GET_LIST, EndpointRequest.builder().pathParameter("id", "42").build());
+		assertEquals("GET", list.get("method"));
+		assertEquals("42", list.get("id"));
+		assertEquals("pipeline-test", list.get("token"));
+
+		Map renamed = client.getEndpointPipeline()
+				.callAsync(RENAME_LIST, EndpointRequest.builder(Map.of("name", "Sprint 1")).pathParameter("id", "42").build())
+				.get(10, TimeUnit.SECONDS);
+		assertEquals("PUT", renamed.get("method"));
+		assertEquals("application/json", renamed.get("contentType"));
+		assertEquals("{\"name\":\"Sprint 1\"}", renamed.get("body"));
+
+		Throwable error = assertThrows(Exception.class, () -> client.getEndpointPipeline()
+				.callAsync(GET_LIST, EndpointRequest.builder().pathParameter("id", "missing").build())
+				.get(10, TimeUnit.SECONDS)).getCause();
+		assertEquals(404, ((HttpStatusException) error).getStatusCode());
+	}
+
+	@Test
+	public void TC03_Batch_honoursMaxInFlight() throws Exception {
+		List<EndpointRequest<Void>> requests = new ArrayList<>();
+		for (int i = 0; i < 12; i++) {
+			requests.add(EndpointRequest.builder().pathParameter("id", i == 5 ? "missing" : "list-" + i).build());
+		}
+
+		List<CompletableFuture<Map>> results = client.getEndpointPipeline().callBatchAsync(GET_LIST, requests, 3);
+
+		for (int i = 0; i < results.size(); i++) {
+			CompletableFuture<Map> result = results.get(i);
+			if (i == 5) {
+				assertThrows(Exception.class, () -> result.get(10, TimeUnit.SECONDS));
+			} else {
+				assertEquals("list-" + i, result.get(10, TimeUnit.SECONDS).get("id"));
+			}
+		}
+		assertTrue(maxInFlight.get() <= 3, "at most 3 calls at once, got " + maxInFlight.get());
+		assertTrue(maxInFlight.get() >= 2, "calls ran concurrently");
+	}
+
+	private void handleList(HttpExchange exchange) throws IOException {
+		int current = inFlight.incrementAndGet();
+		maxInFlight.accumulateAndGet(current, Math::max);
+		try {
+			TimeUnit.MILLISECONDS.sleep(100);
+			String id = exchange.getRequestURI().getPath().substring("/api/v2/list/".length());
+			String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+			String json = "{\"id\":\"" + id + "\",\"method\":\"" + exchange.getRequestMethod()
+					+ "\",\"token\":\"" + exchange.getRequestHeaders().getFirst("Authorization")
+					+ "\",\"contentType\":\"" + exchange.getRequestHeaders().getFirst("Content-Type")
+					+ "\",\"body\":" + quote(body) + "}";
+			byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+			exchange.getResponseHeaders().set("Content-Type", "application/json");
+			exchange.sendResponseHeaders("missing".equals(id) ? 404 : 200, bytes.length);
+			exchange.getResponseBody().write(bytes);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			inFlight.decrementAndGet();
+			exchange.close();
+		}
+	}
+
+	private static String quote(String value) {
+		return "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+	}
+}
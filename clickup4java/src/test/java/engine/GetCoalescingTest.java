@@ -0,0 +1,190 @@
+package engine;
+
+import java.io.IOException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+
+import emulator.ClickUpEmulator;
+import helpers.DeadlineExceededException;
+import helpers.HttpStatusException;
+import helpers.JsonBodyHandler;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GetCoalescingTest {
+
+	private ClickUpEmulator emulator;
+	private ClickUpClient client;
+	private final AtomicInteger reads = new AtomicInteger();
+
+	@BeforeEach
+	public void startEmulator() throws Exception {
+		emulator = ClickUpEmulator.create().start();
+		emulator.addHandler("/api/v2/list/", this::handleList);
+		client = ClickUpClient.builder()
+				.baseUrl(emulator.getBaseUrl())
+				.tokenProvider(TokenProviders.of("coalescing-test"))
+				.retryPolicy(RetryPolicy.none())
+				.build();
+	}
+
+	@AfterEach
+	public void stopEmulator() {
+		emulator.close();
+	}
+
+	@Test
+	@SuppressWarnings("rawtypes")
+	public void TC01_ConcurrentIdenticalGets_shareOneRequest() throws Exception {
+		List<CompletableFuture<Map>> reads = new ArrayList<>();
+		for (int i = 0; i < 20; i++) {
+			reads.add(client.getHttpRequestExecutor().sendAsync(get("list/42"), JsonBodyHandler.of(Map.class)).thenApply(r -> r.body()));
+		}
+		for (int i = 0; i < 5; i++) {
+			reads.add(CompletableFuture.supplyAsync(() -> {
+				try {
+					return client.getHttpRequestExecutor().send(get("list/42"), JsonBodyHandler.of(Map.class)).body();
+				} catch (Exception e) {
+					throw new IllegalStateException(e);
+				}
+			}));
+		}
+
+		List<Map> bodies = new ArrayList<>();
+		for (CompletableFuture<Map> read : reads) bodies.add(read.get(10, TimeUnit.SECONDS));
+
+		assertEquals(1, this.reads.get());
+		assertEquals("42", bodies.get(0).get("id"));
+		assertNotSame(bodies.get(0), bodies.get(1), "every caller parses its own copy");
+		assertEquals(bodies.get(0), bodies.get(24));
+
+		// nothing in flight anymore, the next read is sent
+		client.getHttpRequestExecutor().send(get("list/42"), JsonBodyHandler.of(Map.class));
+		assertEquals(2, this.reads.get());
+	}
+
+	@Test
+	public void TC02_DifferentTokensOrUris_areNotCoalesced() throws Exception {
+		CompletableFuture<?> first = client.getHttpRequestExecutor().sendAsync(get("list/42"), JsonBodyHandler.of(Map.class));
+		CompletableFuture<?> other = client.getHttpRequestExecutor().sendAsync(get("list/7"), JsonBodyHandler.of(Map.class));
+		CompletableFuture<?> otherToken = client.getHttpRequestExecutor().sendAsync(client.getHttpRequestProvider()
+				.generateHttpRequestForGET(client.getBaseUrl() + "list/42", Optional.of("other-token")), JsonBodyHandler.of(Map.class));
+		CompletableFuture.allOf(first, other, otherToken).get(10, TimeUnit.SECONDS);
+
+		assertEquals(3, reads.get());
+	}
+
+	@Test
+	public void TC03_Failure_isReportedToEveryCaller() throws Exception {
+		CompletableFuture<?> first = client.getHttpRequestExecutor().sendAsync(get("list/missing"), JsonBodyHandler.of(Map.class));
+		CompletableFuture<?> second = client.getHttpRequestExecutor().sendAsync(get("list/missing"), JsonBodyHandler.of(Map.class));
+
+		for (CompletableFuture<?> read : List.of(first, second)) {
+			Throwable error = assertThrows(Exception.class, () -> read.get(10, TimeUnit.SECONDS)).getCause();
+			assertEquals(404, ((HttpStatusException) error).getStatusCode());
+		}
+		assertEquals(1, reads.get());
+	}
+
+	@Test
+	@SuppressWarnings("rawtypes")
+	public void TC04_EveryCaller_waitsWithinItsOwnDeadline() throws Exception {
+		HttpRequestExecutor executor = client.getHttpRequestExecutor();
+		CompletableFuture<?> leader = executor.sendAsync(get("list/42"), JsonBodyHandler.of(Map.class), CallOptions.withTimeout(Duration.ofMillis(100)));
+		CompletableFuture<HttpResponse<Map>> follower = executor.sendAsync(get("list/42"), JsonBodyHandler.of(Map.class),
+				CallOptions.withTimeout(Duration.ofSeconds(5)));
+		CompletableFuture<HttpResponse<Map>> unbounded = executor.sendAsync(get("list/42"), JsonBodyHandler.of(Map.class));
+		CompletableFuture<Map> blocking = CompletableFuture.supplyAsync(() -> {
+			try {
+				return executor.send(get("list/42"), JsonBodyHandler.of(Map.class)).body();
+			} catch (Exception e) {
+				throw new IllegalStateException(e);
+			}
+		});
+
+		Throwable error = assertThrows(ExecutionException.class, () -> leader.get(5, TimeUnit.SECONDS)).getCause();
+		assertInstanceOf(DeadlineExceededException.class, error);
+		assertEquals("42", follower.get(5, TimeUnit.SECONDS).body().get("id"));
+		assertEquals("42", unbounded.get(5, TimeUnit.SECONDS).body().get("id"));
+		assertEquals("42", blocking.get(5, TimeUnit.SECONDS).get("id"));
+		assertEquals(1, reads.get(), "the request outlives the deadline of the caller that sent it");
+	}
+
+	@Test
+	@SuppressWarnings("rawtypes")
+	public void TC05_InterruptedLeader_doesNotFailTheFollowers() throws Exception {
+		HttpRequestExecutor executor = client.getHttpRequestExecutor();
+		CompletableFuture<Throwable> leaderError = new CompletableFuture<>();
+		Thread leader = new Thread(() -> {
+			try {
+				executor.send(get("list/42"), JsonBodyHandler.of(Map.class));
+				leaderError.complete(null);
+			} catch (Exception e) {
+				leaderError.complete(e);
+			}
+		});
+		leader.start();
+		while (executor.getInFlightGetCount() == 0) Thread.sleep(5);
+		CompletableFuture<HttpResponse<Map>> follower = executor.sendAsync(get("list/42"), JsonBodyHandler.of(Map.class));
+		leader.interrupt();
+
+		assertInstanceOf(InterruptedException.class, leaderError.get(5, TimeUnit.SECONDS));
+		assertEquals("42", follower.get(5, TimeUnit.SECONDS).body().get("id"));
+		assertEquals(1, reads.get());
+	}
+
+	@Test
+	public void TC06_AbandonedGet_isAborted() throws Exception {
+		HttpRequestExecutor executor = client.getHttpRequestExecutor();
+		CompletableFuture<?> first = executor.sendAsync(get("list/42"), JsonBodyHandler.of(Map.class));
+		CompletableFuture<?> second = executor.sendAsync(get("list/42"), JsonBodyHandler.of(Map.class));
+		while (reads.get() == 0) Thread.sleep(5);
+		first.cancel(true);
+		Thread.sleep(50);
+		assertEquals(1, executor.getInFlightGetCount(), "one caller still waits");
+		second.cancel(true);
+
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (executor.getInFlightGetCount() > 0 && System.nanoTime() < deadline) Thread.sleep(5);
+		assertEquals(0, executor.getInFlightGetCount(), "the request nobody waits for is aborted");
+		// a new caller leads a new request
+		executor.send(get("list/42"), JsonBodyHandler.of(Map.class));
+		assertEquals(2, reads.get());
+	}
+
+	private HttpRequest get(String path) throws Exception {
+		return client.getHttpRequestProvider().generateHttpRequestForGET(client.getBaseUrl() + path, Optional.empty());
+	}
+
+	private void handleList(HttpExchange exchange) throws IOException {
+		try {
+			reads.incrementAndGet();
+			TimeUnit.MILLISECONDS.sleep(300);
+			String id = exchange.getRequestURI().getPath().substring("/api/v2/list/".length());
+			byte[] bytes = ("{\"id\":\"" + id + "\"}").getBytes(StandardCharsets.UTF_8);
+			exchange.getResponseHeaders().set("Content-Type", "application/json");
+			exchange.sendResponseHeaders("missing".equals(id) ? 404 : 200, bytes.length);
+			exchange.getResponseBody().write(bytes);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			exchange.close();
+		}
+	}
+}
@@ -0,0 +1,72 @@
+package engine;
+
+import java.net.http.HttpHeaders;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RateLimiterTest {
+
+	private static HttpHeaders headers(Map<String, List<String>> values) {
+		return HttpHeaders.of(values, (name, value) -> true);
+	}
+
+	@Test
+	public void TC01_InitialBudget_permitsAreGrantedWithoutWaiting() {
+		RateLimiter limiter = new RateLimiter(10);
+		for (int i = 0; i < 10; i++) {
+			assertEquals(0, limiter.reserve());
+		}
+		assertTrue(limiter.reserve() > 0);
+	}
+
+	@Test
+	public void TC02_LimitHeader_recalibratesBudget() {
+		RateLimiter limiter = new RateLimiter(10);
+		limiter.update(200, headers(Map.of("X-RateLimit-Limit", List.of("1000"),
+				"X-RateLimit-Remaining", List.of("5"))));
+		assertEquals(1000, limiter.getLimit());
+		assertEquals(5, limiter.availablePermits());
+	}
+
+	@Test
+	public void TC03_TooManyRequests_pausesUntilReset() {
+		RateLimiter limiter = new RateLimiter(100);
+		long resetEpochSeconds = System.currentTimeMillis() / 1000 + 30;
+		limiter.update(429, headers(Map.of("X-RateLimit-Remaining", List.of("0"),
+				"X-RateLimit-Reset", List.of(String.valueOf(resetEpochSeconds)))));
+		assertEquals(0, limiter.availablePermits());
+		assertTrue(limiter.estimatedWait().getSeconds() >= 20);
+	}
+
+	@Test
+	public void TC04_MalformedHeaders_areIgnored() {
+		RateLimiter limiter = new RateLimiter(10);
+		limiter.update(200, headers(Map.of("X-RateLimit-Limit", List.of("abc"))));
+		assertEquals(10, limiter.getLimit());
+	}
+
+	@Test
+	public void TC05_Registry_keepsOneLimiterPerToken() {
+		RateLimiters limiters = new RateLimiters();
+		RateLimiter limiter = limiters.forToken("pk_1_A");
+		assertSame(limiter, limiters.forToken("pk_1_A"));
+		assertNotSame(limiter, limiters.forToken("pk_1_B"));
+		assertNotSame(limiter, new RateLimiters().forToken("pk_1_A"), "a registry of its own opts out");
+	}
+
+	@Test
+	public void TC06_Registry_dropsIdleLimiters() {
+		RateLimiters limiters = new RateLimiters();
+		RateLimiter busy = limiters.forToken("busy");
+		busy.reserve();
+		for (int i = 0; i < RateLimiters.PRUNE_THRESHOLD * 2; i++) {
+			limiters.forToken("rotated-" + i);
+		}
+		assertTrue(limiters.size() <= RateLimiters.PRUNE_THRESHOLD, "size " + limiters.size());
+		assertSame(busy, limiters.forToken("busy"), "a limiter with permits taken is kept");
+	}
+}
@@ -0,0 +1,193 @@
+package engine;
+
+import java.io.IOException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+
+import emulator.ClickUpEmulator;
+import helpers.JsonBodyHandler;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ResponseCacheTest {
+
+	private ClickUpEmulator emulator;
+	private final AtomicInteger version = new AtomicInteger(1);
+	private final AtomicInteger reads = new AtomicInteger();
+	private final AtomicInteger notModified = new AtomicInteger();
+	private final CountDownLatch readArrived = new CountDownLatch(1);
+	private volatile CountDownLatch readReleased;
+
+	@BeforeEach
+	public void startEmulator() throws Exception {
+		emulator = ClickUpEmulator.create().start();
+		emulator.addHandler("/api/v2/list/", this::handleList);
+	}
+
+	@AfterEach
+	public void stopEmulator() {
+		emulator.close();
+	}
+
+	@Test
+	public void TC01_FreshResponse_isServedWithoutRequest() throws Exception {
+		InMemoryResponseCache cache = InMemoryResponseCache.builder().timeToLive(Duration.ofMinutes(1)).build();
+		ClickUpClient client = client(cache);
+
+		assertEquals("v1", read(client, "list/42").get("version"));
+		assertEquals("v1", read(client, "list/42").get("version"));
+		assertEquals("v1", client.getHttpRequestExecutor()
+				.sendAsync(get(client, "list/42"), JsonBodyHandler.of(Map.class)).join().body().get("version"));
+
+		assertEquals(1, reads.get());
+		assertEquals(1, cache.size());
+		assertTrue(cache.getBytes() > 0);
+	}
+
+	@Test
+	public void TC02_StaleResponse_isRevalidated() throws Exception {
+		ClickUpClient client = client(InMemoryResponseCache.builder().timeToLive(Duration.ZERO).build());
+
+		read(client, "list/42");
+		assertEquals("v1", read(client, "list/42").get("version"));
+		assertEquals(2, reads.get());
+		assertEquals(1, notModified.get());
+	}
+
+	@Test
+	public void TC03_Write_invalidatesTheResource() throws Exception {
+		ClickUpClient client = client(InMemoryResponseCache.builder().timeToLive(Duration.ofMinutes(1)).build());
+
+		read(client, "list/42");
+		read(client, "list/7");
+		client.getHttpRequestExecutor().send(client.getHttpRequestProvider().generateHttpRequestForPUT(
+				client.getBaseUrl() + "list/42", HttpRequest.BodyPublishers.ofString("{}"), Optional.empty()),
+				JsonBodyHandler.of(Map.class));
+
+		assertEquals("v2", read(client, "list/42").get("version"));
+		read(client, "list/7");
+		assertEquals(3, reads.get());
+	}
+
+	@Test
+	public void TC04_Scope_isPerToken() throws Exception {
+		InMemoryResponseCache cache = InMemoryResponseCache.builder().build();
+		ClickUpClient client = client(cache);
+
+		read(client, "list/42");
+		client.getHttpRequestExecutor().send(client.getHttpRequestProvider()
+				.generateHttpRequestForGET(client.getBaseUrl() + "list/42", Optional.of("other-token")), JsonBodyHandler.of(Map.class));
+
+		assertEquals(2, reads.get());
+		assertEquals(2, cache.size());
+	}
+
+	@Test
+	public void TC05_MaxBytes_evictsLeastRecentlyUsed() throws Exception {
+		InMemoryResponseCache cache = InMemoryResponseCache.builder().maxBytes(700).build();
+		ClickUpClient client = client(cache);
+
+		read(client, "list/1");
+		read(client, "list/2");
+		read(client, "list/3");
+
+		assertTrue(cache.getBytes() <= 700);
+		assertTrue(cache.size() < 3);
+		read(client, "list/3");
+		assertEquals(3, reads.get());
+	}
+
+	@Test
+	@SuppressWarnings("rawtypes")
+	public void TC06_GetInFlightDuringAWrite_isNotStored() throws Exception {
+		InMemoryResponseCache cache = InMemoryResponseCache.builder().timeToLive(Duration.ofMinutes(1)).build();
+		ClickUpClient client = client(cache);
+		readReleased = new CountDownLatch(1);
+
+		CompletableFuture<HttpResponse<Map>> inFlight = client.getHttpRequestExecutor()
+				.sendAsync(get(client, "list/42"), JsonBodyHandler.of(Map.class));
+		assertTrue(readArrived.await(5, TimeUnit.SECONDS));
+		client.getHttpRequestExecutor().send(client.getHttpRequestProvider().generateHttpRequestForPUT(
+				client.getBaseUrl() + "list/42", HttpRequest.BodyPublishers.ofString("{}"), Optional.empty()),
+				JsonBodyHandler.of(Map.class));
+		readReleased.countDown();
+		readReleased = null;
+
+		assertEquals("v1", inFlight.get(5, TimeUnit.SECONDS).body().get("version"), "read before the write");
+		assertEquals(0, cache.size(), "the write completed while the read was in flight");
+		assertEquals("v2", read(client, "list/42").get("version"));
+		assertEquals(2, reads.get());
+	}
+
+	private ClickUpClient client(ResponseCache cache) {
+		return ClickUpClient.builder()
+				.tokenProvider(TokenProviders.of("cache-test"))
+				.responseCache(cache)
+				.baseUrl(emulator.getBaseUrl())
+				.build();
+	}
+
+	private static HttpRequest get(ClickUpClient client, String path) throws Exception {
+		return client.getHttpRequestProvider().generateHttpRequestForGET(client.getBaseUrl() + path, Optional.empty());
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Map<String, Object> read(ClickUpClient client, String path) throws Exception {
+		return client.getHttpRequestExecutor().send(get(client, path), JsonBodyHandler.of(Map.class)).body();
+	}
+
+	private void handleList(HttpExchange exchange) throws IOException {
+		try {
+			exchange.getRequestBody().readAllBytes();
+			if ("PUT".equals(exchange.getRequestMethod())) {
+				version.incrementAndGet();
+				respond(exchange, 200, "{}", null);
+				return;
+			}
+			reads.incrementAndGet();
+			String etag = "\"v" + version.get() + "\"";
+			if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+				notModified.incrementAndGet();
+				exchange.getResponseHeaders().set("ETag", etag);
+				exchange.sendResponseHeaders(304, -1);
+				return;
+			}
+			String body = "{\"id\":\"" + exchange.getRequestURI().getPath() + "\",\"version\":\"v" + version.get() + "\"}";
+			CountDownLatch released = readReleased;
+			if (released != null) {
+				// the representation is read, hold the response while the test writes
+				readArrived.countDown();
+				try {
+					released.await(5, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			respond(exchange, 200, body, etag);
+		} finally {
+			exchange.close();
+		}
+	}
+
+	private static void respond(HttpExchange exchange, int status, String body, String etag) throws IOException {
+		byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", "application/json");
+		if (etag != null) exchange.getResponseHeaders().set("ETag", etag);
+		exchange.sendResponseHeaders(status, bytes.length);
+		exchange.getResponseBody().write(bytes);
+	}
+}
@@ -0,0 +1,170 @@
+package engine;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+
+import emulator.ClickUpEmulator;
+import helpers.CallNotPermittedException;
+import helpers.CallNotPermittedException.Reason;
+import helpers.DeadlineExceededException;
+import helpers.HttpStatusException;
+import helpers.JsonBodyHandler;
+import helpers.UploadCancelledException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SuppressWarnings("rawtypes")
+public class RetryPolicyTest {
+
+	private static final RetryPolicy POLICY = RetryPolicy.defaultPolicy();
+
+	private ClickUpEmulator emulator;
+	private final AtomicInteger requests = new AtomicInteger();
+	/** The number of the next requests answered with {@code 503}. */
+	private final AtomicInteger failures = new AtomicInteger();
+
+	@AfterEach
+	public void stopEmulator() {
+		if (emulator != null) emulator.close();
+	}
+
+	@Test
+	public void TC01_StatusClassification_dependsOnIdempotency() {
+		for (int status : new int[] { 408, 500, 502, 503, 504 }) {
+			assertTrue(POLICY.isRetryable("GET", status), "GET " + status);
+			assertTrue(POLICY.isRetryable("put", status), "PUT " + status);
+			assertFalse(POLICY.isRetryable("POST", status), "a POST may have been processed: " + status);
+		}
+		assertTrue(POLICY.isRetryable("GET", 429));
+		assertTrue(POLICY.isRetryable("POST", 429), "429 is rejected before processing");
+		for (int status : new int[] { 200, 400, 401, 404, 409 }) {
+			assertFalse(POLICY.isRetryable("GET", status), "GET " + status);
+		}
+		assertTrue(RetryPolicy.builder().retryNonIdempotentRequests(true).build().isRetryable("POST", 503));
+	}
+
+	@Test
+	public void TC02_ExceptionClassification_dependsOnWhetherTheRequestWasSent() {
+		assertTrue(POLICY.isRetryable("POST", new ConnectException("Connection refused")), "nothing was sent");
+		assertTrue(POLICY.isRetryable("POST", new CompletionException(new IOException("Received RST_STREAM: Refused stream"))));
+		assertTrue(POLICY.isRetryable("GET", new IOException("Connection reset")));
+		assertFalse(POLICY.isRetryable("POST", new IOException("Connection reset")), "the upload may have been processed");
+
+		assertFalse(POLICY.isRetryable("GET", new UploadCancelledException()));
+		assertFalse(POLICY.isRetryable("GET", new CallNotPermittedException(Reason.CIRCUIT_OPEN, "GET /list/{id}")));
+		assertFalse(POLICY.isRetryable("GET", new CompletionException(new DeadlineExceededException("expired"))));
+		assertFalse(POLICY.isRetryable("GET", new IllegalStateException("not an I/O failure")));
+	}
+
+	@Test
+	public void TC03_RetryAfter_isParsedInSecondsAndHttpDate() {
+		RetryPolicy policy = RetryPolicy.builder().baseDelay(Duration.ofMillis(10)).maxDelay(Duration.ofMillis(10)).jitter(0).build();
+		assertEquals(Duration.ofSeconds(7), policy.delayBeforeRetry(1, retryAfter("7")));
+		assertEquals(Duration.ofSeconds(7), policy.delayBeforeRetry(1, retryAfter(" 7 ")));
+
+		String date = DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.now(ZoneOffset.UTC).plusSeconds(20));
+		Duration untilDate = policy.delayBeforeRetry(1, retryAfter(date));
+		assertTrue(untilDate.compareTo(Duration.ofSeconds(18)) >= 0 && untilDate.compareTo(Duration.ofSeconds(20)) <= 0, untilDate.toString());
+
+		String past = DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.now(ZoneOffset.UTC).minusMinutes(5));
+		assertEquals(Duration.ofMillis(10), policy.delayBeforeRetry(1, retryAfter(past)), "a past date keeps the backoff");
+		assertEquals(Duration.ofMillis(10), policy.delayBeforeRetry(1, retryAfter("soon")), "garbage is ignored");
+		assertEquals(Duration.ofMillis(10), policy.delayBeforeRetry(1, Optional.empty()));
+	}
+
+	@Test
+	public void TC04_Backoff_isCappedAndJitteredDownwards() {
+		RetryPolicy exact = RetryPolicy.builder().baseDelay(Duration.ofMillis(100)).maxDelay(Duration.ofSeconds(1)).jitter(0).build();
+		assertEquals(Duration.ofMillis(100), exact.delayBeforeRetry(1, Optional.empty()));
+		assertEquals(Duration.ofMillis(400), exact.delayBeforeRetry(3, Optional.empty()));
+		assertEquals(Duration.ofSeconds(1), exact.delayBeforeRetry(5, Optional.empty()));
+		assertEquals(Duration.ofSeconds(1), exact.delayBeforeRetry(100, Optional.empty()), "no overflow of the shift");
+
+		RetryPolicy jittered = RetryPolicy.builder().baseDelay(Duration.ofMillis(100)).maxDelay(Duration.ofSeconds(1)).jitter(0.5).build();
+		for (int i = 0; i < 1_000; i++) {
+			long delay = jittered.delayBeforeRetry(2, Optional.empty()).toMillis();
+			assertTrue(delay >= 100 && delay <= 200, "between half and all of the 200 ms backoff: " + delay);
+		}
+		assertThrows(IllegalArgumentException.class, () -> RetryPolicy.builder().jitter(1.5));
+		assertThrows(IllegalArgumentException.class,
+				() -> RetryPolicy.builder().baseDelay(Duration.ofSeconds(2)).maxDelay(Duration.ofSeconds(1)).build());
+	}
+
+	@Test
+	public void TC05_RetryLoop_retriesAGetUntilItSucceeds() throws Exception {
+		emulator = ClickUpEmulator.create().start();
+		emulator.addHandler("/api/v2/list/", this::handle);
+		ClickUpClient client = client(RetryPolicy.builder().maxAttempts(4).baseDelay(Duration.ofMillis(10)).build());
+		failures.set(2);
+
+		HttpRequest get = client.getHttpRequestProvider().generateHttpRequestForGET(client.getBaseUrl() + "list/1", Optional.empty());
+		Map list = client.getHttpRequestExecutor().send(get, JsonBodyHandler.of(Map.class)).body();
+
+		assertEquals("1", list.get("id"));
+		assertEquals(3, requests.get());
+
+		failures.set(10);
+		requests.set(0);
+		assertEquals(503, assertThrows(HttpStatusException.class,
+				() -> client.getHttpRequestExecutor().send(get, JsonBodyHandler.of(Map.class))).getStatusCode());
+		assertEquals(4, requests.get(), "gives up after max_attempts");
+	}
+
+	@Test
+	public void TC06_RetryLoop_neverRepeatsAnUploadAnswered503() throws Exception {
+		emulator = ClickUpEmulator.builder().errorRate(1).errorStatus(503).build().start();
+		ClickUpClient client = client(RetryPolicy.builder().maxAttempts(3).baseDelay(Duration.ofMillis(10)).build());
+		HttpRequest post = client.getHttpRequestProvider().generateHttpRequestForPOST(client.getBaseUrl() + "task/86aef6x03/attachment",
+				HttpRequest.BodyPublishers.ofString("{}"), Optional.empty());
+
+		assertThrows(HttpStatusException.class, () -> client.getHttpRequestExecutor().send(post, JsonBodyHandler.of(Map.class)));
+		assertEquals(1, emulator.getRequestCount());
+
+		ClickUpClient duplicates = client(RetryPolicy.builder().maxAttempts(3).baseDelay(Duration.ofMillis(10))
+				.retryNonIdempotentRequests(true).build());
+		assertThrows(HttpStatusException.class, () -> duplicates.getHttpRequestExecutor().send(post, JsonBodyHandler.of(Map.class)));
+		assertEquals(4, emulator.getRequestCount(), "opted in, the upload is sent 3 times");
+	}
+
+	private ClickUpClient client(RetryPolicy retry_policy) {
+		return ClickUpClient.builder()
+				.baseUrl(emulator.getBaseUrl())
+				.tokenProvider(TokenProviders.of("retry-test"))
+				.retryPolicy(retry_policy)
+				.build();
+	}
+
+	private static Optional<HttpHeaders> retryAfter(String value) {
+		return Optional.of(HttpHeaders.of(Map.of("Retry-After", List.of(value)), (name, v) -> true));
+	}
+
+	private void handle(HttpExchange exchange) throws IOException {
+		requests.incrementAndGet();
+		try {
+			boolean fail = failures.getAndUpdate(n -> Math.max(0, n - 1)) > 0;
+			byte[] bytes = (fail ? "{\"err\":\"unavailable\"}" : "{\"id\":\"1\"}").getBytes(StandardCharsets.UTF_8);
+			exchange.getResponseHeaders().set("Content-Type", "application/json");
+			exchange.sendResponseHeaders(fail ? 503 : 200, bytes.length);
+			exchange.getResponseBody().write(bytes);
+		} finally {
+			exchange.close();
+		}
+	}
+}
@@ -0,0 +1,155 @@
+package engine;
+
+import java.net.http.HttpHeaders;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import api.attachments.CreateTaskAttachments;
+import emulator.ClickUpEmulator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TokenPoolTest {
+
+	private static final HttpHeaders NONE = HttpHeaders.of(Map.of(), (name, value) -> true);
+
+	private ClickUpEmulator emulator;
+
+	@AfterEach
+	public void stopEmulator() {
+		if (emulator != null) emulator.close();
+	}
+
+	@Test
+	public void TC01_Tokens_areSpreadEvenly() {
+		TokenPool pool = new TokenPool(List.of("a", "b", "c"), new RateLimiters());
+		Map<String, Integer> picks = new HashMap<>();
+		for (int i = 0; i < 30; i++) {
+			picks.merge(pool.getToken(), 1, Integer::sum);
+		}
+		assertEquals(Map.of("a", 10, "b", 10, "c", 10), picks);
+	}
+
+	@Test
+	public void TC02_TooManyRequests_excludesTheTokenUntilItsReset() {
+		TokenPool pool = new TokenPool(List.of("a", "b"), new RateLimiters());
+		pool.onResponse("a", 429, reset(30));
+
+		assertTrue(pool.isThrottled("a"));
+		assertEquals(1, pool.getThrottledCount("a"));
+		for (int i = 0; i < 10; i++) {
+			assertEquals("b", pool.getToken());
+		}
+
+		pool.onResponse("b", 429, reset(60));
+		assertEquals("a", pool.getToken(), "every token is throttled, the one resetting first is used");
+	}
+
+	@Test
+	public void TC03_ExpiredReset_putsTheTokenBack() throws Exception {
+		TokenPool pool = new TokenPool(List.of("a", "b"), new RateLimiters());
+		pool.onResponse("a", 429, NONE);
+		assertTrue(pool.isThrottled("a"), "without a reset time, a token waits for one permit");
+		Thread.sleep(60_000 / RateLimiter.getInitialRequestsPerMinute() + 50);
+		assertFalse(pool.isThrottled("a"));
+	}
+
+	@Test
+	public void TC04_Unauthorized_removesTheTokenUntilRestored() {
+		TokenPool pool = new TokenPool(List.of("a", "b"), new RateLimiters());
+		pool.onResponse("a", 401, NONE);
+		assertFalse(pool.isHealthy("a"));
+		for (int i = 0; i < 5; i++) {
+			assertEquals("b", pool.getToken());
+		}
+		pool.onResponse("b", 401, NONE);
+		assertThrows(IllegalStateException.class, pool::getToken);
+
+		pool.restore("a");
+		assertEquals("a", pool.getToken());
+	}
+
+	@Test
+	public void TC05_Pool_staysWithinTheRateLimitOfEachToken() throws Exception {
+		emulator = ClickUpEmulator.builder().rateLimitPerMinute(2).build().start();
+		TokenPool pool = new TokenPool(List.of("pool-tc05-a", "pool-tc05-b"));
+		CreateTaskAttachments attachments = new CreateTaskAttachments(ClickUpClient.builder()
+				.baseUrl(emulator.getBaseUrl())
+				.tokenProvider(pool)
+				.retryPolicy(RetryPolicy.none())
+				.build());
+
+		for (int i = 0; i < 4; i++) {
+			attachments.callSyncCreateTaskAttachmentAPI("86aef6x03", Paths.get("src/test/resources/files/text.txt").toString(),
+					Optional.empty(), Optional.empty());
+		}
+		// the emulator counts a status once the response is written, possibly after the client read it
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (!emulator.getStatusCounts().equals(Map.of(200, 4L)) && System.nanoTime() < deadline) Thread.sleep(10);
+		assertEquals(Map.of(200, 4L), emulator.getStatusCounts());
+		assertEquals(0, pool.getThrottledCount("pool-tc05-a") + pool.getThrottledCount("pool-tc05-b"));
+	}
+
+	@Test
+	public void TC06_ConcurrentPicks_takeOnePermitEach() throws Exception {
+		RateLimiters limiters = new RateLimiters();
+		TokenPool pool = new TokenPool(List.of("a", "b"), limiters);
+		Map<String, Integer> picks = new ConcurrentHashMap<>();
+		CountDownLatch start = new CountDownLatch(1);
+		CompletableFuture<?>[] pickers = new CompletableFuture<?>[4];
+		for (int t = 0; t < pickers.length; t++) {
+			pickers[t] = CompletableFuture.runAsync(() -> {
+				try {
+					start.await();
+				} catch (InterruptedException e) {
+					throw new IllegalStateException(e);
+				}
+				for (int i = 0; i < 20; i++) picks.merge(pool.getToken(), 1, Integer::sum);
+			});
+		}
+		start.countDown();
+		CompletableFuture.allOf(pickers).get(5, TimeUnit.SECONDS);
+
+		int initial = RateLimiter.getInitialRequestsPerMinute();
+		assertEquals(80, picks.get("a") + picks.get("b"));
+		assertTrue(Math.abs(picks.get("a") - picks.get("b")) <= 1, "picks " + picks);
+		for (String token : List.of("a", "b")) {
+			long taken = initial - limiters.forToken(token).availablePermits();
+			assertTrue(Math.abs(taken - picks.get(token)) <= 1, token + " took " + taken + " for " + picks.get(token) + " picks");
+		}
+	}
+
+	@Test
+	public void TC07_PickedPermit_isUsedBySendingOrGivenBack() {
+		RateLimiters limiters = new RateLimiters();
+		TokenPool pool = new TokenPool(List.of("a"), limiters);
+		RateLimiter limiter = limiters.forToken("a");
+		long initial = limiter.availablePermits();
+
+		pool.getToken();
+		assertEquals(initial - 1, limiter.availablePermits());
+		assertEquals(0, limiter.reserve(), "sending uses the permit of the pick");
+		assertEquals(initial - 1, limiter.availablePermits());
+
+		pool.getToken();
+		limiter.giveBack();
+		assertEquals(initial - 1, limiter.availablePermits(), "an unsent request gives its permit back");
+		limiter.giveBack();
+		assertEquals(initial - 1, limiter.availablePermits(), "only handed out permits are given back");
+	}
+
+	private static HttpHeaders reset(long seconds) {
+		return HttpHeaders.of(Map.of("X-RateLimit-Remaining", List.of("0"),
+				"X-RateLimit-Reset", List.of(String.valueOf(System.currentTimeMillis() / 1000 + seconds))), (name, value) -> true);
+	}
+}
@@ -0,0 +1,76 @@
+package engine.metrics;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ClickUpMetricsTest {
+
+	@Test
+	public void TC01_EndpointLabel_replacesTheIdsOfKnownCollections() {
+		assertEquals("POST /task/{id}/attachment", label("POST", "https://api.clickup.com/api/v2/task/86aef6x03/attachment?team_id=9"));
+		assertEquals("GET /list/{id}/task", label("GET", "https://api.clickup.com/api/v2/list/901/task"));
+		assertEquals("POST /checklist/{id}/checklist_item/{id}", label("POST", "http://localhost/api/v2/checklist/c1/checklist_item/i2"));
+		assertEquals("GET /task/{id}", label("GET", "http://localhost/api/v2/task/task"), "a collection name used as id");
+		assertEquals("GET /user", label("GET", "http://localhost/api/v2/user"));
+		assertEquals("GET /unknown/42", label("GET", "http://localhost/api/v2/unknown/42"), "ids of other paths are kept");
+		assertEquals("GET /v1/health", label("GET", "http://localhost/v1/health"), "no version prefix to remove");
+		assertEquals("GET /", label("GET", "http://localhost"));
+	}
+
+	@Test
+	public void TC02_Registry_aggregatesPerEndpoint() {
+		ClickUpMetricsRegistry registry = new ClickUpMetricsRegistry();
+		String endpoint = "POST /task/{id}/attachment";
+		registry.onCallStarted(endpoint);
+		registry.onCallStarted(endpoint);
+		registry.onCallStarted("GET /user");
+		assertEquals(2, registry.getInFlight(endpoint));
+
+		registry.onRetry(endpoint, 1, Duration.ofMillis(100));
+		registry.onCallCompleted(endpoint, 200, Duration.ofMillis(40), 1_000, 2);
+		registry.onCallCompleted(endpoint, -1, Duration.ofMillis(80), 500, 1);
+		registry.onStage(Stage.NETWORK, endpoint, Duration.ofMillis(30));
+
+		assertEquals(0, registry.getInFlight(endpoint));
+		assertEquals(1, registry.getInFlight("GET /user"));
+		assertEquals(Map.of(-1, 1L, 200, 1L), registry.getStatusCounts(endpoint));
+		assertEquals(2, registry.getLatency(endpoint).getCount());
+		assertEquals(Duration.ofMillis(80), registry.getLatency(endpoint).getMax());
+		assertEquals(1, registry.getRetries(endpoint));
+		assertEquals(1_500, registry.getBytesUploaded());
+		assertEquals(1, registry.getStage(Stage.NETWORK).getCount());
+		assertEquals(0, registry.getStage(Stage.RESPONSE_MAPPING).getCount());
+		assertTrue(registry.getEndpoints().containsAll(Set.of(endpoint, "GET /user")));
+	}
+
+	@Test
+	public void TC03_FailingListener_neverFailsTheCall() {
+		ClickUpMetricsRegistry registry = new ClickUpMetricsRegistry();
+		ClickUpMetricsListener failing = new ClickUpMetricsListener() {
+			@Override
+			public void onCallStarted(String endpoint) {
+				throw new IllegalStateException("broken exporter");
+			}
+		};
+		ClickUpMetrics.addListener(failing);
+		ClickUpMetrics.addListener(registry);
+		try {
+			assertTrue(ClickUpMetrics.hasListeners());
+			ClickUpMetrics.recordCallStarted("GET /metrics-tc03");
+			assertEquals(1, registry.getInFlight("GET /metrics-tc03"), "the next listeners are still called");
+		} finally {
+			ClickUpMetrics.removeListener(failing);
+			ClickUpMetrics.removeListener(registry);
+		}
+	}
+
+	private static String label(String method, String uri) {
+		return ClickUpMetrics.endpointOf(method, URI.create(uri));
+	}
+}
@@ -0,0 +1,55 @@
+package engine.metrics;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LatencyHistogramTest {
+
+	@Test
+	public void TC01_Empty_reportsZero() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		assertEquals(0, histogram.getCount());
+		assertEquals(Duration.ZERO, histogram.getMean());
+		assertEquals(Duration.ZERO, histogram.getPercentile(99));
+		assertEquals(Duration.ZERO, histogram.getMax());
+	}
+
+	@Test
+	public void TC02_SmallValues_areExact() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		for (long micros = 0; micros < 8; micros++) histogram.record(Duration.ofNanos(micros * 1000));
+		assertEquals(Duration.ofNanos(3000), histogram.getPercentile(50));
+		assertEquals(Duration.ofNanos(7000), histogram.getPercentile(100));
+		assertEquals(Duration.ZERO, histogram.getPercentile(0), "the first value");
+	}
+
+	@Test
+	public void TC03_Percentiles_areBoundedAboveWithinTheBucketError() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		for (int millis = 1; millis <= 100; millis++) histogram.record(Duration.ofMillis(millis));
+
+		assertEquals(100, histogram.getCount());
+		assertEquals(Duration.ofNanos(50_500_000), histogram.getMean());
+		assertEquals(Duration.ofMillis(100), histogram.getMax());
+		for (int percentile : new int[] { 10, 50, 90, 99 }) {
+			long expected = Duration.ofMillis(percentile).toNanos();
+			long actual = histogram.getPercentile(percentile).toNanos();
+			assertTrue(actual >= expected && actual <= expected * 1.125, "p" + percentile + " = " + actual);
+		}
+		assertEquals(Duration.ofMillis(100), histogram.getPercentile(100), "capped by the max, not the bucket bound");
+	}
+
+	@Test
+	public void TC04_ExtremeValues_areRecorded() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		histogram.record(Duration.ofNanos(-5));
+		histogram.record(Duration.ofDays(365 * 100));
+		assertEquals(Duration.ZERO, histogram.getPercentile(50), "a negative duration counts as zero");
+		assertEquals(Duration.ofDays(365 * 100), histogram.getPercentile(100));
+		assertThrows(IllegalArgumentException.class, () -> histogram.getPercentile(100.5));
+		assertThrows(IllegalArgumentException.class, () -> histogram.getPercentile(-1));
+	}
+}
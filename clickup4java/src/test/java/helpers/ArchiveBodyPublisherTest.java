@@ -0,0 +1,137 @@
+package helpers;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ArchiveBodyPublisherTest {
+
+	private static final String BOUNDARY = "b0undary";
+	/** Random bytes do not compress, so the archive is several times the pipe capacity. */
+	private static final int FILE_SIZE = ArchiveBodyPublisher.CHUNK_SIZE * ArchiveBodyPublisher.PIPE_CAPACITY * 3;
+
+	@TempDir
+	Path directory;
+
+	/** A single thread, so a producer holding it would block every other task. */
+	private ExecutorService executor;
+
+	@BeforeEach
+	public void startExecutor() {
+		executor = Executors.newSingleThreadExecutor();
+	}
+
+	@AfterEach
+	public void stopExecutor() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	public void TC01_SlowUpload_doesNotHoldTheExecutor() throws Exception {
+		byte[] content = new byte[FILE_SIZE];
+		new Random(1).nextBytes(content);
+		Files.write(directory.resolve("dump.bin"), content);
+		Subscriber subscriber = new Subscriber();
+		new ArchiveBodyPublisher(BOUNDARY, directory, "**", ArchiveFormat.ZIP, executor).subscribe(subscriber);
+
+		subscriber.request(1);
+		subscriber.awaitChunks(1);
+		// the upload stalls: the producer fills the pipe and gives the thread back
+		assertEquals("free", executor.submit(() -> "free").get(5, TimeUnit.SECONDS));
+		assertEquals(1, subscriber.chunks.get());
+
+		subscriber.request(Long.MAX_VALUE);
+		byte[] body = subscriber.body.get(30, TimeUnit.SECONDS);
+		String text = new String(body, StandardCharsets.ISO_8859_1);
+		byte[] archive = Arrays.copyOfRange(body, text.indexOf("\r\n\r\n") + 4, text.lastIndexOf("\r\n--" + BOUNDARY + "--"));
+		try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(archive))) {
+			ZipEntry entry = zip.getNextEntry();
+			assertEquals("dump.bin", entry.getName());
+			assertArrayEquals(content, zip.readAllBytes());
+			assertNull(zip.getNextEntry());
+		}
+	}
+
+	@Test
+	public void TC02_Cancel_stopsTheProducer() throws Exception {
+		byte[] content = new byte[FILE_SIZE];
+		new Random(2).nextBytes(content);
+		Files.write(directory.resolve("dump.bin"), content);
+		Subscriber subscriber = new Subscriber();
+		new ArchiveBodyPublisher(BOUNDARY, directory, "**", ArchiveFormat.TAR_GZ, executor).subscribe(subscriber);
+
+		subscriber.request(1);
+		subscriber.awaitChunks(1);
+		subscriber.subscription.cancel();
+		subscriber.request(10);
+		assertEquals("free", executor.submit(() -> "free").get(5, TimeUnit.SECONDS));
+
+		assertEquals(1, subscriber.chunks.get(), "nothing is emitted after cancel");
+		assertFalse(subscriber.body.isDone());
+	}
+
+	private static final class Subscriber implements Flow.Subscriber<ByteBuffer> {
+
+		private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		private final CompletableFuture<byte[]> body = new CompletableFuture<>();
+		private final AtomicInteger chunks = new AtomicInteger();
+		private final AtomicReference<Throwable> error = new AtomicReference<>();
+		private volatile Flow.Subscription subscription;
+
+		void request(long n) {
+			subscription.request(n);
+		}
+
+		void awaitChunks(int count) throws InterruptedException {
+			long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+			while (chunks.get() < count && System.nanoTime() < deadline) Thread.sleep(10);
+			assertNull(error.get());
+			assertEquals(count, chunks.get());
+		}
+
+		@Override
+		public void onSubscribe(Flow.Subscription subscription) {
+			this.subscription = subscription;
+		}
+
+		@Override
+		public synchronized void onNext(ByteBuffer item) {
+			byte[] bytes = new byte[item.remaining()];
+			item.get(bytes);
+			out.writeBytes(bytes);
+			chunks.incrementAndGet();
+		}
+
+		@Override
+		public void onError(Throwable throwable) {
+			error.set(throwable);
+			body.completeExceptionally(throwable);
+		}
+
+		@Override
+		public synchronized void onComplete() {
+			body.complete(out.toByteArray());
+		}
+	}
+}
@@ -0,0 +1,202 @@
+package helpers;
+
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse.BodySubscriber;
+import java.net.http.HttpResponse.ResponseInfo;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+
+import emulator.ClickUpEmulator;
+import responses.CreateTaskAttachmentResponse;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SuppressWarnings("rawtypes")
+public class JsonBodyHandlerTest {
+
+	private static final String RESPONSE = "{\"id\":\"9a8b7c6d.jpg\",\"version\":\"0\",\"date\":1700000000000,"
+			+ "\"name\":\"relat\u00f3rio de reuni\u00e3o \u65e5\u672c\u8a9e.pdf\",\"title\":\"a\u00e7\u00e3o\",\"extension\":\"pdf\",\"source\":2,"
+			+ "\"url\":\"https://t900.p.clickup-attachments.com/relat%C3%B3rio.pdf\"}";
+
+	private ClickUpEmulator emulator;
+
+	@AfterEach
+	public void stopEmulator() {
+		if (emulator != null) emulator.close();
+	}
+
+	@Test
+	public void TC01_ChunksSplitInsideTokens_areBoundOnBothPaths() throws Exception {
+		byte[] body = RESPONSE.getBytes(StandardCharsets.UTF_8);
+		JsonBodyHandler<CreateTaskAttachmentResponse> handler = JsonBodyHandler.of(CreateTaskAttachmentResponse.class);
+
+		for (ResponseInfo info : new ResponseInfo[] { info(200, body.length), info(200, -1) }) {
+			CreateTaskAttachmentResponse response = feed(handler.apply(info), body).get(10, TimeUnit.SECONDS);
+			assertEquals("9a8b7c6d.jpg", response.getId());
+			assertEquals("relat\u00f3rio de reuni\u00e3o \u65e5\u672c\u8a9e.pdf", response.getName(), "multi-byte characters split across chunks");
+			assertEquals("a\u00e7\u00e3o", response.getTitle());
+			assertEquals(1700000000000L, response.getDate().toEpochMilli());
+			assertEquals(2, response.getSource());
+		}
+	}
+
+	@Test
+	public void TC02_NonSuccessStatus_failsWithTheBodyText() {
+		String error = "{\"err\":\"Task not found, deleted\",\"ECODE\":\"ITEM_013\"}";
+		BodySubscriber<Map> subscriber = JsonBodyHandler.of(Map.class).apply(info(404, error.length()));
+
+		ExecutionException failure = assertThrows(ExecutionException.class,
+				() -> feed(subscriber, error.getBytes(StandardCharsets.UTF_8)).get(10, TimeUnit.SECONDS));
+		HttpStatusException cause = assertInstanceOf(HttpStatusException.class, failure.getCause());
+		assertEquals(404, cause.getStatusCode());
+		assertEquals(error, cause.getBody());
+	}
+
+	@Test
+	public void TC03_MalformedJson_failsOnBothPaths() {
+		for (String malformed : new String[] { "{\"id\":\"1\",", "{\"id\": tru}" }) {
+			byte[] body = malformed.getBytes(StandardCharsets.UTF_8);
+			for (ResponseInfo info : new ResponseInfo[] { info(200, body.length), info(200, -1) }) {
+				ExecutionException failure = assertThrows(ExecutionException.class,
+						() -> feed(JsonBodyHandler.of(Map.class).apply(info), body).get(10, TimeUnit.SECONDS), malformed);
+				assertInstanceOf(JsonProcessingException.class, failure.getCause(), malformed);
+			}
+		}
+	}
+
+	@Test
+	public void TC04_LargeChunkedList_isStreamedOnTheExecutor() throws Exception {
+		StringBuilder json = new StringBuilder("[");
+		for (int i = 0; i < 20_000; i++) {
+			if (i > 0) json.append(',');
+			json.append("{\"id\":\"").append(i).append("\",\"name\":\"attachment-").append(i).append(".txt\",\"size\":").append(i * 7).append('}');
+		}
+		byte[] body = json.append(']').toString().getBytes(StandardCharsets.UTF_8);
+		assertTrue(body.length > JsonBodyHandler.MAX_BUFFERED_BODY);
+
+		emulator = ClickUpEmulator.create().start();
+		emulator.addHandler("/api/v2/list/", exchange -> {
+			exchange.getResponseHeaders().set("Content-Type", "application/json");
+			exchange.sendResponseHeaders(200, 0);
+			try (OutputStream out = exchange.getResponseBody()) {
+				for (int i = 0; i < body.length; i += 8192) {
+					out.write(body, i, Math.min(8192, body.length - i));
+				}
+			}
+		});
+		AtomicInteger streamed = new AtomicInteger();
+		Executor executor = task -> {
+			streamed.incrementAndGet();
+			new Thread(task).start();
+		};
+
+		HttpRequest request = HttpRequest.newBuilder(URI.create(emulator.getBaseUrl() + "list/1/attachment")).build();
+		List<HashMap> list = HttpClient.newHttpClient().send(request, JsonBodyHandler.ofList(HashMap.class, executor)).body();
+
+		assertEquals(20_000, list.size());
+		assertEquals("attachment-19999.txt", list.get(19_999).get("name"));
+		assertEquals(1, streamed.get(), "a body without length is bound by one task of the executor");
+
+		feed(JsonBodyHandler.of(Map.class, executor).apply(info(200, 2)), "{}".getBytes(StandardCharsets.UTF_8)).get(10, TimeUnit.SECONDS);
+		assertEquals(1, streamed.get(), "a small body is bound on completion");
+	}
+
+	@Test
+	public void TC05_EmptySuccessfulBody_isMappedToNullOrAnEmptyList() throws Exception {
+		assertNull(feed(JsonBodyHandler.of(Map.class).apply(info(204, -1)), new byte[0]).get(10, TimeUnit.SECONDS));
+		for (String blank : new String[] { "", " \r\n" }) {
+			byte[] body = blank.getBytes(StandardCharsets.UTF_8);
+			for (ResponseInfo info : new ResponseInfo[] { info(200, body.length), info(200, -1) }) {
+				assertNull(feed(JsonBodyHandler.of(Map.class).apply(info), body).get(10, TimeUnit.SECONDS), "'" + blank + "'");
+				assertEquals(List.of(), feed(JsonBodyHandler.ofList(Map.class).apply(info), body).get(10, TimeUnit.SECONDS));
+			}
+		}
+	}
+
+	@Test
+	public void TC06_StreamedBodies_shareABoundedNumberOfThreads() throws Exception {
+		int bodies = Runtime.getRuntime().availableProcessors() * 4 + 8;
+		List<SubmissionPublisher<List<ByteBuffer>>> publishers = new ArrayList<>();
+		List<CompletableFuture<Map>> results = new ArrayList<>();
+		for (int i = 0; i < bodies; i++) {
+			SubmissionPublisher<List<ByteBuffer>> publisher = new SubmissionPublisher<>();
+			BodySubscriber<Map> subscriber = JsonBodyHandler.of(Map.class).apply(info(200, -1));
+			publisher.subscribe(subscriber);
+			publishers.add(publisher);
+			results.add(subscriber.getBody().toCompletableFuture());
+		}
+		// every body is still arriving, so each thread binding one is blocked on it
+		Thread.sleep(200);
+		long threads = Thread.getAllStackTraces().keySet().stream()
+				.filter(thread -> thread.getName().startsWith("clickup4java-json-"))
+				.count();
+		assertTrue(threads <= Math.max(2, Runtime.getRuntime().availableProcessors()), threads + " threads for " + bodies + " bodies");
+
+		for (int i = 0; i < bodies; i++) {
+			try (SubmissionPublisher<List<ByteBuffer>> publisher = publishers.get(i)) {
+				publisher.submit(List.of(ByteBuffer.wrap(("{\"id\":\"" + i + "\"}").getBytes(StandardCharsets.UTF_8))));
+			}
+		}
+		for (int i = 0; i < bodies; i++) {
+			assertEquals(String.valueOf(i), results.get(i).get(10, TimeUnit.SECONDS).get("id"));
+		}
+	}
+
+	/**
+	 * Publishes the body in chunks of 1, 2 and 3 bytes, honouring the demand of the subscriber.
+	 */
+	private static <T> CompletableFuture<T> feed(BodySubscriber<T> subscriber, byte[] body) {
+		try (SubmissionPublisher<List<ByteBuffer>> publisher = new SubmissionPublisher<>()) {
+			publisher.subscribe(subscriber);
+			for (int i = 0, size = 1; i < body.length; i += size, size = size % 3 + 1) {
+				publisher.submit(List.of(ByteBuffer.wrap(body, i, Math.min(size, body.length - i)).slice()));
+			}
+		}
+		return subscriber.getBody().toCompletableFuture();
+	}
+
+	/**
+	 * @param content_length the announced length, or {@code -1} for none
+	 */
+	private static ResponseInfo info(int status_code, int content_length) {
+		Map<String, List<String>> headers = new HashMap<>();
+		headers.put("Content-Type", List.of("application/json"));
+		if (content_length >= 0) headers.put("Content-Length", List.of(String.valueOf(content_length)));
+		HttpHeaders httpHeaders = HttpHeaders.of(headers, (name, value) -> true);
+		return new ResponseInfo() {
+			@Override
+			public int statusCode() {
+				return status_code;
+			}
+
+			@Override
+			public HttpHeaders headers() {
+				return httpHeaders;
+			}
+
+			@Override
+			public HttpClient.Version version() {
+				return HttpClient.Version.HTTP_1_1;
+			}
+		};
+	}
+}
@@ -0,0 +1,143 @@
+package helpers;
+
+import java.io.ByteArrayOutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import emulator.ClickUpEmulator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MultipartBodyPublisherTest {
+
+	private static final String BOUNDARY = "clickup4java-test-boundary";
+
+	@TempDir
+	Path directory;
+
+	private ClickUpEmulator emulator;
+
+	@AfterEach
+	public void stopEmulator() {
+		if (emulator != null) emulator.close();
+	}
+
+	@Test
+	public void TC01_MappedFile_emitsExactlyContentLengthBytes() throws Exception {
+		byte[] large = randomBytes(MultipartBodyPublisher.MEMORY_MAP_THRESHOLD + 12_345, 1);
+		byte[] small = randomBytes(1_000, 2);
+		Path largeFile = Files.write(directory.resolve("video.mp4"), large);
+		Path smallFile = Files.write(directory.resolve("notes.txt"), small);
+		MultipartBodyPublisher publisher = MultipartBodyPublisher.builder(BOUNDARY)
+				.addFilePart("attachment", largeFile)
+				.addFilePart("attachment", smallFile)
+				.build();
+
+		ByteArrayOutputStream expected = new ByteArrayOutputStream();
+		expected.write(header("video.mp4", "video/mp4", false));
+		expected.write(large);
+		expected.write(header("notes.txt", "text/plain", true));
+		expected.write(small);
+		expected.write(("\r\n--" + BOUNDARY + "--\r\n").getBytes(StandardCharsets.UTF_8));
+
+		for (int subscription = 0; subscription < 2; subscription++) {
+			AtomicBoolean mapped = new AtomicBoolean();
+			byte[] body = collect(publisher, mapped).get(30, TimeUnit.SECONDS);
+			assertEquals(publisher.contentLength(), body.length, "subscription " + subscription);
+			assertArrayEquals(expected.toByteArray(), body, "subscription " + subscription);
+			if (!System.getProperty("os.name", "").startsWith("Windows")) {
+				assertTrue(mapped.get(), "the large file is memory-mapped");
+			}
+		}
+	}
+
+	@Test
+	public void TC02_MappedFile_roundTripsThroughTheEmulatorParser() throws Exception {
+		emulator = ClickUpEmulator.create().start();
+		long largeSize = MultipartBodyPublisher.MEMORY_MAP_THRESHOLD * 2 + 7;
+		Path largeFile = Files.write(directory.resolve("archive.zip"), randomBytes(largeSize, 3));
+		Path smallFile = Files.write(directory.resolve("image.jpg"), randomBytes(5_000, 4));
+		MultipartBodyPublisher publisher = MultipartBodyPublisher.builder(BOUNDARY)
+				.addFilePart("attachment", largeFile)
+				.addFilePart("attachment", smallFile)
+				.build();
+
+		HttpRequest request = HttpRequest.newBuilder(URI.create(emulator.getBaseUrl() + "task/86aef6x03/attachment"))
+				.header("Authorization", "multipart-test")
+				.header("Content-Type", "multipart/form-data; boundary=" + BOUNDARY)
+				.POST(publisher)
+				.build();
+		HttpResponse<String> response = HttpClient.newHttpClient().send(request, HttpResponse.BodyHandlers.ofString());
+
+		assertEquals(200, response.statusCode(), response.body());
+		assertTrue(response.body().contains("\"name\":\"archive.zip\""), response.body());
+		assertEquals(2, emulator.getFilesReceived());
+		assertEquals(largeSize + 5_000, emulator.getBytesReceived());
+	}
+
+	private static byte[] header(String file_name, String content_type, boolean following) {
+		return ((following ? "\r\n" : "") + "--" + BOUNDARY + "\r\n"
+				+ "Content-Disposition: form-data; name=\"attachment\"; filename=\"" + file_name + "\"\r\n"
+				+ "Content-Type: " + content_type + "\r\n\r\n").getBytes(StandardCharsets.UTF_8);
+	}
+
+	private static byte[] randomBytes(long size, long seed) {
+		byte[] bytes = new byte[(int) size];
+		new Random(seed).nextBytes(bytes);
+		return bytes;
+	}
+
+	/**
+	 * Requests one buffer at a time and gathers the body.
+	 *
+	 * @param mapped set when a direct buffer, a mapped window of a file, is emitted
+	 */
+	private static CompletableFuture<byte[]> collect(MultipartBodyPublisher publisher, AtomicBoolean mapped) {
+		CompletableFuture<byte[]> body = new CompletableFuture<>();
+		publisher.subscribe(new Flow.Subscriber<ByteBuffer>() {
+			private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+			private Flow.Subscription subscription;
+
+			@Override
+			public void onSubscribe(Flow.Subscription subscription) {
+				this.subscription = subscription;
+				subscription.request(1);
+			}
+
+			@Override
+			public void onNext(ByteBuffer item) {
+				if (item.isDirect()) mapped.set(true);
+				byte[] bytes = new byte[item.remaining()];
+				item.get(bytes);
+				out.write(bytes, 0, bytes.length);
+				subscription.request(1);
+			}
+
+			@Override
+			public void onError(Throwable throwable) {
+				body.completeExceptionally(throwable);
+			}
+
+			@Override
+			public void onComplete() {
+				body.complete(out.toByteArray());
+			}
+		});
+		return body;
+	}
+}
@@ -0,0 +1,67 @@
+package responses;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import helpers.ResolveJsonMappingToObjects;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CreateTaskAttachmentResponseDeserializerTest {
+
+	private static final String RESPONSE = "{\"id\":\"9a8b7c6d.jpg\",\"version\":0,\"date\":\"1700000000000\",\"name\":\"image.jpg\","
+			+ "\"title\":\"image.jpg\",\"extension\":\"jpg\",\"source\":2,\"thumbnail_small\":null,"
+			+ "\"thumbnail_medium\":\"https://t900.p.clickup-attachments.com/m.jpg\",\"thumbnail_large\":null,"
+			+ "\"url\":\"https://t900.p.clickup-attachments.com/image.jpg\",\"url_w_query\":\"https://t900.p.clickup-attachments.com/image.jpg?view=open\","
+			+ "\"url_w_host\":\"https://t900.p.clickup-attachments.com/image.jpg\"}";
+
+	@Test
+	public void TC01_HandWrittenBinding_matchesTheBeanDeserializer() throws Exception {
+		CreateTaskAttachmentResponse expected = new ObjectMapper().readValue(RESPONSE, CreateTaskAttachmentResponse.class);
+		CreateTaskAttachmentResponse actual = ResolveJsonMappingToObjects.convertJSON(RESPONSE, CreateTaskAttachmentResponse.class);
+
+		assertEquals(expected.getId(), actual.getId());
+		assertEquals("0", actual.getVersion(), "scalars are taken as text");
+		assertEquals(expected.getDate(), actual.getDate());
+		assertEquals(1700000000000L, actual.getDate().toEpochMilli());
+		assertEquals(expected.getName(), actual.getName());
+		assertEquals(expected.getTitle(), actual.getTitle());
+		assertEquals(expected.getExtension(), actual.getExtension());
+		assertEquals(2, actual.getSource());
+		assertNull(actual.getThumbnail_small());
+		assertEquals(expected.getThumbnail_medium(), actual.getThumbnail_medium());
+		assertEquals(expected.getUrl(), actual.getUrl());
+		assertEquals(expected.getUrl_w_query(), actual.getUrl_w_query());
+		assertEquals(expected.getUrl_w_host(), actual.getUrl_w_host());
+	}
+
+	@Test
+	public void TC02_UnknownProperty_followsTheMapperConfiguration() throws Exception {
+		String unknown = "{\"id\":\"1\",\"parent\":{\"id\":\"86aef6x03\",\"tags\":[1,2]},\"name\":\"a.txt\"}";
+		assertThrows(RuntimeException.class, () -> ResolveJsonMappingToObjects.convertJSON(unknown, CreateTaskAttachmentResponse.class));
+
+		ObjectMapper lenient = new ObjectMapper()
+				.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
+				.registerModule(ResolveJsonMappingToObjects.createResponseModule());
+		CreateTaskAttachmentResponse response = lenient.readValue(unknown, CreateTaskAttachmentResponse.class);
+		assertEquals("1", response.getId());
+		assertEquals("a.txt", response.getName(), "the unknown object is skipped whole");
+	}
+
+	@Test
+	public void TC03_ListReader_bindsEveryElement() throws Exception {
+		List<CreateTaskAttachmentResponse> list = ResolveJsonMappingToObjects.listReaderFor(CreateTaskAttachmentResponse.class)
+				.readValue("[" + RESPONSE + ",{}]");
+		assertEquals(2, list.size());
+		assertEquals("image.jpg", list.get(0).getName());
+		assertNull(list.get(1).getId());
+
+		List<CreateTaskAttachmentResponse> single = ResolveJsonMappingToObjects.listReaderFor(CreateTaskAttachmentResponse.class)
+				.readValue(RESPONSE);
+		assertEquals(1, single.size());
+	}
+}